@@ -1,19 +1,26 @@
 package com.avioconsulting.mule.opentelemetry.api.config;
 
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.AdditionalExporter;
 import com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter;
 import org.mule.runtime.api.meta.ExpressionSupport;
 import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.NullSafe;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.mule.runtime.extension.api.annotation.param.display.Summary;
 
+import java.util.List;
+
 /**
  * This class represents configuration parameters for OpenTelemetry Exporter to
  * be used.
  */
 public class ExporterConfiguration {
 
+  public static final long DEFAULT_DISK_BUFFER_MAX_SIZE = 104857600;
+  public static final long DEFAULT_SHUTDOWN_TIMEOUT = 10000;
+
   /**
    * Open Telemetry Exporter Configuration. System or Environment Variables will
    * override this configuration. See Documentation for variable details.
@@ -25,6 +32,65 @@ public class ExporterConfiguration {
   @Expression(ExpressionSupport.NOT_SUPPORTED)
   private OpenTelemetryExporter exporter;
 
+  /**
+   * Exporters that receive spans in addition to the main exporter, each with its
+   * own queue and sampling ratio.
+   */
+  @Parameter
+  @DisplayName(value = "Additional Exporters")
+  @Optional
+  @NullSafe
+  @Summary("Exporters that receive spans in addition to the main exporter, each with its own queue and sampling ratio.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private List<AdditionalExporter> additionalExporters;
+
+  /**
+   * Keep span and metric batches that the exporter fails to send in files on
+   * disk, and replay them in order once the collector is reachable again.
+   */
+  @Parameter
+  @DisplayName(value = "Enable Disk Buffer")
+  @Optional(defaultValue = "false")
+  @Summary("Keep span and metric batches that fail to export in files on disk, and replay them in order when the collector is reachable again.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private boolean diskBufferEnabled;
+
+  @Parameter
+  @DisplayName(value = "Disk Buffer Directory")
+  @Optional
+  @Summary("Directory for the disk buffer files. Defaults to otel-buffer/<config name> under mule.home, or the temp directory when mule.home is not set.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private String diskBufferDirectory;
+
+  @Parameter
+  @DisplayName(value = "Disk Buffer Max Size")
+  @Optional(defaultValue = "104857600")
+  @Summary("Maximum bytes buffered on disk for each of spans and metrics. Oldest batches are dropped when the buffer is full.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private long diskBufferMaxSize = DEFAULT_DISK_BUFFER_MAX_SIZE;
+
+  /**
+   * Maximum time to wait for pending spans and metrics to be exported when the
+   * application stops.
+   */
+  @Parameter
+  @DisplayName(value = "Shutdown Timeout")
+  @Optional(defaultValue = "10000")
+  @Summary("Maximum milliseconds to wait for pending spans and metrics to be exported when the application stops.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+  /**
+   * Number of most recent spans kept in memory for the Query Recent Spans
+   * operation, independent of the exporter.
+   */
+  @Parameter
+  @DisplayName(value = "Recent Spans Buffer Size")
+  @Optional(defaultValue = "0")
+  @Summary("Number of most recent spans kept in memory for the Query Recent Spans operation, even when the exporter fails. Set 0 to disable.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int recentSpansBufferSize;
+
   public ExporterConfiguration setExporter(OpenTelemetryExporter exporter) {
     this.exporter = exporter;
     return this;
@@ -33,4 +99,58 @@ public class ExporterConfiguration {
   public OpenTelemetryExporter getExporter() {
     return exporter;
   }
+
+  public List<AdditionalExporter> getAdditionalExporters() {
+    return additionalExporters;
+  }
+
+  public ExporterConfiguration setAdditionalExporters(List<AdditionalExporter> additionalExporters) {
+    this.additionalExporters = additionalExporters;
+    return this;
+  }
+
+  public boolean isDiskBufferEnabled() {
+    return diskBufferEnabled;
+  }
+
+  public ExporterConfiguration setDiskBufferEnabled(boolean diskBufferEnabled) {
+    this.diskBufferEnabled = diskBufferEnabled;
+    return this;
+  }
+
+  public String getDiskBufferDirectory() {
+    return diskBufferDirectory;
+  }
+
+  public ExporterConfiguration setDiskBufferDirectory(String diskBufferDirectory) {
+    this.diskBufferDirectory = diskBufferDirectory;
+    return this;
+  }
+
+  public long getDiskBufferMaxSize() {
+    return diskBufferMaxSize;
+  }
+
+  public ExporterConfiguration setDiskBufferMaxSize(long diskBufferMaxSize) {
+    this.diskBufferMaxSize = diskBufferMaxSize;
+    return this;
+  }
+
+  public long getShutdownTimeout() {
+    return shutdownTimeout;
+  }
+
+  public ExporterConfiguration setShutdownTimeout(long shutdownTimeout) {
+    this.shutdownTimeout = shutdownTimeout;
+    return this;
+  }
+
+  public int getRecentSpansBufferSize() {
+    return recentSpansBufferSize;
+  }
+
+  public ExporterConfiguration setRecentSpansBufferSize(int recentSpansBufferSize) {
+    this.recentSpansBufferSize = recentSpansBufferSize;
+    return this;
+  }
 }
@@ -0,0 +1,149 @@
+package com.avioconsulting.mule.opentelemetry.api.config;
+
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.ExemplarFilterType;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricView;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsTemporality;
+import org.mule.runtime.api.meta.ExpressionSupport;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.NullSafe;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_EXPORTER_OTLP_METRICS_TEMPORALITY_PREFERENCE_KEY;
+
+/**
+ * Metrics SDK's export and aggregation configuration parameters.
+ */
+public class MetricsConfiguration implements OtelConfigMapProvider {
+
+  public static final String OTEL_METRIC_EXPORT_INTERVAL_KEY = "otel.metric.export.interval";
+  public static final String OTEL_METRICS_EXEMPLAR_FILTER_KEY = "otel.metrics.exemplar.filter";
+
+  @Parameter
+  @Placement(order = 10, tab = "Metrics")
+  @DisplayName("Export Interval")
+  @Optional(defaultValue = "60000")
+  @Summary("The interval in milliseconds between two consecutive metric exports.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private long metricExportInterval = 60000;
+
+  @Parameter
+  @Placement(order = 20, tab = "Metrics")
+  @DisplayName("Temporality")
+  @Optional(defaultValue = "CUMULATIVE")
+  @Summary("Aggregation temporality preference of exported metrics. Delta exports only the change since the previous export.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private MetricsTemporality metricTemporality = MetricsTemporality.CUMULATIVE;
+
+  @Parameter
+  @Optional
+  @NullSafe
+  @Placement(order = 30, tab = "Metrics")
+  @DisplayName("Metric Views")
+  @Summary("List of views to drop attribute keys or change aggregation of instruments")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private List<MetricView> metricViews;
+
+  @Parameter
+  @Placement(order = 40, tab = "Metrics")
+  @DisplayName("Exemplar Filter")
+  @Optional(defaultValue = "TRACE_BASED")
+  @Summary("Measurements recorded as exemplars, linking histogram data points to traces. Trace based records measurements of sampled traces only.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private ExemplarFilterType exemplarFilter = ExemplarFilterType.TRACE_BASED;
+
+  @Parameter
+  @Placement(order = 50, tab = "Metrics")
+  @DisplayName("Max Exemplar Offers Per Export")
+  @Optional(defaultValue = "0")
+  @Summary("Maximum number of measurements offered to the exemplar reservoirs between two metric exports, across all instruments, sampled randomly over the export interval. Exemplars kept per data point are still limited by the SDK. Set 0 to offer every measurement passing the exemplar filter.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int maxExemplarOffers;
+
+  public MetricsConfiguration() {
+  }
+
+  public MetricsConfiguration(long metricExportInterval, MetricsTemporality metricTemporality) {
+    this.metricExportInterval = metricExportInterval;
+    this.metricTemporality = metricTemporality;
+  }
+
+  public long getMetricExportInterval() {
+    return metricExportInterval;
+  }
+
+  public MetricsTemporality getMetricTemporality() {
+    return metricTemporality;
+  }
+
+  public List<MetricView> getMetricViews() {
+    return metricViews;
+  }
+
+  public MetricsConfiguration setMetricViews(List<MetricView> metricViews) {
+    this.metricViews = metricViews;
+    return this;
+  }
+
+  public ExemplarFilterType getExemplarFilter() {
+    return exemplarFilter;
+  }
+
+  public MetricsConfiguration setExemplarFilter(ExemplarFilterType exemplarFilter) {
+    this.exemplarFilter = exemplarFilter;
+    return this;
+  }
+
+  public int getMaxExemplarOffers() {
+    return maxExemplarOffers;
+  }
+
+  public MetricsConfiguration setMaxExemplarOffers(int maxExemplarOffers) {
+    this.maxExemplarOffers = maxExemplarOffers;
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    MetricsConfiguration that = (MetricsConfiguration) o;
+    return getMetricExportInterval() == that.getMetricExportInterval()
+        && getMetricTemporality() == that.getMetricTemporality()
+        && Objects.equals(getMetricViews(), that.getMetricViews())
+        && getExemplarFilter() == that.getExemplarFilter()
+        && getMaxExemplarOffers() == that.getMaxExemplarOffers();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getMetricExportInterval(), getMetricTemporality(), getMetricViews(), getExemplarFilter(),
+        getMaxExemplarOffers());
+  }
+
+  @Override
+  public Map<String, String> getConfigMap() {
+    Map<String, String> configMap = new HashMap<>();
+    if (getMetricExportInterval() > 0) {
+      configMap.put(OTEL_METRIC_EXPORT_INTERVAL_KEY, String.valueOf(getMetricExportInterval()));
+    }
+    if (getMetricTemporality() != null) {
+      configMap.put(OTEL_EXPORTER_OTLP_METRICS_TEMPORALITY_PREFERENCE_KEY, getMetricTemporality().getValue());
+    }
+    if (getExemplarFilter() != null) {
+      configMap.put(OTEL_METRICS_EXEMPLAR_FILTER_KEY, getExemplarFilter().getValue());
+    }
+    return Collections.unmodifiableMap(configMap);
+  }
+}
@@ -0,0 +1,17 @@
+package com.avioconsulting.mule.opentelemetry.api.config;
+
+/**
+ * What to drop when a lane of the priority span processor is full.
+ */
+public enum SpanDropPolicy {
+
+  // Drop the span being added
+  DROP_NEWEST,
+
+  // Drop the oldest queued span to make room for the new one
+  DROP_OLDEST,
+
+  // Drop the oldest queued span that isn't an error, otherwise the new span
+  DROP_NON_ERROR_FIRST
+
+}
@@ -44,6 +44,27 @@ public class SpanProcessorConfiguration implements OtelConfigMapProvider {
   @Summary("The Maximum number of milliseconds the exporter will wait for a batch to export before cancelling the export.")
   private long exportTimeout;
 
+  @Parameter
+  @Placement(order = 50, tab = "Tracer Settings")
+  @DisplayName("Priority Lanes")
+  @Optional(defaultValue = "false")
+  @Summary("Queue error spans and transaction root spans in a reserved lane, separate from other spans, so they are not dropped when the queue is full.")
+  private boolean priorityLanesEnabled;
+
+  @Parameter
+  @Placement(order = 60, tab = "Tracer Settings")
+  @DisplayName("Priority Lane Queue Size")
+  @Optional(defaultValue = "512")
+  @Summary("The maximum number of error and root spans in the priority lane. Max Queue Size applies to the other spans.")
+  private long priorityQueueSize = 512;
+
+  @Parameter
+  @Placement(order = 70, tab = "Tracer Settings")
+  @DisplayName("Drop Policy")
+  @Optional(defaultValue = "DROP_NEWEST")
+  @Summary("Spans to drop when a lane is full.")
+  private SpanDropPolicy dropPolicy = SpanDropPolicy.DROP_NEWEST;
+
   public SpanProcessorConfiguration() {
   }
 
@@ -71,6 +92,33 @@ public class SpanProcessorConfiguration implements OtelConfigMapProvider {
     return exportTimeout;
   }
 
+  public boolean isPriorityLanesEnabled() {
+    return priorityLanesEnabled;
+  }
+
+  public SpanProcessorConfiguration setPriorityLanesEnabled(boolean priorityLanesEnabled) {
+    this.priorityLanesEnabled = priorityLanesEnabled;
+    return this;
+  }
+
+  public long getPriorityQueueSize() {
+    return priorityQueueSize;
+  }
+
+  public SpanProcessorConfiguration setPriorityQueueSize(long priorityQueueSize) {
+    this.priorityQueueSize = priorityQueueSize;
+    return this;
+  }
+
+  public SpanDropPolicy getDropPolicy() {
+    return dropPolicy;
+  }
+
+  public SpanProcessorConfiguration setDropPolicy(SpanDropPolicy dropPolicy) {
+    this.dropPolicy = dropPolicy;
+    return this;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
@@ -80,13 +128,16 @@ public class SpanProcessorConfiguration implements OtelConfigMapProvider {
     SpanProcessorConfiguration that = (SpanProcessorConfiguration) o;
     return getMaxQueueSize() == that.getMaxQueueSize() && getMaxBatchExportSize() == that.getMaxBatchExportSize()
         && getBatchExportDelayInterval() == that.getBatchExportDelayInterval()
-        && getExportTimeout() == that.getExportTimeout();
+        && getExportTimeout() == that.getExportTimeout()
+        && isPriorityLanesEnabled() == that.isPriorityLanesEnabled()
+        && getPriorityQueueSize() == that.getPriorityQueueSize()
+        && getDropPolicy() == that.getDropPolicy();
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(getMaxQueueSize(), getMaxBatchExportSize(), getBatchExportDelayInterval(),
-        getExportTimeout());
+        getExportTimeout(), isPriorityLanesEnabled(), getPriorityQueueSize(), getDropPolicy());
   }
 
   @Override
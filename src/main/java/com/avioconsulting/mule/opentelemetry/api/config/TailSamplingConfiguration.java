@@ -0,0 +1,90 @@
+package com.avioconsulting.mule.opentelemetry.api.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.Objects;
+
+/**
+ * Module side tail sampling configuration. When enabled, spans of a trace are
+ * held back until the local root (flow) span ends and then either exported or
+ * dropped as a whole.
+ */
+public class TailSamplingConfiguration {
+
+  @Parameter
+  @Placement(order = 10, tab = "Tracer Settings")
+  @DisplayName("Enable Tail Sampling")
+  @Optional(defaultValue = "false")
+  @Summary("Defer export of transaction spans until the root flow ends, and only keep errored, slow or baseline sampled transactions.")
+  private boolean tailSamplingEnabled;
+
+  @Parameter
+  @Placement(order = 20, tab = "Tracer Settings")
+  @DisplayName("Latency Threshold")
+  @Optional(defaultValue = "1000")
+  @Summary("Transactions taking longer than this many milliseconds are always kept.")
+  private long latencyThreshold;
+
+  @Parameter
+  @Placement(order = 30, tab = "Tracer Settings")
+  @DisplayName("Baseline Ratio")
+  @Optional(defaultValue = "0.1")
+  @Summary("Ratio (0.0 - 1.0) of successful, fast transactions to keep. Decision is derived from the trace id.")
+  private double baselineRatio;
+
+  @Parameter
+  @Placement(order = 40, tab = "Tracer Settings")
+  @DisplayName("Max Pending Traces")
+  @Optional(defaultValue = "10000")
+  @Summary("Maximum number of traces buffered while waiting for their root span. When exceeded, spans of the oldest pending trace are exported without a sampling decision.")
+  private int maxPendingTraces;
+
+  public TailSamplingConfiguration() {
+  }
+
+  public TailSamplingConfiguration(boolean tailSamplingEnabled, long latencyThreshold, double baselineRatio,
+      int maxPendingTraces) {
+    this.tailSamplingEnabled = tailSamplingEnabled;
+    this.latencyThreshold = latencyThreshold;
+    this.baselineRatio = baselineRatio;
+    this.maxPendingTraces = maxPendingTraces;
+  }
+
+  public boolean isTailSamplingEnabled() {
+    return tailSamplingEnabled;
+  }
+
+  public long getLatencyThreshold() {
+    return latencyThreshold;
+  }
+
+  public double getBaselineRatio() {
+    return baselineRatio;
+  }
+
+  public int getMaxPendingTraces() {
+    return maxPendingTraces;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    TailSamplingConfiguration that = (TailSamplingConfiguration) o;
+    return isTailSamplingEnabled() == that.isTailSamplingEnabled()
+        && getLatencyThreshold() == that.getLatencyThreshold()
+        && Double.compare(that.getBaselineRatio(), getBaselineRatio()) == 0
+        && getMaxPendingTraces() == that.getMaxPendingTraces();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(isTailSamplingEnabled(), getLatencyThreshold(), getBaselineRatio(), getMaxPendingTraces());
+  }
+}
@@ -4,6 +4,7 @@ import org.mule.runtime.extension.api.annotation.param.NullSafe;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Example;
 import org.mule.runtime.extension.api.annotation.param.display.Placement;
 import org.mule.runtime.extension.api.annotation.param.display.Summary;
 
@@ -43,6 +44,38 @@ public class TraceLevelConfiguration {
   @Summary("Module uses message processor interception mechanism to inject trace context variable. Any specific message processor (namespace:name) or specific namespace (namespace:*) can be included from this interception process.")
   private List<MuleComponent> interceptionEnabledComponents;
 
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Placement(order = 3)
+  @DisplayName(value = "Max Repeated Processor Spans")
+  @Summary("Maximum number of spans to create for repeated executions of the same processor in a transaction, eg. inside a foreach. Further successful executions are folded into a single summary span. Zero creates a span for every execution.")
+  private int maxRepeatedProcessorSpans;
+
+  @Parameter
+  @Optional(defaultValue = "-1")
+  @Placement(order = 4)
+  @DisplayName(value = "Processor Spans Latency Threshold")
+  @Summary("When zero or more, processor executions are only recorded while a transaction runs. Processor spans are created when the transaction ends, only if it took at least this many milliseconds or a processor failed. Default -1 creates processor spans for every transaction.")
+  private long processorSpansLatencyThreshold = -1;
+
+  @Parameter
+  @NullSafe
+  @Optional
+  @Placement(order = 5)
+  @DisplayName(value = "Root Span Only Attributes")
+  @Summary("Tag keys to set on the root span of a transaction only, instead of every span, eg. tags that are constant for the transaction. A key ending with * matches keys starting with it.")
+  @Example("mule.correlationId")
+  private List<String> rootSpanOnlyAttributes;
+
+  @Parameter
+  @NullSafe
+  @Optional
+  @Placement(order = 6)
+  @DisplayName(value = "Dropped Span Attributes")
+  @Summary("Tag keys to not set on any span. A key ending with * matches keys starting with it.")
+  @Example("mule.app.processor.configRef")
+  private List<String> droppedSpanAttributes;
+
   public TraceLevelConfiguration() {
   }
 
@@ -74,4 +107,40 @@ public class TraceLevelConfiguration {
     return interceptionEnabledComponents;
   }
 
+  public int getMaxRepeatedProcessorSpans() {
+    return maxRepeatedProcessorSpans;
+  }
+
+  public TraceLevelConfiguration setMaxRepeatedProcessorSpans(int maxRepeatedProcessorSpans) {
+    this.maxRepeatedProcessorSpans = maxRepeatedProcessorSpans;
+    return this;
+  }
+
+  public long getProcessorSpansLatencyThreshold() {
+    return processorSpansLatencyThreshold;
+  }
+
+  public TraceLevelConfiguration setProcessorSpansLatencyThreshold(long processorSpansLatencyThreshold) {
+    this.processorSpansLatencyThreshold = processorSpansLatencyThreshold;
+    return this;
+  }
+
+  public List<String> getRootSpanOnlyAttributes() {
+    return rootSpanOnlyAttributes;
+  }
+
+  public TraceLevelConfiguration setRootSpanOnlyAttributes(List<String> rootSpanOnlyAttributes) {
+    this.rootSpanOnlyAttributes = rootSpanOnlyAttributes;
+    return this;
+  }
+
+  public List<String> getDroppedSpanAttributes() {
+    return droppedSpanAttributes;
+  }
+
+  public TraceLevelConfiguration setDroppedSpanAttributes(List<String> droppedSpanAttributes) {
+    this.droppedSpanAttributes = droppedSpanAttributes;
+    return this;
+  }
+
 }
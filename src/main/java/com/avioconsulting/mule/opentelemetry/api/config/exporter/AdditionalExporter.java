@@ -0,0 +1,148 @@
+package com.avioconsulting.mule.opentelemetry.api.config.exporter;
+
+import org.mule.runtime.api.meta.ExpressionSupport;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.Objects;
+
+/**
+ * Exporter that receives spans in addition to the main exporter. Each
+ * additional exporter has its own span queue and export thread, so a slow or
+ * failing exporter only drops its own spans.
+ */
+@Alias("Additional Exporter")
+public class AdditionalExporter {
+
+  @Parameter
+  @Placement(order = 1)
+  @DisplayName("OpenTelemetry Exporter")
+  @Summary("Exporter to send spans to, in addition to the main exporter.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private OpenTelemetryExporter exporter;
+
+  @Parameter
+  @Placement(order = 2)
+  @Optional(defaultValue = "1.0")
+  @Summary("Ratio (0.0 - 1.0) of traces to export to this exporter, derived from trace id so whole traces are exported.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private double samplingRatio = 1.0;
+
+  @Parameter
+  @Placement(order = 3)
+  @Optional(defaultValue = "2048")
+  @Summary("The maximum number of spans in the waiting queue of this exporter. Any new spans are dropped once the queue is full.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int maxQueueSize = 2048;
+
+  @Parameter
+  @Placement(order = 4)
+  @Optional(defaultValue = "512")
+  @Summary("The maximum number of spans to export in a single batch. This must be smaller or equal to Max Queue Size.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int maxBatchExportSize = 512;
+
+  @Parameter
+  @Placement(order = 5)
+  @Optional(defaultValue = "5000")
+  @Summary("The delay interval in milliseconds between two consecutive batch exports.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private long batchExportDelayInterval = 5000;
+
+  @Parameter
+  @Placement(order = 6)
+  @Optional(defaultValue = "30000")
+  @Summary("The Maximum number of milliseconds the exporter will wait for a batch to export before cancelling the export.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private long exportTimeout = 30000;
+
+  public AdditionalExporter() {
+  }
+
+  public AdditionalExporter(OpenTelemetryExporter exporter) {
+    this.exporter = exporter;
+  }
+
+  public OpenTelemetryExporter getExporter() {
+    return exporter;
+  }
+
+  public AdditionalExporter setExporter(OpenTelemetryExporter exporter) {
+    this.exporter = exporter;
+    return this;
+  }
+
+  public double getSamplingRatio() {
+    return samplingRatio;
+  }
+
+  public AdditionalExporter setSamplingRatio(double samplingRatio) {
+    this.samplingRatio = samplingRatio;
+    return this;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  public AdditionalExporter setMaxQueueSize(int maxQueueSize) {
+    this.maxQueueSize = maxQueueSize;
+    return this;
+  }
+
+  public int getMaxBatchExportSize() {
+    return maxBatchExportSize;
+  }
+
+  public AdditionalExporter setMaxBatchExportSize(int maxBatchExportSize) {
+    this.maxBatchExportSize = maxBatchExportSize;
+    return this;
+  }
+
+  public long getBatchExportDelayInterval() {
+    return batchExportDelayInterval;
+  }
+
+  public AdditionalExporter setBatchExportDelayInterval(long batchExportDelayInterval) {
+    this.batchExportDelayInterval = batchExportDelayInterval;
+    return this;
+  }
+
+  public long getExportTimeout() {
+    return exportTimeout;
+  }
+
+  public AdditionalExporter setExportTimeout(long exportTimeout) {
+    this.exportTimeout = exportTimeout;
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    AdditionalExporter that = (AdditionalExporter) o;
+    return Double.compare(that.getSamplingRatio(), getSamplingRatio()) == 0
+        && getMaxQueueSize() == that.getMaxQueueSize() && getMaxBatchExportSize() == that.getMaxBatchExportSize()
+        && getBatchExportDelayInterval() == that.getBatchExportDelayInterval()
+        && getExportTimeout() == that.getExportTimeout() && Objects.equals(getExporter(), that.getExporter());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getExporter(), getSamplingRatio(), getMaxQueueSize(), getMaxBatchExportSize(),
+        getBatchExportDelayInterval(), getExportTimeout());
+  }
+
+  @Override
+  public String toString() {
+    return "AdditionalExporter{" + exporter + ", samplingRatio=" + samplingRatio + '}';
+  }
+}
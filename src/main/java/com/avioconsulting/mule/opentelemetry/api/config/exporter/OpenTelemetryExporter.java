@@ -6,6 +6,7 @@ public interface OpenTelemetryExporter {
   String OTEL_TRACES_EXPORTER_KEY = "otel.traces.exporter";
   String OTEL_METRICS_EXPORTER_KEY = "otel.metrics.exporter";
   String OTEL_LOGS_EXPORTER_KEY = "otel.logs.exporter";
+  String OTEL_EXPORTER_OTLP_METRICS_TEMPORALITY_PREFERENCE_KEY = "otel.exporter.otlp.metrics.temporality.preference";
 
   Map<String, String> getExporterProperties();
 }
@@ -16,6 +16,7 @@ import java.util.stream.Collectors;
 public class OtlpExporter extends AbstractExporter {
 
   public static final String OTLP = "otlp";
+  public static final String OTLP_STREAMING = "otlp-streaming";
   public static final String OTEL_EXPORTER_OTLP_PROTOCOL = "otel.exporter.otlp.protocol";
   public static final String OTEL_EXPORTER_OTLP_ENDPOINT = "otel.exporter.otlp.endpoint";
   public static final String OTEL_EXPORTER_OTLP_TRACES_ENDPOINT = "otel.exporter.otlp.traces.endpoint";
@@ -48,10 +49,25 @@ public class OtlpExporter extends AbstractExporter {
   @Summary("Key-value pairs separated by commas to pass as request headers on OTLP trace, metric, and log requests.")
   private List<Header> headers;
 
+  @Parameter
+  @Optional(defaultValue = "false")
+  @DisplayName("Streaming Span Serializer")
+  @Summary("Export spans with the module's streaming protobuf serializer instead of the OTLP exporter's marshalers. Applies to HTTP_PROTOBUF protocol only.")
+  private boolean streamingSpanSerializer;
+
   public List<Header> getHeaders() {
     return headers;
   }
 
+  public boolean isStreamingSpanSerializer() {
+    return streamingSpanSerializer;
+  }
+
+  public OtlpExporter setStreamingSpanSerializer(boolean streamingSpanSerializer) {
+    this.streamingSpanSerializer = streamingSpanSerializer;
+    return this;
+  }
+
   public OtlpRequestCompression getRequestCompression() {
     return requestCompression;
   }
@@ -89,7 +105,8 @@ public class OtlpExporter extends AbstractExporter {
 
   public Map<String, String> getExporterProperties() {
     Map<String, String> config = super.getExporterProperties();
-    config.put(OTEL_TRACES_EXPORTER_KEY, OTLP);
+    config.put(OTEL_TRACES_EXPORTER_KEY,
+        streamingSpanSerializer && Protocol.HTTP_PROTOBUF.equals(protocol) ? OTLP_STREAMING : OTLP);
     config.put(OTEL_METRICS_EXPORTER_KEY, OTLP);
     config.put(OTEL_EXPORTER_OTLP_PROTOCOL, protocol.getValue());
     config.put(OTEL_EXPORTER_OTLP_ENDPOINT, getCollectorEndpoint());
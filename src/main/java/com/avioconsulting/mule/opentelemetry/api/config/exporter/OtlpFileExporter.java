@@ -0,0 +1,130 @@
+package com.avioconsulting.mule.opentelemetry.api.config.exporter;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Writes spans and metrics as OTLP-JSON lines to local files, for a collector
+ * agent to tail.
+ */
+public class OtlpFileExporter extends AbstractExporter {
+
+  public static final String OTLP_FILE = "otlp-file";
+  public static final String OTEL_EXPORTER_OTLP_FILE_DIRECTORY_KEY = "otel.exporter.otlp.file.directory";
+  public static final String OTEL_EXPORTER_OTLP_FILE_MAX_SIZE_KEY = "otel.exporter.otlp.file.max.size";
+  public static final String OTEL_EXPORTER_OTLP_FILE_ROTATION_INTERVAL_KEY = "otel.exporter.otlp.file.rotation.interval";
+  public static final String OTEL_EXPORTER_OTLP_FILE_MAX_FILES_KEY = "otel.exporter.otlp.file.max.files";
+  public static final String OTEL_EXPORTER_OTLP_FILE_COMPRESS_KEY = "otel.exporter.otlp.file.compress";
+  public static final String OTEL_EXPORTER_OTLP_FILE_QUEUE_SIZE_KEY = "otel.exporter.otlp.file.queue.size";
+
+  @Parameter
+  @Optional
+  @DisplayName("Directory")
+  @Summary("Directory to write traces.jsonl and metrics.jsonl files to. Defaults to logs/otel/<service name> under mule.home, or the temp directory when mule.home is not set.")
+  private String directory;
+
+  @Parameter
+  @Optional(defaultValue = "10485760")
+  @DisplayName("Max File Size")
+  @Summary("Bytes after which a file is rotated.")
+  private long maxFileSize = 10485760;
+
+  @Parameter
+  @Optional(defaultValue = "3600000")
+  @DisplayName("Rotation Interval")
+  @Summary("Milliseconds after which a non-empty file is rotated. Set 0 to rotate only by size.")
+  private long rotationInterval = 3600000;
+
+  @Parameter
+  @Optional(defaultValue = "10")
+  @DisplayName("Max Rotated Files")
+  @Summary("Number of rotated files kept per signal, older ones are deleted.")
+  private int maxRotatedFiles = 10;
+
+  @Parameter
+  @Optional(defaultValue = "false")
+  @DisplayName("Compress Rotated Files")
+  @Summary("Gzip files when they are rotated.")
+  private boolean compressRotatedFiles;
+
+  @Parameter
+  @Optional(defaultValue = "2048")
+  @DisplayName("Max Queue Size")
+  @Summary("Maximum export batches waiting for the writer thread. Batches are dropped when the queue is full.")
+  private int maxQueueSize = 2048;
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public OtlpFileExporter setDirectory(String directory) {
+    this.directory = directory;
+    return this;
+  }
+
+  public long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public OtlpFileExporter setMaxFileSize(long maxFileSize) {
+    this.maxFileSize = maxFileSize;
+    return this;
+  }
+
+  public long getRotationInterval() {
+    return rotationInterval;
+  }
+
+  public OtlpFileExporter setRotationInterval(long rotationInterval) {
+    this.rotationInterval = rotationInterval;
+    return this;
+  }
+
+  public int getMaxRotatedFiles() {
+    return maxRotatedFiles;
+  }
+
+  public OtlpFileExporter setMaxRotatedFiles(int maxRotatedFiles) {
+    this.maxRotatedFiles = maxRotatedFiles;
+    return this;
+  }
+
+  public boolean isCompressRotatedFiles() {
+    return compressRotatedFiles;
+  }
+
+  public OtlpFileExporter setCompressRotatedFiles(boolean compressRotatedFiles) {
+    this.compressRotatedFiles = compressRotatedFiles;
+    return this;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  public OtlpFileExporter setMaxQueueSize(int maxQueueSize) {
+    this.maxQueueSize = maxQueueSize;
+    return this;
+  }
+
+  @Override
+  public Map<String, String> getExporterProperties() {
+    Map<String, String> config = super.getExporterProperties();
+    config.put(OpenTelemetryExporter.OTEL_TRACES_EXPORTER_KEY, OTLP_FILE);
+    config.put(OpenTelemetryExporter.OTEL_METRICS_EXPORTER_KEY, OTLP_FILE);
+    if (getDirectory() != null) {
+      config.put(OTEL_EXPORTER_OTLP_FILE_DIRECTORY_KEY, getDirectory());
+    }
+    config.put(OTEL_EXPORTER_OTLP_FILE_MAX_SIZE_KEY, String.valueOf(getMaxFileSize()));
+    config.put(OTEL_EXPORTER_OTLP_FILE_ROTATION_INTERVAL_KEY, getRotationInterval() + "ms");
+    config.put(OTEL_EXPORTER_OTLP_FILE_MAX_FILES_KEY, String.valueOf(getMaxRotatedFiles()));
+    config.put(OTEL_EXPORTER_OTLP_FILE_COMPRESS_KEY, String.valueOf(isCompressRotatedFiles()));
+    config.put(OTEL_EXPORTER_OTLP_FILE_QUEUE_SIZE_KEY, String.valueOf(getMaxQueueSize()));
+    return Collections.unmodifiableMap(config);
+  }
+}
@@ -57,6 +57,31 @@ public class CustomMetricInstrumentDefinition {
   @Alias("attribute-keys")
   private List<String> attributeKeys;
 
+  @Parameter
+  @Placement(order = 6)
+  @Optional(defaultValue = "EXPLICIT_BUCKETS")
+  @DisplayName("Histogram Aggregation")
+  @Summary("Bucket aggregation for Histogram instruments. Explicit buckets use the configured bucket boundaries, base2 exponential buckets adjust to the recorded values.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private HistogramAggregation histogramAggregation = HistogramAggregation.EXPLICIT_BUCKETS;
+
+  @Parameter
+  @Placement(order = 7)
+  @Optional
+  @Summary("Ascending bucket boundaries for Histogram instruments with explicit buckets. SDK default boundaries are used when not set.")
+  @Example("100")
+  @NullSafe
+  @Alias("bucket-boundaries")
+  private List<Double> bucketBoundaries;
+
+  @Parameter
+  @Placement(order = 8)
+  @Optional(defaultValue = "160")
+  @DisplayName("Max Buckets")
+  @Summary("Maximum number of positive and of negative buckets for Histogram instruments with base2 exponential buckets. Must be at least 2.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int maxBuckets = 160;
+
   public String getMetricName() {
     return metricName;
   }
@@ -102,6 +127,33 @@ public class CustomMetricInstrumentDefinition {
     return this;
   }
 
+  public HistogramAggregation getHistogramAggregation() {
+    return histogramAggregation;
+  }
+
+  public CustomMetricInstrumentDefinition setHistogramAggregation(HistogramAggregation histogramAggregation) {
+    this.histogramAggregation = histogramAggregation;
+    return this;
+  }
+
+  public List<Double> getBucketBoundaries() {
+    return bucketBoundaries;
+  }
+
+  public CustomMetricInstrumentDefinition setBucketBoundaries(List<Double> bucketBoundaries) {
+    this.bucketBoundaries = bucketBoundaries;
+    return this;
+  }
+
+  public int getMaxBuckets() {
+    return maxBuckets;
+  }
+
+  public CustomMetricInstrumentDefinition setMaxBuckets(int maxBuckets) {
+    this.maxBuckets = maxBuckets;
+    return this;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
@@ -112,11 +164,15 @@ public class CustomMetricInstrumentDefinition {
     return Objects.equals(getMetricName(), that.getMetricName())
         && Objects.equals(getDescription(), that.getDescription())
         && Objects.equals(getUnit(), that.getUnit()) && getInstrumentType() == that.getInstrumentType()
-        && Objects.equals(getAttributeKeys(), that.getAttributeKeys());
+        && Objects.equals(getAttributeKeys(), that.getAttributeKeys())
+        && getHistogramAggregation() == that.getHistogramAggregation()
+        && Objects.equals(getBucketBoundaries(), that.getBucketBoundaries())
+        && getMaxBuckets() == that.getMaxBuckets();
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(getMetricName(), getDescription(), getUnit(), getInstrumentType(), getAttributeKeys());
+    return Objects.hash(getMetricName(), getDescription(), getUnit(), getInstrumentType(), getAttributeKeys(),
+        getHistogramAggregation(), getBucketBoundaries(), getMaxBuckets());
   }
 }
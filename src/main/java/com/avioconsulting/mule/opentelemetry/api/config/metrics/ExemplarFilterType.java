@@ -0,0 +1,27 @@
+package com.avioconsulting.mule.opentelemetry.api.config.metrics;
+
+/**
+ * Measurements that are offered as exemplars, linking a metric data point to
+ * the trace it was recorded in.
+ */
+public enum ExemplarFilterType {
+
+  // Measurements recorded in a sampled trace
+  TRACE_BASED("trace_based"),
+
+  // All measurements, including the ones without a trace
+  ALWAYS_ON("always_on"),
+
+  // No exemplars are recorded
+  ALWAYS_OFF("always_off");
+
+  private final String value;
+
+  ExemplarFilterType(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
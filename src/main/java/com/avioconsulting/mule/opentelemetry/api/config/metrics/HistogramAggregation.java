@@ -0,0 +1,15 @@
+package com.avioconsulting.mule.opentelemetry.api.config.metrics;
+
+/**
+ * How values recorded on a {@link MetricsInstrumentType#HISTOGRAM} instrument
+ * are aggregated into buckets.
+ */
+public enum HistogramAggregation {
+
+  // Buckets with explicitly configured boundaries
+  EXPLICIT_BUCKETS,
+
+  // Base2 exponential buckets scaled to the recorded values
+  BASE2_EXPONENTIAL
+
+}
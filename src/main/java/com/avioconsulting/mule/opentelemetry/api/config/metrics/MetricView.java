@@ -0,0 +1,141 @@
+package com.avioconsulting.mule.opentelemetry.api.config.metrics;
+
+import org.mule.runtime.api.meta.ExpressionSupport;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.NullSafe;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Example;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * View to change how the SDK aggregates an instrument before export. Dropped
+ * attribute keys are removed from the recorded attributes, which reduces the
+ * series held in memory and the exported payload.
+ */
+@Alias("Metric View")
+public class MetricView {
+
+  @Parameter
+  @Placement(order = 1)
+  @Summary("Name of the instrument to apply this view to. '*' matches any characters and '?' a single character.")
+  @Example("mule.app.processor.request.duration")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private String instrumentName;
+
+  @Parameter
+  @Placement(order = 2)
+  @Optional
+  @Summary("Attribute keys to drop from the recorded attributes.")
+  @Example("mule.app.processor.configRef")
+  @NullSafe
+  @Alias("dropped-attribute-keys")
+  private List<String> droppedAttributeKeys;
+
+  @Parameter
+  @Placement(order = 3)
+  @Optional(defaultValue = "DEFAULT")
+  @Summary("Aggregation of the selected instruments.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private MetricViewAggregation aggregation = MetricViewAggregation.DEFAULT;
+
+  @Parameter
+  @Placement(order = 4)
+  @Optional
+  @Summary("Ascending bucket boundaries for explicit bucket histogram aggregation. SDK default boundaries are used when not set.")
+  @Example("100")
+  @NullSafe
+  @Alias("bucket-boundaries")
+  private List<Double> bucketBoundaries;
+
+  @Parameter
+  @Placement(order = 5)
+  @Optional(defaultValue = "160")
+  @DisplayName("Max Buckets")
+  @Summary("Maximum number of positive and negative buckets for base2 exponential histogram aggregation. Must be at least 2.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int maxBuckets = 160;
+
+  public MetricView() {
+  }
+
+  public MetricView(String instrumentName) {
+    this.instrumentName = instrumentName;
+  }
+
+  public String getInstrumentName() {
+    return instrumentName;
+  }
+
+  public MetricView setInstrumentName(String instrumentName) {
+    this.instrumentName = instrumentName;
+    return this;
+  }
+
+  public List<String> getDroppedAttributeKeys() {
+    return droppedAttributeKeys;
+  }
+
+  public MetricView setDroppedAttributeKeys(List<String> droppedAttributeKeys) {
+    this.droppedAttributeKeys = droppedAttributeKeys;
+    return this;
+  }
+
+  public MetricViewAggregation getAggregation() {
+    return aggregation;
+  }
+
+  public MetricView setAggregation(MetricViewAggregation aggregation) {
+    this.aggregation = aggregation;
+    return this;
+  }
+
+  public List<Double> getBucketBoundaries() {
+    return bucketBoundaries;
+  }
+
+  public MetricView setBucketBoundaries(List<Double> bucketBoundaries) {
+    this.bucketBoundaries = bucketBoundaries;
+    return this;
+  }
+
+  public int getMaxBuckets() {
+    return maxBuckets;
+  }
+
+  public MetricView setMaxBuckets(int maxBuckets) {
+    this.maxBuckets = maxBuckets;
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    MetricView that = (MetricView) o;
+    return getMaxBuckets() == that.getMaxBuckets() && Objects.equals(getInstrumentName(), that.getInstrumentName())
+        && Objects.equals(getDroppedAttributeKeys(), that.getDroppedAttributeKeys())
+        && getAggregation() == that.getAggregation()
+        && Objects.equals(getBucketBoundaries(), that.getBucketBoundaries());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getInstrumentName(), getDroppedAttributeKeys(), getAggregation(), getBucketBoundaries(),
+        getMaxBuckets());
+  }
+
+  @Override
+  public String toString() {
+    return "MetricView{" + instrumentName + ", droppedAttributeKeys=" + droppedAttributeKeys + ", aggregation="
+        + aggregation + '}';
+  }
+}
@@ -0,0 +1,27 @@
+package com.avioconsulting.mule.opentelemetry.api.config.metrics;
+
+/**
+ * Aggregation applied by a {@link MetricView} to the selected instruments.
+ */
+public enum MetricViewAggregation {
+
+  // Aggregation of the instrument type, or the aggregation advised by the
+  // instrument
+  DEFAULT,
+
+  // Drop all recorded values, the instrument is not exported
+  DROP,
+
+  // Sum of the recorded values
+  SUM,
+
+  // Last recorded value
+  LAST_VALUE,
+
+  // Histogram with the configured bucket boundaries
+  EXPLICIT_BUCKETS,
+
+  // Base2 exponential histogram scaled to the recorded values
+  BASE2_EXPONENTIAL
+
+}
@@ -8,7 +8,17 @@ import java.util.stream.Collectors;
 public enum MetricsInstrumentType {
 
   // Counter - when value is monotonically increasing
-  COUNTER("counter");
+  COUNTER("counter"),
+
+  // Histogram - when distribution of values is needed, eg. latency or payload
+  // size
+  HISTOGRAM("histogram"),
+
+  // UpDownCounter - when value can increase and decrease, eg. in-flight work
+  UP_DOWN_COUNTER("up_down_counter"),
+
+  // Gauge - when the current value is recorded as-is, eg. queue backlog
+  GAUGE("gauge");
 
   private final String value;
   private static Map<String, MetricsInstrumentType> instrumentTypes;
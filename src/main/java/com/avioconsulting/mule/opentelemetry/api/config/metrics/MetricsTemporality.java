@@ -0,0 +1,26 @@
+package com.avioconsulting.mule.opentelemetry.api.config.metrics;
+
+/**
+ * Aggregation temporality preference of exported metrics.
+ */
+public enum MetricsTemporality {
+
+  // All instruments report the total since the application started
+  CUMULATIVE("cumulative"),
+
+  // Counters and histograms report the change since the previous export
+  DELTA("delta"),
+
+  // Delta for synchronous counters and histograms, cumulative for the others
+  LOWMEMORY("lowmemory");
+
+  private final String value;
+
+  MetricsTemporality(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
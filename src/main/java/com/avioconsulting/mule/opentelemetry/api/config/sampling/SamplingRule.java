@@ -0,0 +1,117 @@
+package com.avioconsulting.mule.opentelemetry.api.config.sampling;
+
+import org.mule.runtime.api.meta.ExpressionSupport;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Example;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.Objects;
+
+/**
+ * Sampling rule applied to the root span of a transaction. A rule either
+ * samples a ratio of matching transactions or limits them to a rate per second.
+ */
+@Alias("Sampling Rule")
+public class SamplingRule {
+
+  @Parameter
+  @Placement(order = 1)
+  @DisplayName("Match On")
+  @Summary("Transaction attribute to match this rule against.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private SamplingRuleMatch matchOn;
+
+  @Parameter
+  @Placement(order = 2)
+  @Summary("Value of the attribute to match such as flow name, http route or source namespace.")
+  @Example("health-check-flow")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private String value;
+
+  @Parameter
+  @Placement(order = 3)
+  @Optional(defaultValue = "1.0")
+  @Summary("Ratio (0.0 - 1.0) of matching transactions to sample. Ignored when Max Transactions Per Second is set.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private double ratio = 1.0;
+
+  @Parameter
+  @Placement(order = 4)
+  @Optional(defaultValue = "0")
+  @DisplayName("Max Transactions Per Second")
+  @Summary("When greater than zero, matching transactions are sampled up to this rate using a token bucket.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private double maxTransactionsPerSecond;
+
+  public SamplingRule() {
+  }
+
+  public SamplingRule(SamplingRuleMatch matchOn, String value) {
+    this.matchOn = matchOn;
+    this.value = value;
+  }
+
+  public SamplingRuleMatch getMatchOn() {
+    return matchOn;
+  }
+
+  public SamplingRule setMatchOn(SamplingRuleMatch matchOn) {
+    this.matchOn = matchOn;
+    return this;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public SamplingRule setValue(String value) {
+    this.value = value;
+    return this;
+  }
+
+  public double getRatio() {
+    return ratio;
+  }
+
+  public SamplingRule setRatio(double ratio) {
+    this.ratio = ratio;
+    return this;
+  }
+
+  public double getMaxTransactionsPerSecond() {
+    return maxTransactionsPerSecond;
+  }
+
+  public SamplingRule setMaxTransactionsPerSecond(double maxTransactionsPerSecond) {
+    this.maxTransactionsPerSecond = maxTransactionsPerSecond;
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    SamplingRule that = (SamplingRule) o;
+    return getMatchOn() == that.getMatchOn() && Objects.equals(getValue(), that.getValue())
+        && Double.compare(that.getRatio(), getRatio()) == 0
+        && Double.compare(that.getMaxTransactionsPerSecond(), getMaxTransactionsPerSecond()) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getMatchOn(), getValue(), getRatio(), getMaxTransactionsPerSecond());
+  }
+
+  @Override
+  public String toString() {
+    return "SamplingRule{" + matchOn + "=" + value + ", ratio=" + ratio + ", maxTransactionsPerSecond="
+        + maxTransactionsPerSecond + '}';
+  }
+}
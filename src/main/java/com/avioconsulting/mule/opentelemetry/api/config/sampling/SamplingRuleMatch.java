@@ -0,0 +1,17 @@
+package com.avioconsulting.mule.opentelemetry.api.config.sampling;
+
+/**
+ * Transaction attribute that a {@link SamplingRule} is matched against.
+ */
+public enum SamplingRuleMatch {
+
+  // Name of the flow starting the transaction
+  FLOW_NAME,
+
+  // HTTP route (listener path) of the transaction
+  HTTP_ROUTE,
+
+  // Namespace of the flow source such as http, anypoint-mq, scheduler
+  SOURCE_NAMESPACE
+
+}
@@ -4,6 +4,7 @@ import com.avioconsulting.mule.opentelemetry.api.config.exporter.GenericExporter
 import com.avioconsulting.mule.opentelemetry.api.config.exporter.LoggingExporter;
 import com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter;
 import com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpExporter;
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpFileExporter;
 import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryExtensionConfiguration;
 import com.avioconsulting.mule.opentelemetry.internal.notifications.MetricNotificationAction;
 import org.mule.runtime.extension.api.annotation.Configurations;
@@ -17,6 +18,6 @@ import org.mule.runtime.extension.api.annotation.notification.NotificationAction
 @NotificationActions(MetricNotificationAction.class)
 @Configurations(OpenTelemetryExtensionConfiguration.class)
 @SubTypeMapping(baseType = OpenTelemetryExporter.class, subTypes = { OtlpExporter.class, LoggingExporter.class,
-    GenericExporter.class })
+    GenericExporter.class, OtlpFileExporter.class })
 public class OpenTelemetryExtension {
 }
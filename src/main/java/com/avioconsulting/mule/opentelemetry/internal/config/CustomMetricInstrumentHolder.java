@@ -1,9 +1,18 @@
 package com.avioconsulting.mule.opentelemetry.internal.config;
 
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricAttribute;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.CardinalityLimiter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.LongGaugeCells;
 import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -19,6 +28,7 @@ public class CustomMetricInstrumentHolder<I> {
   private CustomMetricInstrumentDefinition metricInstrument;
   private I instrument;
   private Map<String, AttributeKey<String>> attributeKeys = new HashMap<>();
+  private CardinalityLimiter cardinalityLimiter;
 
   public CustomMetricInstrumentDefinition getMetricInstrument() {
     return metricInstrument;
@@ -43,4 +53,69 @@ public class CustomMetricInstrumentHolder<I> {
   public Map<String, AttributeKey<String>> getAttributeKeys() {
     return attributeKeys;
   }
+
+  public CardinalityLimiter getCardinalityLimiter() {
+    return cardinalityLimiter;
+  }
+
+  public CustomMetricInstrumentHolder<I> setCardinalityLimiter(CardinalityLimiter cardinalityLimiter) {
+    this.cardinalityLimiter = cardinalityLimiter;
+    return this;
+  }
+
+  /**
+   * Build {@link Attributes} for a recording from the attribute keys created
+   * when this holder was initialized.
+   *
+   * @param metricAttributes
+   *            List of {@link MetricAttribute} to record, may be null
+   * @return Attributes or null if any attribute key is not configured on the
+   *         instrument
+   */
+  public Attributes buildAttributes(List<MetricAttribute> metricAttributes) {
+    if (metricAttributes == null || metricAttributes.isEmpty()) {
+      return Attributes.empty();
+    }
+    AttributesBuilder attributesBuilder = Attributes.builder();
+    for (int i = 0; i < metricAttributes.size(); i++) {
+      MetricAttribute attribute = metricAttributes.get(i);
+      AttributeKey<String> key = attributeKeys.get(attribute.getKey());
+      if (key == null) {
+        return null;
+      }
+      attributesBuilder.put(key, attribute.getValue());
+    }
+    return attributesBuilder.build();
+  }
+
+  /**
+   * Record a value on the instrument as per its
+   * {@link com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsInstrumentType}.
+   * Attributes over the {@link CardinalityLimiter} limit are recorded in the
+   * overflow series.
+   *
+   * @param value
+   *            to record
+   * @param attributes
+   *            {@link Attributes} for the recording
+   */
+  public void record(long value, Attributes attributes) {
+    if (cardinalityLimiter != null) {
+      attributes = cardinalityLimiter.limit(attributes);
+    }
+    switch (metricInstrument.getInstrumentType()) {
+      case COUNTER:
+        ((LongCounter) instrument).add(value, attributes);
+        break;
+      case HISTOGRAM:
+        ((DoubleHistogram) instrument).record(value, attributes);
+        break;
+      case UP_DOWN_COUNTER:
+        ((LongUpDownCounter) instrument).add(value, attributes);
+        break;
+      case GAUGE:
+        ((LongGaugeCells) instrument).set(value, attributes);
+        break;
+    }
+  }
 }
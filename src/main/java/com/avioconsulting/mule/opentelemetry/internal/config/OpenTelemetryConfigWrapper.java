@@ -1,10 +1,16 @@
 package com.avioconsulting.mule.opentelemetry.internal.config;
 
+import com.avioconsulting.mule.opentelemetry.api.config.ExporterConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.MetricsConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.OpenTelemetryResource;
 import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.TailSamplingConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.TraceLevelConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRule;
 
+import java.util.List;
 import java.util.Map;
 
 public class OpenTelemetryConfigWrapper {
@@ -23,14 +29,38 @@ public class OpenTelemetryConfigWrapper {
     return openTelemetryConfiguration.getExporterConfiguration().getExporter();
   }
 
+  public ExporterConfiguration getExporterConfiguration() {
+    return openTelemetryConfiguration.getExporterConfiguration();
+  }
+
   public SpanProcessorConfiguration getSpanProcessorConfiguration() {
     return openTelemetryConfiguration.getSpanProcessorConfiguration();
   }
 
+  public TraceLevelConfiguration getTraceLevelConfiguration() {
+    return openTelemetryConfiguration.getTraceLevelConfiguration();
+  }
+
+  public TailSamplingConfiguration getTailSamplingConfiguration() {
+    return openTelemetryConfiguration.getTailSamplingConfiguration();
+  }
+
+  public List<SamplingRule> getSamplingRules() {
+    return openTelemetryConfiguration.getSamplingRules();
+  }
+
   public boolean isTurnOffMetrics() {
     return openTelemetryConfiguration.isTurnOffMetrics();
   }
 
+  public int getMetricCardinalityLimit() {
+    return openTelemetryConfiguration.getMetricCardinalityLimit();
+  }
+
+  public MetricsConfiguration getMetricsConfiguration() {
+    return openTelemetryConfiguration.getMetricsConfiguration();
+  }
+
   public boolean isTurnOffTracing() {
     return openTelemetryConfiguration.isTurnOffTracing();
   }
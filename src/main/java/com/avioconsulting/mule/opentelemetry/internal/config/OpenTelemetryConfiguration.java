@@ -1,11 +1,15 @@
 package com.avioconsulting.mule.opentelemetry.internal.config;
 
 import com.avioconsulting.mule.opentelemetry.api.config.ExporterConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.MetricsConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.OpenTelemetryResource;
 import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.TailSamplingConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.TraceLevelConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRule;
 
+import java.util.List;
 import java.util.Map;
 
 public interface OpenTelemetryConfiguration {
@@ -15,12 +19,20 @@ public interface OpenTelemetryConfiguration {
 
   boolean isTurnOffMetrics();
 
+  int getMetricCardinalityLimit();
+
+  MetricsConfiguration getMetricsConfiguration();
+
   TraceLevelConfiguration getTraceLevelConfiguration();
 
   ExporterConfiguration getExporterConfiguration();
 
   SpanProcessorConfiguration getSpanProcessorConfiguration();
 
+  TailSamplingConfiguration getTailSamplingConfiguration();
+
+  List<SamplingRule> getSamplingRules();
+
   OpenTelemetryResource getResource();
 
   String getConfigName();
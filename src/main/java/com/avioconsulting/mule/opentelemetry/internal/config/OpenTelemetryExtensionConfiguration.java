@@ -1,16 +1,22 @@
 package com.avioconsulting.mule.opentelemetry.internal.config;
 
 import com.avioconsulting.mule.opentelemetry.api.config.ExporterConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.MetricsConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.OpenTelemetryResource;
 import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.TailSamplingConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.TraceLevelConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.HistogramAggregation;
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRule;
 import com.avioconsulting.mule.opentelemetry.internal.operations.OpenTelemetryOperations;
 import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
 import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnectionProvider;
 import com.avioconsulting.mule.opentelemetry.internal.notifications.listeners.MetricEventNotificationListener;
 import com.avioconsulting.mule.opentelemetry.internal.notifications.listeners.MuleMessageProcessorNotificationListener;
 import com.avioconsulting.mule.opentelemetry.internal.notifications.listeners.MulePipelineMessageNotificationListener;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.MetricViews;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.MuleSchedulerMetrics;
 import com.avioconsulting.mule.opentelemetry.internal.processor.MuleNotificationProcessor;
 import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
@@ -19,6 +25,7 @@ import org.mule.runtime.api.lifecycle.Startable;
 import org.mule.runtime.api.lifecycle.Stoppable;
 import org.mule.runtime.api.meta.ExpressionSupport;
 import org.mule.runtime.api.notification.NotificationListenerRegistry;
+import org.mule.runtime.api.scheduler.SchedulerService;
 import org.mule.runtime.extension.api.annotation.Configuration;
 import org.mule.runtime.extension.api.annotation.Expression;
 import org.mule.runtime.extension.api.annotation.Operations;
@@ -85,6 +92,33 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
   @Expression(ExpressionSupport.NOT_SUPPORTED)
   private SpanProcessorConfiguration spanProcessorConfiguration;
 
+  @ParameterGroup(name = "Tail Sampling")
+  @Placement(order = 50, tab = "Tracer Settings")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private TailSamplingConfiguration tailSamplingConfiguration;
+
+  @Parameter
+  @Optional
+  @NullSafe
+  @Placement(order = 60, tab = "Tracer Settings")
+  @DisplayName("Sampling Rules")
+  @Summary("List of rules to sample transactions by flow name, http route or source namespace")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private List<SamplingRule> samplingRules;
+
+  @ParameterGroup(name = "Metrics")
+  @Placement(order = 490, tab = "Metrics")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private MetricsConfiguration metricsConfiguration;
+
+  @Parameter
+  @Optional(defaultValue = "2000")
+  @Placement(order = 500, tab = "Metrics")
+  @DisplayName("Cardinality Limit")
+  @Summary("Maximum number of distinct attribute sets recorded per metric instrument. Recordings with any other attribute set are folded into a series with otel.metric.overflow=true. Set 0 for no limit.")
+  @Expression(ExpressionSupport.NOT_SUPPORTED)
+  private int metricCardinalityLimit;
+
   @Parameter
   @Optional
   @NullSafe
@@ -106,6 +140,23 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
       if (usesReservedKeyWords)
         throw new MuleRuntimeException(I18nMessageFactory
             .createStaticMessage("Instrument names cannot use reserved namespaces - otel.*"));
+      getCustomMetricInstruments().stream()
+          .filter(instrument -> !hasAscendingBucketBoundaries(instrument.getBucketBoundaries()))
+          .findFirst()
+          .ifPresent(instrument -> {
+            throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+                "Bucket boundaries of instrument '%s' must be in ascending order without duplicates",
+                instrument.getMetricName()));
+          });
+      getCustomMetricInstruments().stream()
+          .filter(instrument -> HistogramAggregation.BASE2_EXPONENTIAL.equals(instrument.getHistogramAggregation()))
+          .filter(instrument -> instrument.getMaxBuckets() < MetricViews.MIN_MAX_BUCKETS)
+          .findFirst()
+          .ifPresent(instrument -> {
+            throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+                "Max buckets of instrument '%s' must be at least %s", instrument.getMetricName(),
+                MetricViews.MIN_MAX_BUCKETS));
+          });
       metricInstrumentDefinitionMap = getCustomMetricInstruments().stream()
           .collect(Collectors.toMap(CustomMetricInstrumentDefinition::getMetricName, Function.identity()));
 
@@ -113,6 +164,18 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
     return metricInstrumentDefinitionMap;
   }
 
+  private static boolean hasAscendingBucketBoundaries(List<Double> bucketBoundaries) {
+    if (bucketBoundaries == null) {
+      return true;
+    }
+    for (int i = 1; i < bucketBoundaries.size(); i++) {
+      if (bucketBoundaries.get(i - 1) >= bucketBoundaries.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public boolean isTurnOffTracing() {
     return System.getProperties().containsKey(PROP_MULE_OTEL_TRACING_DISABLED) ? Boolean
@@ -177,6 +240,47 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
     return this;
   }
 
+  @Override
+  public TailSamplingConfiguration getTailSamplingConfiguration() {
+    return tailSamplingConfiguration;
+  }
+
+  public OpenTelemetryExtensionConfiguration setTailSamplingConfiguration(
+      TailSamplingConfiguration tailSamplingConfiguration) {
+    this.tailSamplingConfiguration = tailSamplingConfiguration;
+    return this;
+  }
+
+  @Override
+  public List<SamplingRule> getSamplingRules() {
+    return samplingRules;
+  }
+
+  public OpenTelemetryExtensionConfiguration setSamplingRules(List<SamplingRule> samplingRules) {
+    this.samplingRules = samplingRules;
+    return this;
+  }
+
+  @Override
+  public int getMetricCardinalityLimit() {
+    return metricCardinalityLimit;
+  }
+
+  public OpenTelemetryExtensionConfiguration setMetricCardinalityLimit(int metricCardinalityLimit) {
+    this.metricCardinalityLimit = metricCardinalityLimit;
+    return this;
+  }
+
+  @Override
+  public MetricsConfiguration getMetricsConfiguration() {
+    return metricsConfiguration;
+  }
+
+  public OpenTelemetryExtensionConfiguration setMetricsConfiguration(MetricsConfiguration metricsConfiguration) {
+    this.metricsConfiguration = metricsConfiguration;
+    return this;
+  }
+
   public OpenTelemetryExtensionConfiguration setCustomMetricInstruments(
       List<CustomMetricInstrumentDefinition> customMetricInstruments) {
     this.customMetricInstruments = customMetricInstruments;
@@ -194,6 +298,11 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
   @Inject
   MuleNotificationProcessor muleNotificationProcessor;
 
+  @Inject
+  SchedulerService schedulerService;
+
+  private TracingControl tracingControl;
+
   @Override
   public void start() throws MuleException {
     // This phase is too early to initiate OpenTelemetry SDK. It fails with
@@ -220,9 +329,14 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
       return;
     }
     logger.info("Initiating otel config - '{}'", getConfigName());
-    muleNotificationProcessor.init(OpenTelemetryConnection
-        .getInstance(new OpenTelemetryConfigWrapper(this)),
-        getTraceLevelConfiguration());
+    OpenTelemetryConnection openTelemetryConnection = OpenTelemetryConnection
+        .getInstance(new OpenTelemetryConfigWrapper(this));
+    muleNotificationProcessor.init(openTelemetryConnection, getTraceLevelConfiguration());
+    tracingControl = new TracingControl(muleNotificationProcessor, openTelemetryConnection.getReloadableSampler());
+    tracingControl.register(getResource() == null ? null : getResource().getServiceName(), getConfigName());
+    if (!isTurnOffMetrics()) {
+      MuleSchedulerMetrics.installMetrics(openTelemetryConnection, schedulerService);
+    }
     notificationListenerRegistry.registerListener(
         new MuleMessageProcessorNotificationListener(muleNotificationProcessor));
     notificationListenerRegistry.registerListener(
@@ -241,5 +355,14 @@ public class OpenTelemetryExtensionConfiguration implements Startable, Stoppable
       logger.info("{} is set to true. Configuration '{}' has been stopped.", PROP_MULE_OTEL_TRACING_DISABLED,
           getConfigName());
     }
+    if (tracingControl != null) {
+      tracingControl.unregister();
+      tracingControl = null;
+    }
+    long shutdownTimeout = getExporterConfiguration() == null ? ExporterConfiguration.DEFAULT_SHUTDOWN_TIMEOUT
+        : getExporterConfiguration().getShutdownTimeout();
+    if (OpenTelemetryConnection.getInstance() != null && OpenTelemetryConnection.shutdownInstance(shutdownTimeout)) {
+      logger.info("OpenTelemetry SDK of config '{}' has been shut down", getConfigName());
+    }
   }
 }
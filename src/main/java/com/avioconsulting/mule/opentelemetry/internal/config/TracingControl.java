@@ -0,0 +1,157 @@
+package com.avioconsulting.mule.opentelemetry.internal.config;
+
+import com.avioconsulting.mule.opentelemetry.api.config.MuleComponent;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.ReloadableSampler;
+import com.avioconsulting.mule.opentelemetry.internal.processor.MuleNotificationProcessor;
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceLevelDecisions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Runtime control of trace levels and sampling, registered as a platform MBean
+ * named
+ * {@code com.avioconsulting.mule.opentelemetry:type=TracingControl,service=<service name>,config=<config name>}.
+ * <p>
+ * Changes take effect for new processor events and new traces without
+ * redeploying the application. Trace level settings and the sampling ratio are
+ * each swapped as one immutable value, so event processing never locks. They
+ * live in the notification processor and in the SDK sampler, so each is only
+ * atomic on its own: while {@link #update} or {@link #reset} runs, a new trace
+ * may be sampled with the new ratio and still get processor spans of the
+ * previous trace levels. Processor interception is decided when the
+ * application starts and isn't changed by this control.
+ */
+public class TracingControl implements TracingControlMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TracingControl.class);
+  static final String DOMAIN = "com.avioconsulting.mule.opentelemetry";
+
+  private final MuleNotificationProcessor muleNotificationProcessor;
+  private final ReloadableSampler sampler;
+  private final TraceLevelDecisions configuredDecisions;
+  private ObjectName objectName;
+
+  public TracingControl(MuleNotificationProcessor muleNotificationProcessor, ReloadableSampler sampler) {
+    this.muleNotificationProcessor = muleNotificationProcessor;
+    this.sampler = sampler;
+    this.configuredDecisions = muleNotificationProcessor.getTraceLevelDecisions();
+  }
+
+  /**
+   * Register with the platform MBean server, logging instead of failing when
+   * registration isn't possible.
+   *
+   * @param serviceName
+   *            service name of the application
+   * @param configName
+   *            name of the module configuration
+   * @return true if registered
+   */
+  public synchronized boolean register(String serviceName, String configName) {
+    try {
+      ObjectName name = new ObjectName(DOMAIN + ":type=TracingControl,service="
+          + ObjectName.quote(String.valueOf(serviceName)) + ",config=" + ObjectName.quote(String.valueOf(configName)));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      objectName = name;
+      LOGGER.info("Registered tracing control MBean {}", name);
+      return true;
+    } catch (JMException | RuntimeException e) {
+      LOGGER.warn("Failed to register tracing control MBean for config '{}'", configName, e);
+      return false;
+    }
+  }
+
+  public synchronized void unregister() {
+    if (objectName == null) {
+      return;
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+    } catch (JMException | RuntimeException e) {
+      LOGGER.warn("Failed to unregister tracing control MBean {}", objectName, e);
+    }
+    objectName = null;
+  }
+
+  ObjectName getObjectName() {
+    return objectName;
+  }
+
+  @Override
+  public boolean isSpanAllProcessors() {
+    return muleNotificationProcessor.getTraceLevelDecisions().isSpanAllProcessors();
+  }
+
+  @Override
+  public synchronized void setSpanAllProcessors(boolean spanAllProcessors) {
+    apply(muleNotificationProcessor.getTraceLevelDecisions().withSpanAllProcessors(spanAllProcessors));
+  }
+
+  @Override
+  public String getIgnoredComponents() {
+    return muleNotificationProcessor.getTraceLevelDecisions().formatIgnoredComponents();
+  }
+
+  @Override
+  public synchronized void setIgnoredComponents(String ignoredComponents) {
+    List<MuleComponent> components = TraceLevelDecisions.parseComponents(ignoredComponents);
+    apply(muleNotificationProcessor.getTraceLevelDecisions().withIgnoredComponents(components));
+  }
+
+  @Override
+  public double getSamplingRatio() {
+    return sampler == null ? ReloadableSampler.CONFIGURED : sampler.getRatio();
+  }
+
+  @Override
+  public synchronized void setSamplingRatio(double samplingRatio) {
+    validateSamplingRatio(samplingRatio);
+    applySamplingRatio(samplingRatio);
+  }
+
+  @Override
+  public synchronized void update(boolean spanAllProcessors, String ignoredComponents, double samplingRatio) {
+    // Validate everything before changing anything
+    TraceLevelDecisions decisions = TraceLevelDecisions.of(spanAllProcessors,
+        TraceLevelDecisions.parseComponents(ignoredComponents));
+    validateSamplingRatio(samplingRatio);
+    applySamplingRatio(samplingRatio);
+    apply(decisions);
+  }
+
+  @Override
+  public synchronized void reset() {
+    applySamplingRatio(ReloadableSampler.CONFIGURED);
+    apply(configuredDecisions);
+  }
+
+  private void validateSamplingRatio(double samplingRatio) {
+    if (sampler == null && samplingRatio >= 0) {
+      throw new IllegalStateException("Sampling ratio cannot be changed without a configured tracer provider");
+    }
+    if (samplingRatio > 1 || Double.isNaN(samplingRatio)) {
+      throw new IllegalArgumentException("Sampling ratio must be between 0 and 1, found " + samplingRatio);
+    }
+  }
+
+  private void applySamplingRatio(double samplingRatio) {
+    if (sampler != null && sampler.getRatio() != samplingRatio) {
+      sampler.setRatio(samplingRatio);
+      LOGGER.info("Sampling ratio changed to {}", samplingRatio < 0 ? "configured sampler" : samplingRatio);
+    }
+  }
+
+  private void apply(TraceLevelDecisions decisions) {
+    muleNotificationProcessor.setTraceLevelDecisions(decisions);
+    LOGGER.info("Trace levels changed to {}", decisions);
+  }
+}
@@ -0,0 +1,48 @@
+package com.avioconsulting.mule.opentelemetry.internal.config;
+
+/**
+ * JMX interface to change trace levels and sampling of a running application,
+ * see {@link TracingControl}.
+ */
+public interface TracingControlMBean {
+
+  boolean isSpanAllProcessors();
+
+  void setSpanAllProcessors(boolean spanAllProcessors);
+
+  /**
+   * @return String comma separated list of ignored components in
+   *         {@code namespace:name} format
+   */
+  String getIgnoredComponents();
+
+  void setIgnoredComponents(String ignoredComponents);
+
+  /**
+   * @return double sampling ratio set at runtime, or -1 when the configured
+   *         sampler is used
+   */
+  double getSamplingRatio();
+
+  void setSamplingRatio(double samplingRatio);
+
+  /**
+   * Change all settings together. Invalid values leave all settings unchanged.
+   * Valid values are applied one after another, sampling ratio first, so events
+   * in between may see the new ratio with the previous trace levels.
+   *
+   * @param spanAllProcessors
+   *            create spans for all processors
+   * @param ignoredComponents
+   *            comma separated list of {@code namespace:name} components to
+   *            ignore, name can be {@code *}
+   * @param samplingRatio
+   *            ratio between 0 and 1, or -1 for the configured sampler
+   */
+  void update(boolean spanAllProcessors, String ignoredComponents, double samplingRatio);
+
+  /**
+   * Restore the settings of the application configuration.
+   */
+  void reset();
+}
@@ -1,12 +1,40 @@
 package com.avioconsulting.mule.opentelemetry.internal.connection;
 
+import com.avioconsulting.mule.opentelemetry.api.config.ExporterConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.MetricsConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.TailSamplingConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.TraceLevelConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.AdditionalExporter;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.ExemplarFilterType;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.HistogramAggregation;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricView;
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRule;
 import com.avioconsulting.mule.opentelemetry.internal.config.CustomMetricInstrumentHolder;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsInstrumentType;
 import com.avioconsulting.mule.opentelemetry.internal.util.OpenTelemetryUtil;
 import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryConfigWrapper;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.BoundedExemplarFilter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.CardinalityLimiter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.CardinalityLimiters;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.ExporterMetrics;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.LongGaugeCells;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.MetricViews;
 import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.MetricsInstaller;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.MuleSchedulerMetrics;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.TemporalityMetricExporter;
 import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export.DiskBufferedMetricExporter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export.DiskBufferedSpanExporter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export.RingBufferSpanExporter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.AdditionalSpanProcessors;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.ConfiguredSpanExporters;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.PrioritySpanProcessor;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.ReloadableSampler;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.RuleBasedSampler;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.SpanAttributePlacement;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.TailSamplingSpanExporter;
 import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
 import com.avioconsulting.mule.opentelemetry.internal.store.*;
 import com.avioconsulting.mule.opentelemetry.internal.util.PropertiesUtil;
@@ -15,7 +43,9 @@ import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.events.GlobalEventEmitterProvider;
 import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
 import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
@@ -24,8 +54,18 @@ import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.propagation.TextMapGetter;
 import io.opentelemetry.context.propagation.TextMapSetter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdkBuilder;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.internal.SdkMeterProviderUtil;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.mule.runtime.api.component.location.ComponentLocation;
 import org.mule.runtime.api.message.Error;
 import org.slf4j.Logger;
@@ -34,12 +74,19 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.avioconsulting.mule.opentelemetry.api.config.MetricsConfiguration.OTEL_METRICS_EXEMPLAR_FILTER_KEY;
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_EXPORTER_OTLP_METRICS_TEMPORALITY_PREFERENCE_KEY;
 import static com.avioconsulting.mule.opentelemetry.internal.store.TransactionStore.*;
 
 public class OpenTelemetryConnection implements TraceContextHandler {
@@ -65,14 +112,24 @@ public class OpenTelemetryConnection implements TraceContextHandler {
       .filter(p -> p.contains(".otel.")).collect(Collectors.toMap(String::toLowerCase, System::getProperty));
 
   private static final String INSTRUMENTATION_NAME = "mule-opentelemetry-module-DEV";
+  private static final Duration RECENT_SPANS_EXPORT_DELAY = Duration.ofSeconds(1);
   private final TransactionStore transactionStore;
+  private final SpanAttributePlacement spanAttributePlacement;
   private static OpenTelemetryConnection openTelemetryConnection;
-  private final OpenTelemetry openTelemetry;
+  private final OpenTelemetrySdk openTelemetry;
   private final Tracer tracer;
   private final Meter meter;
   private boolean turnOffMetrics = false;
   private boolean turnOffTracing = false;
   private Map<String, CustomMetricInstrumentHolder<?>> metricInstruments;
+  private PrioritySpanProcessor prioritySpanProcessor;
+  private final CardinalityLimiters cardinalityLimiters;
+  private BoundedExemplarFilter boundedExemplarFilter;
+  private boolean exemplarsEnabled = true;
+  private final ExporterMetrics exporterMetrics = new ExporterMetrics();
+  private final List<AutoCloseable> registeredObservers = new CopyOnWriteArrayList<>();
+  private ReloadableSampler reloadableSampler;
+  private RingBufferSpanExporter recentSpans;
 
   private OpenTelemetryConnection(OpenTelemetryConfigWrapper openTelemetryConfigWrapper) {
     Properties properties = getModuleProperties();
@@ -84,12 +141,29 @@ public class OpenTelemetryConnection implements TraceContextHandler {
     // See here for autoconfigure options
     // https://github.com/open-telemetry/opentelemetry-java/tree/main/sdk-extensions/autoconfigure
     AutoConfiguredOpenTelemetrySdkBuilder builder = AutoConfiguredOpenTelemetrySdk.builder();
+    cardinalityLimiters = new CardinalityLimiters(
+        openTelemetryConfigWrapper == null ? 0 : openTelemetryConfigWrapper.getMetricCardinalityLimit());
+    builder.addMeterProviderCustomizer((meterProviderBuilder, configProperties) -> {
+      // Low memory preference is delta for counters and histograms, same as delta
+      // for the limited instruments
+      cardinalityLimiters.setDeltaTemporality(TemporalityMetricExporter.selectorFor(
+          configProperties.getString(OTEL_EXPORTER_OTLP_METRICS_TEMPORALITY_PREFERENCE_KEY)) != null);
+      exemplarsEnabled = !ExemplarFilterType.ALWAYS_OFF.getValue()
+          .equalsIgnoreCase(configProperties.getString(OTEL_METRICS_EXEMPLAR_FILTER_KEY));
+      return meterProviderBuilder;
+    });
     if (openTelemetryConfigWrapper != null) {
       // TODO: Process other config elements for OTEL SDK
       final Map<String, String> configMap = new HashMap<>();
       if (openTelemetryConfigWrapper.getResource() != null) {
         configMap.putAll(openTelemetryConfigWrapper.getResource().getConfigMap());
       }
+      // Before exporter properties, so metric properties set on the exporter still
+      // take precedence
+      MetricsConfiguration metricsConfiguration = openTelemetryConfigWrapper.getMetricsConfiguration();
+      if (metricsConfiguration != null) {
+        configMap.putAll(metricsConfiguration.getConfigMap());
+      }
       if (openTelemetryConfigWrapper.getExporter() != null) {
         configMap.putAll(openTelemetryConfigWrapper.getExporter().getExporterProperties());
       }
@@ -97,6 +171,123 @@ public class OpenTelemetryConnection implements TraceContextHandler {
         configMap.putAll(openTelemetryConfigWrapper.getSpanProcessorConfiguration().getConfigMap());
       }
       builder.addPropertiesSupplier(() -> Collections.unmodifiableMap(configMap));
+      // Innermost, so actual exports to the backend are recorded
+      Function<SpanExporter, SpanExporter> spanExporterCustomizer = exporterMetrics::meter;
+      final Path diskBufferDirectory = getDiskBufferDirectory(openTelemetryConfigWrapper);
+      final long diskBufferMaxSize = diskBufferDirectory == null ? 0
+          : getDiskBufferMaxSize(openTelemetryConfigWrapper.getExporterConfiguration());
+      if (diskBufferDirectory != null) {
+        logger.info("Exporter disk buffer is enabled in {} with max size of {} bytes", diskBufferDirectory,
+            diskBufferMaxSize);
+        // Only batches that passed tail sampling are buffered
+        spanExporterCustomizer = spanExporter -> DiskBufferedSpanExporter.wrap(exporterMetrics.meter(spanExporter),
+            diskBufferDirectory.resolve("traces").resolve(spanExporter.getClass().getSimpleName()),
+            diskBufferMaxSize);
+      }
+      TailSamplingConfiguration tailSamplingConfiguration = openTelemetryConfigWrapper
+          .getTailSamplingConfiguration();
+      if (tailSamplingConfiguration != null && tailSamplingConfiguration.isTailSamplingEnabled()) {
+        logger.info("Tail sampling is enabled with latency threshold {}ms and baseline ratio {}",
+            tailSamplingConfiguration.getLatencyThreshold(), tailSamplingConfiguration.getBaselineRatio());
+        spanExporterCustomizer = spanExporterCustomizer
+            .andThen(spanExporter -> new TailSamplingSpanExporter(spanExporter, tailSamplingConfiguration));
+      }
+      final Function<SpanExporter, SpanExporter> finalSpanExporterCustomizer = spanExporterCustomizer;
+      SpanProcessorConfiguration spanProcessorConfiguration = openTelemetryConfigWrapper
+          .getSpanProcessorConfiguration();
+      if (spanProcessorConfiguration != null && spanProcessorConfiguration.isPriorityLanesEnabled()) {
+        logger.info("Span export uses priority lanes with {} drop policy",
+            spanProcessorConfiguration.getDropPolicy());
+        builder.addPropertiesCustomizer(ConfiguredSpanExporters::disableAutoConfiguredExporters);
+        builder.addTracerProviderCustomizer((tracerProviderBuilder, configProperties) -> {
+          prioritySpanProcessor = new PrioritySpanProcessor(
+              finalSpanExporterCustomizer.apply(ConfiguredSpanExporters.create(configProperties,
+                  AutoConfiguredOpenTelemetrySdkBuilder.class.getClassLoader())),
+              spanProcessorConfiguration);
+          return tracerProviderBuilder.addSpanProcessor(prioritySpanProcessor);
+        });
+      } else {
+        builder.addSpanExporterCustomizer(
+            (spanExporter, configProperties) -> finalSpanExporterCustomizer.apply(spanExporter));
+      }
+      List<AdditionalExporter> additionalExporters = openTelemetryConfigWrapper.getExporterConfiguration() == null
+          ? null
+          : openTelemetryConfigWrapper.getExporterConfiguration().getAdditionalExporters();
+      if (additionalExporters != null && !additionalExporters.isEmpty()) {
+        logger.info("Exporting spans to {} additional exporters", additionalExporters.size());
+        builder.addTracerProviderCustomizer((tracerProviderBuilder, configProperties) -> {
+          for (AdditionalExporter additionalExporter : additionalExporters) {
+            SpanProcessor spanProcessor = AdditionalSpanProcessors.create(additionalExporter, configProperties,
+                AutoConfiguredOpenTelemetrySdkBuilder.class.getClassLoader(), exporterMetrics::meter,
+                exporterMetrics::meterProvider);
+            if (spanProcessor != null) {
+              tracerProviderBuilder.addSpanProcessor(spanProcessor);
+            }
+          }
+          return tracerProviderBuilder;
+        });
+      }
+      // Before the rules, so a runtime ratio only replaces the sampler of
+      // transactions without a matching rule
+      builder.addSamplerCustomizer((sampler, configProperties) -> {
+        reloadableSampler = new ReloadableSampler(sampler);
+        return reloadableSampler;
+      });
+      int recentSpansBufferSize = openTelemetryConfigWrapper.getExporterConfiguration() == null ? 0
+          : openTelemetryConfigWrapper.getExporterConfiguration().getRecentSpansBufferSize();
+      if (recentSpansBufferSize > 0) {
+        recentSpans = new RingBufferSpanExporter(recentSpansBufferSize);
+        logger.info("Keeping {} recent spans in memory", recentSpans.getCapacity());
+        // Short delay, so queries find spans soon after they end
+        builder.addTracerProviderCustomizer(
+            (tracerProviderBuilder, configProperties) -> tracerProviderBuilder.addSpanProcessor(
+                BatchSpanProcessor.builder(recentSpans).setScheduleDelay(RECENT_SPANS_EXPORT_DELAY)
+                    .setMeterProvider(exporterMetrics.meterProvider(recentSpans.getClass().getSimpleName()))
+                    .build()));
+      }
+      List<SamplingRule> samplingRules = openTelemetryConfigWrapper.getSamplingRules();
+      if (samplingRules != null && !samplingRules.isEmpty()) {
+        logger.info("Applying {} sampling rules to transactions", samplingRules.size());
+        builder.addSamplerCustomizer((sampler, configProperties) -> new RuleBasedSampler(samplingRules, sampler));
+      }
+      builder.addMetricExporterCustomizer((metricExporter, configProperties) -> {
+        MetricExporter exporter = diskBufferDirectory == null ? exporterMetrics.meter(metricExporter)
+            : DiskBufferedMetricExporter.wrap(exporterMetrics.meter(metricExporter),
+                diskBufferDirectory.resolve("metrics").resolve(metricExporter.getClass().getSimpleName()),
+                diskBufferMaxSize);
+        AggregationTemporalitySelector temporalitySelector = TemporalityMetricExporter.selectorFor(
+            configProperties.getString(OTEL_EXPORTER_OTLP_METRICS_TEMPORALITY_PREFERENCE_KEY));
+        return temporalitySelector == null ? exporter
+            : new TemporalityMetricExporter(exporter, temporalitySelector);
+      });
+      builder.addMeterProviderCustomizer(
+          (meterProviderBuilder, configProperties) -> ExporterMetrics.registerViews(meterProviderBuilder));
+      List<MetricView> metricViews = metricsConfiguration == null ? null : metricsConfiguration.getMetricViews();
+      // Explicit buckets are advised on the histogram, base2 exponential buckets
+      // need a view
+      Map<String, Aggregation> histogramAggregations = openTelemetryConfigWrapper
+          .getMetricInstrumentDefinitionMap().values().stream()
+          .filter(definition -> MetricsInstrumentType.HISTOGRAM.equals(definition.getInstrumentType()))
+          .filter(definition -> HistogramAggregation.BASE2_EXPONENTIAL.equals(definition.getHistogramAggregation()))
+          .collect(Collectors.toMap(CustomMetricInstrumentDefinition::getMetricName,
+              definition -> Aggregation.base2ExponentialBucketHistogram(definition.getMaxBuckets(), 20)));
+      if (metricViews != null && !metricViews.isEmpty()) {
+        logger.info("Applying {} metric views", metricViews.size());
+      }
+      if ((metricViews != null && !metricViews.isEmpty()) || !histogramAggregations.isEmpty()) {
+        builder.addMeterProviderCustomizer(
+            (meterProviderBuilder, configProperties) -> MetricViews.register(meterProviderBuilder, metricViews,
+                histogramAggregations));
+      }
+      if (metricsConfiguration != null && metricsConfiguration.getMaxExemplarOffers() > 0) {
+        builder.addMeterProviderCustomizer((meterProviderBuilder, configProperties) -> {
+          boundedExemplarFilter = new BoundedExemplarFilter(
+              BoundedExemplarFilter.filterFor(configProperties.getString(OTEL_METRICS_EXEMPLAR_FILTER_KEY)),
+              metricsConfiguration.getMaxExemplarOffers());
+          SdkMeterProviderUtil.setExemplarFilter(meterProviderBuilder, boundedExemplarFilter);
+          return meterProviderBuilder;
+        });
+      }
       logger.debug("Creating OpenTelemetryConnection with properties: [" + configMap + "]");
       turnOffMetrics = openTelemetryConfigWrapper.isTurnOffMetrics();
       turnOffTracing = openTelemetryConfigWrapper.isTurnOffTracing();
@@ -108,10 +299,80 @@ public class OpenTelemetryConnection implements TraceContextHandler {
     meter = openTelemetry.meterBuilder(instrumentationName).setInstrumentationVersion(instrumentationVersion)
         .build();
     setupCustomMetrics(openTelemetryConfigWrapper);
-    transactionStore = InMemoryTransactionStore.getInstance();
+    if (!turnOffMetrics) {
+      registerMetricsObserver(cardinalityLimiters::registerObservers);
+    }
+    if (boundedExemplarFilter != null && !turnOffMetrics) {
+      registerMetricsObserver(boundedExemplarFilter::registerObservers);
+    }
+    if (openTelemetryConfigWrapper != null && !turnOffMetrics) {
+      registerMetricsObserver(exporterMetrics::registerInstruments);
+    }
+    if (prioritySpanProcessor != null && !turnOffMetrics) {
+      registerMetricsObserver(prioritySpanProcessor::registerObservers);
+    }
+    spanAttributePlacement = createSpanAttributePlacement(openTelemetryConfigWrapper);
+    transactionStore = createTransactionStore(openTelemetryConfigWrapper);
     PropertiesUtil.init();
   }
 
+  /**
+   * Resolve the disk buffer directory of the exporter configuration.
+   *
+   * @return Path directory or null when disk buffer is not enabled
+   */
+  private static Path getDiskBufferDirectory(OpenTelemetryConfigWrapper openTelemetryConfigWrapper) {
+    ExporterConfiguration exporterConfiguration = openTelemetryConfigWrapper.getExporterConfiguration();
+    if (exporterConfiguration == null || !exporterConfiguration.isDiskBufferEnabled()) {
+      return null;
+    }
+    String directory = exporterConfiguration.getDiskBufferDirectory();
+    if (directory != null && !directory.trim().isEmpty()) {
+      return Paths.get(directory.trim());
+    }
+    // Service name keeps apps deployed to the same runtime apart
+    String serviceName = openTelemetryConfigWrapper.getResource() == null ? null
+        : openTelemetryConfigWrapper.getResource().getServiceName();
+    return Paths.get(System.getProperty("mule.home", System.getProperty("java.io.tmpdir")), "otel-buffer",
+        toDirectoryName(serviceName), toDirectoryName(openTelemetryConfigWrapper.getOpenTelemetryConfiguration()
+            .getConfigName()));
+  }
+
+  private static String toDirectoryName(String name) {
+    return name == null || name.trim().isEmpty() ? "default" : name.trim().replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  private static long getDiskBufferMaxSize(ExporterConfiguration exporterConfiguration) {
+    return exporterConfiguration.getDiskBufferMaxSize() > 0 ? exporterConfiguration.getDiskBufferMaxSize()
+        : ExporterConfiguration.DEFAULT_DISK_BUFFER_MAX_SIZE;
+  }
+
+  private TransactionStore createTransactionStore(OpenTelemetryConfigWrapper openTelemetryConfigWrapper) {
+    InMemoryTransactionStore store = InMemoryTransactionStore.getInstance();
+    TraceLevelConfiguration traceLevelConfiguration = openTelemetryConfigWrapper == null ? null
+        : openTelemetryConfigWrapper.getTraceLevelConfiguration();
+    store.setMaxRepeatedProcessorSpans(
+        traceLevelConfiguration == null ? 0 : traceLevelConfiguration.getMaxRepeatedProcessorSpans());
+    store.setProcessorSpansLatencyThreshold(
+        traceLevelConfiguration == null ? -1 : traceLevelConfiguration.getProcessorSpansLatencyThreshold());
+    store.setProcessorSpanFactory(new ConnectionProcessorSpanFactory());
+    return store;
+  }
+
+  private SpanAttributePlacement createSpanAttributePlacement(OpenTelemetryConfigWrapper openTelemetryConfigWrapper) {
+    TraceLevelConfiguration traceLevelConfiguration = openTelemetryConfigWrapper == null ? null
+        : openTelemetryConfigWrapper.getTraceLevelConfiguration();
+    if (traceLevelConfiguration == null) {
+      return SpanAttributePlacement.ALL_SPANS;
+    }
+    SpanAttributePlacement placement = SpanAttributePlacement.of(traceLevelConfiguration.getRootSpanOnlyAttributes(),
+        traceLevelConfiguration.getDroppedSpanAttributes());
+    if (placement != SpanAttributePlacement.ALL_SPANS) {
+      logger.info("Span attribute placement {}", placement);
+    }
+    return placement;
+  }
+
   private void setupCustomMetrics(OpenTelemetryConfigWrapper openTelemetryConfigWrapper) {
     if (openTelemetryConfigWrapper == null || openTelemetryConfigWrapper.isTurnOffMetrics())
       return;
@@ -124,8 +385,54 @@ public class OpenTelemetryConnection implements TraceContextHandler {
             customMetricInstrumentDefinition.getUnit());
         instruments.put(customMetricInstrumentDefinition.getMetricName(),
             new CustomMetricInstrumentHolder<LongCounter>()
+                .setCardinalityLimiter(cardinalityLimiters.get(customMetricInstrumentDefinition.getMetricName(),
+                    InstrumentType.COUNTER))
                 .setInstrument(counter)
                 .setMetricInstrument(customMetricInstrumentDefinition));
+      } else if (MetricsInstrumentType.HISTOGRAM.equals(customMetricInstrumentDefinition.getInstrumentType())) {
+        DoubleHistogramBuilder histogramBuilder = meter
+            .histogramBuilder(customMetricInstrumentDefinition.getMetricName())
+            .setDescription(customMetricInstrumentDefinition.getDescription())
+            .setUnit(customMetricInstrumentDefinition.getUnit());
+        List<Double> bucketBoundaries = customMetricInstrumentDefinition.getBucketBoundaries();
+        if (HistogramAggregation.EXPLICIT_BUCKETS.equals(customMetricInstrumentDefinition.getHistogramAggregation())
+            && bucketBoundaries != null && !bucketBoundaries.isEmpty()) {
+          // Advice is kept by views with the default aggregation
+          histogramBuilder.setExplicitBucketBoundariesAdvice(bucketBoundaries);
+        }
+        DoubleHistogram histogram = histogramBuilder.build();
+        instruments.put(customMetricInstrumentDefinition.getMetricName(),
+            new CustomMetricInstrumentHolder<DoubleHistogram>()
+                .setCardinalityLimiter(cardinalityLimiters.get(customMetricInstrumentDefinition.getMetricName(),
+                    InstrumentType.HISTOGRAM))
+                .setInstrument(histogram)
+                .setMetricInstrument(customMetricInstrumentDefinition));
+      } else if (MetricsInstrumentType.UP_DOWN_COUNTER
+          .equals(customMetricInstrumentDefinition.getInstrumentType())) {
+        LongUpDownCounter upDownCounter = meter
+            .upDownCounterBuilder(customMetricInstrumentDefinition.getMetricName())
+            .setDescription(customMetricInstrumentDefinition.getDescription())
+            .setUnit(customMetricInstrumentDefinition.getUnit())
+            .build();
+        instruments.put(customMetricInstrumentDefinition.getMetricName(),
+            new CustomMetricInstrumentHolder<LongUpDownCounter>()
+                .setCardinalityLimiter(cardinalityLimiters.get(customMetricInstrumentDefinition.getMetricName(),
+                    InstrumentType.UP_DOWN_COUNTER))
+                .setInstrument(upDownCounter)
+                .setMetricInstrument(customMetricInstrumentDefinition));
+      } else if (MetricsInstrumentType.GAUGE.equals(customMetricInstrumentDefinition.getInstrumentType())) {
+        LongGaugeCells gaugeCells = new LongGaugeCells();
+        meter.gaugeBuilder(customMetricInstrumentDefinition.getMetricName())
+            .setDescription(customMetricInstrumentDefinition.getDescription())
+            .setUnit(customMetricInstrumentDefinition.getUnit())
+            .ofLongs()
+            .buildWithCallback(gaugeCells::observe);
+        instruments.put(customMetricInstrumentDefinition.getMetricName(),
+            new CustomMetricInstrumentHolder<LongGaugeCells>()
+                .setCardinalityLimiter(cardinalityLimiters.get(customMetricInstrumentDefinition.getMetricName(),
+                    InstrumentType.OBSERVABLE_GAUGE))
+                .setInstrument(gaugeCells)
+                .setMetricInstrument(customMetricInstrumentDefinition));
       }
     }
     metricInstruments = Collections.unmodifiableMap(instruments);
@@ -139,6 +446,26 @@ public class OpenTelemetryConnection implements TraceContextHandler {
     return turnOffTracing;
   }
 
+  /**
+   * @return ReloadableSampler of the tracer provider, null when SDK was created
+   *         without configuration
+   */
+  public ReloadableSampler getReloadableSampler() {
+    return reloadableSampler;
+  }
+
+  /**
+   * @return RingBufferSpanExporter with recent spans, null when recent spans
+   *         buffer is disabled
+   */
+  public RingBufferSpanExporter getRecentSpans() {
+    return recentSpans;
+  }
+
+  public SpanAttributePlacement getSpanAttributePlacement() {
+    return spanAttributePlacement;
+  }
+
   /**
    * {@link Supplier} to use with
    * {@link org.mule.runtime.api.connection.ConnectionProvider} where lazy
@@ -160,6 +487,63 @@ public class OpenTelemetryConnection implements TraceContextHandler {
     openTelemetryConnection = null;
   }
 
+  /**
+   * Shut down the connection instance, if any, and reset the static instances,
+   * including the transaction store and scheduler metrics, so a redeployed or
+   * restarted application builds a new SDK.
+   *
+   * @param timeoutMillis
+   *            maximum time to wait for flush and shutdown
+   * @return true when pending telemetry was exported and SDK shut down in time
+   */
+  public static synchronized boolean shutdownInstance(long timeoutMillis) {
+    if (openTelemetryConnection == null) {
+      return true;
+    }
+    try {
+      return openTelemetryConnection.shutdown(timeoutMillis);
+    } finally {
+      resetForTest();
+      InMemoryTransactionStore.resetInstance();
+      MuleSchedulerMetrics.uninstallMetrics();
+    }
+  }
+
+  /**
+   * Flush tracer and meter providers, close the registered metric observers and
+   * shut down the SDK, waiting at most the given time for all of it.
+   *
+   * @param timeoutMillis
+   *            maximum time to wait for flush and shutdown
+   * @return true when pending telemetry was exported and SDK shut down in time
+   */
+  boolean shutdown(long timeoutMillis) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+    boolean flushed = CompletableResultCode.ofAll(Arrays.asList(openTelemetry.getSdkTracerProvider().forceFlush(),
+        openTelemetry.getSdkMeterProvider().forceFlush())).join(remainingNanos(deadline), TimeUnit.NANOSECONDS)
+        .isSuccess();
+    if (!flushed) {
+      logger.warn("Pending spans and metrics could not be exported within {}ms", timeoutMillis);
+    }
+    for (AutoCloseable observer : registeredObservers) {
+      try {
+        observer.close();
+      } catch (Exception e) {
+        logger.debug("Failed to close metrics observer", e);
+      }
+    }
+    registeredObservers.clear();
+    boolean shutdown = openTelemetry.shutdown().join(remainingNanos(deadline), TimeUnit.NANOSECONDS).isSuccess();
+    if (!shutdown) {
+      logger.warn("OpenTelemetry SDK did not shut down within {}ms", timeoutMillis);
+    }
+    return flushed && shutdown;
+  }
+
+  private static long remainingNanos(long deadline) {
+    return Math.max(0, deadline - System.nanoTime());
+  }
+
   /**
    * Get Meter for provided metric name
    * 
@@ -171,7 +555,7 @@ public class OpenTelemetryConnection implements TraceContextHandler {
    */
   @SuppressWarnings("unchecked")
   public <I> CustomMetricInstrumentHolder<I> getMetricInstrument(final String name) {
-    return (CustomMetricInstrumentHolder<I>) metricInstruments.get(name);
+    return metricInstruments == null ? null : (CustomMetricInstrumentHolder<I>) metricInstruments.get(name);
   }
 
   public static synchronized OpenTelemetryConnection getInstance(
@@ -304,34 +688,58 @@ public class OpenTelemetryConnection implements TraceContextHandler {
    *            component
    */
   public void addProcessorSpan(TraceComponent traceComponent, String rootContainerName) {
-    SpanBuilder spanBuilder = this
-        .spanBuilder(traceComponent.getSpanName())
-        .setSpanKind(traceComponent.getSpanKind())
-        .setStartTimestamp(traceComponent.getStartTime());
     OpenTelemetryUtil.addGlobalConfigSystemAttributes(
         traceComponent.getTags().get(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF.getKey()),
         traceComponent.getTags(), OTEL_SYSTEM_PROPERTIES_MAP);
-    traceComponent.getTags().forEach(spanBuilder::setAttribute);
-    getTransactionStore().addProcessorSpan(
-        rootContainerName,
-        traceComponent, spanBuilder);
+    // Span is prepared by the store, only when it is started
+    getTransactionStore().addProcessorSpan(rootContainerName, traceComponent);
   }
 
   public SpanMeta endProcessorSpan(final TraceComponent traceComponent, Error error) {
+    Throwable exception = error != null ? error.getCause() : null;
     return getTransactionStore().endProcessorSpan(
         traceComponent.getTransactionId(),
         traceComponent.getLocation(),
-        processorSpan -> {
-          if (error != null) {
-            processorSpan.getSpan().recordException(error.getCause());
-          }
-          setSpanStatus(traceComponent, processorSpan.getSpan());
-          if (traceComponent.getTags() != null)
-            traceComponent.getTags().forEach(processorSpan.getSpan()::setAttribute);
-        },
+        traceComponent,
+        exception,
+        processorSpan -> setProcessorSpanEnd(processorSpan.getSpan(), traceComponent, exception),
         traceComponent.getEndTime());
   }
 
+  private void setProcessorSpanEnd(Span span, TraceComponent traceComponent, Throwable exception) {
+    if (exception != null) {
+      span.recordException(exception);
+    }
+    setSpanStatus(traceComponent, span);
+    spanAttributePlacement.setAttributes(span, traceComponent.getTags(), false);
+  }
+
+  /**
+   * Creates processor spans the same way for spans started while processors
+   * execute and for spans created later from the recorded executions.
+   */
+  private final class ConnectionProcessorSpanFactory implements ProcessorSpanFactory {
+    @Override
+    public SpanBuilder createSpanBuilder(TraceComponent traceComponent) {
+      SpanBuilder spanBuilder = spanBuilder(traceComponent.getSpanName())
+          .setSpanKind(traceComponent.getSpanKind())
+          .setStartTimestamp(traceComponent.getStartTime());
+      spanAttributePlacement.setAttributes(spanBuilder, traceComponent.getTags(), false);
+      return spanBuilder;
+    }
+
+    @Override
+    public void applyEnd(Span span, TraceComponent endComponent, Throwable exception) {
+      if (endComponent == null) {
+        if (exception != null) {
+          span.recordException(exception);
+        }
+        return;
+      }
+      setProcessorSpanEnd(span, endComponent, exception);
+    }
+  }
+
   public void startTransaction(TraceComponent traceComponent) {
     SpanBuilder spanBuilder = openTelemetryConnection
         .spanBuilder(traceComponent.getSpanName())
@@ -343,7 +751,10 @@ public class OpenTelemetryConnection implements TraceContextHandler {
         traceComponent.getTags().get(SemanticAttributes.MULE_APP_FLOW_SOURCE_CONFIG_REF.getKey()),
         traceComponent.getTags(), openTelemetryConnection.OTEL_SYSTEM_PROPERTIES_MAP);
 
-    traceComponent.getTags().forEach(spanBuilder::setAttribute);
+    // A flow starting in a running transaction gets a processor span
+    boolean rootSpan = spanAttributePlacement == SpanAttributePlacement.ALL_SPANS
+        || getTransactionStore().getTraceIdForTransaction(traceComponent.getTransactionId()) == null;
+    spanAttributePlacement.setAttributes(spanBuilder, traceComponent.getTags(), rootSpan);
     getTransactionStore().startTransaction(
         traceComponent, traceComponent.getName(), spanBuilder);
   }
@@ -352,17 +763,21 @@ public class OpenTelemetryConnection implements TraceContextHandler {
     if (traceComponent == null) {
       return null;
     }
+    // Flows invoked from the transaction's flow end their processor span here too
+    String rootSpanId = spanAttributePlacement == SpanAttributePlacement.ALL_SPANS ? null
+        : getTransactionStore().getTransactionContext(traceComponent.getTransactionId(), null).getSpanId();
     return openTelemetryConnection.getTransactionStore().endTransaction(
         traceComponent.getTransactionId(),
         traceComponent.getName(),
         rootSpan -> {
-          traceComponent.getTags().forEach(rootSpan::setAttribute);
+          spanAttributePlacement.setAttributes(rootSpan, traceComponent.getTags(),
+              rootSpanId == null || rootSpanId.equals(rootSpan.getSpanContext().getSpanId()));
           openTelemetryConnection.setSpanStatus(traceComponent, rootSpan);
           if (exception != null) {
             rootSpan.recordException(exception);
           }
         },
-        traceComponent.getEndTime());
+        traceComponent.getEndTime(), traceComponent, exception);
   }
 
   public void setSpanStatus(TraceComponent traceComponent, Span span) {
@@ -392,8 +807,54 @@ public class OpenTelemetryConnection implements TraceContextHandler {
         .build();
   }
 
+  /**
+   * Create a histogram with bucket boundaries advice, which any view configured
+   * for the histogram overrides.
+   */
+  public DoubleHistogram createHistogram(String metricName, String description, String unit,
+      List<Double> bucketBoundariesAdvice) {
+    logger.trace("Creating histogram for metric {}", metricName);
+    return meter.histogramBuilder(metricName)
+        .setDescription(description)
+        .setUnit(unit)
+        .setExplicitBucketBoundariesAdvice(bucketBoundariesAdvice)
+        .build();
+  }
+
+  /**
+   * Check if measurements may be recorded as exemplars, so callers can skip
+   * building a context to record with.
+   *
+   * @return false when exemplar filter is always off
+   */
+  public boolean isExemplarsEnabled() {
+    return exemplarsEnabled;
+  }
+
+  /**
+   * Get the {@link CardinalityLimiter} to record on an instrument with.
+   *
+   * @param metricName
+   *            name of the instrument
+   * @param instrumentType
+   *            {@link InstrumentType} of the instrument
+   * @return CardinalityLimiter
+   */
+  public CardinalityLimiter getCardinalityLimiter(String metricName, InstrumentType instrumentType) {
+    return cardinalityLimiters.get(metricName, instrumentType);
+  }
+
+  /**
+   * Register metric observers that are closed when the connection is shut down.
+   *
+   * @param observer
+   *            function registering the observers
+   * @return List of {@link AutoCloseable} registrations
+   */
   public List<AutoCloseable> registerMetricsObserver(Function<OpenTelemetry, List<AutoCloseable>> observer) {
-    return observer.apply(openTelemetry);
+    List<AutoCloseable> observers = observer.apply(openTelemetry);
+    registeredObservers.addAll(observers);
+    return observers;
   }
 
   public void registerMetricsObserver(Consumer<OpenTelemetry> observer) {
@@ -1,6 +1,7 @@
 package com.avioconsulting.mule.opentelemetry.internal.interceptor;
 
 import com.avioconsulting.mule.opentelemetry.api.processor.ProcessorComponent;
+import com.avioconsulting.mule.opentelemetry.internal.processor.DBProcessorComponent;
 import com.avioconsulting.mule.opentelemetry.internal.processor.MuleNotificationProcessor;
 import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
 import com.avioconsulting.mule.opentelemetry.internal.store.TransactionStore;
@@ -15,6 +16,7 @@ import org.mule.runtime.api.interception.InterceptionAction;
 import org.mule.runtime.api.interception.InterceptionEvent;
 import org.mule.runtime.api.interception.ProcessorInterceptor;
 import org.mule.runtime.api.interception.ProcessorParameterValue;
+import org.mule.runtime.api.metadata.TypedValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -197,7 +199,40 @@ public class ProcessorTracingInterceptor implements ProcessorInterceptor {
             event.getVariables().toString());
       }
     }
+    if (muleNotificationProcessor.hasConnection()
+        && DBProcessorComponent.hasAffectedRows(location.getComponentIdentifier().getIdentifier())) {
+      ProcessorComponent processorComponent = muleNotificationProcessor
+          .getProcessorComponent(location.getComponentIdentifier().getIdentifier());
+      if (processorComponent instanceof DBProcessorComponent) {
+        String transactionId = muleNotificationProcessor.getOpenTelemetryConnection().getTransactionStore()
+            .transactionIdFor(event);
+        String eventId = event.getContext().getId();
+        String target = getTarget(parameters);
+        return action.proceed().thenApply(result -> {
+          // Result is only available here, not in the processor end notification
+          Object value = target == null ? result.getMessage().getPayload().getValue()
+              : Optional.ofNullable(result.getVariables().get(target)).map(TypedValue::getValue).orElse(null);
+          ((DBProcessorComponent) processorComponent).captureOperationResult(transactionId, eventId,
+              location.getLocation(), value);
+          return result;
+        });
+      }
+    }
     return action.proceed();
   }
 
+  private String getTarget(Map<String, ProcessorParameterValue> parameters) {
+    ProcessorParameterValue target = parameters.get("target");
+    if (target == null) {
+      return null;
+    }
+    try {
+      Object value = target.resolveValue();
+      return value == null || value.toString().trim().isEmpty() ? null : value.toString();
+    } catch (Exception e) {
+      LOGGER.trace("Cannot resolve the target of {}", parameters, e);
+      return null;
+    }
+  }
+
 }
@@ -0,0 +1,131 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.metrics.internal.exemplar.ExemplarFilter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the measurements offered as exemplars between two metric exports.
+ * <p>
+ * SDK keeps a fixed number of exemplars per data point, and every measurement
+ * accepted by the filter is offered to the reservoir of its data point. This
+ * filter bounds how many measurements are offered per collection cycle across
+ * all instruments, in addition to the configured filter, which bounds the cost
+ * of offering them on the recording path. It does not change how many
+ * exemplars a data point keeps.
+ * <p>
+ * Measurements are sampled randomly over the whole cycle, with the ratio of the
+ * limit to the measurements seen in the previous cycle, so a spike late in the
+ * interval still gets exemplars. The limit remains a hard cap when traffic
+ * grows within a cycle. Cycle is reset when the observable registered with
+ * {@link #registerObservers(OpenTelemetry)} is collected.
+ * <p>
+ * SDK 1.32 only accepts an exemplar filter through its internal API, same as
+ * the autoconfigure module does.
+ */
+public class BoundedExemplarFilter implements ExemplarFilter {
+
+  private final ExemplarFilter delegate;
+  private final int maxOffers;
+  private final AtomicInteger offered = new AtomicInteger();
+  private final LongAdder measurements = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private volatile double sampleRatio = 1.0;
+
+  /**
+   * @param delegate
+   *            {@link ExemplarFilter} measurements must pass first
+   * @param maxOffers
+   *            maximum measurements to offer per collection cycle
+   */
+  public BoundedExemplarFilter(ExemplarFilter delegate, int maxOffers) {
+    this.delegate = delegate;
+    this.maxOffers = maxOffers;
+  }
+
+  /**
+   * Get the SDK filter for a filter property value.
+   *
+   * @param value
+   *            always_on, always_off or trace_based, case insensitive
+   * @return ExemplarFilter, trace based for unknown values
+   */
+  public static ExemplarFilter filterFor(String value) {
+    if ("always_on".equalsIgnoreCase(value)) {
+      return ExemplarFilter.alwaysOn();
+    }
+    if ("always_off".equalsIgnoreCase(value)) {
+      return ExemplarFilter.alwaysOff();
+    }
+    return ExemplarFilter.traceBased();
+  }
+
+  @Override
+  public boolean shouldSampleMeasurement(long value, Attributes attributes, Context context) {
+    return delegate.shouldSampleMeasurement(value, attributes, context) && acquire();
+  }
+
+  @Override
+  public boolean shouldSampleMeasurement(double value, Attributes attributes, Context context) {
+    return delegate.shouldSampleMeasurement(value, attributes, context) && acquire();
+  }
+
+  private boolean acquire() {
+    measurements.increment();
+    double ratio = sampleRatio;
+    // Read first so that a full cycle doesn't keep incrementing
+    if ((ratio < 1.0 && ThreadLocalRandom.current().nextDouble() >= ratio)
+        || offered.get() >= maxOffers || offered.incrementAndGet() > maxOffers) {
+      rejected.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Start a new collection cycle, accepting measurements again. The sample ratio
+   * of the new cycle spreads the limit over as many measurements as the ended
+   * cycle had.
+   */
+  public void startCycle() {
+    long count = measurements.sumThenReset();
+    sampleRatio = count <= maxOffers ? 1.0 : (double) maxOffers / count;
+    offered.set(0);
+  }
+
+  double getSampleRatio() {
+    return sampleRatio;
+  }
+
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Register an observable counter of measurements not offered as exemplars due
+   * to the limit. Its callback also starts a new cycle.
+   *
+   * @param openTelemetry
+   *            {@link OpenTelemetry} to get the meter from
+   * @return List of {@link AutoCloseable} registrations
+   */
+  public List<AutoCloseable> registerObservers(OpenTelemetry openTelemetry) {
+    ObservableLongCounter rejectedCounter = openTelemetry.getMeter(BoundedExemplarFilter.class.getName())
+        .counterBuilder("mule.otel.metric.exemplar.rejected.count")
+        .setDescription("Number of measurements not offered as exemplars due to the exemplar offer limit")
+        .setUnit("1")
+        .buildWithCallback(measurement -> {
+          measurement.record(getRejectedCount());
+          startCycle();
+        });
+    return Collections.singletonList(rejectedCounter);
+  }
+}
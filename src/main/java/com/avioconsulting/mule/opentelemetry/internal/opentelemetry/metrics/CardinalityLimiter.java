@@ -0,0 +1,95 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of distinct attribute sets recorded on an instrument.
+ * <p>
+ * Attribute sets seen so far are kept in a concurrent map, so recording an
+ * already seen set is a lock free lookup. Once the limit is reached, any new
+ * set is replaced with a single {@code otel.metric.overflow=true} set and the
+ * recording is counted as overflowed.
+ * <p>
+ * Instruments exported with delta temporality only hold the series of one
+ * collection cycle, and their limiter is reset with {@link #startCycle()} on
+ * each collection. Cumulative series are kept by the SDK until shutdown, so
+ * their limiter is never reset.
+ */
+public class CardinalityLimiter {
+
+  public static final AttributeKey<Boolean> OTEL_METRIC_OVERFLOW = AttributeKey.booleanKey("otel.metric.overflow");
+  public static final Attributes OVERFLOW_ATTRIBUTES = Attributes.of(OTEL_METRIC_OVERFLOW, true);
+
+  private final String instrumentName;
+  private final int maxAttributeSets;
+  private final boolean resetEachCycle;
+  private final LongAdder overflowed = new LongAdder();
+  private volatile Map<Attributes, Boolean> attributeSets = new ConcurrentHashMap<>();
+
+  /**
+   * @param instrumentName
+   *            name of the limited instrument
+   * @param maxAttributeSets
+   *            maximum distinct attribute sets, {@code 0} or less for no limit
+   * @param resetEachCycle
+   *            true to forget seen attribute sets on every collection
+   */
+  public CardinalityLimiter(String instrumentName, int maxAttributeSets, boolean resetEachCycle) {
+    this.instrumentName = instrumentName;
+    this.maxAttributeSets = maxAttributeSets;
+    this.resetEachCycle = resetEachCycle;
+  }
+
+  /**
+   * Get attributes to record with.
+   *
+   * @param attributes
+   *            {@link Attributes} of the recording
+   * @return given attributes, or {@link #OVERFLOW_ATTRIBUTES} when limit is
+   *         reached
+   */
+  public Attributes limit(Attributes attributes) {
+    if (maxAttributeSets <= 0) {
+      return attributes;
+    }
+    Map<Attributes, Boolean> current = attributeSets;
+    if (current.containsKey(attributes)) {
+      return attributes;
+    }
+    // Concurrent first recordings may go over the limit by the number of
+    // recording threads, which is preferred over locking here.
+    if (current.size() < maxAttributeSets) {
+      current.putIfAbsent(attributes, Boolean.TRUE);
+      return attributes;
+    }
+    overflowed.increment();
+    return OVERFLOW_ATTRIBUTES;
+  }
+
+  /**
+   * Start a new collection cycle, forgetting the attribute sets seen in the
+   * previous one if this limiter resets each cycle.
+   */
+  public void startCycle() {
+    if (resetEachCycle) {
+      attributeSets = new ConcurrentHashMap<>();
+    }
+  }
+
+  public String getInstrumentName() {
+    return instrumentName;
+  }
+
+  public long getOverflowedCount() {
+    return overflowed.sum();
+  }
+
+  int size() {
+    return attributeSets.size();
+  }
+}
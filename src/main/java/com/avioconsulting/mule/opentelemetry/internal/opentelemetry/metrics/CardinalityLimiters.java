@@ -0,0 +1,83 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CardinalityLimiter}s of all instruments created by the module, with
+ * the same attribute set limit.
+ */
+public class CardinalityLimiters {
+
+  private static final AttributeKey<String> METRIC_NAME = AttributeKey.stringKey("metric.name");
+
+  private final Map<String, CardinalityLimiter> limiters = new ConcurrentHashMap<>();
+  private final int maxAttributeSets;
+  private boolean deltaTemporality;
+
+  /**
+   * @param maxAttributeSets
+   *            maximum distinct attribute sets per instrument, {@code 0} or
+   *            less for no limit
+   */
+  public CardinalityLimiters(int maxAttributeSets) {
+    this.maxAttributeSets = maxAttributeSets;
+  }
+
+  /**
+   * Set if metrics are exported with delta temporality preference. Must be set
+   * before any limiter is created.
+   *
+   * @param deltaTemporality
+   *            true when counters and histograms are exported as delta
+   * @return CardinalityLimiters
+   */
+  public CardinalityLimiters setDeltaTemporality(boolean deltaTemporality) {
+    this.deltaTemporality = deltaTemporality;
+    return this;
+  }
+
+  /**
+   * Get the limiter of an instrument, creating it on first call.
+   *
+   * @param instrumentName
+   *            name of the instrument
+   * @param instrumentType
+   *            {@link InstrumentType} of the instrument
+   * @return CardinalityLimiter
+   */
+  public CardinalityLimiter get(String instrumentName, InstrumentType instrumentType) {
+    return limiters.computeIfAbsent(instrumentName, name -> new CardinalityLimiter(name, maxAttributeSets,
+        deltaTemporality
+            && (InstrumentType.COUNTER.equals(instrumentType) || InstrumentType.HISTOGRAM.equals(instrumentType))));
+  }
+
+  /**
+   * Register an observable counter of overflowed recordings per instrument. Its
+   * callback also starts a new cycle on every limiter.
+   *
+   * @param openTelemetry
+   *            {@link OpenTelemetry} to get the meter from
+   * @return List of {@link AutoCloseable} registrations
+   */
+  public List<AutoCloseable> registerObservers(OpenTelemetry openTelemetry) {
+    ObservableLongCounter overflowCounter = openTelemetry.getMeter(CardinalityLimiters.class.getName())
+        .counterBuilder("mule.otel.metric.overflow.count")
+        .setDescription("Number of recordings folded into the overflow series of an instrument")
+        .setUnit("1")
+        .buildWithCallback(measurement -> limiters.values().forEach(limiter -> {
+          measurement.record(limiter.getOverflowedCount(),
+              Attributes.of(METRIC_NAME, limiter.getInstrumentName()));
+          limiter.startCycle();
+        }));
+    return Collections.singletonList(overflowCounter);
+  }
+}
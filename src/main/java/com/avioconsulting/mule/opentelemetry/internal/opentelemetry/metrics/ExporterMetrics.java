@@ -0,0 +1,198 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.View;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Metrics of the export pipeline itself, so span drops and slow or failing
+ * exports can be seen, and queue and batch sizes can be tuned.
+ * <p>
+ * Exporters wrapped with {@link #meter(SpanExporter)} and
+ * {@link #meter(MetricExporter)} record the batch size, the export duration
+ * and failed exports per exporter. Exporters are created while the SDK is
+ * built, before any meter is available, so nothing is recorded until
+ * {@link #registerInstruments(OpenTelemetry)} is called.
+ * <p>
+ * The queue size and processed spans counts of the SDK batch span processor
+ * are renamed into the same namespace with {@link #registerViews}. Batch span
+ * processors created by the module report them with the exporter attribute
+ * when built with {@link #meterProvider(String)}.
+ */
+public class ExporterMetrics {
+
+  public static final String BATCH_SIZE = "mule.otel.exporter.batch.size";
+  public static final String EXPORT_DURATION = "mule.otel.exporter.export.duration";
+  public static final String EXPORT_FAILURES = "mule.otel.exporter.export.failures";
+  public static final String QUEUE_SIZE = "mule.otel.exporter.queue.size";
+  public static final String SPANS_PROCESSED = "mule.otel.exporter.spans.processed";
+
+  static final AttributeKey<String> SIGNAL = AttributeKey.stringKey("signal");
+  static final AttributeKey<String> EXPORTER = AttributeKey.stringKey("exporter");
+  static final AttributeKey<Boolean> SUCCESS = AttributeKey.booleanKey("success");
+  private static final String SDK_TRACE_METER = "io.opentelemetry.sdk.trace";
+  private static final List<Long> BATCH_SIZE_BUCKETS = Arrays.asList(1L, 8L, 32L, 64L, 128L, 256L, 512L, 1024L,
+      2048L, 4096L);
+
+  private volatile LongHistogram batchSize;
+  private volatile DoubleHistogram exportDuration;
+  private volatile LongCounter exportFailures;
+  private Meter processorMeter;
+  private final List<Consumer<Meter>> pendingProcessorInstruments = new ArrayList<>();
+
+  /**
+   * Rename the SDK batch span processor instruments into the exporter metrics
+   * namespace.
+   *
+   * @param meterProviderBuilder
+   *            {@link SdkMeterProviderBuilder} to register the views with
+   * @return SdkMeterProviderBuilder
+   */
+  public static SdkMeterProviderBuilder registerViews(SdkMeterProviderBuilder meterProviderBuilder) {
+    return meterProviderBuilder
+        .registerView(InstrumentSelector.builder().setMeterName(SDK_TRACE_METER).setName("queueSize").build(),
+            View.builder().setName(QUEUE_SIZE).setDescription("Number of spans waiting in the queue to be exported")
+                .build())
+        .registerView(
+            InstrumentSelector.builder().setMeterName(SDK_TRACE_METER).setName("processedSpans").build(),
+            View.builder().setName(SPANS_PROCESSED)
+                .setDescription("Number of spans processed by the batch span processor, dropped=true for the "
+                    + "spans dropped because the queue was full")
+                .build());
+  }
+
+  /**
+   * Create the instruments to record on. Until then, exports are not recorded.
+   *
+   * @param openTelemetry
+   *            {@link OpenTelemetry} to get the meter from
+   */
+  public void registerInstruments(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter(ExporterMetrics.class.getName());
+    exportDuration = meter.histogramBuilder(EXPORT_DURATION)
+        .setDescription("Duration of the exports, until the exporter completes the export")
+        .setUnit("ms")
+        .build();
+    exportFailures = meter.counterBuilder(EXPORT_FAILURES)
+        .setDescription("Number of exports that failed")
+        .setUnit("1")
+        .build();
+    batchSize = meter.histogramBuilder(BATCH_SIZE)
+        .setDescription("Number of items in the exported batches")
+        .setUnit("1")
+        .ofLongs()
+        .setExplicitBucketBoundariesAdvice(BATCH_SIZE_BUCKETS)
+        .build();
+    List<Consumer<Meter>> pending;
+    synchronized (this) {
+      processorMeter = openTelemetry.getMeter(SDK_TRACE_METER);
+      pending = new ArrayList<>(pendingProcessorInstruments);
+      pendingProcessorInstruments.clear();
+    }
+    pending.forEach(instruments -> instruments.accept(processorMeter));
+  }
+
+  /**
+   * Meter provider for a batch span processor of the module, to record its queue
+   * size and processed spans with the exporter attribute. Processors are created
+   * while the SDK is built, so the instruments are only created once
+   * {@link #registerInstruments(OpenTelemetry)} is called.
+   *
+   * @param exporter
+   *            name of the exporter the processor exports to
+   * @return MeterProvider
+   */
+  public MeterProvider meterProvider(String exporter) {
+    return new ProcessorMeterProvider(this, Attributes.of(SIGNAL, "traces", EXPORTER, exporter));
+  }
+
+  /**
+   * Create processor instruments on the SDK trace meter, once it is available.
+   *
+   * @param instruments
+   *            creates the instruments on the meter
+   */
+  void onProcessorMeter(Consumer<Meter> instruments) {
+    Meter meter;
+    synchronized (this) {
+      if (processorMeter == null) {
+        pendingProcessorInstruments.add(instruments);
+        return;
+      }
+      meter = processorMeter;
+    }
+    instruments.accept(meter);
+  }
+
+  /**
+   * Wrap a span exporter to record its exports.
+   *
+   * @param spanExporter
+   *            {@link SpanExporter} to wrap
+   * @return SpanExporter
+   */
+  public SpanExporter meter(SpanExporter spanExporter) {
+    return new MeteredSpanExporter(spanExporter, this, attributes("traces", spanExporter));
+  }
+
+  /**
+   * Wrap a metric exporter to record its exports.
+   *
+   * @param metricExporter
+   *            {@link MetricExporter} to wrap
+   * @return MetricExporter
+   */
+  public MetricExporter meter(MetricExporter metricExporter) {
+    return new MeteredMetricExporter(metricExporter, this, attributes("metrics", metricExporter));
+  }
+
+  /**
+   * Record an export once its result completes.
+   *
+   * @param attributes
+   *            attributes of the exporter
+   * @param items
+   *            number of exported items
+   * @param startNanos
+   *            {@link System#nanoTime()} when export started
+   * @param result
+   *            {@link CompletableResultCode} of the export
+   * @return CompletableResultCode the given result
+   */
+  CompletableResultCode record(Attributes attributes, int items, long startNanos, CompletableResultCode result) {
+    LongHistogram batchSize = this.batchSize;
+    if (batchSize == null) {
+      return result;
+    }
+    batchSize.record(items, attributes);
+    result.whenComplete(() -> {
+      exportDuration.record((System.nanoTime() - startNanos) / (double) TimeUnit.MILLISECONDS.toNanos(1),
+          attributes.toBuilder().put(SUCCESS, result.isSuccess()).build());
+      if (!result.isSuccess()) {
+        exportFailures.add(1, attributes);
+      }
+    });
+    return result;
+  }
+
+  private static Attributes attributes(String signal, Object exporter) {
+    return Attributes.of(SIGNAL, signal, EXPORTER, exporter.getClass().getSimpleName());
+  }
+}
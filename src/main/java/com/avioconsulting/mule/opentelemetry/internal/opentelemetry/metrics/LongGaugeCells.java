@@ -0,0 +1,75 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last recorded values of a custom gauge instrument, one {@link AtomicLong}
+ * cell per attribute set.
+ * <p>
+ * Recording a value is a lock free set on the cell. The registered observable
+ * gauge reads all cells with {@link #observe(ObservableLongMeasurement)} when
+ * metrics are collected. Cells not set since the previous collection are
+ * removed instead of reported, so attribute sets that are no longer recorded
+ * don't stay in memory and in every export.
+ */
+public class LongGaugeCells {
+
+  private final Map<Attributes, Cell> cells = new ConcurrentHashMap<>();
+
+  /**
+   * Set the current value for given attributes.
+   *
+   * @param value
+   *            long value of the gauge
+   * @param attributes
+   *            {@link Attributes} of the value
+   */
+  public void set(long value, Attributes attributes) {
+    Cell cell = cells.get(attributes);
+    if (cell == null) {
+      cell = cells.computeIfAbsent(attributes, key -> new Cell());
+    }
+    cell.set(value);
+    // Removed by a collection in between, the value must not be lost
+    if (cells.get(attributes) != cell) {
+      cells.computeIfAbsent(attributes, key -> new Cell()).set(value);
+    }
+  }
+
+  /**
+   * Callback for the observable gauge to report current values. Cells not set
+   * since the previous call are removed.
+   *
+   * @param measurement
+   *            {@link ObservableLongMeasurement}
+   */
+  public void observe(ObservableLongMeasurement measurement) {
+    cells.forEach((attributes, cell) -> {
+      if (cell.updated) {
+        cell.updated = false;
+        measurement.record(cell.value.get(), attributes);
+      } else {
+        cells.remove(attributes, cell);
+      }
+    });
+  }
+
+  int size() {
+    return cells.size();
+  }
+
+  private static class Cell {
+    private final AtomicLong value = new AtomicLong();
+    private volatile boolean updated;
+
+    private void set(long value) {
+      this.value.set(value);
+      updated = true;
+    }
+  }
+}
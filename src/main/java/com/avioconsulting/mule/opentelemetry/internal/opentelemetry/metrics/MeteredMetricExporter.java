@@ -0,0 +1,72 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+import java.util.Collection;
+
+/**
+ * Records the exports of a metric exporter with {@link ExporterMetrics}. The
+ * batch size is the number of exported metrics.
+ */
+class MeteredMetricExporter implements MetricExporter {
+
+  private final MetricExporter delegate;
+  private final ExporterMetrics exporterMetrics;
+  private final Attributes attributes;
+
+  MeteredMetricExporter(MetricExporter delegate, ExporterMetrics exporterMetrics, Attributes attributes) {
+    this.delegate = delegate;
+    this.exporterMetrics = exporterMetrics;
+    this.attributes = attributes;
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return delegate.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return delegate.getDefaultAggregation(instrumentType);
+  }
+
+  @Override
+  public MemoryMode getMemoryMode() {
+    return delegate.getMemoryMode();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    long start = System.nanoTime();
+    CompletableResultCode result;
+    try {
+      result = delegate.export(metrics);
+    } catch (RuntimeException e) {
+      exporterMetrics.record(attributes, metrics.size(), start, CompletableResultCode.ofFailure());
+      throw e;
+    }
+    return exporterMetrics.record(attributes, metrics.size(), start, result);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    return "MeteredMetricExporter{" + delegate + '}';
+  }
+}
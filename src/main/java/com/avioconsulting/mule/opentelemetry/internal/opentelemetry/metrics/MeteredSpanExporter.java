@@ -0,0 +1,52 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.Collection;
+
+/**
+ * Records the exports of a span exporter with {@link ExporterMetrics}.
+ */
+class MeteredSpanExporter implements SpanExporter {
+
+  private final SpanExporter delegate;
+  private final ExporterMetrics exporterMetrics;
+  private final Attributes attributes;
+
+  MeteredSpanExporter(SpanExporter delegate, ExporterMetrics exporterMetrics, Attributes attributes) {
+    this.delegate = delegate;
+    this.exporterMetrics = exporterMetrics;
+    this.attributes = attributes;
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    long start = System.nanoTime();
+    CompletableResultCode result;
+    try {
+      result = delegate.export(spans);
+    } catch (RuntimeException e) {
+      exporterMetrics.record(attributes, spans.size(), start, CompletableResultCode.ofFailure());
+      throw e;
+    }
+    return exporterMetrics.record(attributes, spans.size(), start, result);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    return "MeteredSpanExporter{" + delegate + '}';
+  }
+}
@@ -0,0 +1,199 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricView;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricViewAggregation;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.View;
+import io.opentelemetry.sdk.metrics.ViewBuilder;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.i18n.I18nMessageFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Registers configured {@link MetricView}s with the meter provider, together
+ * with the bucket views of custom histogram instruments.
+ * <p>
+ * Explicit buckets of a custom histogram are advised on the instrument, which
+ * any view with the {@code DEFAULT} aggregation keeps. Base2 exponential
+ * buckets cannot be advised and need a view. The SDK exports a stream per view
+ * matching an instrument, so such a histogram gets its own view only when no
+ * configured view selects it. A view with the {@code DEFAULT} aggregation
+ * selecting it by its exact name is registered with the bucket aggregation of
+ * the histogram instead, so a view that only drops attribute keys keeps the
+ * buckets.
+ */
+public class MetricViews {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricViews.class);
+  /**
+   * SDK needs at least two buckets for base2 exponential histograms.
+   */
+  public static final int MIN_MAX_BUCKETS = 2;
+
+  private MetricViews() {
+  }
+
+  /**
+   * Register a view per configured {@link MetricView}.
+   *
+   * @param meterProviderBuilder
+   *            {@link SdkMeterProviderBuilder} to register views with
+   * @param metricViews
+   *            configured views
+   * @return SdkMeterProviderBuilder
+   */
+  public static SdkMeterProviderBuilder register(SdkMeterProviderBuilder meterProviderBuilder,
+      List<MetricView> metricViews) {
+    return register(meterProviderBuilder, metricViews, Collections.emptyMap());
+  }
+
+  /**
+   * Register a view per configured {@link MetricView}, and a view per custom
+   * histogram that no configured view selects.
+   *
+   * @param meterProviderBuilder
+   *            {@link SdkMeterProviderBuilder} to register views with
+   * @param metricViews
+   *            configured views, may be null
+   * @param histogramAggregations
+   *            bucket aggregation by name of the custom histograms that need a
+   *            view for their buckets
+   * @return SdkMeterProviderBuilder
+   */
+  public static SdkMeterProviderBuilder register(SdkMeterProviderBuilder meterProviderBuilder,
+      List<MetricView> metricViews, Map<String, Aggregation> histogramAggregations) {
+    Map<String, Aggregation> unselected = new LinkedHashMap<>(histogramAggregations);
+    if (metricViews != null) {
+      for (MetricView metricView : metricViews) {
+        Aggregation aggregation = getAggregation(metricView);
+        boolean defaultAggregation = isDefaultAggregation(metricView);
+        for (Map.Entry<String, Aggregation> histogram : histogramAggregations.entrySet()) {
+          if (!selects(metricView, histogram.getKey())) {
+            continue;
+          }
+          unselected.remove(histogram.getKey());
+          if (!defaultAggregation) {
+            continue;
+          }
+          if (histogram.getKey().equalsIgnoreCase(metricView.getInstrumentName())) {
+            aggregation = histogram.getValue();
+          } else {
+            LOGGER.warn(
+                "Metric view '{}' selects histogram '{}' with the default aggregation, add a view for '{}' to keep its buckets",
+                metricView.getInstrumentName(), histogram.getKey(), histogram.getKey());
+          }
+        }
+        meterProviderBuilder.registerView(InstrumentSelector.builder()
+            .setName(metricView.getInstrumentName())
+            .build(), createView(metricView, aggregation));
+      }
+    }
+    unselected.forEach((name, aggregation) -> meterProviderBuilder.registerView(InstrumentSelector.builder()
+        .setName(name)
+        .setType(InstrumentType.HISTOGRAM)
+        .build(),
+        View.builder().setAggregation(aggregation).build()));
+    return meterProviderBuilder;
+  }
+
+  static View createView(MetricView metricView) {
+    return createView(metricView, getAggregation(metricView));
+  }
+
+  private static View createView(MetricView metricView, Aggregation aggregation) {
+    if (metricView.getInstrumentName() == null || metricView.getInstrumentName().trim().isEmpty()) {
+      throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+          "Instrument name of a metric view must be set"));
+    }
+    ViewBuilder viewBuilder = View.builder().setAggregation(aggregation);
+    List<String> droppedAttributeKeys = metricView.getDroppedAttributeKeys();
+    if (droppedAttributeKeys != null && !droppedAttributeKeys.isEmpty()) {
+      Set<String> dropped = new HashSet<>(droppedAttributeKeys);
+      viewBuilder.setAttributeFilter(key -> !dropped.contains(key));
+    }
+    return viewBuilder.build();
+  }
+
+  static Aggregation getAggregation(MetricView metricView) {
+    if (metricView.getAggregation() == null) {
+      return Aggregation.defaultAggregation();
+    }
+    switch (metricView.getAggregation()) {
+      case DROP:
+        return Aggregation.drop();
+      case SUM:
+        return Aggregation.sum();
+      case LAST_VALUE:
+        return Aggregation.lastValue();
+      case EXPLICIT_BUCKETS:
+        List<Double> bucketBoundaries = metricView.getBucketBoundaries();
+        if (bucketBoundaries == null || bucketBoundaries.isEmpty()) {
+          return Aggregation.explicitBucketHistogram();
+        }
+        try {
+          return Aggregation.explicitBucketHistogram(bucketBoundaries);
+        } catch (IllegalArgumentException e) {
+          throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+              "Bucket boundaries of metric view '%s' must be in ascending order without duplicates",
+              metricView.getInstrumentName()), e);
+        }
+      case BASE2_EXPONENTIAL:
+        if (metricView.getMaxBuckets() < MIN_MAX_BUCKETS) {
+          throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+              "Max buckets of metric view '%s' must be at least %s", metricView.getInstrumentName(),
+              MIN_MAX_BUCKETS));
+        }
+        return Aggregation.base2ExponentialBucketHistogram(metricView.getMaxBuckets(), 20);
+      default:
+        return Aggregation.defaultAggregation();
+    }
+  }
+
+  private static boolean isDefaultAggregation(MetricView metricView) {
+    return metricView.getAggregation() == null || MetricViewAggregation.DEFAULT.equals(metricView.getAggregation());
+  }
+
+  /**
+   * Check if a view selects an instrument, matching its name like the SDK does:
+   * case-insensitive, where {@code *} matches any characters and {@code ?} a
+   * single character.
+   *
+   * @param metricView
+   *            configured view
+   * @param instrumentName
+   *            name of the instrument
+   * @return true if the view selects this instrument
+   */
+  static boolean selects(MetricView metricView, String instrumentName) {
+    String name = metricView.getInstrumentName();
+    if (name == null) {
+      return false;
+    }
+    if (name.indexOf('*') < 0 && name.indexOf('?') < 0) {
+      return name.equalsIgnoreCase(instrumentName);
+    }
+    StringBuilder regex = new StringBuilder();
+    for (String part : name.split("(?<=[*?])|(?=[*?])")) {
+      if ("*".equals(part)) {
+        regex.append(".*");
+      } else if ("?".equals(part)) {
+        regex.append('.');
+      } else if (!part.isEmpty()) {
+        regex.append(Pattern.quote(part));
+      }
+    }
+    return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE).matcher(instrumentName).matches();
+  }
+}
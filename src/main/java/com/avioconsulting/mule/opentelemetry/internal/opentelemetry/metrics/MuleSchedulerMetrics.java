@@ -0,0 +1,279 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the Mule runtime scheduler pools. All values are sampled when
+ * metrics are collected, nothing is recorded on the message processing path.
+ * <ul>
+ * <li>Pool threads by state, counted from the runtime thread names</li>
+ * <li>Tasks waiting in the pool queue, when the pool executor can be
+ * resolved</li>
+ * <li>Task wait time, measured with a no-op probe task submitted on every
+ * collection</li>
+ * <li>Rejected probe tasks, a pool that rejects tasks is saturated</li>
+ * </ul>
+ */
+public class MuleSchedulerMetrics {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MuleSchedulerMetrics.class);
+  private static final AttributeKey<String> POOL = AttributeKey.stringKey("mule.scheduler.pool");
+  private static final AttributeKey<String> STATE = AttributeKey.stringKey("state");
+  private static final String THREAD_NAME_PREFIX = "[MuleRuntime].";
+  private static volatile OpenTelemetryConnection installedConnection;
+  private static MuleSchedulerMetrics installedMetrics;
+
+  private final List<Pool> pools;
+  private final List<ThreadPool> threadPools = Arrays.asList(
+      new ThreadPool("cpuLight.", "CPU_LITE"),
+      new ThreadPool("io.", "BLOCKING_IO"),
+      new ThreadPool("cpuIntensive.", "CPU_INTENSIVE"),
+      new ThreadPool("uber.", "UBER"));
+
+  MuleSchedulerMetrics(List<Pool> pools) {
+    this.pools = pools;
+  }
+
+  /**
+   * Install scheduler pool metrics once per connection.
+   *
+   * @param openTelemetryConnection
+   *            {@link OpenTelemetryConnection} to register observers with
+   * @param schedulerService
+   *            {@link SchedulerService} of the runtime
+   */
+  public static synchronized void installMetrics(OpenTelemetryConnection openTelemetryConnection,
+      SchedulerService schedulerService) {
+    if (schedulerService == null || installedConnection == openTelemetryConnection) {
+      return;
+    }
+    MuleSchedulerMetrics schedulerMetrics = new MuleSchedulerMetrics(Arrays.asList(
+        new Pool("CPU_LITE", schedulerService.cpuLightScheduler()),
+        new Pool("BLOCKING_IO", schedulerService.ioScheduler()),
+        new Pool("CPU_INTENSIVE", schedulerService.cpuIntensiveScheduler())));
+    if (installedMetrics != null) {
+      installedMetrics.stopSchedulers();
+    }
+    openTelemetryConnection.registerMetricsObserver(schedulerMetrics::registerObservers);
+    installedMetrics = schedulerMetrics;
+    installedConnection = openTelemetryConnection;
+  }
+
+  /**
+   * Stop the schedulers created for the installed metrics and forget the
+   * connection, so the metrics are installed again on the next start.
+   */
+  public static synchronized void uninstallMetrics() {
+    if (installedMetrics != null) {
+      installedMetrics.stopSchedulers();
+      installedMetrics = null;
+    }
+    installedConnection = null;
+  }
+
+  private void stopSchedulers() {
+    pools.forEach(Pool::stop);
+  }
+
+  List<AutoCloseable> registerObservers(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter(MuleSchedulerMetrics.class.getName());
+    List<AutoCloseable> observables = new ArrayList<>();
+    observables.add(meter.upDownCounterBuilder("mule.scheduler.pool.threads")
+        .setDescription("Number of threads in the scheduler pool by state")
+        .setUnit("{thread}")
+        .buildWithCallback(measurement -> {
+          synchronized (threadPools) {
+            countThreads();
+            for (ThreadPool threadPool : threadPools) {
+              if (threadPool.total > 0) {
+                measurement.record(threadPool.active, threadPool.activeAttributes);
+                measurement.record(threadPool.total - threadPool.active, threadPool.idleAttributes);
+              }
+            }
+          }
+        }));
+    observables.add(meter.upDownCounterBuilder("mule.scheduler.pool.queue.size")
+        .setDescription("Number of tasks waiting in the scheduler pool queue")
+        .setUnit("{task}")
+        .buildWithCallback(measurement -> {
+          for (Pool pool : pools) {
+            if (pool.executor != null) {
+              measurement.record(pool.executor.getQueue().size(), pool.attributes);
+            }
+          }
+        }));
+    observables.add(meter.gaugeBuilder("mule.scheduler.pool.task.wait_time")
+        .setDescription("Time a probe task waited in the scheduler pool before it started")
+        .setUnit("ms")
+        .ofLongs()
+        .buildWithCallback(measurement -> {
+          for (Pool pool : pools) {
+            long waitNanos = pool.probe();
+            if (waitNanos >= 0) {
+              measurement.record(TimeUnit.NANOSECONDS.toMillis(waitNanos), pool.attributes);
+            }
+          }
+        }));
+    observables.add(meter.counterBuilder("mule.scheduler.pool.tasks.rejected")
+        .setDescription("Number of probe tasks rejected by the scheduler pool")
+        .setUnit("{task}")
+        .buildWithCallback(measurement -> {
+          for (Pool pool : pools) {
+            measurement.record(pool.rejected.sum(), pool.attributes);
+          }
+        }));
+    return observables;
+  }
+
+  private void countThreads() {
+    threadPools.forEach(ThreadPool::reset);
+    ThreadGroup root = Thread.currentThread().getThreadGroup();
+    while (root.getParent() != null) {
+      root = root.getParent();
+    }
+    Thread[] threads = new Thread[root.activeCount() * 2];
+    int count = root.enumerate(threads, true);
+    for (int i = 0; i < count; i++) {
+      String name = threads[i].getName();
+      if (!name.startsWith(THREAD_NAME_PREFIX)) {
+        continue;
+      }
+      for (ThreadPool threadPool : threadPools) {
+        if (name.startsWith(threadPool.prefix, THREAD_NAME_PREFIX.length())) {
+          threadPool.total++;
+          Thread.State state = threads[i].getState();
+          if (Thread.State.RUNNABLE.equals(state) || Thread.State.BLOCKED.equals(state)) {
+            threadPool.active++;
+          }
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the {@link ThreadPoolExecutor} a runtime {@link Scheduler} submits
+   * tasks to. Scheduler implementations are not part of the runtime API, so this
+   * is a best effort lookup of its fields.
+   *
+   * @return ThreadPoolExecutor or null if not found
+   */
+  static ThreadPoolExecutor findExecutor(Object scheduler) {
+    if (scheduler instanceof ThreadPoolExecutor) {
+      return (ThreadPoolExecutor) scheduler;
+    }
+    for (Class<?> type = scheduler.getClass(); type != null
+        && !Object.class.equals(type); type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        Class<?> fieldType = field.getType();
+        if (Modifier.isStatic(field.getModifiers()) || Object.class.equals(fieldType)) {
+          continue;
+        }
+        if (ThreadPoolExecutor.class.isAssignableFrom(fieldType)
+            || fieldType.isAssignableFrom(ThreadPoolExecutor.class)) {
+          try {
+            field.setAccessible(true);
+            Object value = field.get(scheduler);
+            if (value instanceof ThreadPoolExecutor) {
+              return (ThreadPoolExecutor) value;
+            }
+          } catch (RuntimeException | IllegalAccessException e) {
+            LOGGER.debug("Cannot read executor of scheduler {}", scheduler, e);
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  static final class Pool {
+    private final Attributes attributes;
+    private final Scheduler scheduler;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private volatile long probeSubmitted = -1;
+    private volatile long probeStarted = -1;
+
+    Pool(String name, Scheduler scheduler) {
+      this.attributes = Attributes.of(POOL, name);
+      this.scheduler = scheduler;
+      this.executor = findExecutor(scheduler);
+    }
+
+    /**
+     * Read the wait time of the previous probe task and submit a new one. A probe
+     * that has not started yet has waited since it was submitted.
+     *
+     * @return long wait time in nanos, or -1 if no probe was submitted before
+     */
+    synchronized long probe() {
+      long now = System.nanoTime();
+      long waitNanos = -1;
+      if (probeSubmitted >= 0) {
+        waitNanos = probeStarted >= 0 ? probeStarted - probeSubmitted : now - probeSubmitted;
+        if (probeStarted < 0) {
+          // Previous probe is still waiting, no need for another one
+          return waitNanos;
+        }
+      }
+      probeStarted = -1;
+      probeSubmitted = now;
+      try {
+        scheduler.execute(() -> probeStarted = System.nanoTime());
+      } catch (RejectedExecutionException e) {
+        rejected.increment();
+        probeSubmitted = -1;
+      }
+      return waitNanos;
+    }
+
+    void stop() {
+      try {
+        scheduler.stop();
+      } catch (RuntimeException e) {
+        LOGGER.debug("Failed to stop scheduler {}", scheduler, e);
+      }
+    }
+
+    long getRejectedCount() {
+      return rejected.sum();
+    }
+  }
+
+  private static final class ThreadPool {
+    private final String prefix;
+    private final Attributes activeAttributes;
+    private final Attributes idleAttributes;
+    private int total;
+    private int active;
+
+    private ThreadPool(String prefix, String name) {
+      this.prefix = prefix;
+      this.activeAttributes = Attributes.of(POOL, name, STATE, "active");
+      this.idleAttributes = Attributes.of(POOL, name, STATE, "idle");
+    }
+
+    private void reset() {
+      total = 0;
+      active = 0;
+    }
+  }
+}
@@ -6,6 +6,7 @@ import io.opentelemetry.instrumentation.oshi.SystemMetrics;
 
 public class OSMetrics {
   public static void installMetrics(OpenTelemetryConnection openTelemetryConnection) {
+    // OSHI observers return no registrations, they stop with the SDK shutdown
     openTelemetryConnection.registerMetricsObserver(SystemMetrics::registerObservers);
     openTelemetryConnection.registerMetricsObserver(ProcessMetrics::registerObservers);
   }
@@ -0,0 +1,237 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleCounterBuilder;
+import io.opentelemetry.api.metrics.DoubleGaugeBuilder;
+import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongCounterBuilder;
+import io.opentelemetry.api.metrics.LongGaugeBuilder;
+import io.opentelemetry.api.metrics.LongUpDownCounterBuilder;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterBuilder;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.metrics.ObservableDoubleGauge;
+import io.opentelemetry.api.metrics.ObservableDoubleMeasurement;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import io.opentelemetry.context.Context;
+
+import java.util.function.Consumer;
+
+/**
+ * {@link MeterProvider} for span processors created while the SDK is built,
+ * before any meter is available.
+ * <p>
+ * Counters and gauges created by the processor are bound to the SDK trace
+ * meter when {@link ExporterMetrics#registerInstruments} is called, and
+ * nothing is recorded until then. Every measurement gets the given attributes,
+ * so processors of different exporters report separately. Other instruments
+ * are not recorded.
+ */
+final class ProcessorMeterProvider implements MeterProvider {
+
+  private static final Meter NOOP = MeterProvider.noop().get(ProcessorMeterProvider.class.getName());
+
+  private final ExporterMetrics exporterMetrics;
+  private final Attributes attributes;
+
+  ProcessorMeterProvider(ExporterMetrics exporterMetrics, Attributes attributes) {
+    this.exporterMetrics = exporterMetrics;
+    this.attributes = attributes;
+  }
+
+  @Override
+  public MeterBuilder meterBuilder(String instrumentationScopeName) {
+    return new MeterBuilder() {
+      @Override
+      public MeterBuilder setSchemaUrl(String schemaUrl) {
+        return this;
+      }
+
+      @Override
+      public MeterBuilder setInstrumentationVersion(String instrumentationScopeVersion) {
+        return this;
+      }
+
+      @Override
+      public Meter build() {
+        return new ProcessorMeter();
+      }
+    };
+  }
+
+  private Attributes merge(Attributes measured) {
+    return measured.toBuilder().putAll(attributes).build();
+  }
+
+  private class ProcessorMeter implements Meter {
+
+    @Override
+    public LongCounterBuilder counterBuilder(String name) {
+      return new ProcessorCounterBuilder(name);
+    }
+
+    @Override
+    public LongUpDownCounterBuilder upDownCounterBuilder(String name) {
+      return NOOP.upDownCounterBuilder(name);
+    }
+
+    @Override
+    public DoubleHistogramBuilder histogramBuilder(String name) {
+      return NOOP.histogramBuilder(name);
+    }
+
+    @Override
+    public DoubleGaugeBuilder gaugeBuilder(String name) {
+      return new ProcessorGaugeBuilder(name);
+    }
+  }
+
+  private class ProcessorCounterBuilder implements LongCounterBuilder {
+    private final String name;
+    private String description = "";
+    private String unit = "";
+
+    private ProcessorCounterBuilder(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public LongCounterBuilder setDescription(String description) {
+      this.description = description;
+      return this;
+    }
+
+    @Override
+    public LongCounterBuilder setUnit(String unit) {
+      this.unit = unit;
+      return this;
+    }
+
+    @Override
+    public DoubleCounterBuilder ofDoubles() {
+      return NOOP.counterBuilder(name).ofDoubles();
+    }
+
+    @Override
+    public LongCounter build() {
+      ProcessorCounter counter = new ProcessorCounter();
+      exporterMetrics.onProcessorMeter(meter -> counter.delegate = meter.counterBuilder(name)
+          .setDescription(description).setUnit(unit).build());
+      return counter;
+    }
+
+    @Override
+    public ObservableLongCounter buildWithCallback(Consumer<ObservableLongMeasurement> callback) {
+      exporterMetrics.onProcessorMeter(meter -> meter.counterBuilder(name).setDescription(description)
+          .setUnit(unit).buildWithCallback(measurement -> callback.accept(new ProcessorMeasurement(measurement))));
+      return new ObservableLongCounter() {
+      };
+    }
+  }
+
+  private class ProcessorGaugeBuilder implements DoubleGaugeBuilder {
+    private final ProcessorLongGaugeBuilder longGaugeBuilder;
+
+    private ProcessorGaugeBuilder(String name) {
+      this.longGaugeBuilder = new ProcessorLongGaugeBuilder(name);
+    }
+
+    @Override
+    public DoubleGaugeBuilder setDescription(String description) {
+      longGaugeBuilder.setDescription(description);
+      return this;
+    }
+
+    @Override
+    public DoubleGaugeBuilder setUnit(String unit) {
+      longGaugeBuilder.setUnit(unit);
+      return this;
+    }
+
+    @Override
+    public LongGaugeBuilder ofLongs() {
+      return longGaugeBuilder;
+    }
+
+    @Override
+    public ObservableDoubleGauge buildWithCallback(Consumer<ObservableDoubleMeasurement> callback) {
+      return NOOP.gaugeBuilder(longGaugeBuilder.name).buildWithCallback(callback);
+    }
+  }
+
+  private class ProcessorLongGaugeBuilder implements LongGaugeBuilder {
+    private final String name;
+    private String description = "";
+    private String unit = "";
+
+    private ProcessorLongGaugeBuilder(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public LongGaugeBuilder setDescription(String description) {
+      this.description = description;
+      return this;
+    }
+
+    @Override
+    public LongGaugeBuilder setUnit(String unit) {
+      this.unit = unit;
+      return this;
+    }
+
+    @Override
+    public ObservableLongGauge buildWithCallback(Consumer<ObservableLongMeasurement> callback) {
+      exporterMetrics.onProcessorMeter(meter -> meter.gaugeBuilder(name).ofLongs().setDescription(description)
+          .setUnit(unit).buildWithCallback(measurement -> callback.accept(new ProcessorMeasurement(measurement))));
+      return new ObservableLongGauge() {
+      };
+    }
+  }
+
+  private class ProcessorCounter implements LongCounter {
+    private volatile LongCounter delegate;
+
+    @Override
+    public void add(long value) {
+      add(value, Attributes.empty());
+    }
+
+    @Override
+    public void add(long value, Attributes attributes) {
+      LongCounter delegate = this.delegate;
+      if (delegate != null) {
+        delegate.add(value, merge(attributes));
+      }
+    }
+
+    @Override
+    public void add(long value, Attributes attributes, Context context) {
+      LongCounter delegate = this.delegate;
+      if (delegate != null) {
+        delegate.add(value, merge(attributes), context);
+      }
+    }
+  }
+
+  private class ProcessorMeasurement implements ObservableLongMeasurement {
+    private final ObservableLongMeasurement delegate;
+
+    private ProcessorMeasurement(ObservableLongMeasurement delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void record(long value) {
+      record(value, Attributes.empty());
+    }
+
+    @Override
+    public void record(long value, Attributes attributes) {
+      delegate.record(value, merge(attributes));
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+import java.util.Collection;
+
+/**
+ * Applies the configured temporality preference to any metric exporter. SDK
+ * autoconfigure only applies the preference to OTLP exporters.
+ */
+public class TemporalityMetricExporter implements MetricExporter {
+
+  private final MetricExporter delegate;
+  private final AggregationTemporalitySelector temporalitySelector;
+
+  public TemporalityMetricExporter(MetricExporter delegate, AggregationTemporalitySelector temporalitySelector) {
+    this.delegate = delegate;
+    this.temporalitySelector = temporalitySelector;
+  }
+
+  /**
+   * Get the selector for a temporality preference value.
+   *
+   * @param preference
+   *            cumulative, delta or lowmemory, case insensitive
+   * @return AggregationTemporalitySelector or null for cumulative and unknown
+   *         values
+   */
+  public static AggregationTemporalitySelector selectorFor(String preference) {
+    if ("delta".equalsIgnoreCase(preference)) {
+      return AggregationTemporalitySelector.deltaPreferred();
+    }
+    if ("lowmemory".equalsIgnoreCase(preference)) {
+      return AggregationTemporalitySelector.lowMemory();
+    }
+    return null;
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return temporalitySelector.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return delegate.getDefaultAggregation(instrumentType);
+  }
+
+  @Override
+  public MemoryMode getMemoryMode() {
+    return delegate.getMemoryMode();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    return delegate.export(metrics);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    return "TemporalityMetricExporter{" + delegate + '}';
+  }
+}
@@ -122,6 +122,26 @@ public final class SemanticAttributes {
    */
   public static final AttributeKey<String> DB_DATASOURCE = AttributeKey.stringKey("db.datasource");
 
+  /**
+   * Number of rows affected by a db operation, when the operation result
+   * exposes it
+   */
+  public static final AttributeKey<Long> DB_AFFECTED_ROWS = AttributeKey.longKey("db.affected_rows");
+
+  /**
+   * Normalized db statement with literals replaced by {@code ?}
+   */
+  public static final AttributeKey<String> DB_STATEMENT_FINGERPRINT = AttributeKey
+      .stringKey("db.statement.fingerprint");
+
+  /**
+   * Epoch millis when an Anypoint MQ message was published, when the publisher
+   * sets it on the message properties. Span tags are strings, so the value is
+   * recorded as a string.
+   */
+  public static final AttributeKey<String> MESSAGING_ANYPOINTMQ_PUBLISH_TIMESTAMP = AttributeKey
+      .stringKey("messaging.anypointmq.message.publish_timestamp");
+
   /**
    * Key to capture Error types
    */
@@ -129,4 +149,26 @@ public final class SemanticAttributes {
 
   public static final AttributeKey<String> MULE_APP_SCOPE_SUBFLOW_NAME = AttributeKey
       .stringKey("mule.app.scope.subflow.name");
+
+  /**
+   * Number of executions of a processor location folded into a single summary
+   * span.
+   */
+  public static final AttributeKey<Long> MULE_APP_PROCESSOR_SUMMARY_COUNT = AttributeKey
+      .longKey("mule.app.processor.summary.count");
+
+  /**
+   * Total duration in milliseconds of the executions folded into a summary span.
+   */
+  public static final AttributeKey<Double> MULE_APP_PROCESSOR_SUMMARY_DURATION_TOTAL = AttributeKey
+      .doubleKey("mule.app.processor.summary.duration.total");
+
+  public static final AttributeKey<Double> MULE_APP_PROCESSOR_SUMMARY_DURATION_MIN = AttributeKey
+      .doubleKey("mule.app.processor.summary.duration.min");
+
+  public static final AttributeKey<Double> MULE_APP_PROCESSOR_SUMMARY_DURATION_MAX = AttributeKey
+      .doubleKey("mule.app.processor.summary.duration.max");
+
+  public static final AttributeKey<Double> MULE_APP_PROCESSOR_SUMMARY_DURATION_P99 = AttributeKey
+      .doubleKey("mule.app.processor.summary.duration.p99");
 }
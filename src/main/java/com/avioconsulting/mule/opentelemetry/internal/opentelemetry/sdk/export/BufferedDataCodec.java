@@ -0,0 +1,671 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.TraceStateBuilder;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfoBuilder;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import io.opentelemetry.sdk.metrics.data.SumData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of span and metric batches kept in a {@link DiskBuffer}.
+ * <p>
+ * Batches are decoded back into {@link SpanData} and {@link MetricData}, so
+ * that they can be replayed through the configured exporter with its protocol,
+ * endpoint and headers. Resource and scope of a batch are written once and
+ * referenced by index from the items. Exemplars are not kept, and
+ * {@link MetricDataType#SUMMARY} metrics are skipped since module instruments
+ * never produce them.
+ */
+final class BufferedDataCodec {
+
+  private static final byte VERSION = 1;
+  private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+  private static final SpanKind[] SPAN_KINDS = SpanKind.values();
+  private static final StatusCode[] STATUS_CODES = StatusCode.values();
+  private static final MetricDataType[] METRIC_DATA_TYPES = MetricDataType.values();
+  private static final AggregationTemporality[] TEMPORALITIES = AggregationTemporality.values();
+
+  private BufferedDataCodec() {
+  }
+
+  static byte[] encodeSpans(Collection<SpanData> spans) throws IOException {
+    Encoder encoder = new Encoder();
+    encoder.out.writeInt(spans.size());
+    for (SpanData span : spans) {
+      encoder.writeSpan(span);
+    }
+    return encoder.toByteArray();
+  }
+
+  static List<SpanData> decodeSpans(byte[] record) throws IOException {
+    Decoder decoder = new Decoder(record);
+    int count = decoder.in.readInt();
+    List<SpanData> spans = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      spans.add(decoder.readSpan());
+    }
+    return spans;
+  }
+
+  /**
+   * Encode metrics that can be decoded again.
+   *
+   * @param metrics
+   *            metrics to encode
+   * @return byte[] encoded metrics or null when none of the metrics is supported
+   * @throws IOException
+   *             when encoding fails
+   */
+  static byte[] encodeMetrics(Collection<MetricData> metrics) throws IOException {
+    List<MetricData> supported = new ArrayList<>(metrics.size());
+    for (MetricData metric : metrics) {
+      if (!MetricDataType.SUMMARY.equals(metric.getType())) {
+        supported.add(metric);
+      }
+    }
+    if (supported.isEmpty()) {
+      return null;
+    }
+    Encoder encoder = new Encoder();
+    encoder.out.writeInt(supported.size());
+    for (MetricData metric : supported) {
+      encoder.writeMetric(metric);
+    }
+    return encoder.toByteArray();
+  }
+
+  static List<MetricData> decodeMetrics(byte[] record) throws IOException {
+    Decoder decoder = new Decoder(record);
+    int count = decoder.in.readInt();
+    List<MetricData> metrics = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      metrics.add(decoder.readMetric());
+    }
+    return metrics;
+  }
+
+  private static final class Encoder {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<Resource, Integer> resources = new IdentityHashMap<>();
+    private final Map<InstrumentationScopeInfo, Integer> scopes = new IdentityHashMap<>();
+
+    private Encoder() throws IOException {
+      out.writeByte(VERSION);
+    }
+
+    private byte[] toByteArray() throws IOException {
+      out.flush();
+      return bytes.toByteArray();
+    }
+
+    private void writeSpan(SpanData span) throws IOException {
+      writeString(span.getName());
+      out.writeByte(span.getKind().ordinal());
+      writeSpanContext(span.getSpanContext());
+      writeSpanContext(span.getParentSpanContext());
+      StatusData status = span.getStatus();
+      out.writeByte(status.getStatusCode().ordinal());
+      writeString(status.getDescription());
+      out.writeLong(span.getStartEpochNanos());
+      out.writeLong(span.getEndEpochNanos());
+      out.writeBoolean(span.hasEnded());
+      writeAttributes(span.getAttributes());
+      out.writeInt(span.getTotalAttributeCount());
+      out.writeInt(span.getEvents().size());
+      for (EventData event : span.getEvents()) {
+        out.writeLong(event.getEpochNanos());
+        writeString(event.getName());
+        writeAttributes(event.getAttributes());
+        out.writeInt(event.getTotalAttributeCount());
+      }
+      out.writeInt(span.getTotalRecordedEvents());
+      out.writeInt(span.getLinks().size());
+      for (LinkData link : span.getLinks()) {
+        writeSpanContext(link.getSpanContext());
+        writeAttributes(link.getAttributes());
+        out.writeInt(link.getTotalAttributeCount());
+      }
+      out.writeInt(span.getTotalRecordedLinks());
+      writeResource(span.getResource());
+      writeScope(span.getInstrumentationScopeInfo());
+    }
+
+    private void writeMetric(MetricData metric) throws IOException {
+      writeResource(metric.getResource());
+      writeScope(metric.getInstrumentationScopeInfo());
+      writeString(metric.getName());
+      writeString(metric.getDescription());
+      writeString(metric.getUnit());
+      out.writeByte(metric.getType().ordinal());
+      switch (metric.getType()) {
+        case LONG_GAUGE:
+          writeLongPoints(metric.getLongGaugeData().getPoints());
+          break;
+        case DOUBLE_GAUGE:
+          writeDoublePoints(metric.getDoubleGaugeData().getPoints());
+          break;
+        case LONG_SUM:
+          writeSum(metric.getLongSumData());
+          writeLongPoints(metric.getLongSumData().getPoints());
+          break;
+        case DOUBLE_SUM:
+          writeSum(metric.getDoubleSumData());
+          writeDoublePoints(metric.getDoubleSumData().getPoints());
+          break;
+        case HISTOGRAM:
+          out.writeByte(metric.getHistogramData().getAggregationTemporality().ordinal());
+          out.writeInt(metric.getHistogramData().getPoints().size());
+          for (HistogramPointData point : metric.getHistogramData().getPoints()) {
+            writePoint(point);
+            writeSummaryValues(point.getSum(), point.hasMin(), point.getMin(), point.hasMax(), point.getMax());
+            out.writeInt(point.getBoundaries().size());
+            for (Double boundary : point.getBoundaries()) {
+              out.writeDouble(boundary);
+            }
+            writeLongs(point.getCounts());
+          }
+          break;
+        case EXPONENTIAL_HISTOGRAM:
+          out.writeByte(metric.getExponentialHistogramData().getAggregationTemporality().ordinal());
+          out.writeInt(metric.getExponentialHistogramData().getPoints().size());
+          for (ExponentialHistogramPointData point : metric.getExponentialHistogramData().getPoints()) {
+            writePoint(point);
+            writeSummaryValues(point.getSum(), point.hasMin(), point.getMin(), point.hasMax(), point.getMax());
+            out.writeInt(point.getScale());
+            out.writeLong(point.getZeroCount());
+            writeBuckets(point.getPositiveBuckets());
+            writeBuckets(point.getNegativeBuckets());
+          }
+          break;
+        default:
+          throw new IOException("Unsupported metric type " + metric.getType());
+      }
+    }
+
+    private void writeSum(SumData<?> sum) throws IOException {
+      out.writeBoolean(sum.isMonotonic());
+      out.writeByte(sum.getAggregationTemporality().ordinal());
+    }
+
+    private void writeLongPoints(Collection<LongPointData> points) throws IOException {
+      out.writeInt(points.size());
+      for (LongPointData point : points) {
+        writePoint(point);
+        out.writeLong(point.getValue());
+      }
+    }
+
+    private void writeDoublePoints(Collection<DoublePointData> points) throws IOException {
+      out.writeInt(points.size());
+      for (DoublePointData point : points) {
+        writePoint(point);
+        out.writeDouble(point.getValue());
+      }
+    }
+
+    private void writePoint(PointData point) throws IOException {
+      out.writeLong(point.getStartEpochNanos());
+      out.writeLong(point.getEpochNanos());
+      writeAttributes(point.getAttributes());
+    }
+
+    private void writeSummaryValues(double sum, boolean hasMin, double min, boolean hasMax, double max)
+        throws IOException {
+      out.writeDouble(sum);
+      out.writeBoolean(hasMin);
+      out.writeDouble(min);
+      out.writeBoolean(hasMax);
+      out.writeDouble(max);
+    }
+
+    private void writeBuckets(ExponentialHistogramBuckets buckets) throws IOException {
+      out.writeInt(buckets.getScale());
+      out.writeInt(buckets.getOffset());
+      writeLongs(buckets.getBucketCounts());
+    }
+
+    private void writeLongs(List<Long> values) throws IOException {
+      out.writeInt(values.size());
+      for (Long value : values) {
+        out.writeLong(value);
+      }
+    }
+
+    private void writeSpanContext(SpanContext spanContext) throws IOException {
+      out.writeBoolean(spanContext.isValid());
+      if (!spanContext.isValid()) {
+        return;
+      }
+      writeString(spanContext.getTraceId());
+      writeString(spanContext.getSpanId());
+      out.writeByte(spanContext.getTraceFlags().asByte());
+      out.writeBoolean(spanContext.isRemote());
+      Map<String, String> traceState = spanContext.getTraceState().asMap();
+      out.writeInt(traceState.size());
+      for (Map.Entry<String, String> entry : traceState.entrySet()) {
+        writeString(entry.getKey());
+        writeString(entry.getValue());
+      }
+    }
+
+    private void writeResource(Resource resource) throws IOException {
+      Integer index = resources.get(resource);
+      if (index != null) {
+        out.writeInt(index);
+        return;
+      }
+      out.writeInt(resources.size());
+      resources.put(resource, resources.size());
+      writeString(resource.getSchemaUrl());
+      writeAttributes(resource.getAttributes());
+    }
+
+    private void writeScope(InstrumentationScopeInfo scope) throws IOException {
+      Integer index = scopes.get(scope);
+      if (index != null) {
+        out.writeInt(index);
+        return;
+      }
+      out.writeInt(scopes.size());
+      scopes.put(scope, scopes.size());
+      writeString(scope.getName());
+      writeString(scope.getVersion());
+      writeString(scope.getSchemaUrl());
+      writeAttributes(scope.getAttributes());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeAttributes(Attributes attributes) throws IOException {
+      out.writeInt(attributes.size());
+      for (Map.Entry<AttributeKey<?>, Object> entry : attributes.asMap().entrySet()) {
+        AttributeType type = entry.getKey().getType();
+        writeString(entry.getKey().getKey());
+        out.writeByte(type.ordinal());
+        Object value = entry.getValue();
+        switch (type) {
+          case STRING:
+            writeString((String) value);
+            break;
+          case BOOLEAN:
+            out.writeBoolean((Boolean) value);
+            break;
+          case LONG:
+            out.writeLong((Long) value);
+            break;
+          case DOUBLE:
+            out.writeDouble((Double) value);
+            break;
+          case STRING_ARRAY:
+            List<String> strings = (List<String>) value;
+            out.writeInt(strings.size());
+            for (String string : strings) {
+              writeString(string);
+            }
+            break;
+          case BOOLEAN_ARRAY:
+            List<Boolean> booleans = (List<Boolean>) value;
+            out.writeInt(booleans.size());
+            for (Boolean bool : booleans) {
+              out.writeBoolean(bool);
+            }
+            break;
+          case LONG_ARRAY:
+            writeLongs((List<Long>) value);
+            break;
+          case DOUBLE_ARRAY:
+            List<Double> doubles = (List<Double>) value;
+            out.writeInt(doubles.size());
+            for (Double dbl : doubles) {
+              out.writeDouble(dbl);
+            }
+            break;
+          default:
+            throw new IOException("Unsupported attribute type " + type);
+        }
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      if (value == null) {
+        out.writeInt(-1);
+        return;
+      }
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(utf8.length);
+      out.write(utf8);
+    }
+  }
+
+  private static final class Decoder {
+    private final DataInputStream in;
+    private final List<Resource> resources = new ArrayList<>();
+    private final List<InstrumentationScopeInfo> scopes = new ArrayList<>();
+
+    private Decoder(byte[] record) throws IOException {
+      in = new DataInputStream(new ByteArrayInputStream(record));
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IOException("Unsupported buffer record version " + version);
+      }
+    }
+
+    private SpanData readSpan() throws IOException {
+      BufferedSpanData span = new BufferedSpanData();
+      span.name = readString();
+      span.kind = SPAN_KINDS[in.readByte()];
+      span.spanContext = readSpanContext();
+      span.parentSpanContext = readSpanContext();
+      StatusCode statusCode = STATUS_CODES[in.readByte()];
+      String description = readString();
+      span.status = StatusData.create(statusCode, description == null ? "" : description);
+      span.startEpochNanos = in.readLong();
+      span.endEpochNanos = in.readLong();
+      span.ended = in.readBoolean();
+      span.attributes = readAttributes();
+      span.totalAttributeCount = in.readInt();
+      int eventCount = in.readInt();
+      span.events = new ArrayList<>(eventCount);
+      for (int i = 0; i < eventCount; i++) {
+        long epochNanos = in.readLong();
+        String name = readString();
+        Attributes attributes = readAttributes();
+        span.events.add(EventData.create(epochNanos, name, attributes, in.readInt()));
+      }
+      span.totalRecordedEvents = in.readInt();
+      int linkCount = in.readInt();
+      span.links = new ArrayList<>(linkCount);
+      for (int i = 0; i < linkCount; i++) {
+        SpanContext spanContext = readSpanContext();
+        Attributes attributes = readAttributes();
+        span.links.add(LinkData.create(spanContext, attributes, in.readInt()));
+      }
+      span.totalRecordedLinks = in.readInt();
+      span.resource = readResource();
+      span.instrumentationScopeInfo = readScope();
+      return span;
+    }
+
+    private MetricData readMetric() throws IOException {
+      Resource resource = readResource();
+      InstrumentationScopeInfo scope = readScope();
+      String name = readString();
+      String description = readString();
+      String unit = readString();
+      MetricDataType type = METRIC_DATA_TYPES[in.readByte()];
+      switch (type) {
+        case LONG_GAUGE:
+          return ImmutableMetricData.createLongGauge(resource, scope, name, description, unit,
+              ImmutableGaugeData.create(readLongPoints()));
+        case DOUBLE_GAUGE:
+          return ImmutableMetricData.createDoubleGauge(resource, scope, name, description, unit,
+              ImmutableGaugeData.create(readDoublePoints()));
+        case LONG_SUM: {
+          boolean monotonic = in.readBoolean();
+          AggregationTemporality temporality = TEMPORALITIES[in.readByte()];
+          return ImmutableMetricData.createLongSum(resource, scope, name, description, unit,
+              ImmutableSumData.create(monotonic, temporality, readLongPoints()));
+        }
+        case DOUBLE_SUM: {
+          boolean monotonic = in.readBoolean();
+          AggregationTemporality temporality = TEMPORALITIES[in.readByte()];
+          return ImmutableMetricData.createDoubleSum(resource, scope, name, description, unit,
+              ImmutableSumData.create(monotonic, temporality, readDoublePoints()));
+        }
+        case HISTOGRAM: {
+          AggregationTemporality temporality = TEMPORALITIES[in.readByte()];
+          int count = in.readInt();
+          List<HistogramPointData> points = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            long start = in.readLong();
+            long epoch = in.readLong();
+            Attributes attributes = readAttributes();
+            double sum = in.readDouble();
+            boolean hasMin = in.readBoolean();
+            double min = in.readDouble();
+            boolean hasMax = in.readBoolean();
+            double max = in.readDouble();
+            int boundaryCount = in.readInt();
+            List<Double> boundaries = new ArrayList<>(boundaryCount);
+            for (int b = 0; b < boundaryCount; b++) {
+              boundaries.add(in.readDouble());
+            }
+            points.add(ImmutableHistogramPointData.create(start, epoch, attributes, sum, hasMin, min, hasMax, max,
+                boundaries, readLongs()));
+          }
+          return ImmutableMetricData.createDoubleHistogram(resource, scope, name, description, unit,
+              ImmutableHistogramData.create(temporality, points));
+        }
+        case EXPONENTIAL_HISTOGRAM: {
+          AggregationTemporality temporality = TEMPORALITIES[in.readByte()];
+          int count = in.readInt();
+          List<ExponentialHistogramPointData> points = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            long start = in.readLong();
+            long epoch = in.readLong();
+            Attributes attributes = readAttributes();
+            double sum = in.readDouble();
+            boolean hasMin = in.readBoolean();
+            double min = in.readDouble();
+            boolean hasMax = in.readBoolean();
+            double max = in.readDouble();
+            int scale = in.readInt();
+            long zeroCount = in.readLong();
+            ExponentialHistogramBuckets positive = readBuckets();
+            ExponentialHistogramBuckets negative = readBuckets();
+            points.add(ImmutableExponentialHistogramPointData.create(scale, sum, zeroCount, hasMin, min, hasMax,
+                max, positive, negative, start, epoch, attributes, Collections.emptyList()));
+          }
+          return ImmutableMetricData.createExponentialHistogram(resource, scope, name, description, unit,
+              ImmutableExponentialHistogramData.create(temporality, points));
+        }
+        default:
+          throw new IOException("Unsupported metric type " + type);
+      }
+    }
+
+    private List<LongPointData> readLongPoints() throws IOException {
+      int count = in.readInt();
+      List<LongPointData> points = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        long start = in.readLong();
+        long epoch = in.readLong();
+        Attributes attributes = readAttributes();
+        points.add(ImmutableLongPointData.create(start, epoch, attributes, in.readLong()));
+      }
+      return points;
+    }
+
+    private List<DoublePointData> readDoublePoints() throws IOException {
+      int count = in.readInt();
+      List<DoublePointData> points = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        long start = in.readLong();
+        long epoch = in.readLong();
+        Attributes attributes = readAttributes();
+        points.add(ImmutableDoublePointData.create(start, epoch, attributes, in.readDouble()));
+      }
+      return points;
+    }
+
+    private ExponentialHistogramBuckets readBuckets() throws IOException {
+      int scale = in.readInt();
+      int offset = in.readInt();
+      return ImmutableExponentialHistogramBuckets.create(scale, offset, readLongs());
+    }
+
+    private List<Long> readLongs() throws IOException {
+      int count = in.readInt();
+      List<Long> values = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        values.add(in.readLong());
+      }
+      return values;
+    }
+
+    private SpanContext readSpanContext() throws IOException {
+      if (!in.readBoolean()) {
+        return SpanContext.getInvalid();
+      }
+      String traceId = readString();
+      String spanId = readString();
+      TraceFlags traceFlags = TraceFlags.fromByte(in.readByte());
+      boolean remote = in.readBoolean();
+      int traceStateSize = in.readInt();
+      TraceState traceState = TraceState.getDefault();
+      if (traceStateSize > 0) {
+        TraceStateBuilder builder = TraceState.builder();
+        for (int i = 0; i < traceStateSize; i++) {
+          builder.put(readString(), readString());
+        }
+        traceState = builder.build();
+      }
+      return remote ? SpanContext.createFromRemoteParent(traceId, spanId, traceFlags, traceState)
+          : SpanContext.create(traceId, spanId, traceFlags, traceState);
+    }
+
+    private Resource readResource() throws IOException {
+      int index = in.readInt();
+      if (index < resources.size()) {
+        return resources.get(index);
+      }
+      String schemaUrl = readString();
+      Resource resource = Resource.create(readAttributes(), schemaUrl);
+      resources.add(resource);
+      return resource;
+    }
+
+    private InstrumentationScopeInfo readScope() throws IOException {
+      int index = in.readInt();
+      if (index < scopes.size()) {
+        return scopes.get(index);
+      }
+      InstrumentationScopeInfoBuilder builder = InstrumentationScopeInfo.builder(readString());
+      String version = readString();
+      if (version != null) {
+        builder.setVersion(version);
+      }
+      String schemaUrl = readString();
+      if (schemaUrl != null) {
+        builder.setSchemaUrl(schemaUrl);
+      }
+      InstrumentationScopeInfo scope = builder.setAttributes(readAttributes()).build();
+      scopes.add(scope);
+      return scope;
+    }
+
+    private Attributes readAttributes() throws IOException {
+      int size = in.readInt();
+      if (size == 0) {
+        return Attributes.empty();
+      }
+      AttributesBuilder builder = Attributes.builder();
+      for (int i = 0; i < size; i++) {
+        String key = readString();
+        AttributeType type = ATTRIBUTE_TYPES[in.readByte()];
+        switch (type) {
+          case STRING:
+            builder.put(AttributeKey.stringKey(key), readString());
+            break;
+          case BOOLEAN:
+            builder.put(AttributeKey.booleanKey(key), in.readBoolean());
+            break;
+          case LONG:
+            builder.put(AttributeKey.longKey(key), in.readLong());
+            break;
+          case DOUBLE:
+            builder.put(AttributeKey.doubleKey(key), in.readDouble());
+            break;
+          case STRING_ARRAY: {
+            int count = in.readInt();
+            List<String> values = new ArrayList<>(count);
+            for (int v = 0; v < count; v++) {
+              values.add(readString());
+            }
+            builder.put(AttributeKey.stringArrayKey(key), values);
+            break;
+          }
+          case BOOLEAN_ARRAY: {
+            int count = in.readInt();
+            List<Boolean> values = new ArrayList<>(count);
+            for (int v = 0; v < count; v++) {
+              values.add(in.readBoolean());
+            }
+            builder.put(AttributeKey.booleanArrayKey(key), values);
+            break;
+          }
+          case LONG_ARRAY:
+            builder.put(AttributeKey.longArrayKey(key), readLongs());
+            break;
+          case DOUBLE_ARRAY: {
+            int count = in.readInt();
+            List<Double> values = new ArrayList<>(count);
+            for (int v = 0; v < count; v++) {
+              values.add(in.readDouble());
+            }
+            builder.put(AttributeKey.doubleArrayKey(key), values);
+            break;
+          }
+          default:
+            throw new IOException("Unsupported attribute type " + type);
+        }
+      }
+      return builder.build();
+    }
+
+    private String readString() throws IOException {
+      int length = in.readInt();
+      if (length < 0) {
+        return null;
+      }
+      byte[] utf8 = new byte[length];
+      in.readFully(utf8);
+      return new String(utf8, StandardCharsets.UTF_8);
+    }
+  }
+}
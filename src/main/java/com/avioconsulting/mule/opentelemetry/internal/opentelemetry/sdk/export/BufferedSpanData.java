@@ -0,0 +1,130 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+import java.util.List;
+
+/**
+ * {@link SpanData} decoded from a {@link DiskBuffer} record by
+ * {@link BufferedDataCodec}.
+ */
+final class BufferedSpanData implements SpanData {
+
+  String name;
+  SpanKind kind;
+  SpanContext spanContext;
+  SpanContext parentSpanContext;
+  StatusData status;
+  long startEpochNanos;
+  long endEpochNanos;
+  boolean ended;
+  Attributes attributes;
+  int totalAttributeCount;
+  List<EventData> events;
+  int totalRecordedEvents;
+  List<LinkData> links;
+  int totalRecordedLinks;
+  Resource resource;
+  InstrumentationScopeInfo instrumentationScopeInfo;
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public SpanKind getKind() {
+    return kind;
+  }
+
+  @Override
+  public SpanContext getSpanContext() {
+    return spanContext;
+  }
+
+  @Override
+  public SpanContext getParentSpanContext() {
+    return parentSpanContext;
+  }
+
+  @Override
+  public StatusData getStatus() {
+    return status;
+  }
+
+  @Override
+  public long getStartEpochNanos() {
+    return startEpochNanos;
+  }
+
+  @Override
+  public Attributes getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public List<EventData> getEvents() {
+    return events;
+  }
+
+  @Override
+  public List<LinkData> getLinks() {
+    return links;
+  }
+
+  @Override
+  public long getEndEpochNanos() {
+    return endEpochNanos;
+  }
+
+  @Override
+  public boolean hasEnded() {
+    return ended;
+  }
+
+  @Override
+  public int getTotalRecordedEvents() {
+    return totalRecordedEvents;
+  }
+
+  @Override
+  public int getTotalRecordedLinks() {
+    return totalRecordedLinks;
+  }
+
+  @Override
+  public int getTotalAttributeCount() {
+    return totalAttributeCount;
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+    return InstrumentationLibraryInfo.create(instrumentationScopeInfo.getName(),
+        instrumentationScopeInfo.getVersion(), instrumentationScopeInfo.getSchemaUrl());
+  }
+
+  @Override
+  public InstrumentationScopeInfo getInstrumentationScopeInfo() {
+    return instrumentationScopeInfo;
+  }
+
+  @Override
+  public Resource getResource() {
+    return resource;
+  }
+
+  @Override
+  public String toString() {
+    return "BufferedSpanData{name='" + name + "', spanContext=" + spanContext + '}';
+  }
+}
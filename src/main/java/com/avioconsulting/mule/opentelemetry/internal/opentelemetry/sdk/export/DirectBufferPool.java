@@ -0,0 +1,56 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Small pool of direct {@link ByteBuffer}s reused across export requests.
+ * <p>
+ * Buffers are little endian, as protobuf fixed size fields are. A buffer that
+ * is too small for a request is dropped and replaced by a larger one, so the
+ * pool settles on the size of the largest requests. Buffers larger than
+ * {@link #MAX_POOLED_CAPACITY} are not kept.
+ */
+final class DirectBufferPool {
+
+  static final int MIN_CAPACITY = 64 * 1024;
+  static final int MAX_POOLED_CAPACITY = 16 * 1024 * 1024;
+
+  private final BlockingQueue<ByteBuffer> buffers;
+
+  DirectBufferPool(int maxPooledBuffers) {
+    this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxPooledBuffers));
+  }
+
+  /**
+   * @param capacity
+   *            minimum capacity
+   * @return ByteBuffer cleared buffer with at least the given capacity
+   */
+  ByteBuffer acquire(int capacity) {
+    ByteBuffer buffer = buffers.poll();
+    if (buffer == null || buffer.capacity() < capacity) {
+      int size = Math.max(MIN_CAPACITY, capacity);
+      // Next power of two, so growing requests don't replace buffers every time
+      if (size < MAX_POOLED_CAPACITY) {
+        size = Integer.highestOneBit(size - 1) << 1;
+      }
+      buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    buffer.clear();
+    buffer.limit(capacity);
+    return buffer;
+  }
+
+  void release(ByteBuffer buffer) {
+    if (buffer != null && buffer.capacity() <= MAX_POOLED_CAPACITY) {
+      buffers.offer(buffer);
+    }
+  }
+
+  int size() {
+    return buffers.size();
+  }
+}
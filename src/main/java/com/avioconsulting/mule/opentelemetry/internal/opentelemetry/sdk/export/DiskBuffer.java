@@ -0,0 +1,280 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * First in, first out store of records in segment files of a directory.
+ * <p>
+ * Records are appended to the newest segment with a {@link FileChannel}, and a
+ * new segment is started once it reaches the segment size. Each record is
+ * written as its length, CRC32 checksum and bytes. Records are read back from
+ * the oldest segment in the order they were appended, and a segment file is
+ * deleted once all its records are removed.
+ * <p>
+ * Total size of the segments is bounded by the max size. When an append would
+ * exceed it, oldest segments are deleted to make room, so the buffer keeps the
+ * most recent records. Segments left in the directory by a previous run are
+ * picked up when the buffer is created, a partially removed segment is read
+ * again from its start. Writes are not forced to the device, records survive a
+ * restart of the runtime but not necessarily a crash of the host.
+ */
+public class DiskBuffer implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskBuffer.class);
+  static final String SEGMENT_SUFFIX = ".seg";
+  private static final int HEADER_SIZE = 8;
+
+  private final Path directory;
+  private final long maxSize;
+  private final long segmentSize;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private long nextSequence;
+  private long size;
+  private volatile long droppedBytes;
+  private FileChannel writeChannel;
+  private FileChannel readChannel;
+  private long readPosition;
+  private int peekedLength = -1;
+
+  /**
+   * @param directory
+   *            directory to keep segment files in, created when missing
+   * @param maxSize
+   *            maximum bytes of all segments
+   * @param segmentSize
+   *            bytes after which a new segment is started, capped to the max
+   *            size
+   * @throws IOException
+   *             when directory cannot be created or read
+   */
+  public DiskBuffer(Path directory, long maxSize, long segmentSize) throws IOException {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.segmentSize = Math.max(HEADER_SIZE, Math.min(segmentSize, maxSize));
+    Files.createDirectories(directory);
+    List<Path> existing = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      stream.forEach(existing::add);
+    }
+    // Sequence is zero padded, so names sort in append order
+    existing.sort(null);
+    for (Path path : existing) {
+      long sequence = parseSequence(path);
+      if (sequence < 0) {
+        continue;
+      }
+      Segment segment = new Segment(path, Files.size(path));
+      segments.addLast(segment);
+      size += segment.size;
+      nextSequence = sequence + 1;
+    }
+    if (!segments.isEmpty()) {
+      LOGGER.info("Found {} bytes in {} buffer segments of {}", size, segments.size(), directory);
+    }
+  }
+
+  /**
+   * Append a record to the buffer, deleting oldest segments when it doesn't fit.
+   *
+   * @param record
+   *            bytes to append
+   * @return true when appended, false when the record alone is larger than the
+   *         max size
+   * @throws IOException
+   *             when segment cannot be written
+   */
+  public synchronized boolean append(byte[] record) throws IOException {
+    long recordSize = HEADER_SIZE + (long) record.length;
+    if (recordSize > maxSize) {
+      droppedBytes += recordSize;
+      return false;
+    }
+    while (size + recordSize > maxSize && !segments.isEmpty()) {
+      Segment oldest = segments.peekFirst();
+      droppedBytes += oldest.size - readPosition;
+      LOGGER.warn("Disk buffer {} is full, dropping oldest segment {}", directory, oldest.path.getFileName());
+      deleteFirst();
+    }
+    Segment last = segments.peekLast();
+    if (last == null || writeChannel == null || last.size + recordSize > segmentSize) {
+      closeWriteChannel();
+      last = new Segment(directory.resolve(String.format("%020d%s", nextSequence++, SEGMENT_SUFFIX)), 0);
+      segments.addLast(last);
+      writeChannel = FileChannel.open(last.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.APPEND);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, record.length);
+    ByteBuffer buffer = ByteBuffer.allocate((int) recordSize);
+    buffer.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+    while (buffer.hasRemaining()) {
+      writeChannel.write(buffer);
+    }
+    last.size += recordSize;
+    size += recordSize;
+    return true;
+  }
+
+  /**
+   * Read the oldest record without removing it. Same record is returned until
+   * {@link #remove()} is called. Truncated segments and records with a checksum
+   * mismatch are skipped.
+   *
+   * @return byte[] record or null when buffer is empty
+   * @throws IOException
+   *             when segment cannot be read
+   */
+  public synchronized byte[] peek() throws IOException {
+    while (!segments.isEmpty()) {
+      Segment first = segments.peekFirst();
+      if (readPosition + HEADER_SIZE > first.size) {
+        if (first == segments.peekLast() && readPosition == first.size && writeChannel != null) {
+          // Everything written is read, keep the segment open for appends
+          return null;
+        }
+        deleteFirst();
+        continue;
+      }
+      if (readChannel == null) {
+        readChannel = FileChannel.open(first.path, StandardOpenOption.READ);
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(header, readPosition);
+      int length = header.getInt(0);
+      int checksum = header.getInt(4);
+      if (length < 0 || readPosition + HEADER_SIZE + length > first.size) {
+        LOGGER.warn("Skipping truncated record of buffer segment {}", first.path.getFileName());
+        deleteFirst();
+        continue;
+      }
+      ByteBuffer record = ByteBuffer.allocate(length);
+      readFully(record, readPosition + HEADER_SIZE);
+      CRC32 crc = new CRC32();
+      crc.update(record.array(), 0, length);
+      if ((int) crc.getValue() != checksum) {
+        LOGGER.warn("Skipping corrupted record of buffer segment {}", first.path.getFileName());
+        readPosition += HEADER_SIZE + length;
+        continue;
+      }
+      peekedLength = length;
+      return record.array();
+    }
+    return null;
+  }
+
+  /**
+   * Remove the record last returned by {@link #peek()}. Segment is deleted once
+   * its last record is removed, unless records are still appended to it.
+   *
+   * @throws IOException
+   *             when segment cannot be deleted
+   */
+  public synchronized void remove() throws IOException {
+    if (peekedLength < 0) {
+      return;
+    }
+    readPosition += HEADER_SIZE + peekedLength;
+    peekedLength = -1;
+    Segment first = segments.peekFirst();
+    if (readPosition >= first.size && (first != segments.peekLast() || writeChannel == null)) {
+      deleteFirst();
+    }
+  }
+
+  public synchronized boolean isEmpty() {
+    return size - readPosition <= 0;
+  }
+
+  /**
+   * @return long bytes of all segments, including removed records of a segment
+   *         that is not deleted yet
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @return long bytes of records dropped because buffer was full
+   */
+  public long getDroppedBytes() {
+    return droppedBytes;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closeWriteChannel();
+    closeReadChannel();
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (readChannel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of buffer segment " + segments.peekFirst().path);
+      }
+    }
+  }
+
+  private void deleteFirst() throws IOException {
+    Segment first = segments.removeFirst();
+    closeReadChannel();
+    if (segments.isEmpty()) {
+      closeWriteChannel();
+    }
+    size -= first.size;
+    readPosition = 0;
+    peekedLength = -1;
+    Files.deleteIfExists(first.path);
+  }
+
+  private void closeWriteChannel() throws IOException {
+    if (writeChannel != null) {
+      writeChannel.close();
+      writeChannel = null;
+    }
+  }
+
+  private void closeReadChannel() throws IOException {
+    if (readChannel != null) {
+      readChannel.close();
+      readChannel = null;
+    }
+  }
+
+  private static long parseSequence(Path path) {
+    String name = path.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private long size;
+
+    private Segment(Path path, long size) {
+      this.path = path;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,283 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export logic shared by the disk buffered exporters.
+ * <p>
+ * A batch is exported through the delegate when the buffer is empty. When the
+ * delegate fails, the batch is appended to the {@link DiskBuffer} and reported
+ * as successful, so the SDK doesn't drop it. Once the buffer has records, new
+ * batches are appended behind them and a replay thread exports the buffered
+ * batches in order, so the collector receives batches in the order they were
+ * exported and the caller never waits on a replay.
+ * <p>
+ * A failed export also opens a backoff window, doubling on every consecutive
+ * failure up to {@link #MAX_BACKOFF_MILLIS}. While it is open, batches go
+ * straight to disk without calling the delegate, and the replay thread retries
+ * once it closes. A successful replay resets the backoff.
+ *
+ * @param <T>
+ *            type of exported items
+ */
+abstract class DiskBufferedExporter<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskBufferedExporter.class);
+  static final long DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+  static final long INITIAL_BACKOFF_MILLIS = 1_000;
+  static final long MAX_BACKOFF_MILLIS = 60_000;
+  private static final long EXPORT_TIMEOUT_MILLIS = 30_000;
+
+  private final DiskBuffer buffer;
+  private final long initialBackoffMillis;
+  private final ScheduledThreadPoolExecutor replayExecutor;
+  private volatile boolean closed;
+  // Guarded by this
+  private long backoffMillis;
+  private long backoffUntilMillis;
+  private boolean replayScheduled;
+  private boolean replaying;
+
+  DiskBufferedExporter(DiskBuffer buffer) {
+    this(buffer, INITIAL_BACKOFF_MILLIS);
+  }
+
+  DiskBufferedExporter(DiskBuffer buffer, long initialBackoffMillis) {
+    this.buffer = buffer;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.replayExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "otel-disk-buffer-replay-" + buffer.getDirectory().getFileName());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.replayExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * Open the buffer of a signal, logging instead of failing when the directory
+   * cannot be used.
+   *
+   * @param directory
+   *            directory of the signal segments
+   * @param maxSize
+   *            maximum bytes of the buffer
+   * @return DiskBuffer or null if it cannot be opened
+   */
+  static DiskBuffer openBuffer(Path directory, long maxSize) {
+    try {
+      return new DiskBuffer(directory, maxSize, Math.min(DEFAULT_SEGMENT_SIZE, Math.max(1, maxSize / 8)));
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Cannot open disk buffer in {}, exporting without buffer", directory, e);
+      return null;
+    }
+  }
+
+  abstract CompletableResultCode exportToDelegate(Collection<T> items);
+
+  abstract byte[] encode(Collection<T> items) throws IOException;
+
+  abstract Collection<T> decode(byte[] record) throws IOException;
+
+  synchronized CompletableResultCode exportOrBuffer(Collection<T> items) {
+    if (replaying || isBackingOff() || !buffer.isEmpty()) {
+      CompletableResultCode result = append(items);
+      if (!isBackingOff()) {
+        scheduleReplay(0);
+      }
+      return result;
+    }
+    if (tryExport(items)) {
+      return CompletableResultCode.ofSuccess();
+    }
+    onExportFailure();
+    return append(items);
+  }
+
+  /**
+   * Replay all buffered batches on the replay thread, stopping at the first
+   * failed export. The backoff is ignored.
+   *
+   * @return CompletableResultCode completed once the replay ends, successful
+   *         when buffer is drained
+   */
+  CompletableResultCode replayAll() {
+    CompletableResultCode result = new CompletableResultCode();
+    try {
+      replayExecutor.execute(() -> {
+        if (runReplay()) {
+          result.succeed();
+        } else {
+          result.fail();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.fail();
+    }
+    return result;
+  }
+
+  /**
+   * Stop the replay and close the buffer without waiting on the caller thread.
+   * The buffer is closed only once the replay has stopped, since closing it
+   * earlier would race with the replay reading it. When the replay does not stop
+   * in time, the buffer is left open. Batches still on disk are replayed after
+   * the next start.
+   *
+   * @return CompletableResultCode completed once the buffer is closed, failed
+   *         when it is left open
+   */
+  CompletableResultCode closeBuffer() {
+    closed = true;
+    replayExecutor.shutdownNow();
+    CompletableResultCode result = new CompletableResultCode();
+    if (replayExecutor.isTerminated()) {
+      close(result);
+      return result;
+    }
+    Thread closer = new Thread(() -> {
+      try {
+        if (replayExecutor.awaitTermination(EXPORT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          close(result);
+          return;
+        }
+        LOGGER.warn("Disk buffer {} replay did not stop in time, not closing the buffer", buffer.getDirectory());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOGGER.warn("Interrupted while stopping disk buffer {} replay, not closing the buffer",
+            buffer.getDirectory());
+      }
+      result.fail();
+    }, "otel-disk-buffer-close-" + buffer.getDirectory().getFileName());
+    closer.setDaemon(true);
+    closer.start();
+    return result;
+  }
+
+  private void close(CompletableResultCode result) {
+    try {
+      buffer.close();
+      result.succeed();
+    } catch (IOException e) {
+      LOGGER.warn("Failed to close disk buffer {}", buffer.getDirectory(), e);
+      result.fail();
+    }
+  }
+
+  DiskBuffer getBuffer() {
+    return buffer;
+  }
+
+  private boolean isBackingOff() {
+    return backoffUntilMillis != 0 && System.currentTimeMillis() < backoffUntilMillis;
+  }
+
+  private void onExportFailure() {
+    backoffMillis = backoffMillis == 0 ? initialBackoffMillis : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+    backoffUntilMillis = System.currentTimeMillis() + backoffMillis;
+    scheduleReplay(backoffMillis);
+  }
+
+  private void scheduleReplay(long delayMillis) {
+    if (replayScheduled || closed) {
+      return;
+    }
+    try {
+      replayExecutor.schedule(() -> {
+        synchronized (this) {
+          replayScheduled = false;
+        }
+        runReplay();
+      }, delayMillis, TimeUnit.MILLISECONDS);
+      replayScheduled = true;
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Disk buffer {} is closed, not scheduling replay", buffer.getDirectory());
+    }
+  }
+
+  /**
+   * Runs on the replay thread only, so a peeked record is not removed by
+   * another replay.
+   */
+  private boolean runReplay() {
+    synchronized (this) {
+      replaying = true;
+    }
+    boolean drained = false;
+    try {
+      drained = replay();
+    } finally {
+      synchronized (this) {
+        replaying = false;
+        if (drained) {
+          backoffMillis = 0;
+          backoffUntilMillis = 0;
+          // Batches appended after the buffer was seen empty
+          if (!buffer.isEmpty()) {
+            scheduleReplay(0);
+          }
+        } else {
+          onExportFailure();
+        }
+      }
+    }
+    return drained;
+  }
+
+  private boolean replay() {
+    while (!closed) {
+      byte[] record;
+      try {
+        record = buffer.peek();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to read disk buffer {}", buffer.getDirectory(), e);
+        return false;
+      }
+      if (record == null) {
+        return true;
+      }
+      Collection<T> items = null;
+      try {
+        items = decode(record);
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("Dropping a batch of disk buffer {} that cannot be decoded", buffer.getDirectory(), e);
+      }
+      if (items != null && !tryExport(items)) {
+        return false;
+      }
+      try {
+        buffer.remove();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to delete segment of disk buffer {}", buffer.getDirectory(), e);
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private boolean tryExport(Collection<T> items) {
+    return exportToDelegate(items).join(EXPORT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess();
+  }
+
+  private CompletableResultCode append(Collection<T> items) {
+    try {
+      byte[] record = encode(items);
+      if (record != null && buffer.append(record)) {
+        return CompletableResultCode.ofSuccess();
+      }
+      LOGGER.warn("Dropping a batch of {} items that cannot be kept in disk buffer {}", items.size(),
+          buffer.getDirectory());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Failed to write a batch of {} items to disk buffer {}", items.size(), buffer.getDirectory(), e);
+    }
+    return CompletableResultCode.ofFailure();
+  }
+}
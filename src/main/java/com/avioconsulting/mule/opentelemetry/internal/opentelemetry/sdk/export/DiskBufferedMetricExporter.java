@@ -0,0 +1,103 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * {@link MetricExporter} wrapper that keeps metric batches the delegate fails
+ * to export in a {@link DiskBuffer} and replays them in order once the
+ * delegate succeeds again. See {@link DiskBufferedExporter} for the export
+ * logic. Batches are encoded before export returns, so the memory mode of the
+ * delegate is kept.
+ */
+public class DiskBufferedMetricExporter extends DiskBufferedExporter<MetricData> implements MetricExporter {
+
+  private final MetricExporter delegate;
+
+  DiskBufferedMetricExporter(MetricExporter delegate, DiskBuffer buffer) {
+    super(buffer);
+    this.delegate = delegate;
+  }
+
+  DiskBufferedMetricExporter(MetricExporter delegate, DiskBuffer buffer, long initialBackoffMillis) {
+    super(buffer, initialBackoffMillis);
+    this.delegate = delegate;
+  }
+
+  /**
+   * Wrap an exporter with a disk buffer in the given directory.
+   *
+   * @param delegate
+   *            {@link MetricExporter} to export to
+   * @param directory
+   *            directory for the buffer segments
+   * @param maxSize
+   *            maximum bytes of the buffer
+   * @return MetricExporter buffered exporter, or the delegate when buffer
+   *         cannot be opened
+   */
+  public static MetricExporter wrap(MetricExporter delegate, Path directory, long maxSize) {
+    DiskBuffer buffer = openBuffer(directory, maxSize);
+    return buffer == null ? delegate : new DiskBufferedMetricExporter(delegate, buffer);
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return delegate.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return delegate.getDefaultAggregation(instrumentType);
+  }
+
+  @Override
+  public MemoryMode getMemoryMode() {
+    return delegate.getMemoryMode();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    return exportOrBuffer(metrics);
+  }
+
+  @Override
+  CompletableResultCode exportToDelegate(Collection<MetricData> metrics) {
+    return delegate.export(metrics);
+  }
+
+  @Override
+  byte[] encode(Collection<MetricData> metrics) throws IOException {
+    return BufferedDataCodec.encodeMetrics(metrics);
+  }
+
+  @Override
+  Collection<MetricData> decode(byte[] record) throws IOException {
+    return BufferedDataCodec.decodeMetrics(record);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return CompletableResultCode.ofAll(Arrays.asList(replayAll(), delegate.flush()));
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return CompletableResultCode.ofAll(Arrays.asList(closeBuffer(), delegate.shutdown()));
+  }
+
+  @Override
+  public String toString() {
+    return "DiskBufferedMetricExporter{" + delegate + '}';
+  }
+}
@@ -0,0 +1,82 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * {@link SpanExporter} wrapper that keeps span batches the delegate fails to
+ * export in a {@link DiskBuffer} and replays them in order once the delegate
+ * succeeds again. See {@link DiskBufferedExporter} for the export logic.
+ */
+public class DiskBufferedSpanExporter extends DiskBufferedExporter<SpanData> implements SpanExporter {
+
+  private final SpanExporter delegate;
+
+  DiskBufferedSpanExporter(SpanExporter delegate, DiskBuffer buffer) {
+    super(buffer);
+    this.delegate = delegate;
+  }
+
+  DiskBufferedSpanExporter(SpanExporter delegate, DiskBuffer buffer, long initialBackoffMillis) {
+    super(buffer, initialBackoffMillis);
+    this.delegate = delegate;
+  }
+
+  /**
+   * Wrap an exporter with a disk buffer in the given directory.
+   *
+   * @param delegate
+   *            {@link SpanExporter} to export to
+   * @param directory
+   *            directory for the buffer segments
+   * @param maxSize
+   *            maximum bytes of the buffer
+   * @return SpanExporter buffered exporter, or the delegate when buffer cannot
+   *         be opened
+   */
+  public static SpanExporter wrap(SpanExporter delegate, Path directory, long maxSize) {
+    DiskBuffer buffer = openBuffer(directory, maxSize);
+    return buffer == null ? delegate : new DiskBufferedSpanExporter(delegate, buffer);
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    return exportOrBuffer(spans);
+  }
+
+  @Override
+  CompletableResultCode exportToDelegate(Collection<SpanData> spans) {
+    return delegate.export(spans);
+  }
+
+  @Override
+  byte[] encode(Collection<SpanData> spans) throws IOException {
+    return BufferedDataCodec.encodeSpans(spans);
+  }
+
+  @Override
+  Collection<SpanData> decode(byte[] record) throws IOException {
+    return BufferedDataCodec.decodeSpans(record);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return CompletableResultCode.ofAll(Arrays.asList(replayAll(), delegate.flush()));
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return CompletableResultCode.ofAll(Arrays.asList(closeBuffer(), delegate.shutdown()));
+  }
+
+  @Override
+  public String toString() {
+    return "DiskBufferedSpanExporter{" + delegate + '}';
+  }
+}
@@ -0,0 +1,160 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming JSON writer for a single line of JSON. Keeps track of
+ * separators so callers only declare names and values.
+ */
+final class JsonWriter {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final int MAX_DEPTH = 32;
+
+  private final StringBuilder json;
+  private final boolean[] hasValue = new boolean[MAX_DEPTH];
+  private int depth;
+  private boolean afterName;
+
+  JsonWriter(int capacity) {
+    json = new StringBuilder(capacity);
+  }
+
+  JsonWriter beginObject() {
+    return open('{');
+  }
+
+  JsonWriter endObject() {
+    return close('}');
+  }
+
+  JsonWriter beginArray() {
+    return open('[');
+  }
+
+  JsonWriter endArray() {
+    return close(']');
+  }
+
+  JsonWriter name(String name) {
+    separator();
+    writeString(name);
+    json.append(':');
+    afterName = true;
+    return this;
+  }
+
+  JsonWriter value(String value) {
+    separator();
+    writeString(value);
+    return this;
+  }
+
+  JsonWriter value(boolean value) {
+    separator();
+    json.append(value);
+    return this;
+  }
+
+  JsonWriter value(int value) {
+    separator();
+    json.append(value);
+    return this;
+  }
+
+  /**
+   * Write a 64 bit integer as a string, as proto3 JSON mapping does.
+   */
+  JsonWriter value(long value) {
+    separator();
+    json.append('"').append(value).append('"');
+    return this;
+  }
+
+  /**
+   * Write a double, with non finite values as strings, as proto3 JSON mapping
+   * does.
+   */
+  JsonWriter value(double value) {
+    separator();
+    if (Double.isNaN(value)) {
+      json.append("\"NaN\"");
+    } else if (Double.isInfinite(value)) {
+      json.append(value > 0 ? "\"Infinity\"" : "\"-Infinity\"");
+    } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      json.append((long) value);
+    } else {
+      json.append(value);
+    }
+    return this;
+  }
+
+  /**
+   * @return byte[] UTF-8 bytes of the JSON followed by a line separator
+   */
+  byte[] toLine() {
+    json.append('\n');
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return json.toString();
+  }
+
+  private JsonWriter open(char c) {
+    separator();
+    json.append(c);
+    hasValue[++depth] = false;
+    return this;
+  }
+
+  private JsonWriter close(char c) {
+    json.append(c);
+    depth--;
+    return this;
+  }
+
+  private void separator() {
+    if (afterName) {
+      afterName = false;
+      return;
+    }
+    if (hasValue[depth]) {
+      json.append(',');
+    }
+    hasValue[depth] = true;
+  }
+
+  private void writeString(String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+            json.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    json.append('"');
+  }
+}
@@ -0,0 +1,77 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.metrics.ConfigurableMetricExporterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+import java.util.Collection;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpFileExporter.OTLP_FILE;
+
+/**
+ * Writes metric batches as OTLP-JSON lines to {@code metrics.jsonl}. Export
+ * only encodes the batch, the file is written by the {@link OtlpFileWriter}
+ * thread. Temporality is cumulative unless a preference is configured, see
+ * {@link com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.TemporalityMetricExporter}.
+ */
+public class OtlpFileMetricExporter implements MetricExporter {
+
+  private final OtlpFileWriter writer;
+
+  OtlpFileMetricExporter(OtlpFileSettings settings) {
+    this.writer = new OtlpFileWriter("metrics", settings);
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return AggregationTemporality.CUMULATIVE;
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    if (metrics.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+    return writer.write(OtlpJsonEncoder.encodeMetrics(metrics)) ? CompletableResultCode.ofSuccess()
+        : CompletableResultCode.ofFailure();
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return writer.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return writer.shutdown();
+  }
+
+  OtlpFileWriter getWriter() {
+    return writer;
+  }
+
+  @Override
+  public String toString() {
+    return "OtlpFileMetricExporter{" + writer.getActiveFile() + '}';
+  }
+
+  /**
+   * Provides the exporter to SDK autoconfiguration as {@code otlp-file}.
+   */
+  public static class Provider implements ConfigurableMetricExporterProvider {
+
+    @Override
+    public MetricExporter createExporter(ConfigProperties config) {
+      return new OtlpFileMetricExporter(OtlpFileSettings.from(config));
+    }
+
+    @Override
+    public String getName() {
+      return OTLP_FILE;
+    }
+  }
+}
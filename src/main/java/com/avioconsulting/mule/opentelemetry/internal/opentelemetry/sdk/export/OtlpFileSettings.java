@@ -0,0 +1,75 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpFileExporter.*;
+
+/**
+ * Settings of the OTLP file exporters, read from the {@code
+ * otel.exporter.otlp.file.*} properties.
+ */
+final class OtlpFileSettings {
+
+  private final Path directory;
+  private final long maxFileSize;
+  private final long rotationIntervalMillis;
+  private final int maxRotatedFiles;
+  private final boolean compress;
+  private final int maxQueueSize;
+
+  OtlpFileSettings(Path directory, long maxFileSize, long rotationIntervalMillis, int maxRotatedFiles,
+      boolean compress, int maxQueueSize) {
+    this.directory = directory;
+    this.maxFileSize = maxFileSize;
+    this.rotationIntervalMillis = rotationIntervalMillis;
+    this.maxRotatedFiles = maxRotatedFiles;
+    this.compress = compress;
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  static OtlpFileSettings from(ConfigProperties config) {
+    String directory = config.getString(OTEL_EXPORTER_OTLP_FILE_DIRECTORY_KEY);
+    Path path;
+    if (directory != null && !directory.trim().isEmpty()) {
+      path = Paths.get(directory.trim());
+    } else {
+      String serviceName = config.getString("otel.service.name", "default").replaceAll("[^A-Za-z0-9._-]", "_");
+      path = Paths.get(System.getProperty("mule.home", System.getProperty("java.io.tmpdir")), "logs", "otel",
+          serviceName);
+    }
+    return new OtlpFileSettings(path,
+        config.getLong(OTEL_EXPORTER_OTLP_FILE_MAX_SIZE_KEY, 10485760),
+        config.getDuration(OTEL_EXPORTER_OTLP_FILE_ROTATION_INTERVAL_KEY, Duration.ofHours(1)).toMillis(),
+        config.getInt(OTEL_EXPORTER_OTLP_FILE_MAX_FILES_KEY, 10),
+        config.getBoolean(OTEL_EXPORTER_OTLP_FILE_COMPRESS_KEY, false),
+        config.getInt(OTEL_EXPORTER_OTLP_FILE_QUEUE_SIZE_KEY, 2048));
+  }
+
+  Path getDirectory() {
+    return directory;
+  }
+
+  long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  long getRotationIntervalMillis() {
+    return rotationIntervalMillis;
+  }
+
+  int getMaxRotatedFiles() {
+    return maxRotatedFiles;
+  }
+
+  boolean isCompress() {
+    return compress;
+  }
+
+  int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+}
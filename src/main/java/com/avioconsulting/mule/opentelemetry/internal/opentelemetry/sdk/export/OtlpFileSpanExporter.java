@@ -0,0 +1,68 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSpanExporterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.Collection;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpFileExporter.OTLP_FILE;
+
+/**
+ * Writes span batches as OTLP-JSON lines to {@code traces.jsonl}. Export only
+ * encodes the batch, the file is written by the {@link OtlpFileWriter} thread.
+ */
+public class OtlpFileSpanExporter implements SpanExporter {
+
+  private final OtlpFileWriter writer;
+
+  OtlpFileSpanExporter(OtlpFileSettings settings) {
+    this.writer = new OtlpFileWriter("traces", settings);
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    if (spans.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+    return writer.write(OtlpJsonEncoder.encodeSpans(spans)) ? CompletableResultCode.ofSuccess()
+        : CompletableResultCode.ofFailure();
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return writer.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return writer.shutdown();
+  }
+
+  OtlpFileWriter getWriter() {
+    return writer;
+  }
+
+  @Override
+  public String toString() {
+    return "OtlpFileSpanExporter{" + writer.getActiveFile() + '}';
+  }
+
+  /**
+   * Provides the exporter to SDK autoconfiguration as {@code otlp-file}.
+   */
+  public static class Provider implements ConfigurableSpanExporterProvider {
+
+    @Override
+    public SpanExporter createExporter(ConfigProperties config) {
+      return new OtlpFileSpanExporter(OtlpFileSettings.from(config));
+    }
+
+    @Override
+    public String getName() {
+      return OTLP_FILE;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends lines to a signal file from a dedicated writer thread.
+ * <p>
+ * Exporters only enqueue encoded lines, the writer thread drains the queue and
+ * writes queued lines together with a single gathering {@link FileChannel}
+ * write. Lines are dropped when the queue is full. The active file is
+ * {@code <signal>.jsonl} and is rotated to
+ * {@code <signal>-<timestamp>.jsonl} once it reaches the max file size or the
+ * rotation interval, rotated files are optionally gzipped and only the latest
+ * ones are kept.
+ */
+final class OtlpFileWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OtlpFileWriter.class);
+  private static final String EXTENSION = ".jsonl";
+  private static final String GZIP_EXTENSION = ".gz";
+  private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+      .withZone(ZoneOffset.UTC);
+  private static final int MAX_BATCH_LINES = 512;
+  private static final long POLL_MILLIS = 200;
+
+  private final Path directory;
+  private final String signal;
+  private final OtlpFileSettings settings;
+  private final BlockingQueue<byte[]> queue;
+  private final Queue<PendingFlush> pendingFlushes = new ConcurrentLinkedQueue<>();
+  private final AtomicLong enqueued = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+  private final Thread writerThread;
+  private volatile boolean running = true;
+  private volatile long written;
+  private FileChannel channel;
+  private long fileSize;
+  private long fileOpenedAtMillis;
+
+  OtlpFileWriter(String signal, OtlpFileSettings settings) {
+    this.directory = settings.getDirectory();
+    this.signal = signal;
+    this.settings = settings;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getMaxQueueSize()));
+    this.writerThread = new Thread(this::run, "otel-otlp-file-writer-" + signal);
+    this.writerThread.setDaemon(true);
+    this.writerThread.start();
+  }
+
+  /**
+   * Enqueue a line for the writer thread.
+   *
+   * @param line
+   *            bytes of the line, including the line separator
+   * @return true when enqueued, false when dropped because queue is full or
+   *         writer is shut down
+   */
+  boolean write(byte[] line) {
+    if (running && queue.offer(line)) {
+      enqueued.incrementAndGet();
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  /**
+   * @return CompletableResultCode completed once all lines enqueued before this
+   *         call are written
+   */
+  CompletableResultCode flush() {
+    CompletableResultCode result = new CompletableResultCode();
+    pendingFlushes.add(new PendingFlush(enqueued.get(), result));
+    if (!writerThread.isAlive()) {
+      completeFlushes();
+    }
+    return result;
+  }
+
+  /**
+   * Stop accepting lines, write the queued ones and close the file.
+   *
+   * @return CompletableResultCode completed once the writer thread has stopped
+   */
+  CompletableResultCode shutdown() {
+    CompletableResultCode result = flush();
+    running = false;
+    return result;
+  }
+
+  long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  Path getActiveFile() {
+    return directory.resolve(signal + EXTENSION);
+  }
+
+  private void run() {
+    List<byte[]> batch = new ArrayList<>(MAX_BATCH_LINES);
+    while (running || !queue.isEmpty()) {
+      try {
+        byte[] line = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (line != null) {
+          batch.add(line);
+          queue.drainTo(batch, MAX_BATCH_LINES - 1);
+          writeBatch(batch);
+          written += batch.size();
+          batch.clear();
+        }
+        if (settings.getRotationIntervalMillis() > 0 && fileSize > 0
+            && System.currentTimeMillis() - fileOpenedAtMillis >= settings.getRotationIntervalMillis()) {
+          rotate();
+        }
+      } catch (InterruptedException e) {
+        // Stop accepting lines, queued ones are still written
+        running = false;
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("Failed to write {} to {}", signal, directory, e);
+        written += batch.size();
+        batch.clear();
+        closeChannel();
+      }
+      completeFlushes();
+    }
+    closeChannel();
+    completeFlushes();
+  }
+
+  private void writeBatch(List<byte[]> batch) throws IOException {
+    long batchSize = 0;
+    ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = ByteBuffer.wrap(batch.get(i));
+      batchSize += buffers[i].remaining();
+    }
+    if (fileSize > 0 && fileSize + batchSize > settings.getMaxFileSize()) {
+      rotate();
+    }
+    if (channel == null) {
+      Files.createDirectories(directory);
+      channel = FileChannel.open(getActiveFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.APPEND);
+      fileSize = channel.size();
+      fileOpenedAtMillis = System.currentTimeMillis();
+    }
+    long remaining = batchSize;
+    while (remaining > 0) {
+      remaining -= channel.write(buffers);
+    }
+    fileSize += batchSize;
+  }
+
+  private void rotate() throws IOException {
+    closeChannel();
+    Path active = getActiveFile();
+    if (!Files.exists(active) || Files.size(active) == 0) {
+      return;
+    }
+    String timestamp = TIMESTAMP.format(Instant.now());
+    Path rotated = directory.resolve(signal + "-" + timestamp + EXTENSION);
+    for (int i = 1; Files.exists(rotated) || Files.exists(rotated.resolveSibling(rotated.getFileName()
+        + GZIP_EXTENSION)); i++) {
+      rotated = directory.resolve(signal + "-" + timestamp + "-" + i + EXTENSION);
+    }
+    Files.move(active, rotated, StandardCopyOption.ATOMIC_MOVE);
+    if (settings.isCompress()) {
+      Path compressed = rotated.resolveSibling(rotated.getFileName() + GZIP_EXTENSION);
+      try (InputStream in = Files.newInputStream(rotated);
+          OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          out.write(buffer, 0, read);
+        }
+      }
+      Files.delete(rotated);
+    }
+    deleteOldFiles();
+  }
+
+  private void deleteOldFiles() throws IOException {
+    List<Path> rotatedFiles = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, signal + "-*")) {
+      stream.forEach(rotatedFiles::add);
+    }
+    if (rotatedFiles.size() <= settings.getMaxRotatedFiles()) {
+      return;
+    }
+    // Timestamps sort in rotation order
+    rotatedFiles.sort(null);
+    for (int i = 0; i < rotatedFiles.size() - settings.getMaxRotatedFiles(); i++) {
+      Files.deleteIfExists(rotatedFiles.get(i));
+    }
+  }
+
+  private void closeChannel() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      LOGGER.debug("Failed to close {} file", signal, e);
+    }
+    channel = null;
+    fileSize = 0;
+  }
+
+  private void completeFlushes() {
+    boolean stopped = !writerThread.isAlive() || Thread.currentThread() == writerThread && !running
+        && queue.isEmpty();
+    for (PendingFlush pendingFlush = pendingFlushes.peek(); pendingFlush != null
+        && (pendingFlush.target <= written || stopped); pendingFlush = pendingFlushes.peek()) {
+      pendingFlushes.poll();
+      pendingFlush.result.succeed();
+    }
+  }
+
+  private static final class PendingFlush {
+    private final long target;
+    private final CompletableResultCode result;
+
+    private PendingFlush(long target, CompletableResultCode result) {
+      this.target = target;
+      this.result = result;
+    }
+  }
+}
@@ -0,0 +1,450 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.DoubleExemplarData;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.ExemplarData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongExemplarData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import io.opentelemetry.sdk.metrics.data.SummaryPointData;
+import io.opentelemetry.sdk.metrics.data.ValueAtQuantile;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes span and metric batches as OTLP-JSON, one export request per line,
+ * following the OTLP/JSON encoding of the OpenTelemetry protocol: ids are hex
+ * strings, enums are numbers, 64 bit integers are strings and default values
+ * are omitted.
+ * <p>
+ * Written directly from SDK data without an intermediate protobuf model or a
+ * JSON library, which are not available to the module.
+ */
+final class OtlpJsonEncoder {
+
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private OtlpJsonEncoder() {
+  }
+
+  /**
+   * @return byte[] ExportTraceServiceRequest line
+   */
+  static byte[] encodeSpans(Collection<SpanData> spans) {
+    JsonWriter json = new JsonWriter(INITIAL_CAPACITY);
+    json.beginObject().name("resourceSpans").beginArray();
+    for (Map.Entry<Resource, Map<InstrumentationScopeInfo, List<SpanData>>> resourceEntry : group(spans,
+        SpanData::getResource, SpanData::getInstrumentationScopeInfo).entrySet()) {
+      json.beginObject();
+      writeResource(json, resourceEntry.getKey());
+      json.name("scopeSpans").beginArray();
+      for (Map.Entry<InstrumentationScopeInfo, List<SpanData>> scopeEntry : resourceEntry.getValue().entrySet()) {
+        json.beginObject();
+        writeScope(json, scopeEntry.getKey());
+        json.name("spans").beginArray();
+        for (SpanData span : scopeEntry.getValue()) {
+          writeSpan(json, span);
+        }
+        json.endArray();
+        writeSchemaUrl(json, scopeEntry.getKey().getSchemaUrl());
+        json.endObject();
+      }
+      json.endArray();
+      writeSchemaUrl(json, resourceEntry.getKey().getSchemaUrl());
+      json.endObject();
+    }
+    return json.endArray().endObject().toLine();
+  }
+
+  /**
+   * @return byte[] ExportMetricsServiceRequest line
+   */
+  static byte[] encodeMetrics(Collection<MetricData> metrics) {
+    JsonWriter json = new JsonWriter(INITIAL_CAPACITY);
+    json.beginObject().name("resourceMetrics").beginArray();
+    for (Map.Entry<Resource, Map<InstrumentationScopeInfo, List<MetricData>>> resourceEntry : group(metrics,
+        MetricData::getResource, MetricData::getInstrumentationScopeInfo).entrySet()) {
+      json.beginObject();
+      writeResource(json, resourceEntry.getKey());
+      json.name("scopeMetrics").beginArray();
+      for (Map.Entry<InstrumentationScopeInfo, List<MetricData>> scopeEntry : resourceEntry.getValue()
+          .entrySet()) {
+        json.beginObject();
+        writeScope(json, scopeEntry.getKey());
+        json.name("metrics").beginArray();
+        for (MetricData metric : scopeEntry.getValue()) {
+          writeMetric(json, metric);
+        }
+        json.endArray();
+        writeSchemaUrl(json, scopeEntry.getKey().getSchemaUrl());
+        json.endObject();
+      }
+      json.endArray();
+      writeSchemaUrl(json, resourceEntry.getKey().getSchemaUrl());
+      json.endObject();
+    }
+    return json.endArray().endObject().toLine();
+  }
+
+  private static <T> Map<Resource, Map<InstrumentationScopeInfo, List<T>>> group(Collection<T> items,
+      Function<T, Resource> resource, Function<T, InstrumentationScopeInfo> scope) {
+    Map<Resource, Map<InstrumentationScopeInfo, List<T>>> groups = new LinkedHashMap<>();
+    for (T item : items) {
+      groups.computeIfAbsent(resource.apply(item), r -> new LinkedHashMap<>())
+          .computeIfAbsent(scope.apply(item), s -> new ArrayList<>()).add(item);
+    }
+    return groups;
+  }
+
+  private static void writeResource(JsonWriter json, Resource resource) {
+    json.name("resource").beginObject();
+    writeAttributes(json, "attributes", resource.getAttributes());
+    json.endObject();
+  }
+
+  private static void writeScope(JsonWriter json, InstrumentationScopeInfo scope) {
+    json.name("scope").beginObject();
+    writeString(json, "name", scope.getName());
+    writeString(json, "version", scope.getVersion());
+    writeAttributes(json, "attributes", scope.getAttributes());
+    json.endObject();
+  }
+
+  private static void writeSchemaUrl(JsonWriter json, String schemaUrl) {
+    writeString(json, "schemaUrl", schemaUrl);
+  }
+
+  private static void writeSpan(JsonWriter json, SpanData span) {
+    json.beginObject();
+    SpanContext spanContext = span.getSpanContext();
+    json.name("traceId").value(spanContext.getTraceId());
+    json.name("spanId").value(spanContext.getSpanId());
+    writeTraceState(json, spanContext.getTraceState());
+    if (span.getParentSpanContext().isValid()) {
+      json.name("parentSpanId").value(span.getParentSpanContext().getSpanId());
+    }
+    json.name("name").value(span.getName());
+    // SPAN_KIND_UNSPECIFIED is 0, SDK kinds are in protocol order
+    json.name("kind").value(span.getKind().ordinal() + 1);
+    json.name("startTimeUnixNano").value(span.getStartEpochNanos());
+    json.name("endTimeUnixNano").value(span.getEndEpochNanos());
+    writeAttributes(json, "attributes", span.getAttributes());
+    writeDropped(json, "droppedAttributesCount", span.getTotalAttributeCount(), span.getAttributes().size());
+    if (!span.getEvents().isEmpty()) {
+      json.name("events").beginArray();
+      for (EventData event : span.getEvents()) {
+        json.beginObject();
+        json.name("timeUnixNano").value(event.getEpochNanos());
+        json.name("name").value(event.getName());
+        writeAttributes(json, "attributes", event.getAttributes());
+        writeDropped(json, "droppedAttributesCount", event.getTotalAttributeCount(),
+            event.getAttributes().size());
+        json.endObject();
+      }
+      json.endArray();
+    }
+    writeDropped(json, "droppedEventsCount", span.getTotalRecordedEvents(), span.getEvents().size());
+    if (!span.getLinks().isEmpty()) {
+      json.name("links").beginArray();
+      for (LinkData link : span.getLinks()) {
+        json.beginObject();
+        json.name("traceId").value(link.getSpanContext().getTraceId());
+        json.name("spanId").value(link.getSpanContext().getSpanId());
+        writeTraceState(json, link.getSpanContext().getTraceState());
+        writeAttributes(json, "attributes", link.getAttributes());
+        writeDropped(json, "droppedAttributesCount", link.getTotalAttributeCount(), link.getAttributes().size());
+        json.endObject();
+      }
+      json.endArray();
+    }
+    writeDropped(json, "droppedLinksCount", span.getTotalRecordedLinks(), span.getLinks().size());
+    json.name("status").beginObject();
+    String description = span.getStatus().getDescription();
+    if (description != null && !description.isEmpty()) {
+      json.name("message").value(description);
+    }
+    // UNSET, OK and ERROR are in protocol order
+    int code = span.getStatus().getStatusCode().ordinal();
+    if (code > 0) {
+      json.name("code").value(code);
+    }
+    json.endObject();
+    json.endObject();
+  }
+
+  private static void writeMetric(JsonWriter json, MetricData metric) {
+    json.beginObject();
+    json.name("name").value(metric.getName());
+    writeString(json, "description", metric.getDescription());
+    writeString(json, "unit", metric.getUnit());
+    switch (metric.getType()) {
+      case LONG_GAUGE:
+        json.name("gauge").beginObject();
+        writeLongPoints(json, metric.getLongGaugeData().getPoints());
+        json.endObject();
+        break;
+      case DOUBLE_GAUGE:
+        json.name("gauge").beginObject();
+        writeDoublePoints(json, metric.getDoubleGaugeData().getPoints());
+        json.endObject();
+        break;
+      case LONG_SUM:
+        json.name("sum").beginObject();
+        writeLongPoints(json, metric.getLongSumData().getPoints());
+        writeTemporality(json, metric.getLongSumData().getAggregationTemporality().ordinal());
+        json.name("isMonotonic").value(metric.getLongSumData().isMonotonic());
+        json.endObject();
+        break;
+      case DOUBLE_SUM:
+        json.name("sum").beginObject();
+        writeDoublePoints(json, metric.getDoubleSumData().getPoints());
+        writeTemporality(json, metric.getDoubleSumData().getAggregationTemporality().ordinal());
+        json.name("isMonotonic").value(metric.getDoubleSumData().isMonotonic());
+        json.endObject();
+        break;
+      case HISTOGRAM:
+        json.name("histogram").beginObject();
+        json.name("dataPoints").beginArray();
+        for (HistogramPointData point : metric.getHistogramData().getPoints()) {
+          json.beginObject();
+          writePoint(json, point);
+          json.name("count").value(point.getCount());
+          json.name("sum").value(point.getSum());
+          json.name("bucketCounts").beginArray();
+          for (Long count : point.getCounts()) {
+            json.value(count.longValue());
+          }
+          json.endArray();
+          json.name("explicitBounds").beginArray();
+          for (Double boundary : point.getBoundaries()) {
+            json.value(boundary.doubleValue());
+          }
+          json.endArray();
+          writeMinMax(json, point.hasMin(), point.getMin(), point.hasMax(), point.getMax());
+          writeExemplars(json, point);
+          json.endObject();
+        }
+        json.endArray();
+        writeTemporality(json, metric.getHistogramData().getAggregationTemporality().ordinal());
+        json.endObject();
+        break;
+      case EXPONENTIAL_HISTOGRAM:
+        json.name("exponentialHistogram").beginObject();
+        json.name("dataPoints").beginArray();
+        for (ExponentialHistogramPointData point : metric.getExponentialHistogramData().getPoints()) {
+          json.beginObject();
+          writePoint(json, point);
+          json.name("count").value(point.getCount());
+          json.name("sum").value(point.getSum());
+          json.name("scale").value(point.getScale());
+          json.name("zeroCount").value(point.getZeroCount());
+          writeBuckets(json, "positive", point.getPositiveBuckets());
+          writeBuckets(json, "negative", point.getNegativeBuckets());
+          writeMinMax(json, point.hasMin(), point.getMin(), point.hasMax(), point.getMax());
+          writeExemplars(json, point);
+          json.endObject();
+        }
+        json.endArray();
+        writeTemporality(json, metric.getExponentialHistogramData().getAggregationTemporality().ordinal());
+        json.endObject();
+        break;
+      case SUMMARY:
+        json.name("summary").beginObject();
+        json.name("dataPoints").beginArray();
+        for (SummaryPointData point : metric.getSummaryData().getPoints()) {
+          json.beginObject();
+          writePoint(json, point);
+          json.name("count").value(point.getCount());
+          json.name("sum").value(point.getSum());
+          json.name("quantileValues").beginArray();
+          for (ValueAtQuantile value : point.getValues()) {
+            json.beginObject().name("quantile").value(value.getQuantile()).name("value").value(value.getValue())
+                .endObject();
+          }
+          json.endArray();
+          json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        break;
+      default:
+        break;
+    }
+    json.endObject();
+  }
+
+  private static void writeLongPoints(JsonWriter json, Collection<LongPointData> points) {
+    json.name("dataPoints").beginArray();
+    for (LongPointData point : points) {
+      json.beginObject();
+      writePoint(json, point);
+      json.name("asInt").value(point.getValue());
+      writeExemplars(json, point);
+      json.endObject();
+    }
+    json.endArray();
+  }
+
+  private static void writeDoublePoints(JsonWriter json, Collection<DoublePointData> points) {
+    json.name("dataPoints").beginArray();
+    for (DoublePointData point : points) {
+      json.beginObject();
+      writePoint(json, point);
+      json.name("asDouble").value(point.getValue());
+      writeExemplars(json, point);
+      json.endObject();
+    }
+    json.endArray();
+  }
+
+  private static void writePoint(JsonWriter json, PointData point) {
+    writeAttributes(json, "attributes", point.getAttributes());
+    json.name("startTimeUnixNano").value(point.getStartEpochNanos());
+    json.name("timeUnixNano").value(point.getEpochNanos());
+  }
+
+  private static void writeTemporality(JsonWriter json, int ordinal) {
+    // DELTA is 1 and CUMULATIVE is 2, SDK temporalities are in protocol order
+    json.name("aggregationTemporality").value(ordinal + 1);
+  }
+
+  private static void writeMinMax(JsonWriter json, boolean hasMin, double min, boolean hasMax, double max) {
+    if (hasMin) {
+      json.name("min").value(min);
+    }
+    if (hasMax) {
+      json.name("max").value(max);
+    }
+  }
+
+  private static void writeBuckets(JsonWriter json, String name, ExponentialHistogramBuckets buckets) {
+    json.name(name).beginObject();
+    if (buckets.getOffset() != 0) {
+      json.name("offset").value(buckets.getOffset());
+    }
+    json.name("bucketCounts").beginArray();
+    for (Long count : buckets.getBucketCounts()) {
+      json.value(count.longValue());
+    }
+    json.endArray();
+    json.endObject();
+  }
+
+  private static void writeExemplars(JsonWriter json, PointData point) {
+    List<? extends ExemplarData> exemplars = point.getExemplars();
+    if (exemplars.isEmpty()) {
+      return;
+    }
+    json.name("exemplars").beginArray();
+    for (ExemplarData exemplar : exemplars) {
+      json.beginObject();
+      writeAttributes(json, "filteredAttributes", exemplar.getFilteredAttributes());
+      json.name("timeUnixNano").value(exemplar.getEpochNanos());
+      if (exemplar instanceof LongExemplarData) {
+        json.name("asInt").value(((LongExemplarData) exemplar).getValue());
+      } else if (exemplar instanceof DoubleExemplarData) {
+        json.name("asDouble").value(((DoubleExemplarData) exemplar).getValue());
+      }
+      if (exemplar.getSpanContext().isValid()) {
+        json.name("spanId").value(exemplar.getSpanContext().getSpanId());
+        json.name("traceId").value(exemplar.getSpanContext().getTraceId());
+      }
+      json.endObject();
+    }
+    json.endArray();
+  }
+
+  private static void writeTraceState(JsonWriter json, TraceState traceState) {
+    if (traceState.isEmpty()) {
+      return;
+    }
+    StringBuilder w3c = new StringBuilder();
+    traceState.forEach((key, value) -> {
+      if (w3c.length() > 0) {
+        w3c.append(',');
+      }
+      w3c.append(key).append('=').append(value);
+    });
+    json.name("traceState").value(w3c.toString());
+  }
+
+  private static void writeDropped(JsonWriter json, String name, int total, int kept) {
+    if (total > kept) {
+      json.name(name).value(total - kept);
+    }
+  }
+
+  private static void writeString(JsonWriter json, String name, String value) {
+    if (value != null && !value.isEmpty()) {
+      json.name(name).value(value);
+    }
+  }
+
+  private static void writeAttributes(JsonWriter json, String name, Attributes attributes) {
+    if (attributes.isEmpty()) {
+      return;
+    }
+    json.name(name).beginArray();
+    attributes.forEach((key, value) -> {
+      json.beginObject().name("key").value(key.getKey()).name("value");
+      writeAnyValue(json, key, value);
+      json.endObject();
+    });
+    json.endArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void writeAnyValue(JsonWriter json, AttributeKey<?> key, Object value) {
+    json.beginObject();
+    switch (key.getType()) {
+      case STRING:
+        json.name("stringValue").value((String) value);
+        break;
+      case BOOLEAN:
+        json.name("boolValue").value((Boolean) value);
+        break;
+      case LONG:
+        json.name("intValue").value((Long) value);
+        break;
+      case DOUBLE:
+        json.name("doubleValue").value((Double) value);
+        break;
+      default:
+        json.name("arrayValue").beginObject().name("values").beginArray();
+        for (Object element : (List<Object>) value) {
+          json.beginObject();
+          if (element instanceof String) {
+            json.name("stringValue").value((String) element);
+          } else if (element instanceof Boolean) {
+            json.name("boolValue").value((Boolean) element);
+          } else if (element instanceof Long) {
+            json.name("intValue").value((Long) element);
+          } else if (element instanceof Double) {
+            json.name("doubleValue").value((Double) element);
+          }
+          json.endObject();
+        }
+        json.endArray().endObject();
+        break;
+    }
+    json.endObject();
+  }
+}
@@ -0,0 +1,722 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.internal.W3CTraceContextEncoding;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Encodes span batches as an OTLP {@code ExportTraceServiceRequest} protobuf
+ * directly from {@link SpanData} into a pooled direct {@link ByteBuffer},
+ * without building marshaler objects per span, attribute and event.
+ * <p>
+ * Encoding makes two passes over the batch. The first computes the size of
+ * every nested message and string in the order they are written and keeps
+ * them in an int array, the second writes the fields using those sizes. The
+ * encoded attribute key fields, resource and scopes are cached, as they repeat
+ * on every span. Output is the same as the OTLP exporter's marshalers for the
+ * same resource and scope order.
+ * <p>
+ * Instances keep per batch state and are not thread safe.
+ */
+final class OtlpProtoSpanEncoder {
+
+  static final int MAX_CACHED_KEYS = 4096;
+  static final int MAX_CACHED_SCOPES = 256;
+
+  // Field tags of the OTLP trace protos, (field number << 3) | wire type
+  private static final byte REQUEST_RESOURCE_SPANS = 0x0A;
+  private static final byte RESOURCE_SPANS_RESOURCE = 0x0A;
+  private static final byte RESOURCE_SPANS_SCOPE_SPANS = 0x12;
+  private static final byte RESOURCE_SPANS_SCHEMA_URL = 0x1A;
+  private static final byte RESOURCE_ATTRIBUTES = 0x0A;
+  private static final byte SCOPE_SPANS_SCOPE = 0x0A;
+  private static final byte SCOPE_SPANS_SPANS = 0x12;
+  private static final byte SCOPE_SPANS_SCHEMA_URL = 0x1A;
+  private static final byte SCOPE_NAME = 0x0A;
+  private static final byte SCOPE_VERSION = 0x12;
+  private static final byte SCOPE_ATTRIBUTES = 0x1A;
+  private static final byte SPAN_TRACE_ID = 0x0A;
+  private static final byte SPAN_SPAN_ID = 0x12;
+  private static final byte SPAN_TRACE_STATE = 0x1A;
+  private static final byte SPAN_PARENT_SPAN_ID = 0x22;
+  private static final byte SPAN_NAME = 0x2A;
+  private static final byte SPAN_KIND = 0x30;
+  private static final byte SPAN_START_TIME = 0x39;
+  private static final byte SPAN_END_TIME = 0x41;
+  private static final byte SPAN_ATTRIBUTES = 0x4A;
+  private static final byte SPAN_DROPPED_ATTRIBUTES = 0x50;
+  private static final byte SPAN_EVENTS = 0x5A;
+  private static final byte SPAN_DROPPED_EVENTS = 0x60;
+  private static final byte SPAN_LINKS = 0x6A;
+  private static final byte SPAN_DROPPED_LINKS = 0x70;
+  private static final byte SPAN_STATUS = 0x7A;
+  private static final byte EVENT_TIME = 0x09;
+  private static final byte EVENT_NAME = 0x12;
+  private static final byte EVENT_ATTRIBUTES = 0x1A;
+  private static final byte EVENT_DROPPED_ATTRIBUTES = 0x20;
+  private static final byte LINK_TRACE_ID = 0x0A;
+  private static final byte LINK_SPAN_ID = 0x12;
+  private static final byte LINK_TRACE_STATE = 0x1A;
+  private static final byte LINK_ATTRIBUTES = 0x22;
+  private static final byte LINK_DROPPED_ATTRIBUTES = 0x28;
+  private static final byte STATUS_MESSAGE = 0x12;
+  private static final byte STATUS_CODE = 0x18;
+  private static final byte KEY_VALUE_KEY = 0x0A;
+  private static final byte KEY_VALUE_VALUE = 0x12;
+  private static final byte ANY_VALUE_STRING = 0x0A;
+  private static final byte ANY_VALUE_BOOL = 0x10;
+  private static final byte ANY_VALUE_INT = 0x18;
+  private static final byte ANY_VALUE_DOUBLE = 0x21;
+  private static final byte ANY_VALUE_ARRAY = 0x2A;
+  private static final byte ARRAY_VALUE_VALUES = 0x0A;
+
+  private static final int TRACE_ID_FIELD_SIZE = 2 + 16;
+  private static final int SPAN_ID_FIELD_SIZE = 2 + 8;
+  private static final int FIXED64_FIELD_SIZE = 1 + 8;
+  private static final byte[] NO_KEY = new byte[0];
+
+  private final DirectBufferPool bufferPool;
+  private final Map<String, byte[]> keyFields = new HashMap<>();
+  private final Map<InstrumentationScopeInfo, byte[]> scopeBodies = new HashMap<>();
+  private Resource cachedResource;
+  private byte[] cachedResourceBody;
+
+  private final AttributeSizer attributeSizer = new AttributeSizer();
+  private final AttributeWriter attributeWriter = new AttributeWriter();
+  private int[] sizes = new int[1024];
+  private int sizeCount;
+  private int sizeCursor;
+
+  OtlpProtoSpanEncoder(DirectBufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+  }
+
+  /**
+   * @param spans
+   *            batch to encode
+   * @return ByteBuffer from the pool with the encoded request between position
+   *         and limit, to be released to the pool by the caller
+   */
+  ByteBuffer encode(Collection<SpanData> spans) {
+    List<ResourceGroup> groups = group(spans);
+    sizeCount = 0;
+    int size = 0;
+    for (ResourceGroup group : groups) {
+      size += fieldSize(sizeResourceSpans(group));
+    }
+    ByteBuffer buffer = bufferPool.acquire(size);
+    try {
+      sizeCursor = 0;
+      for (ResourceGroup group : groups) {
+        writeResourceSpans(buffer, group);
+      }
+      if (buffer.position() != size) {
+        throw new IllegalStateException(
+            "Encoded " + buffer.position() + " bytes of spans, expected " + size);
+      }
+      buffer.flip();
+      return buffer;
+    } catch (RuntimeException e) {
+      bufferPool.release(buffer);
+      throw e;
+    }
+  }
+
+  private List<ResourceGroup> group(Collection<SpanData> spans) {
+    List<ResourceGroup> groups = new ArrayList<>(1);
+    ResourceGroup resourceGroup = null;
+    ScopeGroup scopeGroup = null;
+    for (SpanData span : spans) {
+      // SDK shares resource and scope instances, so identity finds the group
+      if (resourceGroup == null || resourceGroup.resource != span.getResource()) {
+        resourceGroup = null;
+        for (ResourceGroup group : groups) {
+          if (group.resource == span.getResource()) {
+            resourceGroup = group;
+          }
+        }
+        if (resourceGroup == null) {
+          resourceGroup = new ResourceGroup(span.getResource(), resourceBody(span.getResource()));
+          groups.add(resourceGroup);
+        }
+        scopeGroup = null;
+      }
+      if (scopeGroup == null || scopeGroup.scope != span.getInstrumentationScopeInfo()) {
+        scopeGroup = null;
+        for (ScopeGroup group : resourceGroup.scopes) {
+          if (group.scope == span.getInstrumentationScopeInfo()) {
+            scopeGroup = group;
+          }
+        }
+        if (scopeGroup == null) {
+          scopeGroup = new ScopeGroup(span.getInstrumentationScopeInfo(),
+              scopeBody(span.getInstrumentationScopeInfo()));
+          resourceGroup.scopes.add(scopeGroup);
+        }
+      }
+      scopeGroup.spans.add(span);
+    }
+    return groups;
+  }
+
+  private byte[] resourceBody(Resource resource) {
+    if (resource != cachedResource) {
+      sizeCount = 0;
+      int size = sizeAttributes(resource.getAttributes());
+      ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+      sizeCursor = 0;
+      writeAttributes(buffer, RESOURCE_ATTRIBUTES, resource.getAttributes());
+      cachedResourceBody = buffer.array();
+      cachedResource = resource;
+    }
+    return cachedResourceBody;
+  }
+
+  private byte[] scopeBody(InstrumentationScopeInfo scope) {
+    byte[] body = scopeBodies.get(scope);
+    if (body != null) {
+      return body;
+    }
+    sizeCount = 0;
+    int size = 0;
+    if (!scope.getName().isEmpty()) {
+      size += sizeStringField(scope.getName());
+    }
+    if (scope.getVersion() != null && !scope.getVersion().isEmpty()) {
+      size += sizeStringField(scope.getVersion());
+    }
+    size += sizeAttributes(scope.getAttributes());
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    sizeCursor = 0;
+    if (!scope.getName().isEmpty()) {
+      writeStringField(buffer, SCOPE_NAME, scope.getName());
+    }
+    if (scope.getVersion() != null && !scope.getVersion().isEmpty()) {
+      writeStringField(buffer, SCOPE_VERSION, scope.getVersion());
+    }
+    writeAttributes(buffer, SCOPE_ATTRIBUTES, scope.getAttributes());
+    body = buffer.array();
+    if (scopeBodies.size() < MAX_CACHED_SCOPES) {
+      scopeBodies.put(scope, body);
+    }
+    return body;
+  }
+
+  // Sizes. Every method computing a message size reserves its slot before the
+  // nested ones, so slots are in the order the messages are written.
+
+  private int sizeResourceSpans(ResourceGroup group) {
+    int slot = reserveSize();
+    int size = fieldSize(group.resourceBody.length);
+    for (ScopeGroup scopeGroup : group.scopes) {
+      size += fieldSize(sizeScopeSpans(scopeGroup));
+    }
+    String schemaUrl = group.resource.getSchemaUrl();
+    if (schemaUrl != null && !schemaUrl.isEmpty()) {
+      size += sizeStringField(schemaUrl);
+    }
+    return setSize(slot, size);
+  }
+
+  private int sizeScopeSpans(ScopeGroup group) {
+    int slot = reserveSize();
+    int size = fieldSize(group.scopeBody.length);
+    for (SpanData span : group.spans) {
+      size += fieldSize(sizeSpan(span));
+    }
+    String schemaUrl = group.scope.getSchemaUrl();
+    if (schemaUrl != null && !schemaUrl.isEmpty()) {
+      size += sizeStringField(schemaUrl);
+    }
+    return setSize(slot, size);
+  }
+
+  private int sizeSpan(SpanData span) {
+    int slot = reserveSize();
+    int size = TRACE_ID_FIELD_SIZE + SPAN_ID_FIELD_SIZE;
+    String traceState = traceState(span.getSpanContext().getTraceState());
+    if (!traceState.isEmpty()) {
+      size += sizeStringField(traceState);
+    }
+    if (span.getParentSpanContext().isValid()) {
+      size += SPAN_ID_FIELD_SIZE;
+    }
+    if (!span.getName().isEmpty()) {
+      size += sizeStringField(span.getName());
+    }
+    size += 2;
+    if (span.getStartEpochNanos() != 0) {
+      size += FIXED64_FIELD_SIZE;
+    }
+    if (span.getEndEpochNanos() != 0) {
+      size += FIXED64_FIELD_SIZE;
+    }
+    size += sizeAttributes(span.getAttributes());
+    size += uint32FieldSize(span.getTotalAttributeCount() - span.getAttributes().size());
+    List<EventData> events = span.getEvents();
+    for (int i = 0; i < events.size(); i++) {
+      size += fieldSize(sizeEvent(events.get(i)));
+    }
+    size += uint32FieldSize(span.getTotalRecordedEvents() - events.size());
+    List<LinkData> links = span.getLinks();
+    for (int i = 0; i < links.size(); i++) {
+      size += fieldSize(sizeLink(links.get(i)));
+    }
+    size += uint32FieldSize(span.getTotalRecordedLinks() - links.size());
+    size += fieldSize(sizeStatus(span.getStatus()));
+    return setSize(slot, size);
+  }
+
+  private int sizeEvent(EventData event) {
+    int slot = reserveSize();
+    int size = 0;
+    if (event.getEpochNanos() != 0) {
+      size += FIXED64_FIELD_SIZE;
+    }
+    if (!event.getName().isEmpty()) {
+      size += sizeStringField(event.getName());
+    }
+    size += sizeAttributes(event.getAttributes());
+    size += uint32FieldSize(event.getTotalAttributeCount() - event.getAttributes().size());
+    return setSize(slot, size);
+  }
+
+  private int sizeLink(LinkData link) {
+    int slot = reserveSize();
+    int size = TRACE_ID_FIELD_SIZE + SPAN_ID_FIELD_SIZE;
+    String traceState = traceState(link.getSpanContext().getTraceState());
+    if (!traceState.isEmpty()) {
+      size += sizeStringField(traceState);
+    }
+    size += sizeAttributes(link.getAttributes());
+    size += uint32FieldSize(link.getTotalAttributeCount() - link.getAttributes().size());
+    return setSize(slot, size);
+  }
+
+  private int sizeStatus(StatusData status) {
+    int slot = reserveSize();
+    int size = 0;
+    if (!status.getDescription().isEmpty()) {
+      size += sizeStringField(status.getDescription());
+    }
+    if (statusCode(status) != 0) {
+      size += 2;
+    }
+    return setSize(slot, size);
+  }
+
+  /**
+   * @return int size of all key value fields, including their tags
+   */
+  private int sizeAttributes(Attributes attributes) {
+    attributeSizer.size = 0;
+    attributes.forEach(attributeSizer);
+    return attributeSizer.size;
+  }
+
+  private int sizeKeyValue(AttributeKey<?> key, Object value) {
+    int slot = reserveSize();
+    return setSize(slot, keyField(key.getKey()).length + fieldSize(sizeAnyValue(key, value)));
+  }
+
+  private int sizeAnyValue(AttributeKey<?> key, Object value) {
+    switch (key.getType()) {
+      case STRING:
+        return setSize(reserveSize(), sizeStringField((String) value));
+      case BOOLEAN:
+        return setSize(reserveSize(), 2);
+      case LONG:
+        return setSize(reserveSize(), 1 + varintSize((Long) value));
+      case DOUBLE:
+        return setSize(reserveSize(), FIXED64_FIELD_SIZE);
+      default:
+        int slot = reserveSize();
+        int arraySlot = reserveSize();
+        int arraySize = 0;
+        for (Object element : (List<?>) value) {
+          arraySize += fieldSize(sizeArrayElement(element));
+        }
+        setSize(arraySlot, arraySize);
+        return setSize(slot, fieldSize(arraySize));
+    }
+  }
+
+  private int sizeArrayElement(Object element) {
+    int slot = reserveSize();
+    if (element instanceof String) {
+      return setSize(slot, sizeStringField((String) element));
+    } else if (element instanceof Boolean) {
+      return setSize(slot, 2);
+    } else if (element instanceof Long) {
+      return setSize(slot, 1 + varintSize((Long) element));
+    }
+    return setSize(slot, FIXED64_FIELD_SIZE);
+  }
+
+  private int sizeStringField(String value) {
+    int length = utf8Length(value);
+    setSize(reserveSize(), length);
+    return fieldSize(length);
+  }
+
+  // Writes, in the same order as the sizes
+
+  private void writeResourceSpans(ByteBuffer buffer, ResourceGroup group) {
+    writeMessageStart(buffer, REQUEST_RESOURCE_SPANS);
+    buffer.put(RESOURCE_SPANS_RESOURCE);
+    writeVarint(buffer, group.resourceBody.length);
+    buffer.put(group.resourceBody);
+    for (ScopeGroup scopeGroup : group.scopes) {
+      writeScopeSpans(buffer, scopeGroup);
+    }
+    String schemaUrl = group.resource.getSchemaUrl();
+    if (schemaUrl != null && !schemaUrl.isEmpty()) {
+      writeStringField(buffer, RESOURCE_SPANS_SCHEMA_URL, schemaUrl);
+    }
+  }
+
+  private void writeScopeSpans(ByteBuffer buffer, ScopeGroup group) {
+    writeMessageStart(buffer, RESOURCE_SPANS_SCOPE_SPANS);
+    buffer.put(SCOPE_SPANS_SCOPE);
+    writeVarint(buffer, group.scopeBody.length);
+    buffer.put(group.scopeBody);
+    for (SpanData span : group.spans) {
+      writeSpan(buffer, span);
+    }
+    String schemaUrl = group.scope.getSchemaUrl();
+    if (schemaUrl != null && !schemaUrl.isEmpty()) {
+      writeStringField(buffer, SCOPE_SPANS_SCHEMA_URL, schemaUrl);
+    }
+  }
+
+  private void writeSpan(ByteBuffer buffer, SpanData span) {
+    writeMessageStart(buffer, SCOPE_SPANS_SPANS);
+    writeIdField(buffer, SPAN_TRACE_ID, span.getTraceId());
+    writeIdField(buffer, SPAN_SPAN_ID, span.getSpanId());
+    String traceState = traceState(span.getSpanContext().getTraceState());
+    if (!traceState.isEmpty()) {
+      writeStringField(buffer, SPAN_TRACE_STATE, traceState);
+    }
+    if (span.getParentSpanContext().isValid()) {
+      writeIdField(buffer, SPAN_PARENT_SPAN_ID, span.getParentSpanId());
+    }
+    if (!span.getName().isEmpty()) {
+      writeStringField(buffer, SPAN_NAME, span.getName());
+    }
+    buffer.put(SPAN_KIND);
+    buffer.put((byte) (span.getKind().ordinal() + 1));
+    writeFixed64Field(buffer, SPAN_START_TIME, span.getStartEpochNanos());
+    writeFixed64Field(buffer, SPAN_END_TIME, span.getEndEpochNanos());
+    writeAttributes(buffer, SPAN_ATTRIBUTES, span.getAttributes());
+    writeUInt32Field(buffer, SPAN_DROPPED_ATTRIBUTES, span.getTotalAttributeCount() - span.getAttributes().size());
+    List<EventData> events = span.getEvents();
+    for (int i = 0; i < events.size(); i++) {
+      writeEvent(buffer, events.get(i));
+    }
+    writeUInt32Field(buffer, SPAN_DROPPED_EVENTS, span.getTotalRecordedEvents() - events.size());
+    List<LinkData> links = span.getLinks();
+    for (int i = 0; i < links.size(); i++) {
+      writeLink(buffer, links.get(i));
+    }
+    writeUInt32Field(buffer, SPAN_DROPPED_LINKS, span.getTotalRecordedLinks() - links.size());
+    writeStatus(buffer, span.getStatus());
+  }
+
+  private void writeEvent(ByteBuffer buffer, EventData event) {
+    writeMessageStart(buffer, SPAN_EVENTS);
+    writeFixed64Field(buffer, EVENT_TIME, event.getEpochNanos());
+    if (!event.getName().isEmpty()) {
+      writeStringField(buffer, EVENT_NAME, event.getName());
+    }
+    writeAttributes(buffer, EVENT_ATTRIBUTES, event.getAttributes());
+    writeUInt32Field(buffer, EVENT_DROPPED_ATTRIBUTES,
+        event.getTotalAttributeCount() - event.getAttributes().size());
+  }
+
+  private void writeLink(ByteBuffer buffer, LinkData link) {
+    writeMessageStart(buffer, SPAN_LINKS);
+    writeIdField(buffer, LINK_TRACE_ID, link.getSpanContext().getTraceId());
+    writeIdField(buffer, LINK_SPAN_ID, link.getSpanContext().getSpanId());
+    String traceState = traceState(link.getSpanContext().getTraceState());
+    if (!traceState.isEmpty()) {
+      writeStringField(buffer, LINK_TRACE_STATE, traceState);
+    }
+    writeAttributes(buffer, LINK_ATTRIBUTES, link.getAttributes());
+    writeUInt32Field(buffer, LINK_DROPPED_ATTRIBUTES, link.getTotalAttributeCount() - link.getAttributes().size());
+  }
+
+  private void writeStatus(ByteBuffer buffer, StatusData status) {
+    writeMessageStart(buffer, SPAN_STATUS);
+    if (!status.getDescription().isEmpty()) {
+      writeStringField(buffer, STATUS_MESSAGE, status.getDescription());
+    }
+    int code = statusCode(status);
+    if (code != 0) {
+      buffer.put(STATUS_CODE);
+      buffer.put((byte) code);
+    }
+  }
+
+  private void writeAttributes(ByteBuffer buffer, byte tag, Attributes attributes) {
+    attributeWriter.buffer = buffer;
+    attributeWriter.tag = tag;
+    attributes.forEach(attributeWriter);
+    attributeWriter.buffer = null;
+  }
+
+  private void writeKeyValue(ByteBuffer buffer, byte tag, AttributeKey<?> key, Object value) {
+    writeMessageStart(buffer, tag);
+    buffer.put(keyField(key.getKey()));
+    writeMessageStart(buffer, KEY_VALUE_VALUE);
+    switch (key.getType()) {
+      case STRING:
+        writeStringField(buffer, ANY_VALUE_STRING, (String) value);
+        break;
+      case BOOLEAN:
+        buffer.put(ANY_VALUE_BOOL);
+        buffer.put((byte) ((Boolean) value ? 1 : 0));
+        break;
+      case LONG:
+        buffer.put(ANY_VALUE_INT);
+        writeVarint(buffer, (Long) value);
+        break;
+      case DOUBLE:
+        buffer.put(ANY_VALUE_DOUBLE);
+        buffer.putDouble((Double) value);
+        break;
+      default:
+        writeMessageStart(buffer, ANY_VALUE_ARRAY);
+        for (Object element : (List<?>) value) {
+          writeArrayElement(buffer, element);
+        }
+    }
+  }
+
+  private void writeArrayElement(ByteBuffer buffer, Object element) {
+    writeMessageStart(buffer, ARRAY_VALUE_VALUES);
+    if (element instanceof String) {
+      writeStringField(buffer, ANY_VALUE_STRING, (String) element);
+    } else if (element instanceof Boolean) {
+      buffer.put(ANY_VALUE_BOOL);
+      buffer.put((byte) ((Boolean) element ? 1 : 0));
+    } else if (element instanceof Long) {
+      buffer.put(ANY_VALUE_INT);
+      writeVarint(buffer, (Long) element);
+    } else {
+      buffer.put(ANY_VALUE_DOUBLE);
+      buffer.putDouble((Double) element);
+    }
+  }
+
+  private void writeMessageStart(ByteBuffer buffer, byte tag) {
+    buffer.put(tag);
+    writeVarint(buffer, sizes[sizeCursor++]);
+  }
+
+  private void writeStringField(ByteBuffer buffer, byte tag, String value) {
+    buffer.put(tag);
+    writeVarint(buffer, sizes[sizeCursor++]);
+    writeUtf8(buffer, value);
+  }
+
+  private static void writeIdField(ByteBuffer buffer, byte tag, String hexId) {
+    buffer.put(tag);
+    buffer.put((byte) (hexId.length() / 2));
+    for (int i = 0; i < hexId.length(); i += 2) {
+      buffer.put((byte) ((hexValue(hexId.charAt(i)) << 4) | hexValue(hexId.charAt(i + 1))));
+    }
+  }
+
+  private static void writeFixed64Field(ByteBuffer buffer, byte tag, long value) {
+    if (value != 0) {
+      buffer.put(tag);
+      buffer.putLong(value);
+    }
+  }
+
+  private static void writeUInt32Field(ByteBuffer buffer, byte tag, int value) {
+    if (value != 0) {
+      buffer.put(tag);
+      writeVarint(buffer, value & 0xFFFFFFFFL);
+    }
+  }
+
+  private byte[] keyField(String key) {
+    byte[] field = keyFields.get(key);
+    if (field == null) {
+      field = NO_KEY;
+      if (!key.isEmpty()) {
+        int length = utf8Length(key);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + varintSize(length) + length);
+        buffer.put(KEY_VALUE_KEY);
+        writeVarint(buffer, length);
+        writeUtf8(buffer, key);
+        field = buffer.array();
+      }
+      if (keyFields.size() < MAX_CACHED_KEYS) {
+        keyFields.put(key, field);
+      }
+    }
+    return field;
+  }
+
+  private int reserveSize() {
+    if (sizeCount == sizes.length) {
+      sizes = Arrays.copyOf(sizes, sizes.length * 2);
+    }
+    return sizeCount++;
+  }
+
+  private int setSize(int slot, int size) {
+    sizes[slot] = size;
+    return size;
+  }
+
+  private static String traceState(TraceState traceState) {
+    return traceState.isEmpty() ? "" : W3CTraceContextEncoding.encodeTraceState(traceState);
+  }
+
+  private static int statusCode(StatusData status) {
+    switch (status.getStatusCode()) {
+      case OK:
+        return 1;
+      case ERROR:
+        return 2;
+      default:
+        return 0;
+    }
+  }
+
+  private static int fieldSize(int messageSize) {
+    return 1 + varintSize(messageSize) + messageSize;
+  }
+
+  private static int uint32FieldSize(int value) {
+    return value == 0 ? 0 : 1 + varintSize(value & 0xFFFFFFFFL);
+  }
+
+  static int varintSize(long value) {
+    int bits = 64 - Long.numberOfLeadingZeros(value);
+    return bits == 0 ? 1 : (bits + 6) / 7;
+  }
+
+  static void writeVarint(ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  /**
+   * @return int length of the value encoded as UTF-8, with unpaired surrogates
+   *         replaced by {@code ?} as {@link String#getBytes} does
+   */
+  static int utf8Length(String value) {
+    int length = value.length();
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          length++;
+        } else if (!Character.isSurrogate(c)) {
+          length += 2;
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          // 4 bytes for the 2 chars
+          length += 2;
+          i++;
+        }
+      }
+    }
+    return length;
+  }
+
+  static void writeUtf8(ByteBuffer buffer, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (!Character.isSurrogate(c)) {
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer.put((byte) (0xF0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+      } else {
+        buffer.put((byte) '?');
+      }
+    }
+  }
+
+  private static int hexValue(char c) {
+    return c <= '9' ? c - '0' : (c | 0x20) - 'a' + 10;
+  }
+
+  private final class AttributeSizer implements BiConsumer<AttributeKey<?>, Object> {
+    private int size;
+
+    @Override
+    public void accept(AttributeKey<?> key, Object value) {
+      size += fieldSize(sizeKeyValue(key, value));
+    }
+  }
+
+  private final class AttributeWriter implements BiConsumer<AttributeKey<?>, Object> {
+    private ByteBuffer buffer;
+    private byte tag;
+
+    @Override
+    public void accept(AttributeKey<?> key, Object value) {
+      writeKeyValue(buffer, tag, key, value);
+    }
+  }
+
+  private static final class ResourceGroup {
+    private final Resource resource;
+    private final byte[] resourceBody;
+    private final List<ScopeGroup> scopes = new ArrayList<>(2);
+
+    private ResourceGroup(Resource resource, byte[] resourceBody) {
+      this.resource = resource;
+      this.resourceBody = resourceBody;
+    }
+  }
+
+  private static final class ScopeGroup {
+    private final InstrumentationScopeInfo scope;
+    private final byte[] scopeBody;
+    private final List<SpanData> spans = new ArrayList<>();
+
+    private ScopeGroup(InstrumentationScopeInfo scope, byte[] scopeBody) {
+      this.scope = scope;
+      this.scopeBody = scopeBody;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSpanExporterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpExporter.*;
+
+/**
+ * OTLP HTTP/protobuf span exporter that encodes batches with
+ * {@link OtlpProtoSpanEncoder} into pooled direct buffers and streams them to
+ * the collector, instead of building the OTLP exporter's marshalers for every
+ * span.
+ * <p>
+ * Failed requests are not retried, the batch is reported as failed so a disk
+ * buffered exporter can keep it.
+ */
+public class OtlpStreamingHttpSpanExporter implements SpanExporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OtlpStreamingHttpSpanExporter.class);
+  static final String DEFAULT_ENDPOINT = "http://localhost:4318/v1/traces";
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final URL endpoint;
+  private final Map<String, String> headers;
+  private final boolean gzip;
+  private final int timeoutMillis;
+  private final DirectBufferPool bufferPool = new DirectBufferPool(1);
+  private final OtlpProtoSpanEncoder encoder = new OtlpProtoSpanEncoder(bufferPool);
+  private final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+  private volatile boolean shutdown;
+
+  OtlpStreamingHttpSpanExporter(URL endpoint, Map<String, String> headers, boolean gzip, Duration timeout) {
+    this.endpoint = endpoint;
+    this.headers = Collections.unmodifiableMap(new HashMap<>(headers));
+    this.gzip = gzip;
+    this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+  }
+
+  static OtlpStreamingHttpSpanExporter from(ConfigProperties config) {
+    String endpoint = config.getString(OTEL_EXPORTER_OTLP_TRACES_ENDPOINT);
+    if (endpoint == null) {
+      endpoint = config.getString(OTEL_EXPORTER_OTLP_ENDPOINT);
+      if (endpoint != null) {
+        endpoint = (endpoint.endsWith("/") ? endpoint : endpoint + "/") + "v1/traces";
+      }
+    }
+    Map<String, String> headers = new HashMap<>(config.getMap(OTEL_EXPORTER_OTLP_HEADERS));
+    headers.putAll(config.getMap("otel.exporter.otlp.traces.headers"));
+    String compression = config.getString("otel.exporter.otlp.traces.compression",
+        config.getString(OTEL_EXPORTER_OTLP_COMPRESSION, "none"));
+    Duration timeout = config.getDuration("otel.exporter.otlp.traces.timeout",
+        config.getDuration("otel.exporter.otlp.timeout", Duration.ofSeconds(10)));
+    try {
+      return new OtlpStreamingHttpSpanExporter(new URL(endpoint == null ? DEFAULT_ENDPOINT : endpoint), headers,
+          "gzip".equalsIgnoreCase(compression), timeout);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid OTLP traces endpoint " + endpoint, e);
+    }
+  }
+
+  /**
+   * Batch span processor calls export from its single worker thread, it is
+   * synchronized as encoder and copy buffer are reused.
+   */
+  @Override
+  public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+    if (shutdown) {
+      return CompletableResultCode.ofFailure();
+    }
+    if (spans.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+    ByteBuffer request = encoder.encode(spans);
+    try {
+      int status = send(request);
+      if (status >= 200 && status < 300) {
+        return CompletableResultCode.ofSuccess();
+      }
+      LOGGER.warn("Failed to export {} spans to {}, collector responded with HTTP status {}", spans.size(),
+          endpoint, status);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to export {} spans to {}: {}", spans.size(), endpoint, e.toString());
+    } finally {
+      bufferPool.release(request);
+    }
+    return CompletableResultCode.ofFailure();
+  }
+
+  private int send(ByteBuffer request) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+    try {
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setConnectTimeout(timeoutMillis);
+      connection.setReadTimeout(timeoutMillis);
+      connection.setRequestProperty("Content-Type", "application/x-protobuf");
+      headers.forEach(connection::setRequestProperty);
+      if (gzip) {
+        connection.setRequestProperty("Content-Encoding", "gzip");
+        connection.setChunkedStreamingMode(COPY_BUFFER_SIZE);
+      } else {
+        connection.setFixedLengthStreamingMode(request.remaining());
+      }
+      try (OutputStream out = gzip ? new GZIPOutputStream(connection.getOutputStream(), COPY_BUFFER_SIZE)
+          : connection.getOutputStream()) {
+        while (request.hasRemaining()) {
+          int length = Math.min(copyBuffer.length, request.remaining());
+          request.get(copyBuffer, 0, length);
+          out.write(copyBuffer, 0, length);
+        }
+      }
+      int status = connection.getResponseCode();
+      // Read the response fully, so the connection can be kept alive
+      try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+        if (in != null) {
+          while (in.read(copyBuffer) != -1) {
+            // discard
+          }
+        }
+      }
+      return status;
+    } catch (IOException e) {
+      connection.disconnect();
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    shutdown = true;
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public String toString() {
+    return "OtlpStreamingHttpSpanExporter{endpoint=" + endpoint + ", gzip=" + gzip + '}';
+  }
+
+  /**
+   * Provides the exporter to SDK autoconfiguration as {@code otlp-streaming}.
+   */
+  public static class Provider implements ConfigurableSpanExporterProvider {
+
+    @Override
+    public SpanExporter createExporter(ConfigProperties config) {
+      return OtlpStreamingHttpSpanExporter.from(config);
+    }
+
+    @Override
+    public String getName() {
+      return OTLP_STREAMING;
+    }
+  }
+}
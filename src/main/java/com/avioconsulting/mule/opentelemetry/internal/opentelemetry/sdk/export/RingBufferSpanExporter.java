@@ -0,0 +1,103 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link SpanExporter} that keeps the most recent spans in memory for on-box
+ * diagnostics, eg. when the collector is down.
+ * <p>
+ * Spans are kept as {@link SpanRecord}s in a fixed-size ring buffer. Each
+ * export claims slots with a single atomic increment and overwrites the oldest
+ * records, so neither export nor {@link #query} lock. A query may miss records
+ * that are written while it runs, but never returns a record twice.
+ */
+public class RingBufferSpanExporter implements SpanExporter {
+
+  static final int MAX_CAPACITY = 1 << 20;
+
+  private final AtomicReferenceArray<SpanRecord> slots;
+  private final int mask;
+  private final AtomicLong nextSequence = new AtomicLong();
+
+  /**
+   * @param capacity
+   *            number of spans to keep, rounded up to a power of two
+   */
+  public RingBufferSpanExporter(int capacity) {
+    int size = Integer.highestOneBit(Math.max(1, Math.min(capacity, MAX_CAPACITY)) * 2 - 1);
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  public int getCapacity() {
+    return slots.length();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    for (SpanData span : spans) {
+      long sequence = nextSequence.getAndIncrement();
+      slots.lazySet((int) (sequence & mask), new SpanRecord(sequence, span));
+    }
+    return CompletableResultCode.ofSuccess();
+  }
+
+  /**
+   * Find kept spans, newest first.
+   *
+   * @param traceId
+   *            trace id to match, null for any
+   * @param flowName
+   *            {@code mule.app.flow.name} to match, null for any
+   * @param minDurationNanos
+   *            minimum span duration
+   * @param maxResults
+   *            maximum spans to return
+   * @return List of matching {@link SpanRecord}s
+   */
+  public List<SpanRecord> query(String traceId, String flowName, long minDurationNanos, int maxResults) {
+    List<SpanRecord> results = new ArrayList<>(Math.min(Math.max(0, maxResults), 64));
+    long newest = nextSequence.get() - 1;
+    long oldest = Math.max(0, newest - mask);
+    for (long sequence = newest; sequence >= oldest && results.size() < maxResults; sequence--) {
+      SpanRecord record = slots.get((int) (sequence & mask));
+      // Slot is not written yet or already overwritten by a newer span
+      if (record == null || record.getSequence() != sequence) {
+        continue;
+      }
+      if ((traceId == null || traceId.equalsIgnoreCase(record.getTraceId()))
+          && (flowName == null || flowName.equals(record.getFlowName()))
+          && record.getDurationNanos() >= minDurationNanos) {
+        results.add(record);
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  /**
+   * Kept spans stay available to queries until the exporter is garbage
+   * collected.
+   */
+  @Override
+  public CompletableResultCode shutdown() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public String toString() {
+    return "RingBufferSpanExporter{capacity=" + getCapacity() + "}";
+  }
+}
@@ -0,0 +1,126 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_NAME;
+
+/**
+ * Compact immutable copy of an ended span kept by
+ * {@link RingBufferSpanExporter}. Events, links, resource and scope are not
+ * kept. Attributes are the immutable attributes of the span, so they are
+ * shared instead of copied.
+ */
+public final class SpanRecord {
+
+  private final long sequence;
+  private final String traceId;
+  private final String spanId;
+  private final String parentSpanId;
+  private final String name;
+  private final SpanKind kind;
+  private final StatusCode statusCode;
+  private final String statusDescription;
+  private final long startEpochNanos;
+  private final long endEpochNanos;
+  private final Attributes attributes;
+
+  SpanRecord(long sequence, SpanData span) {
+    this.sequence = sequence;
+    this.traceId = span.getTraceId();
+    this.spanId = span.getSpanId();
+    this.parentSpanId = span.getParentSpanContext().isValid() ? span.getParentSpanId() : null;
+    this.name = span.getName();
+    this.kind = span.getKind();
+    this.statusCode = span.getStatus().getStatusCode();
+    this.statusDescription = span.getStatus().getDescription();
+    this.startEpochNanos = span.getStartEpochNanos();
+    this.endEpochNanos = span.getEndEpochNanos();
+    this.attributes = span.getAttributes();
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  public String getParentSpanId() {
+    return parentSpanId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public SpanKind getKind() {
+    return kind;
+  }
+
+  public StatusCode getStatusCode() {
+    return statusCode;
+  }
+
+  public String getStatusDescription() {
+    return statusDescription;
+  }
+
+  public long getStartEpochNanos() {
+    return startEpochNanos;
+  }
+
+  public long getDurationNanos() {
+    return endEpochNanos - startEpochNanos;
+  }
+
+  public Attributes getAttributes() {
+    return attributes;
+  }
+
+  public String getFlowName() {
+    return attributes.get(MULE_APP_FLOW_NAME);
+  }
+
+  /**
+   * @return Map with span fields and attributes, for operation output
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("traceId", traceId);
+    map.put("spanId", spanId);
+    map.put("parentSpanId", parentSpanId);
+    map.put("name", name);
+    map.put("kind", kind.name());
+    map.put("status", statusCode.name());
+    map.put("statusDescription", statusDescription);
+    map.put("startTime", Instant.ofEpochSecond(0, startEpochNanos).toString());
+    map.put("durationMillis", (double) getDurationNanos() / TimeUnit.MILLISECONDS.toNanos(1));
+    Map<String, Object> attributeMap = new LinkedHashMap<>();
+    attributes.forEach((key, value) -> attributeMap.put(key.getKey(), value));
+    map.put("attributes", attributeMap);
+    return map;
+  }
+
+  @Override
+  public String toString() {
+    return "SpanRecord{" +
+        "traceId='" + traceId + '\'' +
+        ", spanId='" + spanId + '\'' +
+        ", name='" + name + '\'' +
+        ", durationNanos=" + getDurationNanos() +
+        '}';
+  }
+}
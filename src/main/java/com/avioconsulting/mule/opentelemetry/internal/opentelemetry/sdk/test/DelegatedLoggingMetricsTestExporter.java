@@ -38,6 +38,13 @@ public class DelegatedLoggingMetricsTestExporter implements MetricExporter {
             metricTestData.getPoints().add(mpd);
           });
           break;
+        case LONG_GAUGE:
+          metricData.getLongGaugeData().getPoints().forEach((value) -> {
+            MetricPointData mpd = new MetricPointData().setValue(value.getValue());
+            value.getAttributes().forEach((key, attr) -> mpd.getAttributes().put(key.getKey(), attr));
+            metricTestData.getPoints().add(mpd);
+          });
+          break;
         case HISTOGRAM:
           metricData.getHistogramData().getPoints().forEach((value) -> {
             MetricPointData mpd = new MetricPointData()
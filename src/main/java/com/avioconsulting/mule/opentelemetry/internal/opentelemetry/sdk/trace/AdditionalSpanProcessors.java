@@ -0,0 +1,89 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.AdditionalExporter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_TRACES_EXPORTER_KEY;
+
+/**
+ * Creates the span processors of the {@link AdditionalExporter}s.
+ * <p>
+ * Every additional exporter is configured only from its own exporter
+ * properties, so it never shares endpoints or headers with the main exporter,
+ * and gets its own {@link BatchSpanProcessor}. A slow or unreachable exporter
+ * fills and drops from its own queue without back-pressure on the main
+ * exporter. Spans of traces outside of the exporter's sampling ratio are not
+ * queued. Queue size and dropped spans are reported per exporter with the
+ * meter provider of the exporter name.
+ */
+public final class AdditionalSpanProcessors {
+
+  private static final String SERVICE_NAME_KEY = "otel.service.name";
+
+  private AdditionalSpanProcessors() {
+  }
+
+  /**
+   * Create the span processor of an additional exporter.
+   *
+   * @param additionalExporter
+   *            {@link AdditionalExporter} configuration
+   * @param config
+   *            {@link ConfigProperties} of the SDK, for the service name
+   * @param serviceClassLoader
+   *            {@link ClassLoader} to load exporter providers from
+   * @param exporterCustomizer
+   *            function to wrap the created exporter with
+   * @param meterProviders
+   *            function to get the {@link MeterProvider} of the batch span
+   *            processor from the exporter name
+   * @return SpanProcessor or null when the exporter doesn't export spans
+   */
+  public static SpanProcessor create(AdditionalExporter additionalExporter, ConfigProperties config,
+      ClassLoader serviceClassLoader, Function<SpanExporter, SpanExporter> exporterCustomizer,
+      Function<String, MeterProvider> meterProviders) {
+    if (additionalExporter.getExporter() == null || additionalExporter.getSamplingRatio() <= 0.0) {
+      return null;
+    }
+    Map<String, String> properties = new HashMap<>();
+    // Unset optional exporter parameters are null
+    additionalExporter.getExporter().getExporterProperties().forEach((key, value) -> {
+      if (value != null) {
+        properties.put(key, value);
+      }
+    });
+    String serviceName = config.getString(SERVICE_NAME_KEY);
+    if (serviceName != null) {
+      properties.putIfAbsent(SERVICE_NAME_KEY, serviceName);
+    }
+    ConfigProperties exporterConfig = DefaultConfigProperties.createFromMap(properties);
+    List<String> names = exporterConfig.getList(OTEL_TRACES_EXPORTER_KEY, Collections.emptyList());
+    if (names.isEmpty() || names.contains("none")) {
+      return null;
+    }
+    SpanExporter configuredExporter = ConfiguredSpanExporters.create(names, exporterConfig, serviceClassLoader);
+    SpanExporter spanExporter = exporterCustomizer.apply(configuredExporter);
+    SpanProcessor spanProcessor = BatchSpanProcessor.builder(spanExporter)
+        .setMeterProvider(meterProviders.apply(configuredExporter.getClass().getSimpleName()))
+        .setMaxQueueSize(Math.max(1, additionalExporter.getMaxQueueSize()))
+        .setMaxExportBatchSize(Math.max(1,
+            Math.min(additionalExporter.getMaxBatchExportSize(), additionalExporter.getMaxQueueSize())))
+        .setScheduleDelay(Duration.ofMillis(additionalExporter.getBatchExportDelayInterval()))
+        .setExporterTimeout(Duration.ofMillis(additionalExporter.getExportTimeout()))
+        .build();
+    TraceIdRatio ratio = new TraceIdRatio(additionalExporter.getSamplingRatio());
+    return ratio.isAll() ? spanProcessor : new TraceIdRatioSpanProcessor(spanProcessor, ratio);
+  }
+}
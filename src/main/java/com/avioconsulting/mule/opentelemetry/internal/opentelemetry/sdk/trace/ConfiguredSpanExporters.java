@@ -0,0 +1,96 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSpanExporterProvider;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_TRACES_EXPORTER_KEY;
+
+/**
+ * Creates span exporters configured with {@code otel.traces.exporter} outside
+ * of the SDK autoconfiguration.
+ * <p>
+ * Autoconfiguration always registers the span exporters with its own
+ * {@code BatchSpanProcessor}. To use a module provided span processor instead,
+ * the autoconfigured exporters are turned off with
+ * {@link #disableAutoConfiguredExporters(ConfigProperties)} and created with
+ * {@link #create(ConfigProperties, ClassLoader)} from the same
+ * {@link ConfigurableSpanExporterProvider}s that autoconfiguration uses.
+ */
+public final class ConfiguredSpanExporters {
+
+  private static final String MODULE_TRACES_EXPORTER_KEY = "mule.otel.traces.exporter";
+
+  private ConfiguredSpanExporters() {
+  }
+
+  /**
+   * Properties customizer to move configured exporter names out of
+   * {@code otel.traces.exporter}.
+   *
+   * @param config
+   *            {@link ConfigProperties} with all configured properties
+   * @return Map of properties overriding the configured ones
+   */
+  public static Map<String, String> disableAutoConfiguredExporters(ConfigProperties config) {
+    Map<String, String> overrides = new HashMap<>();
+    overrides.put(MODULE_TRACES_EXPORTER_KEY,
+        String.join(",", config.getList(OTEL_TRACES_EXPORTER_KEY, Collections.singletonList("otlp"))));
+    overrides.put(OTEL_TRACES_EXPORTER_KEY, "none");
+    return overrides;
+  }
+
+  /**
+   * Create the exporters that were moved by
+   * {@link #disableAutoConfiguredExporters(ConfigProperties)}.
+   *
+   * @param config
+   *            {@link ConfigProperties}
+   * @param serviceClassLoader
+   *            {@link ClassLoader} to load exporter providers from
+   * @return SpanExporter, composite when multiple exporters are configured
+   */
+  public static SpanExporter create(ConfigProperties config, ClassLoader serviceClassLoader) {
+    return create(config.getList(MODULE_TRACES_EXPORTER_KEY, Collections.emptyList()), config,
+        serviceClassLoader);
+  }
+
+  /**
+   * Create the named exporters.
+   *
+   * @param names
+   *            names of the exporters, as in {@code otel.traces.exporter}
+   * @param config
+   *            {@link ConfigProperties} to configure exporters with
+   * @param serviceClassLoader
+   *            {@link ClassLoader} to load exporter providers from
+   * @return SpanExporter, composite when multiple exporters are named
+   */
+  public static SpanExporter create(List<String> names, ConfigProperties config, ClassLoader serviceClassLoader) {
+    if (names.contains("none")) {
+      return SpanExporter.composite();
+    }
+    Map<String, ConfigurableSpanExporterProvider> providers = new HashMap<>();
+    for (ConfigurableSpanExporterProvider provider : ServiceLoader.load(ConfigurableSpanExporterProvider.class,
+        serviceClassLoader)) {
+      providers.put(provider.getName(), provider);
+    }
+    List<SpanExporter> exporters = new ArrayList<>(names.size());
+    for (String name : names) {
+      ConfigurableSpanExporterProvider provider = providers.get(name);
+      if (provider == null) {
+        throw new ConfigurationException("Unrecognized value for " + OTEL_TRACES_EXPORTER_KEY + ": " + name);
+      }
+      exporters.add(provider.createExporter(config));
+    }
+    return exporters.size() == 1 ? exporters.get(0) : SpanExporter.composite(exporters);
+  }
+}
@@ -0,0 +1,305 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.SpanDropPolicy;
+import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SpanProcessor} batching spans for export like the SDK's
+ * {@code BatchSpanProcessor}, but with two bounded lanes instead of one queue -
+ * <ul>
+ * <li>Priority lane for spans with {@link StatusCode#ERROR} and local root
+ * spans (transaction spans)</li>
+ * <li>Best effort lane for every other span</li>
+ * </ul>
+ * The export worker always drains the priority lane first. When a lane is
+ * full, spans are dropped as per the configured {@link SpanDropPolicy}, so an
+ * overloaded backend costs processor spans before it costs error or
+ * transaction spans.
+ * <p>
+ * Queued and dropped spans are counted per lane and can be observed as metrics
+ * with {@link #registerObservers(OpenTelemetry)}.
+ */
+public class PrioritySpanProcessor implements SpanProcessor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PrioritySpanProcessor.class);
+  private static final AttributeKey<String> LANE = AttributeKey.stringKey("lane");
+  private static final String WORKER_THREAD_NAME = "mule-otel-priority-span-processor";
+
+  private final SpanExporter spanExporter;
+  private final SpanDropPolicy dropPolicy;
+  private final Lane priorityLane;
+  private final Lane bestEffortLane;
+  private final int maxExportBatchSize;
+  private final long scheduleDelayNanos;
+  private final long exportTimeoutNanos;
+  private final BlockingQueue<Boolean> signal = new ArrayBlockingQueue<>(1);
+  private final AtomicReference<CompletableResultCode> flushRequested = new AtomicReference<>();
+  private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+  private final CompletableResultCode shutdownResult = new CompletableResultCode();
+  private volatile boolean continueWork = true;
+
+  public PrioritySpanProcessor(SpanExporter spanExporter, SpanProcessorConfiguration configuration) {
+    this.spanExporter = spanExporter;
+    this.dropPolicy = configuration.getDropPolicy() == null ? SpanDropPolicy.DROP_NEWEST
+        : configuration.getDropPolicy();
+    this.priorityLane = new Lane("priority", (int) Math.max(1, configuration.getPriorityQueueSize()));
+    this.bestEffortLane = new Lane("best_effort", (int) Math.max(1, configuration.getMaxQueueSize()));
+    this.maxExportBatchSize = (int) Math.max(1, configuration.getMaxBatchExportSize());
+    this.scheduleDelayNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getBatchExportDelayInterval());
+    this.exportTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getExportTimeout());
+    Thread worker = new Thread(this::run, WORKER_THREAD_NAME);
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {
+  }
+
+  @Override
+  public boolean isStartRequired() {
+    return false;
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    if (!span.getSpanContext().isSampled()) {
+      return;
+    }
+    SpanData spanData = span.toSpanData();
+    if (isPriority(spanData)) {
+      priorityLane.add(spanData, dropPolicy);
+    } else {
+      bestEffortLane.add(spanData, dropPolicy);
+    }
+    if (priorityLane.queue.size() + bestEffortLane.queue.size() >= maxExportBatchSize) {
+      signal.offer(Boolean.TRUE);
+    }
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    return true;
+  }
+
+  static boolean isPriority(SpanData spanData) {
+    if (StatusCode.ERROR.equals(spanData.getStatus().getStatusCode())) {
+      return true;
+    }
+    SpanContext parent = spanData.getParentSpanContext();
+    return !parent.isValid() || parent.isRemote();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    CompletableResultCode result = new CompletableResultCode();
+    if (!flushRequested.compareAndSet(null, result)) {
+      CompletableResultCode pending = flushRequested.get();
+      return pending == null ? CompletableResultCode.ofSuccess() : pending;
+    }
+    signal.offer(Boolean.TRUE);
+    return result;
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    if (isShutdown.getAndSet(true)) {
+      return shutdownResult;
+    }
+    forceFlush().whenComplete(() -> {
+      continueWork = false;
+      signal.offer(Boolean.TRUE);
+      spanExporter.shutdown().whenComplete(shutdownResult::succeed);
+    });
+    return shutdownResult;
+  }
+
+  /**
+   * Register observable counters of queued and dropped spans per lane.
+   *
+   * @param openTelemetry
+   *            {@link OpenTelemetry} to get the meter from
+   * @return List of {@link AutoCloseable} registrations
+   */
+  public List<AutoCloseable> registerObservers(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter(PrioritySpanProcessor.class.getName());
+    return Arrays.asList(
+        meter.upDownCounterBuilder("mule.otel.span.processor.queue.size")
+            .setDescription("Number of spans waiting in the lane to be exported")
+            .setUnit("1")
+            .buildWithCallback(measurement -> {
+              measurement.record(priorityLane.queue.size(), priorityLane.attributes);
+              measurement.record(bestEffortLane.queue.size(), bestEffortLane.attributes);
+            }),
+        meter.counterBuilder("mule.otel.span.processor.spans.queued")
+            .setDescription("Number of spans added to the lane")
+            .setUnit("1")
+            .buildWithCallback(measurement -> {
+              measurement.record(priorityLane.queued.sum(), priorityLane.attributes);
+              measurement.record(bestEffortLane.queued.sum(), bestEffortLane.attributes);
+            }),
+        meter.counterBuilder("mule.otel.span.processor.spans.dropped")
+            .setDescription("Number of spans dropped because the lane was full")
+            .setUnit("1")
+            .buildWithCallback(measurement -> {
+              measurement.record(priorityLane.dropped.sum(), priorityLane.attributes);
+              measurement.record(bestEffortLane.dropped.sum(), bestEffortLane.attributes);
+            }));
+  }
+
+  long getPriorityDroppedCount() {
+    return priorityLane.dropped.sum();
+  }
+
+  long getBestEffortDroppedCount() {
+    return bestEffortLane.dropped.sum();
+  }
+
+  long getPriorityQueuedCount() {
+    return priorityLane.queued.sum();
+  }
+
+  long getBestEffortQueuedCount() {
+    return bestEffortLane.queued.sum();
+  }
+
+  private void run() {
+    List<SpanData> batch = new ArrayList<>(maxExportBatchSize);
+    long nextExportTime = System.nanoTime() + scheduleDelayNanos;
+    while (continueWork) {
+      CompletableResultCode flush = flushRequested.get();
+      if (flush != null) {
+        exportAll(batch);
+        flushRequested.set(null);
+        flush.succeed();
+        nextExportTime = System.nanoTime() + scheduleDelayNanos;
+        continue;
+      }
+      int available = priorityLane.queue.size() + bestEffortLane.queue.size();
+      if (available >= maxExportBatchSize || (available > 0 && System.nanoTime() >= nextExportTime)) {
+        drain(batch);
+        export(batch);
+        nextExportTime = System.nanoTime() + scheduleDelayNanos;
+        continue;
+      }
+      try {
+        long waitNanos = nextExportTime - System.nanoTime();
+        if (waitNanos <= 0) {
+          waitNanos = scheduleDelayNanos;
+          nextExportTime = System.nanoTime() + scheduleDelayNanos;
+        }
+        signal.poll(waitNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void drain(List<SpanData> batch) {
+    priorityLane.queue.drainTo(batch, maxExportBatchSize);
+    if (batch.size() < maxExportBatchSize) {
+      bestEffortLane.queue.drainTo(batch, maxExportBatchSize - batch.size());
+    }
+  }
+
+  private void exportAll(List<SpanData> batch) {
+    do {
+      drain(batch);
+      export(batch);
+    } while (!priorityLane.queue.isEmpty() || !bestEffortLane.queue.isEmpty());
+  }
+
+  private void export(List<SpanData> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      CompletableResultCode result = spanExporter.export(new ArrayList<>(batch));
+      result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+      if (!result.isSuccess()) {
+        LOGGER.debug("Exporting {} spans failed", batch.size());
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("Exporter threw an exception", e);
+    } finally {
+      batch.clear();
+    }
+  }
+
+  private static final class Lane {
+    private final BlockingQueue<SpanData> queue;
+    private final Attributes attributes;
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private Lane(String name, int capacity) {
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.attributes = Attributes.of(LANE, name);
+    }
+
+    private void add(SpanData spanData, SpanDropPolicy dropPolicy) {
+      if (queue.offer(spanData)) {
+        queued.increment();
+        return;
+      }
+      switch (dropPolicy) {
+        case DROP_OLDEST:
+          while (!queue.offer(spanData)) {
+            if (queue.poll() != null) {
+              dropped.increment();
+            }
+          }
+          queued.increment();
+          return;
+        case DROP_NON_ERROR_FIRST:
+          if (removeOldestNonError() && queue.offer(spanData)) {
+            queued.increment();
+            return;
+          }
+          break;
+        default:
+          break;
+      }
+      dropped.increment();
+    }
+
+    private boolean removeOldestNonError() {
+      Iterator<SpanData> iterator = queue.iterator();
+      while (iterator.hasNext()) {
+        if (!StatusCode.ERROR.equals(iterator.next().getStatus().getStatusCode())) {
+          iterator.remove();
+          dropped.increment();
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket {@link Sampler} that samples up to a fixed number of spans per
+ * second, with a burst of one second worth of tokens.
+ * <p>
+ * Bucket state is a single {@link AtomicLong} holding the time at which the
+ * bucket was last empty, so a decision is a clock read and a CAS without any
+ * allocation.
+ */
+class RateLimitingSampler implements Sampler {
+
+  private final double ratePerSecond;
+  private final long costNanos;
+  private final long capacityNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicLong emptyAt;
+
+  RateLimitingSampler(double ratePerSecond) {
+    this(ratePerSecond, System::nanoTime);
+  }
+
+  RateLimitingSampler(double ratePerSecond, LongSupplier nanoClock) {
+    this.ratePerSecond = ratePerSecond;
+    this.costNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+    this.capacityNanos = costNanos * Math.max(1L, (long) Math.ceil(ratePerSecond));
+    this.nanoClock = nanoClock;
+    this.emptyAt = new AtomicLong(nanoClock.getAsLong() - capacityNanos);
+  }
+
+  boolean tryAcquire() {
+    long now = nanoClock.getAsLong();
+    while (true) {
+      long current = emptyAt.get();
+      long next = Math.max(current, now - capacityNanos) + costNanos;
+      if (next - now > 0) {
+        return false;
+      }
+      if (emptyAt.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+      Attributes attributes, List<LinkData> parentLinks) {
+    return tryAcquire() ? SamplingResult.recordAndSample() : SamplingResult.drop();
+  }
+
+  @Override
+  public String getDescription() {
+    return "RateLimitingSampler{" + ratePerSecond + "}";
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+}
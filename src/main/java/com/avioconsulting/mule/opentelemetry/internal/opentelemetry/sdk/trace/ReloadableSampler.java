@@ -0,0 +1,86 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * {@link Sampler} whose sampling ratio can be changed at runtime.
+ * <p>
+ * Delegates to the configured sampler until a ratio is set, then to a parent
+ * based trace id ratio sampler for that ratio. The active sampler is swapped
+ * under a volatile reference, so sampling decisions never lock.
+ */
+public final class ReloadableSampler implements Sampler {
+
+  /**
+   * Ratio reported while the configured sampler is active.
+   */
+  public static final double CONFIGURED = -1;
+
+  private final Sampler configured;
+  private volatile Selection selection;
+
+  public ReloadableSampler(Sampler configured) {
+    this.configured = configured;
+    this.selection = new Selection(CONFIGURED, configured);
+  }
+
+  /**
+   * @return double sampling ratio set at runtime or {@link #CONFIGURED}
+   */
+  public double getRatio() {
+    return selection.ratio;
+  }
+
+  /**
+   * Sample the given ratio of new traces, following the parent decision for
+   * others.
+   *
+   * @param ratio
+   *            ratio between 0 and 1, or a negative value to restore the
+   *            configured sampler
+   */
+  public void setRatio(double ratio) {
+    if (ratio > 1 || Double.isNaN(ratio)) {
+      throw new IllegalArgumentException("Sampling ratio must be between 0 and 1, found " + ratio);
+    }
+    selection = ratio < 0 ? new Selection(CONFIGURED, configured)
+        : new Selection(ratio, Sampler.parentBased(Sampler.traceIdRatioBased(ratio)));
+  }
+
+  Sampler getActive() {
+    return selection.sampler;
+  }
+
+  @Override
+  public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+      Attributes attributes, List<LinkData> parentLinks) {
+    return selection.sampler.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+  }
+
+  @Override
+  public String getDescription() {
+    return "ReloadableSampler{" + selection.sampler.getDescription() + "}";
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+
+  private static final class Selection {
+    private final double ratio;
+    private final Sampler sampler;
+
+    private Selection(double ratio, Sampler sampler) {
+      this.ratio = ratio;
+      this.sampler = sampler;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRule;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_NAME;
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_ROUTE;
+
+/**
+ * {@link Sampler} applying module configured {@link SamplingRule}s to the root
+ * span of a transaction.
+ * <p>
+ * Rules are resolved into one lookup map per match type when the SDK is
+ * created. A decision is at most three {@link Map#get(Object)} calls followed by
+ * the rule's own sampler, so no objects are allocated per span. Lookup
+ * precedence is flow name, then http route, then source namespace.
+ * <p>
+ * Spans with a local parent follow the parent's decision so a transaction is
+ * either fully recorded or not at all. Spans with a remote parent and root
+ * spans not matching any rule are delegated to the configured SDK sampler.
+ */
+public class RuleBasedSampler implements Sampler {
+
+  private final Map<String, Sampler> flowNameRules;
+  private final Map<String, Sampler> httpRouteRules;
+  private final Map<String, Sampler> sourceNamespaceRules;
+  private final Sampler delegate;
+  private final int ruleCount;
+
+  public RuleBasedSampler(List<SamplingRule> rules, Sampler delegate) {
+    Map<String, Sampler> flowNames = new HashMap<>();
+    Map<String, Sampler> httpRoutes = new HashMap<>();
+    Map<String, Sampler> sourceNamespaces = new HashMap<>();
+    for (SamplingRule rule : rules) {
+      Sampler sampler = rule.getMaxTransactionsPerSecond() > 0
+          ? new RateLimitingSampler(rule.getMaxTransactionsPerSecond())
+          : Sampler.traceIdRatioBased(rule.getRatio());
+      switch (rule.getMatchOn()) {
+        case FLOW_NAME:
+          flowNames.put(rule.getValue(), sampler);
+          break;
+        case HTTP_ROUTE:
+          httpRoutes.put(rule.getValue(), sampler);
+          break;
+        case SOURCE_NAMESPACE:
+          sourceNamespaces.put(rule.getValue(), sampler);
+          break;
+      }
+    }
+    this.flowNameRules = Collections.unmodifiableMap(flowNames);
+    this.httpRouteRules = Collections.unmodifiableMap(httpRoutes);
+    this.sourceNamespaceRules = Collections.unmodifiableMap(sourceNamespaces);
+    this.delegate = delegate;
+    this.ruleCount = rules.size();
+  }
+
+  @Override
+  public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+      Attributes attributes, List<LinkData> parentLinks) {
+    SpanContext parentSpanContext = Span.fromContext(parentContext).getSpanContext();
+    if (parentSpanContext.isValid()) {
+      if (parentSpanContext.isRemote()) {
+        return delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+      }
+      return parentSpanContext.isSampled() ? SamplingResult.recordAndSample() : SamplingResult.drop();
+    }
+    Sampler sampler = findRule(attributes);
+    if (sampler == null) {
+      sampler = delegate;
+    }
+    return sampler.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+  }
+
+  private Sampler findRule(Attributes attributes) {
+    Sampler sampler = lookup(flowNameRules, attributes.get(MULE_APP_FLOW_NAME));
+    if (sampler == null) {
+      sampler = lookup(httpRouteRules, attributes.get(HTTP_ROUTE));
+    }
+    if (sampler == null) {
+      sampler = lookup(sourceNamespaceRules, attributes.get(MULE_APP_FLOW_SOURCE_NAMESPACE));
+    }
+    return sampler;
+  }
+
+  private static Sampler lookup(Map<String, Sampler> rules, String value) {
+    if (value == null || rules.isEmpty()) {
+      return null;
+    }
+    return rules.get(value);
+  }
+
+  @Override
+  public String getDescription() {
+    return "RuleBasedSampler{rules=" + ruleCount + ", delegate=" + delegate.getDescription() + "}";
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+}
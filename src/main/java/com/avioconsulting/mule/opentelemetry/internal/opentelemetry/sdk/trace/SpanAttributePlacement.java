@@ -0,0 +1,164 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which spans of a transaction get each tag as an attribute.
+ * <p>
+ * Tags constant for a transaction, such as {@code mule.correlationId} or global
+ * configuration tags from system properties, can be kept on the root span only
+ * instead of being repeated on every processor span. Other tags can be dropped
+ * from all spans. Keys are matched exactly, or by prefix when the key ends with
+ * {@code *}. A key both kept on the root span only and dropped is dropped.
+ */
+public final class SpanAttributePlacement {
+
+  static final int MAX_CACHED_KEYS = 1024;
+
+  /**
+   * Placement that sets every tag on every span.
+   */
+  public static final SpanAttributePlacement ALL_SPANS = new SpanAttributePlacement(Collections.emptyList(),
+      Collections.emptyList());
+
+  public enum Placement {
+    ALL_SPANS, ROOT_SPAN_ONLY, DROPPED
+  }
+
+  private final KeyMatcher rootSpanOnly;
+  private final KeyMatcher dropped;
+  private final Map<String, Placement> placements = new ConcurrentHashMap<>();
+
+  private SpanAttributePlacement(Collection<String> rootSpanOnlyKeys, Collection<String> droppedKeys) {
+    this.rootSpanOnly = new KeyMatcher(rootSpanOnlyKeys);
+    this.dropped = new KeyMatcher(droppedKeys);
+  }
+
+  /**
+   * @param rootSpanOnlyKeys
+   *            keys to set on the root span only, may be null
+   * @param droppedKeys
+   *            keys to set on no span, may be null
+   * @return SpanAttributePlacement
+   */
+  public static SpanAttributePlacement of(Collection<String> rootSpanOnlyKeys, Collection<String> droppedKeys) {
+    if ((rootSpanOnlyKeys == null || rootSpanOnlyKeys.isEmpty())
+        && (droppedKeys == null || droppedKeys.isEmpty())) {
+      return ALL_SPANS;
+    }
+    return new SpanAttributePlacement(
+        rootSpanOnlyKeys == null ? Collections.emptyList() : rootSpanOnlyKeys,
+        droppedKeys == null ? Collections.emptyList() : droppedKeys);
+  }
+
+  public Placement placementOf(String key) {
+    Placement placement = placements.get(key);
+    if (placement == null) {
+      placement = dropped.matches(key) ? Placement.DROPPED
+          : rootSpanOnly.matches(key) ? Placement.ROOT_SPAN_ONLY : Placement.ALL_SPANS;
+      // Tag keys come from a fixed set of components and properties
+      if (placements.size() < MAX_CACHED_KEYS) {
+        placements.put(key, placement);
+      }
+    }
+    return placement;
+  }
+
+  /**
+   * @param key
+   *            tag key
+   * @param rootSpan
+   *            true when the tag is for the root span of a transaction
+   * @return true if the tag should be set as an attribute
+   */
+  public boolean isPlaced(String key, boolean rootSpan) {
+    if (this == ALL_SPANS) {
+      return true;
+    }
+    Placement placement = placementOf(key);
+    return placement == Placement.ALL_SPANS || (rootSpan && placement == Placement.ROOT_SPAN_ONLY);
+  }
+
+  public void setAttributes(SpanBuilder spanBuilder, Map<String, String> tags, boolean rootSpan) {
+    if (tags == null) {
+      return;
+    }
+    if (this == ALL_SPANS) {
+      tags.forEach(spanBuilder::setAttribute);
+      return;
+    }
+    tags.forEach((key, value) -> {
+      if (isPlaced(key, rootSpan)) {
+        spanBuilder.setAttribute(key, value);
+      }
+    });
+  }
+
+  public void setAttributes(Span span, Map<String, String> tags, boolean rootSpan) {
+    if (tags == null) {
+      return;
+    }
+    if (this == ALL_SPANS) {
+      tags.forEach(span::setAttribute);
+      return;
+    }
+    tags.forEach((key, value) -> {
+      if (isPlaced(key, rootSpan)) {
+        span.setAttribute(key, value);
+      }
+    });
+  }
+
+  @Override
+  public String toString() {
+    return "SpanAttributePlacement{rootSpanOnly=" + rootSpanOnly + ", dropped=" + dropped + '}';
+  }
+
+  private static final class KeyMatcher {
+    private final Set<String> keys = new HashSet<>();
+    private final List<String> prefixes = new ArrayList<>();
+
+    private KeyMatcher(Collection<String> patterns) {
+      for (String pattern : patterns) {
+        if (pattern == null || pattern.trim().isEmpty()) {
+          continue;
+        }
+        String key = pattern.trim();
+        if (key.endsWith("*")) {
+          prefixes.add(key.substring(0, key.length() - 1));
+        } else {
+          keys.add(key);
+        }
+      }
+    }
+
+    private boolean matches(String key) {
+      if (keys.contains(key)) {
+        return true;
+      }
+      for (String prefix : prefixes) {
+        if (key.startsWith(prefix)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      List<String> patterns = new ArrayList<>(keys);
+      prefixes.forEach(prefix -> patterns.add(prefix + "*"));
+      return patterns.toString();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.TailSamplingConfiguration;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SpanExporter} wrapper that performs tail sampling of transactions.
+ * <p>
+ * Processor spans of a transaction end before the flow span that
+ * {@link com.avioconsulting.mule.opentelemetry.internal.store.InMemoryTransactionStore#endTransaction}
+ * ends last. Spans are held back per trace until such local root span (a span
+ * without a parent or with a remote parent) arrives. At that point the whole
+ * trace is either exported or dropped -
+ * <ul>
+ * <li>Root span with {@link StatusCode#ERROR} is always kept</li>
+ * <li>Root span duration at or above the latency threshold is always kept</li>
+ * <li>Otherwise trace is kept when it falls in the baseline ratio, derived from
+ * trace id the same way as {@code TraceIdRatioBasedSampler}</li>
+ * </ul>
+ * The decision is remembered for a while so any spans of the same trace that
+ * end after the root span (eg. async scopes) follow the root decision.
+ * <p>
+ * Buffers are bounded by the configured max pending traces. When exceeded, the
+ * oldest pending trace is exported as-is, so a transaction that never completes
+ * cannot hold memory forever.
+ */
+public class TailSamplingSpanExporter implements SpanExporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TailSamplingSpanExporter.class);
+
+  private final SpanExporter delegate;
+  private final long latencyThresholdNanos;
+  private final TraceIdRatio baselineRatio;
+  private final int maxPendingTraces;
+  private final Map<String, List<SpanData>> pendingTraces;
+  private final Map<String, Boolean> decisions;
+
+  public TailSamplingSpanExporter(SpanExporter delegate, TailSamplingConfiguration configuration) {
+    this.delegate = delegate;
+    this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getLatencyThreshold());
+    this.baselineRatio = new TraceIdRatio(configuration.getBaselineRatio());
+    this.maxPendingTraces = Math.max(1, configuration.getMaxPendingTraces());
+    this.pendingTraces = new LinkedHashMap<>();
+    this.decisions = new LinkedHashMap<String, Boolean>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > maxPendingTraces;
+      }
+    };
+  }
+
+  @Override
+  public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+    List<SpanData> toExport = new ArrayList<>(spans.size());
+    for (SpanData span : spans) {
+      String traceId = span.getTraceId();
+      if (isLocalRoot(span)) {
+        List<SpanData> pending = pendingTraces.remove(traceId);
+        boolean keep = shouldKeep(span);
+        decisions.put(traceId, keep);
+        if (keep) {
+          if (pending != null)
+            toExport.addAll(pending);
+          toExport.add(span);
+        }
+        continue;
+      }
+      Boolean decision = decisions.get(traceId);
+      if (decision != null) {
+        if (decision)
+          toExport.add(span);
+        continue;
+      }
+      List<SpanData> pending = pendingTraces.get(traceId);
+      if (pending == null) {
+        if (pendingTraces.size() >= maxPendingTraces) {
+          evictOldestPending(toExport);
+        }
+        pending = new ArrayList<>();
+        pendingTraces.put(traceId, pending);
+      }
+      pending.add(span);
+    }
+    if (toExport.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+    return delegate.export(toExport);
+  }
+
+  private void evictOldestPending(List<SpanData> toExport) {
+    Iterator<Map.Entry<String, List<SpanData>>> iterator = pendingTraces.entrySet().iterator();
+    Map.Entry<String, List<SpanData>> eldest = iterator.next();
+    LOGGER.debug("Tail sampling buffer is full, exporting pending trace {} without a decision", eldest.getKey());
+    toExport.addAll(eldest.getValue());
+    iterator.remove();
+  }
+
+  boolean shouldKeep(SpanData rootSpan) {
+    if (StatusCode.ERROR.equals(rootSpan.getStatus().getStatusCode())) {
+      return true;
+    }
+    if (rootSpan.getEndEpochNanos() - rootSpan.getStartEpochNanos() >= latencyThresholdNanos) {
+      return true;
+    }
+    return baselineRatio.contains(rootSpan.getTraceId());
+  }
+
+  private static boolean isLocalRoot(SpanData span) {
+    SpanContext parent = span.getParentSpanContext();
+    return !parent.isValid() || parent.isRemote();
+  }
+
+  int getPendingTraceCount() {
+    return pendingTraces.size();
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  /**
+   * Exports any spans still waiting on their root span before shutting down the
+   * delegate. Losing them silently on shutdown would be worse than not sampling
+   * them. The delegate is shut down once that export completes, without waiting
+   * on the caller thread.
+   */
+  @Override
+  public CompletableResultCode shutdown() {
+    List<SpanData> remaining = new ArrayList<>();
+    synchronized (this) {
+      pendingTraces.values().forEach(remaining::addAll);
+      pendingTraces.clear();
+      decisions.clear();
+    }
+    if (remaining.isEmpty()) {
+      return delegate.shutdown();
+    }
+    CompletableResultCode result = new CompletableResultCode();
+    delegate.export(remaining).whenComplete(() -> {
+      CompletableResultCode shutdown = delegate.shutdown();
+      shutdown.whenComplete(() -> {
+        if (shutdown.isSuccess()) {
+          result.succeed();
+        } else {
+          result.fail();
+        }
+      });
+    });
+    return result;
+  }
+}
@@ -0,0 +1,29 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+/**
+ * Ratio of traces derived from the trace id the same way as
+ * {@code TraceIdRatioBasedSampler}, so all spans of a trace get the same
+ * decision.
+ */
+final class TraceIdRatio {
+
+  private final long idUpperBound;
+
+  TraceIdRatio(double ratio) {
+    if (ratio <= 0.0) {
+      idUpperBound = Long.MIN_VALUE;
+    } else if (ratio >= 1.0) {
+      idUpperBound = Long.MAX_VALUE;
+    } else {
+      idUpperBound = (long) (ratio * Long.MAX_VALUE);
+    }
+  }
+
+  boolean isAll() {
+    return idUpperBound == Long.MAX_VALUE;
+  }
+
+  boolean contains(String traceId) {
+    return Math.abs(Long.parseUnsignedLong(traceId.substring(16), 16)) < idUpperBound;
+  }
+}
@@ -0,0 +1,60 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * Passes ended spans to the delegate only when their trace is in the ratio.
+ */
+class TraceIdRatioSpanProcessor implements SpanProcessor {
+
+  private final SpanProcessor delegate;
+  private final TraceIdRatio ratio;
+
+  TraceIdRatioSpanProcessor(SpanProcessor delegate, TraceIdRatio ratio) {
+    this.delegate = delegate;
+    this.ratio = ratio;
+  }
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {
+    if (delegate.isStartRequired() && ratio.contains(span.getSpanContext().getTraceId())) {
+      delegate.onStart(parentContext, span);
+    }
+  }
+
+  @Override
+  public boolean isStartRequired() {
+    return delegate.isStartRequired();
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    if (ratio.contains(span.getSpanContext().getTraceId())) {
+      delegate.onEnd(span);
+    }
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    return delegate.isEndRequired();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    return delegate.forceFlush();
+  }
+
+  @Override
+  public String toString() {
+    return "TraceIdRatioSpanProcessor{" + delegate + '}';
+  }
+}
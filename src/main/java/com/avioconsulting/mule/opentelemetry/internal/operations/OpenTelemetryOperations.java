@@ -1,27 +1,25 @@
 package com.avioconsulting.mule.opentelemetry.internal.operations;
 
-import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricAttribute;
+import com.avioconsulting.mule.opentelemetry.internal.config.CustomMetricInstrumentHolder;
 import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryExtensionConfiguration;
 import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
-import com.avioconsulting.mule.opentelemetry.internal.notifications.MetricEventNotification;
-import com.avioconsulting.mule.opentelemetry.internal.notifications.MetricNotificationAction;
-import com.avioconsulting.mule.opentelemetry.internal.notifications.MetricNotificationActionProvider;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export.RingBufferSpanExporter;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export.SpanRecord;
+import io.opentelemetry.api.common.Attributes;
 import org.mule.runtime.api.exception.MuleRuntimeException;
 import org.mule.runtime.api.i18n.I18nMessageFactory;
-import org.mule.runtime.api.metadata.TypedValue;
 import org.mule.runtime.extension.api.annotation.Alias;
-import org.mule.runtime.extension.api.annotation.notification.Fires;
 import org.mule.runtime.extension.api.annotation.param.*;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.mule.runtime.extension.api.annotation.param.display.Placement;
 import org.mule.runtime.extension.api.annotation.values.OfValues;
-import org.mule.runtime.extension.api.notification.NotificationEmitter;
 import org.mule.runtime.extension.api.runtime.parameter.CorrelationInfo;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -60,10 +58,11 @@ public class OpenTelemetryOperations {
   }
 
   /**
-   * Capture custom metrics for application.
+   * Capture custom metrics for application. The value is recorded synchronously
+   * on the instrument initialized by the connection.
    *
-   * @param notificationEmitter
-   *            is needed to create metric notifications
+   * @param openTelemetryConnection
+   *            {@link OpenTelemetryConnection} provided by the SDK
    * @param metricName
    *            {@link String} to capture
    * @param value
@@ -71,34 +70,68 @@ public class OpenTelemetryOperations {
    * @param metricAttributes
    *            List of {@link MetricAttribute} for captured metric record
    */
-  @Fires(MetricNotificationActionProvider.class)
   @DisplayName("Add Custom Metric")
   @Alias("add-custom-metric")
-  public void addCustomMetric(NotificationEmitter notificationEmitter,
+  public void addCustomMetric(@Connection Supplier<OpenTelemetryConnection> openTelemetryConnection,
       @Config OpenTelemetryExtensionConfiguration extensionConfiguration,
       @Placement(order = 1) @OfValues(value = CustomMetricNameValueProvider.class, open = false) String metricName,
       @Placement(order = 2) long value,
       @Placement(order = 3) List<MetricAttribute> metricAttributes) {
-    CustomMetricInstrumentDefinition instrumentDefinition = extensionConfiguration
-        .getMetricInstrumentDefinitionMap().get(metricName);
-    if (instrumentDefinition == null) {
+    CustomMetricInstrumentHolder<?> instrumentHolder = openTelemetryConnection.get()
+        .getMetricInstrument(metricName);
+    if (instrumentHolder == null) {
+      if (extensionConfiguration.getMetricInstrumentDefinitionMap().containsKey(metricName)) {
+        // Metrics are turned off and instruments are not initialized
+        return;
+      }
       throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
           "Metric instrument details for '%s' not found on the configuration '%s'",
           metricName, extensionConfiguration.getConfigName()));
     }
-    if (metricAttributes != null && !metricAttributes.isEmpty()) {
+    Attributes attributes = instrumentHolder.buildAttributes(metricAttributes);
+    if (attributes == null) {
       Set<String> unknownKeys = metricAttributes.stream().map(MetricAttribute::getKey)
-          .filter(key -> !instrumentDefinition.getAttributeKeys().contains(key)).collect(Collectors.toSet());
-      if (!unknownKeys.isEmpty()) {
-        throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
-            "Attributes '%s' are not configured for metric '%s' on the configuration '%s'",
-            unknownKeys.toString(), metricName, extensionConfiguration.getConfigName()));
-      }
+          .filter(key -> !instrumentHolder.getAttributeKeys().containsKey(key)).collect(Collectors.toSet());
+      throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+          "Attributes '%s' are not configured for metric '%s' on the configuration '%s'",
+          unknownKeys.toString(), metricName, extensionConfiguration.getConfigName()));
+    }
+    instrumentHolder.record(value, attributes);
+  }
+
+  /**
+   * Query spans kept in memory by the recent spans buffer, newest first. Spans
+   * are available about a second after they end.
+   *
+   * @param openTelemetryConnection
+   *            {@link OpenTelemetryConnection} provided by the SDK
+   * @param traceId
+   *            Trace id of the spans
+   * @param flowName
+   *            Flow name, matches flow spans with this
+   *            {@code mule.app.flow.name}
+   * @param minDuration
+   *            Minimum span duration in milliseconds
+   * @param maxResults
+   *            Maximum number of spans to return
+   * @return List of spans with their attributes
+   */
+  @DisplayName("Query Recent Spans")
+  @Alias("query-recent-spans")
+  public List<Map<String, Object>> queryRecentSpans(
+      @Connection Supplier<OpenTelemetryConnection> openTelemetryConnection,
+      @Config OpenTelemetryExtensionConfiguration extensionConfiguration,
+      @Optional @Placement(order = 1) String traceId,
+      @Optional @Placement(order = 2) String flowName,
+      @Optional(defaultValue = "0") @Placement(order = 3) long minDuration,
+      @Optional(defaultValue = "100") @Placement(order = 4) int maxResults) {
+    RingBufferSpanExporter recentSpans = openTelemetryConnection.get().getRecentSpans();
+    if (recentSpans == null) {
+      throw new MuleRuntimeException(I18nMessageFactory.createStaticMessage(
+          "Recent spans buffer is not enabled on the configuration '%s'",
+          extensionConfiguration.getConfigName()));
     }
-    MetricEventNotification<Long> longCounter = new MetricEventNotification<Long>()
-        .setMetricsInstrumentType(instrumentDefinition.getInstrumentType())
-        .setMetricName(metricName)
-        .setMetricValue(value).setAttributes(metricAttributes);
-    notificationEmitter.fire(MetricNotificationAction.CUSTOM_METRIC, TypedValue.of(longCounter));
+    return recentSpans.query(traceId, flowName, TimeUnit.MILLISECONDS.toNanos(minDuration), maxResults)
+        .stream().map(SpanRecord::toMap).collect(Collectors.toList());
   }
 }
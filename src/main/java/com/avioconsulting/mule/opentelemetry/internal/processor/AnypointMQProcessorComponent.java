@@ -9,6 +9,9 @@ import org.mule.runtime.api.message.Message;
 import org.mule.runtime.api.metadata.TypedValue;
 import org.mule.runtime.api.notification.EnrichedServerNotification;
 
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.*;
@@ -17,6 +20,13 @@ import static io.opentelemetry.semconv.SemanticAttributes.MessagingOperationValu
 import static io.opentelemetry.semconv.SemanticAttributes.MessagingOperationValues.RECEIVE;
 
 public class AnypointMQProcessorComponent extends AbstractProcessorComponent {
+
+  /**
+   * Message properties looked up for the time a message was published, in the
+   * order of preference
+   */
+  static final List<String> PUBLISH_TIMESTAMP_PROPERTIES = Arrays.asList("publishTimestamp", "created");
+
   @Override
   protected String getNamespace() {
     return "anypoint-mq";
@@ -116,6 +126,10 @@ public class AnypointMQProcessorComponent extends AbstractProcessorComponent {
     Map<String, String> tags = getAttributes(getSourceComponent(notification).orElse(notification.getComponent()),
         attributesTypedValue);
     tags.put(MESSAGING_OPERATION.getKey(), PROCESS);
+    Long publishTimestamp = getPublishTimestamp(attributes.getProperties());
+    if (publishTimestamp != null) {
+      tags.put(MESSAGING_ANYPOINTMQ_PUBLISH_TIMESTAMP.getKey(), publishTimestamp.toString());
+    }
     return TraceComponent.named(notification.getResourceIdentifier())
         .withTags(tags)
         .withTransactionId(getTransactionId(notification))
@@ -136,4 +150,38 @@ public class AnypointMQProcessorComponent extends AbstractProcessorComponent {
       TraceContextHandler traceContextHandler) {
     return getTraceComponentBuilderFor(notification).withStatsCode(StatusCode.OK);
   }
+
+  /**
+   * Find the time a message was published from its properties. Value can be
+   * epoch millis, an ISO-8601 instant or an RFC-1123 date.
+   *
+   * @param properties
+   *            of the received message
+   * @return Long epoch millis or null when not present or not parsable
+   */
+  static Long getPublishTimestamp(Map<String, String> properties) {
+    if (properties == null) {
+      return null;
+    }
+    for (String property : PUBLISH_TIMESTAMP_PROPERTIES) {
+      String value = properties.get(property);
+      if (value == null || value.trim().isEmpty()) {
+        continue;
+      }
+      value = value.trim();
+      try {
+        if (Character.isDigit(value.charAt(0))) {
+          try {
+            return Long.valueOf(value);
+          } catch (NumberFormatException e) {
+            return Instant.parse(value).toEpochMilli();
+          }
+        }
+        return DateTimeFormatter.RFC_1123_DATE_TIME.parse(value, Instant::from).toEpochMilli();
+      } catch (DateTimeParseException e) {
+        // Try next property
+      }
+    }
+    return null;
+  }
 }
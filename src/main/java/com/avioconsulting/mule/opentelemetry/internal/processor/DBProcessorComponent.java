@@ -5,6 +5,11 @@ import io.opentelemetry.api.trace.SpanKind;
 import org.mule.runtime.api.component.Component;
 import org.mule.runtime.api.component.ComponentIdentifier;
 import org.mule.runtime.api.metadata.TypedValue;
+import org.mule.runtime.api.notification.EnrichedServerNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
 
 import java.util.*;
 
@@ -12,7 +17,22 @@ import static io.opentelemetry.semconv.SemanticAttributes.*;
 
 public class DBProcessorComponent extends AbstractProcessorComponent {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBProcessorComponent.class);
   public static final String NAMESPACE = "db";
+  static final int MAX_PENDING_RESULTS = 1024;
+  /**
+   * Affected rows of operation results, until their processor ends. Keyed by
+   * transaction id, event context id and location, so concurrent executions of
+   * an operation, eg. in parallel-foreach routes, keep their own result. Results
+   * of processors that never end are evicted, oldest first.
+   */
+  private final Map<String, Long> affectedRowsResults = Collections
+      .synchronizedMap(new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+          return size() > MAX_PENDING_RESULTS;
+        }
+      });
 
   @Override
   public boolean canHandle(ComponentIdentifier componentIdentifier) {
@@ -92,4 +112,95 @@ public class DBProcessorComponent extends AbstractProcessorComponent {
     return tags;
   }
 
+  @Override
+  public TraceComponent getEndTraceComponent(EnrichedServerNotification notification) {
+    TraceComponent endTraceComponent = super.getEndTraceComponent(notification);
+    if (!hasAffectedRows(notification.getComponent().getIdentifier())) {
+      return endTraceComponent;
+    }
+    // End notification carries the event the operation was called with, so rows
+    // come from the result captured when the operation returned
+    Long affectedRows = affectedRowsResults.remove(resultKey(endTraceComponent.getTransactionId(),
+        notification.getEvent().getContext().getId(), notification.getComponent().getLocation().getLocation()));
+    if (affectedRows != null && !notification.getEvent().getError().isPresent()) {
+      endTraceComponent.getTags().put(SemanticAttributes.DB_AFFECTED_ROWS.getKey(), affectedRows.toString());
+    }
+    return endTraceComponent;
+  }
+
+  /**
+   * Select and stored procedure results are streamed, their rows aren't known
+   * when the operation returns.
+   *
+   * @param identifier
+   *            {@link ComponentIdentifier} of the operation
+   * @return true if the result of the operation carries affected rows
+   */
+  public static boolean hasAffectedRows(ComponentIdentifier identifier) {
+    return NAMESPACE.equalsIgnoreCase(identifier.getNamespace())
+        && !"select".equalsIgnoreCase(identifier.getName())
+        && !"stored-procedure".equalsIgnoreCase(identifier.getName());
+  }
+
+  /**
+   * Keep the affected rows of an operation result until its processor ends, see
+   * {@link #getEndTraceComponent(EnrichedServerNotification)}.
+   *
+   * @param transactionId
+   *            {@link String} transaction id of the event
+   * @param eventId
+   *            {@link String} id of the event context the operation runs in
+   * @param location
+   *            {@link String} location of the operation
+   * @param result
+   *            value returned by the operation
+   */
+  public void captureOperationResult(String transactionId, String eventId, String location, Object result) {
+    Long affectedRows = getAffectedRows(result);
+    if (affectedRows != null) {
+      affectedRowsResults.put(resultKey(transactionId, eventId, location), affectedRows);
+    }
+  }
+
+  int getPendingResultsCount() {
+    return affectedRowsResults.size();
+  }
+
+  private static String resultKey(String transactionId, String eventId, String location) {
+    return transactionId + "/" + eventId + "/" + location;
+  }
+
+  /**
+   * Read the affected rows from a db operation result. Update and delete
+   * operations return a number, bulk operations return an array of numbers and
+   * insert returns a {@code StatementResult}. Connector classes aren't
+   * referenced here as they may not be visible to this module.
+   *
+   * @param payload
+   *            returned by the operation
+   * @return Long affected rows or null when the payload isn't an operation
+   *         result
+   */
+  static Long getAffectedRows(Object payload) {
+    if (payload instanceof Integer || payload instanceof Long) {
+      return ((Number) payload).longValue();
+    }
+    if (payload instanceof int[]) {
+      long total = 0;
+      for (int rows : (int[]) payload) {
+        total += Math.max(rows, 0);
+      }
+      return total;
+    }
+    if (payload != null && "StatementResult".equals(payload.getClass().getSimpleName())) {
+      try {
+        Method getAffectedRows = payload.getClass().getMethod("getAffectedRows");
+        return ((Number) getAffectedRows.invoke(payload)).longValue();
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        LOGGER.trace("Cannot read affected rows from {}", payload.getClass(), e);
+      }
+    }
+    return null;
+  }
+
 }
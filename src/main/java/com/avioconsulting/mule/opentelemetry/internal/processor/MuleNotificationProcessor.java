@@ -41,7 +41,15 @@ public class MuleNotificationProcessor {
   public static final String MULE_OTEL_SPAN_PROCESSORS_ENABLE_PROPERTY_NAME = "mule.otel.span.processors.enable";
 
   private Supplier<OpenTelemetryConnection> connectionSupplier;
-  private boolean spanAllProcessors;
+  /**
+   * Swapped as a whole on runtime changes, see {@link #setTraceLevelDecisions}.
+   */
+  private volatile TraceLevelDecisions traceLevelDecisions = TraceLevelDecisions.of(false, null);
+  /**
+   * Once trace levels change at runtime, processors may end with spans started
+   * under the earlier decisions.
+   */
+  private volatile boolean traceLevelDecisionsChanged;
   private TraceLevelConfiguration traceLevelConfiguration;
   private OpenTelemetryConnection openTelemetryConnection;
 
@@ -107,8 +115,10 @@ public class MuleNotificationProcessor {
   public void init(OpenTelemetryConnection connection,
       TraceLevelConfiguration traceLevelConfiguration) {
     this.openTelemetryConnection = connection;
-    this.spanAllProcessors = Boolean.parseBoolean(System.getProperty(MULE_OTEL_SPAN_PROCESSORS_ENABLE_PROPERTY_NAME,
-        Boolean.toString(traceLevelConfiguration.isSpanAllProcessors())));
+    this.traceLevelDecisions = TraceLevelDecisions.of(
+        Boolean.parseBoolean(System.getProperty(MULE_OTEL_SPAN_PROCESSORS_ENABLE_PROPERTY_NAME,
+            Boolean.toString(traceLevelConfiguration.isSpanAllProcessors()))),
+        traceLevelConfiguration.getIgnoreMuleComponents());
     this.traceLevelConfiguration = traceLevelConfiguration;
     processorComponentService = ProcessorComponentService.getInstance();
     muleMetricsProcessor = (openTelemetryConnection == null || openTelemetryConnection.isTurnOffMetrics())
@@ -116,6 +126,23 @@ public class MuleNotificationProcessor {
         : new DefaultMuleMetricsProcessor(openTelemetryConnection, meteredComponentLocations);
   }
 
+  public TraceLevelDecisions getTraceLevelDecisions() {
+    return traceLevelDecisions;
+  }
+
+  /**
+   * Replace the trace level settings used for new processor events. Events in
+   * progress keep the settings they started with, a span started for a
+   * processor is ended even when the new settings exclude the processor.
+   *
+   * @param traceLevelDecisions
+   *            {@link TraceLevelDecisions} to use
+   */
+  public void setTraceLevelDecisions(TraceLevelDecisions traceLevelDecisions) {
+    this.traceLevelDecisions = Objects.requireNonNull(traceLevelDecisions, "traceLevelDecisions");
+    this.traceLevelDecisionsChanged = true;
+  }
+
   public void handleProcessorStartEvent(MessageProcessorNotification notification) {
     String location = notification.getComponent().getLocation().getLocation();
     if (interceptSpannedComponents.contains(location)) {
@@ -163,10 +190,9 @@ public class MuleNotificationProcessor {
   }
 
   public ProcessorComponent getProcessorComponent(ComponentIdentifier identifier) {
-    boolean ignored = traceLevelConfiguration.getIgnoreMuleComponents().stream()
-        .anyMatch(mc -> mc.getNamespace().equalsIgnoreCase(identifier.getNamespace())
-            & (mc.getName().equalsIgnoreCase(identifier.getName()) || "*".equalsIgnoreCase(mc.getName())));
-    if (spanAllProcessors && ignored)
+    TraceLevelDecisions decisions = traceLevelDecisions;
+    boolean spanAllProcessors = decisions.isSpanAllProcessors();
+    if (spanAllProcessors && decisions.isIgnored(identifier))
       return null;
 
     ProcessorComponent processorComponent = processorComponentService
@@ -178,10 +204,32 @@ public class MuleNotificationProcessor {
     return processorComponent;
   }
 
+  /**
+   * Finds a {@link ProcessorComponent} for a processor that has a span started
+   * under earlier trace level decisions, regardless of the current ones.
+   *
+   * @param notification
+   *            {@link MessageProcessorNotification} of the processor end
+   * @return ProcessorComponent or null when the processor has no span
+   */
+  private ProcessorComponent getStartedProcessorComponent(MessageProcessorNotification notification) {
+    String transactionId = openTelemetryConnection.getTransactionStore().transactionIdFor(notification.getEvent());
+    if (!openTelemetryConnection.getTransactionStore().hasProcessorSpan(transactionId,
+        notification.getComponent().getLocation().getLocation())) {
+      return null;
+    }
+    ProcessorComponent processorComponent = processorComponentService
+        .getProcessorComponentFor(notification.getComponent().getIdentifier(), configurationComponentLocator);
+    return processorComponent != null ? processorComponent : genericProcessorComponent;
+  }
+
   public void handleProcessorEndEvent(MessageProcessorNotification notification) {
     String location = notification.getComponent().getLocation().getLocation();
     try {
       ProcessorComponent processorComponent = getProcessorComponent(notification);
+      if (processorComponent == null && traceLevelDecisionsChanged) {
+        processorComponent = getStartedProcessorComponent(notification);
+      }
       if (processorComponent != null) {
         logger.trace(
             "Handling '{}:{}' processor end event ",
@@ -220,6 +268,12 @@ public class MuleNotificationProcessor {
         if (spanMeta != null) {
           muleMetricsProcessor.captureProcessorMetrics(notification.getComponent(),
               notification.getEvent().getError().orElse(null), location, spanMeta);
+          muleMetricsProcessor.captureHttpClientMetrics(notification.getComponent(),
+              notification.getEvent().getError().orElse(null), traceComponent, spanMeta);
+          muleMetricsProcessor.captureDbClientMetrics(notification.getComponent(),
+              notification.getEvent().getError().orElse(null), traceComponent, spanMeta);
+          muleMetricsProcessor.captureMessagingClientMetrics(notification.getComponent(),
+              notification.getEvent().getError().orElse(null), spanMeta);
         }
       }
     } catch (Exception ex) {
@@ -255,6 +309,10 @@ public class MuleNotificationProcessor {
           notification.getException());
       muleMetricsProcessor.captureFlowMetrics(transactionMeta, notification.getResourceIdentifier(),
           notification.getException());
+      muleMetricsProcessor.captureHttpServerMetrics(transactionMeta, traceComponent,
+          notification.getEvent().getError().orElse(null));
+      muleMetricsProcessor.captureMessagingProcessMetrics(transactionMeta,
+          notification.getEvent().getError().orElse(null));
 
     } catch (Exception ex) {
       logger.error(
@@ -0,0 +1,124 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor;
+
+import com.avioconsulting.mule.opentelemetry.api.config.MuleComponent;
+import org.mule.runtime.api.component.ComponentIdentifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable trace level settings used to decide which processors create spans.
+ * <p>
+ * Ignored components are compiled into a lookup by namespace, so a decision is
+ * two hash lookups instead of a scan of the configured list. Settings are
+ * changed by creating new instances, see
+ * {@link MuleNotificationProcessor#setTraceLevelDecisions(TraceLevelDecisions)}.
+ */
+public final class TraceLevelDecisions {
+
+  private static final String ANY_NAME = "*";
+
+  private final boolean spanAllProcessors;
+  private final List<MuleComponent> ignoredComponents;
+  private final Map<String, Set<String>> ignoredNamesByNamespace;
+
+  private TraceLevelDecisions(boolean spanAllProcessors, List<MuleComponent> ignoredComponents) {
+    this.spanAllProcessors = spanAllProcessors;
+    this.ignoredComponents = Collections.unmodifiableList(new ArrayList<>(ignoredComponents));
+    Map<String, Set<String>> ignoredNames = new HashMap<>();
+    for (MuleComponent component : ignoredComponents) {
+      ignoredNames.computeIfAbsent(lowerCase(component.getNamespace()), ns -> new HashSet<>())
+          .add(lowerCase(component.getName()));
+    }
+    this.ignoredNamesByNamespace = ignoredNames;
+  }
+
+  public static TraceLevelDecisions of(boolean spanAllProcessors, List<MuleComponent> ignoredComponents) {
+    return new TraceLevelDecisions(spanAllProcessors,
+        ignoredComponents == null ? Collections.emptyList() : ignoredComponents);
+  }
+
+  public TraceLevelDecisions withSpanAllProcessors(boolean spanAllProcessors) {
+    return new TraceLevelDecisions(spanAllProcessors, ignoredComponents);
+  }
+
+  public TraceLevelDecisions withIgnoredComponents(List<MuleComponent> ignoredComponents) {
+    return of(spanAllProcessors, ignoredComponents);
+  }
+
+  public boolean isSpanAllProcessors() {
+    return spanAllProcessors;
+  }
+
+  public List<MuleComponent> getIgnoredComponents() {
+    return ignoredComponents;
+  }
+
+  /**
+   * @param identifier
+   *            {@link ComponentIdentifier} of a processor
+   * @return true if the namespace and name, or the namespace with {@code *}, is
+   *         ignored
+   */
+  public boolean isIgnored(ComponentIdentifier identifier) {
+    Set<String> names = ignoredNamesByNamespace.get(lowerCase(identifier.getNamespace()));
+    return names != null && (names.contains(ANY_NAME) || names.contains(lowerCase(identifier.getName())));
+  }
+
+  /**
+   * Parse a comma separated list of {@code namespace:name} components, where
+   * name can be {@code *} for all components of a namespace.
+   *
+   * @param components
+   *            {@link String} list of components, blank for none
+   * @return List of {@link MuleComponent}
+   */
+  public static List<MuleComponent> parseComponents(String components) {
+    List<MuleComponent> parsed = new ArrayList<>();
+    if (components == null) {
+      return parsed;
+    }
+    for (String component : components.split(",")) {
+      String trimmed = component.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      int separator = trimmed.indexOf(':');
+      if (separator <= 0 || separator == trimmed.length() - 1) {
+        throw new IllegalArgumentException(
+            "Component '" + trimmed + "' must be in namespace:name format, name can be *");
+      }
+      parsed.add(new MuleComponent(trimmed.substring(0, separator).trim(), trimmed.substring(separator + 1).trim()));
+    }
+    return parsed;
+  }
+
+  /**
+   * @return String comma separated list of ignored components in
+   *         {@code namespace:name} format
+   */
+  public String formatIgnoredComponents() {
+    return ignoredComponents.stream().map(MuleComponent::toString).collect(Collectors.joining(","));
+  }
+
+  private static String lowerCase(String value) {
+    // Returns the same instance for lower case values, which namespaces and names
+    // usually are
+    return value == null ? "" : value.toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public String toString() {
+    return "TraceLevelDecisions{" +
+        "spanAllProcessors=" + spanAllProcessors +
+        ", ignoredComponents=" + ignoredComponents +
+        '}';
+  }
+}
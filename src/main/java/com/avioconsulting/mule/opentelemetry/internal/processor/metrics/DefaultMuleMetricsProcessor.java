@@ -1,28 +1,75 @@
 package com.avioconsulting.mule.opentelemetry.internal.processor.metrics;
 
 import com.avioconsulting.mule.opentelemetry.internal.config.CustomMetricInstrumentHolder;
-import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsInstrumentType;
 import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.CardinalityLimiter;
 import com.avioconsulting.mule.opentelemetry.internal.notifications.MetricEventNotification;
 import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes;
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
 import com.avioconsulting.mule.opentelemetry.internal.store.SpanMeta;
 import com.avioconsulting.mule.opentelemetry.internal.store.TransactionMeta;
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.metrics.InstrumentType;
 import org.mule.runtime.api.component.Component;
 import org.mule.runtime.api.message.Error;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.semconv.SemanticAttributes.DB_NAME;
+import static io.opentelemetry.semconv.SemanticAttributes.DB_OPERATION;
+import static io.opentelemetry.semconv.SemanticAttributes.DB_STATEMENT;
+import static io.opentelemetry.semconv.SemanticAttributes.DB_SYSTEM;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_METHOD;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_REQUEST_METHOD;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_RESPONSE_STATUS_CODE;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_ROUTE;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_SCHEME;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_STATUS_CODE;
+import static io.opentelemetry.semconv.SemanticAttributes.MESSAGING_DESTINATION_NAME;
+import static io.opentelemetry.semconv.SemanticAttributes.MESSAGING_OPERATION;
+import static io.opentelemetry.semconv.SemanticAttributes.MESSAGING_SYSTEM;
+import static io.opentelemetry.semconv.SemanticAttributes.NET_PEER_NAME;
+import static io.opentelemetry.semconv.SemanticAttributes.NET_PEER_PORT;
+import static io.opentelemetry.semconv.SemanticAttributes.SERVER_ADDRESS;
+import static io.opentelemetry.semconv.SemanticAttributes.SERVER_PORT;
+import static io.opentelemetry.semconv.SemanticAttributes.URL_SCHEME;
 
 public class DefaultMuleMetricsProcessor implements MuleMetricsProcessor {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DefaultMuleMetricsProcessor.class);
   public static final String UNIT_OF_ONE = "1";
+  /**
+   * Bucket boundaries in seconds advised by semantic conventions for HTTP
+   * duration metrics
+   */
+  private static final List<Double> HTTP_DURATION_BUCKETS = Arrays.asList(0.005, 0.01, 0.025, 0.05, 0.075, 0.1,
+      0.25, 0.5, 0.75, 1.0, 2.5, 5.0, 7.5, 10.0);
+  /**
+   * Bucket boundaries in seconds advised by semantic conventions for DB duration
+   * metrics
+   */
+  private static final List<Double> DB_DURATION_BUCKETS = Arrays.asList(0.001, 0.005, 0.01, 0.05, 0.1, 0.5,
+      1.0, 5.0, 10.0);
+  private static final List<Double> DB_ROWS_BUCKETS = Arrays.asList(1.0, 2.0, 5.0, 10.0, 20.0, 50.0, 100.0,
+      200.0, 500.0, 1000.0, 2000.0, 5000.0, 10000.0);
+  /**
+   * Bucket boundaries in seconds for the time messages wait in a queue
+   */
+  private static final List<Double> MESSAGING_LAG_BUCKETS = Arrays.asList(0.01, 0.05, 0.1, 0.5, 1.0, 5.0, 10.0,
+      30.0, 60.0, 300.0, 600.0, 1800.0, 3600.0);
+  private static final String ANYPOINT_MQ_NAMESPACE = "anypoint-mq";
+  private static final String ANYPOINT_MQ_SYSTEM = "anypointmq";
   private final OpenTelemetryConnection openTelemetryConnection;
   /**
    * Capture the number of mule messages triggered by flow invocations
@@ -41,11 +88,64 @@ public class DefaultMuleMetricsProcessor implements MuleMetricsProcessor {
    */
   private DoubleHistogram processorRequestDurationHistogram;
 
+  /**
+   * Limits of distinct attribute sets for flow and processor instruments
+   */
+  private CardinalityLimiter muleMessageCounterLimiter;
+  private CardinalityLimiter muleMessageDurationLimiter;
+  private CardinalityLimiter processorRequestCounterLimiter;
+  private CardinalityLimiter processorRequestDurationLimiter;
+
+  /**
+   * Capture the duration of HTTP requests served by HTTP Listener flows
+   */
+  private DoubleHistogram httpServerDurationHistogram;
+  /**
+   * Capture the duration of HTTP requests sent by HTTP Requester
+   */
+  private DoubleHistogram httpClientDurationHistogram;
+  private CardinalityLimiter httpServerDurationLimiter;
+  private CardinalityLimiter httpClientDurationLimiter;
+
+  /**
+   * Capture the duration, errors and affected rows of DB Connector operations
+   */
+  private DoubleHistogram dbClientDurationHistogram;
+  private LongCounter dbClientErrorCounter;
+  private DoubleHistogram dbClientAffectedRowsHistogram;
+  private CardinalityLimiter dbClientDurationLimiter;
+  private CardinalityLimiter dbClientErrorLimiter;
+  private CardinalityLimiter dbClientAffectedRowsLimiter;
+
+  /**
+   * Capture Anypoint MQ publish and process durations, the lag between publish
+   * and process, and acknowledgements
+   */
+  private DoubleHistogram messagingPublishDurationHistogram;
+  private DoubleHistogram messagingProcessDurationHistogram;
+  private DoubleHistogram messagingLagHistogram;
+  private LongCounter messagingSettlementCounter;
+  private CardinalityLimiter messagingPublishDurationLimiter;
+  private CardinalityLimiter messagingProcessDurationLimiter;
+  private CardinalityLimiter messagingLagLimiter;
+  private CardinalityLimiter messagingSettlementLimiter;
+
   /**
    * List of mule components to meter
    */
   private final List<String> meteredComponentLocations;
 
+  /**
+   * Attributes recorded per processor location and per flow
+   */
+  private final MetricAttributesCache processorAttributes = new MetricAttributesCache();
+  private final MetricAttributesCache flowAttributes = new MetricAttributesCache();
+  private final MetricAttributesCache httpServerAttributes = new MetricAttributesCache();
+  private final MetricAttributesCache httpClientAttributes = new MetricAttributesCache();
+  private final MetricAttributesCache dbClientAttributes = new MetricAttributesCache();
+  private final MetricAttributesCache messagingProcessAttributes = new MetricAttributesCache();
+  private final MetricAttributesCache messagingClientAttributes = new MetricAttributesCache();
+
   public DefaultMuleMetricsProcessor(OpenTelemetryConnection openTelemetryConnection,
       List<String> meteredComponentLocations) {
     this.openTelemetryConnection = openTelemetryConnection;
@@ -72,56 +172,425 @@ public class DefaultMuleMetricsProcessor implements MuleMetricsProcessor {
           "mule.app.processor.request.duration",
           "Duration of Processor execution");
     }
+    muleMessageCounterLimiter = openTelemetryConnection.getCardinalityLimiter("mule.app.message.count",
+        InstrumentType.COUNTER);
+    muleMessageDurationLimiter = openTelemetryConnection.getCardinalityLimiter("mule.app.message.duration",
+        InstrumentType.HISTOGRAM);
+    processorRequestCounterLimiter = openTelemetryConnection
+        .getCardinalityLimiter("mule.app.processor.request.count", InstrumentType.COUNTER);
+    processorRequestDurationLimiter = openTelemetryConnection
+        .getCardinalityLimiter("mule.app.processor.request.duration", InstrumentType.HISTOGRAM);
+    if (httpServerDurationHistogram == null) {
+      httpServerDurationHistogram = openTelemetryConnection.createHistogram("http.server.request.duration",
+          "Duration of HTTP server requests", "s", HTTP_DURATION_BUCKETS);
+    }
+    if (httpClientDurationHistogram == null) {
+      httpClientDurationHistogram = openTelemetryConnection.createHistogram("http.client.request.duration",
+          "Duration of HTTP client requests", "s", HTTP_DURATION_BUCKETS);
+    }
+    httpServerDurationLimiter = openTelemetryConnection.getCardinalityLimiter("http.server.request.duration",
+        InstrumentType.HISTOGRAM);
+    httpClientDurationLimiter = openTelemetryConnection.getCardinalityLimiter("http.client.request.duration",
+        InstrumentType.HISTOGRAM);
+    if (dbClientDurationHistogram == null) {
+      dbClientDurationHistogram = openTelemetryConnection.createHistogram("db.client.operation.duration",
+          "Duration of database client operations", "s", DB_DURATION_BUCKETS);
+    }
+    if (dbClientErrorCounter == null) {
+      dbClientErrorCounter = openTelemetryConnection.createCounter("db.client.operation.errors",
+          "Number of failed database client operations", "{error}");
+    }
+    if (dbClientAffectedRowsHistogram == null) {
+      dbClientAffectedRowsHistogram = openTelemetryConnection.createHistogram("db.client.operation.affected_rows",
+          "Number of rows affected by database client operations", "{row}", DB_ROWS_BUCKETS);
+    }
+    dbClientDurationLimiter = openTelemetryConnection.getCardinalityLimiter("db.client.operation.duration",
+        InstrumentType.HISTOGRAM);
+    dbClientErrorLimiter = openTelemetryConnection.getCardinalityLimiter("db.client.operation.errors",
+        InstrumentType.COUNTER);
+    dbClientAffectedRowsLimiter = openTelemetryConnection
+        .getCardinalityLimiter("db.client.operation.affected_rows", InstrumentType.HISTOGRAM);
+    if (messagingPublishDurationHistogram == null) {
+      messagingPublishDurationHistogram = openTelemetryConnection.createHistogram("messaging.publish.duration",
+          "Duration of publishing messages", "s", HTTP_DURATION_BUCKETS);
+    }
+    if (messagingProcessDurationHistogram == null) {
+      messagingProcessDurationHistogram = openTelemetryConnection.createHistogram("messaging.process.duration",
+          "Duration of processing received messages", "s", HTTP_DURATION_BUCKETS);
+    }
+    if (messagingLagHistogram == null) {
+      messagingLagHistogram = openTelemetryConnection.createHistogram("messaging.anypointmq.lag",
+          "Time from publishing a message until its processing started", "s", MESSAGING_LAG_BUCKETS);
+    }
+    if (messagingSettlementCounter == null) {
+      messagingSettlementCounter = openTelemetryConnection.createCounter("messaging.anypointmq.settlement.count",
+          "Number of acknowledged and not acknowledged messages", "{message}");
+    }
+    messagingPublishDurationLimiter = openTelemetryConnection.getCardinalityLimiter("messaging.publish.duration",
+        InstrumentType.HISTOGRAM);
+    messagingProcessDurationLimiter = openTelemetryConnection.getCardinalityLimiter("messaging.process.duration",
+        InstrumentType.HISTOGRAM);
+    messagingLagLimiter = openTelemetryConnection.getCardinalityLimiter("messaging.anypointmq.lag",
+        InstrumentType.HISTOGRAM);
+    messagingSettlementLimiter = openTelemetryConnection
+        .getCardinalityLimiter("messaging.anypointmq.settlement.count", InstrumentType.COUNTER);
   }
 
   public void captureProcessorMetrics(Component component, Error error, String location,
       SpanMeta spanMeta) {
     if (meteredComponentLocations.contains(location)) {
-      AttributesBuilder attributesBuilder = Attributes.builder()
-          .put(SemanticAttributes.MULE_APP_PROCESSOR_NAMESPACE,
-              component.getIdentifier().getNamespace())
-          .put(SemanticAttributes.MULE_APP_PROCESSOR_NAME,
-              component.getIdentifier().getName());
-      if (error != null) {
-        attributesBuilder.put(SemanticAttributes.ERROR_TYPE, error.getErrorType().getIdentifier());
-      }
-      String value = null;
-      if ((value = spanMeta.getTags().get(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF.getKey())) != null) {
-        attributesBuilder.put(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF, value);
+      String namespace = component.getIdentifier().getNamespace();
+      String name = component.getIdentifier().getName();
+      String errorType = error != null ? error.getErrorType().getIdentifier() : null;
+      String configRef = spanMeta.getTags().get(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF.getKey());
+      Attributes attributes = processorAttributes.get(location, namespace, name, errorType, configRef);
+      if (attributes == null) {
+        AttributesBuilder attributesBuilder = Attributes.builder()
+            .put(SemanticAttributes.MULE_APP_PROCESSOR_NAMESPACE, namespace)
+            .put(SemanticAttributes.MULE_APP_PROCESSOR_NAME, name);
+        if (errorType != null) {
+          attributesBuilder.put(SemanticAttributes.ERROR_TYPE, errorType);
+        }
+        if (configRef != null) {
+          attributesBuilder.put(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF, configRef);
+        }
+        attributes = processorAttributes.put(location, namespace, name, errorType, configRef,
+            attributesBuilder.build());
       }
-      Attributes attributes = attributesBuilder.build();
       processorRequestCounter.add(1,
-          attributes, spanMeta.getContext());
+          processorRequestCounterLimiter.limit(attributes), spanMeta.getContext());
       processorRequestDurationHistogram.record(
-          spanMeta.getEndTime().toEpochMilli() - spanMeta.getStartTime().toEpochMilli(), attributes,
+          spanMeta.getEndTime().toEpochMilli() - spanMeta.getStartTime().toEpochMilli(),
+          processorRequestDurationLimiter.limit(attributes),
           spanMeta.getContext());
     }
   }
 
   public void captureFlowMetrics(TransactionMeta transactionMeta, String flowName, Exception exception) {
-    AttributesBuilder attributesBuilder = Attributes.builder().put(SemanticAttributes.MULE_APP_FLOW_NAME,
-        flowName);
-    if (exception != null) {
-      attributesBuilder.put(SemanticAttributes.ERROR_TYPE, exception.getClass().getName());
-    }
-    String value = null;
-    if ((value = transactionMeta.getTags()
-        .get(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE.getKey())) != null) {
-      attributesBuilder.put(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE, value);
-    }
-    if ((value = transactionMeta.getTags().get(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAME.getKey())) != null) {
-      attributesBuilder.put(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAME, value);
-    }
-    if ((value = transactionMeta.getTags()
-        .get(SemanticAttributes.MULE_APP_FLOW_SOURCE_CONFIG_REF.getKey())) != null) {
-      attributesBuilder.put(SemanticAttributes.MULE_APP_FLOW_SOURCE_CONFIG_REF, value);
+    String errorType = exception != null ? exception.getClass().getName() : null;
+    Map<String, String> tags = transactionMeta.getTags();
+    String sourceNamespace = tags.get(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE.getKey());
+    String sourceName = tags.get(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAME.getKey());
+    String sourceConfigRef = tags.get(SemanticAttributes.MULE_APP_FLOW_SOURCE_CONFIG_REF.getKey());
+    Attributes attributes = flowAttributes.get(flowName, errorType, sourceNamespace, sourceName, sourceConfigRef);
+    if (attributes == null) {
+      AttributesBuilder attributesBuilder = Attributes.builder().put(SemanticAttributes.MULE_APP_FLOW_NAME,
+          flowName);
+      if (errorType != null) {
+        attributesBuilder.put(SemanticAttributes.ERROR_TYPE, errorType);
+      }
+      if (sourceNamespace != null) {
+        attributesBuilder.put(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE, sourceNamespace);
+      }
+      if (sourceName != null) {
+        attributesBuilder.put(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAME, sourceName);
+      }
+      if (sourceConfigRef != null) {
+        attributesBuilder.put(SemanticAttributes.MULE_APP_FLOW_SOURCE_CONFIG_REF, sourceConfigRef);
+      }
+      attributes = flowAttributes.put(flowName, errorType, sourceNamespace, sourceName, sourceConfigRef,
+          attributesBuilder.build());
     }
-    Attributes attributes = attributesBuilder.build();
+    Context context = exemplarContext(transactionMeta);
     muleMessageCounter.add(1,
-        attributes);
+        muleMessageCounterLimiter.limit(attributes), context);
     muleMessageDurationHistogram
         .record(transactionMeta.getEndTime().toEpochMilli() - transactionMeta.getStartTime().toEpochMilli(),
-            attributes);
+            muleMessageDurationLimiter.limit(attributes), context);
+  }
+
+  /**
+   * Capture {@code http.server.request.duration} for a transaction started by
+   * an HTTP Listener. Response status code is only known when the flow sets
+   * {@code httpStatus} variable, as APIKit flows do. With a status code, only
+   * 5xx responses are errors, otherwise the Mule error type of the flow is
+   * used.
+   *
+   * @param transactionMeta
+   *            {@link TransactionMeta} of the ended flow
+   * @param endTraceComponent
+   *            {@link TraceComponent} of the flow end
+   * @param error
+   *            {@link Error} raised by the flow, if any
+   */
+  @Override
+  public void captureHttpServerMetrics(TransactionMeta transactionMeta, TraceComponent endTraceComponent,
+      Error error) {
+    if (transactionMeta == null || transactionMeta.getEndTime() == null) {
+      return;
+    }
+    Map<String, String> tags = transactionMeta.getTags();
+    String route = tags.get(HTTP_ROUTE.getKey());
+    if (route == null
+        || !"http".equals(tags.get(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE.getKey()))) {
+      return;
+    }
+    String method = tags.get(HTTP_METHOD.getKey());
+    String statusCode = endTraceComponent == null || endTraceComponent.getTags() == null ? null
+        : endTraceComponent.getTags().get(HTTP_STATUS_CODE.getKey());
+    String errorType = statusCode != null ? serverErrorStatus(statusCode) : errorType(error);
+    String scheme = tags.get(HTTP_SCHEME.getKey());
+    Attributes attributes = httpServerAttributes.get(route, method, statusCode, errorType, scheme);
+    if (attributes == null) {
+      AttributesBuilder attributesBuilder = Attributes.builder()
+          .put(HTTP_ROUTE, route);
+      putHttpAttributes(attributesBuilder, method, statusCode, errorType, scheme);
+      attributes = httpServerAttributes.put(route, method, statusCode, errorType, scheme,
+          attributesBuilder.build());
+    }
+    httpServerDurationHistogram.record(seconds(transactionMeta), httpServerDurationLimiter.limit(attributes),
+        exemplarContext(transactionMeta));
+  }
+
+  /**
+   * Capture {@code http.client.request.duration} for an HTTP Requester
+   * execution. Response status code is only known when the request fails, as
+   * the end notification of a successful request does not carry the response
+   * attributes.
+   *
+   * @param component
+   *            {@link Component} that ended
+   * @param error
+   *            {@link Error} raised by the component, if any
+   * @param endTraceComponent
+   *            {@link TraceComponent} of the processor end
+   * @param spanMeta
+   *            {@link SpanMeta} of the processor
+   */
+  @Override
+  public void captureHttpClientMetrics(Component component, Error error, TraceComponent endTraceComponent,
+      SpanMeta spanMeta) {
+    if (!"http".equals(component.getIdentifier().getNamespace())
+        || !"request".equals(component.getIdentifier().getName())
+        || spanMeta.getEndTime() == null) {
+      return;
+    }
+    Map<String, String> tags = spanMeta.getTags();
+    String route = tags.get(HTTP_ROUTE.getKey());
+    String method = tags.get(HTTP_METHOD.getKey());
+    String statusCode = endTraceComponent.getTags() == null ? null
+        : endTraceComponent.getTags().get(HTTP_STATUS_CODE.getKey());
+    String errorType = error != null ? error.getErrorType().getIdentifier() : null;
+    String host = tags.get(NET_PEER_NAME.getKey());
+    // Route, host and port come from the requester configuration at this location
+    String location = component.getLocation().getLocation();
+    Attributes attributes = httpClientAttributes.get(location, method, statusCode, errorType, host);
+    if (attributes == null) {
+      AttributesBuilder attributesBuilder = Attributes.builder();
+      if (route != null) {
+        attributesBuilder.put(HTTP_ROUTE, route);
+      }
+      if (host != null && !host.isEmpty()) {
+        attributesBuilder.put(SERVER_ADDRESS, host);
+      }
+      Long port = parseLong(tags.get(NET_PEER_PORT.getKey()));
+      if (port != null) {
+        attributesBuilder.put(SERVER_PORT, port);
+      }
+      putHttpAttributes(attributesBuilder, method, statusCode, errorType, tags.get(HTTP_SCHEME.getKey()));
+      attributes = httpClientAttributes.put(location, method, statusCode, errorType, host,
+          attributesBuilder.build());
+    }
+    httpClientDurationHistogram.record(seconds(spanMeta), httpClientDurationLimiter.limit(attributes),
+        spanMeta.getContext());
+  }
+
+  /**
+   * Capture {@code db.client.operation.duration} for a DB Connector operation,
+   * along with {@code db.client.operation.errors} when it fails and
+   * {@code db.client.operation.affected_rows} when its result exposes the
+   * affected rows. Statement is recorded as its fingerprint, which is computed
+   * once per processor location since the statement is part of the processor
+   * configuration.
+   *
+   * @param component
+   *            {@link Component} that ended
+   * @param error
+   *            {@link Error} raised by the component, if any
+   * @param endTraceComponent
+   *            {@link TraceComponent} of the processor end
+   * @param spanMeta
+   *            {@link SpanMeta} of the processor
+   */
+  @Override
+  public void captureDbClientMetrics(Component component, Error error, TraceComponent endTraceComponent,
+      SpanMeta spanMeta) {
+    if (!"db".equals(component.getIdentifier().getNamespace()) || spanMeta.getEndTime() == null) {
+      return;
+    }
+    String errorType = error != null ? error.getErrorType().getIdentifier() : null;
+    String location = component.getLocation().getLocation();
+    Attributes attributes = dbClientAttributes.get(location, errorType, null, null, null);
+    if (attributes == null) {
+      Map<String, String> tags = spanMeta.getTags();
+      AttributesBuilder attributesBuilder = Attributes.builder()
+          .put(DB_OPERATION, component.getIdentifier().getName());
+      putIfPresent(attributesBuilder, DB_SYSTEM, tags.get(DB_SYSTEM.getKey()));
+      putIfPresent(attributesBuilder, DB_NAME, tags.get(DB_NAME.getKey()));
+      putIfPresent(attributesBuilder, SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF,
+          tags.get(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF.getKey()));
+      putIfPresent(attributesBuilder, SemanticAttributes.DB_STATEMENT_FINGERPRINT,
+          SqlFingerprint.of(tags.get(DB_STATEMENT.getKey())));
+      putIfPresent(attributesBuilder, SemanticAttributes.ERROR_TYPE, errorType);
+      attributes = dbClientAttributes.put(location, errorType, null, null, null, attributesBuilder.build());
+    }
+    dbClientDurationHistogram.record(seconds(spanMeta), dbClientDurationLimiter.limit(attributes),
+        spanMeta.getContext());
+    if (errorType != null) {
+      dbClientErrorCounter.add(1, dbClientErrorLimiter.limit(attributes), spanMeta.getContext());
+    }
+    Long affectedRows = endTraceComponent.getTags() == null ? null
+        : parseLong(endTraceComponent.getTags().get(SemanticAttributes.DB_AFFECTED_ROWS.getKey()));
+    if (affectedRows != null) {
+      dbClientAffectedRowsHistogram.record(affectedRows, dbClientAffectedRowsLimiter.limit(attributes),
+          spanMeta.getContext());
+    }
+  }
+
+  /**
+   * Capture {@code messaging.process.duration} and {@code messaging.anypointmq.lag}
+   * for a flow with Anypoint MQ Subscriber source. Lag is only known when the
+   * publisher sets the publish timestamp on message properties.
+   *
+   * @param transactionMeta
+   *            {@link TransactionMeta} of the ended flow
+   * @param error
+   *            {@link Error} raised by the flow, if any
+   */
+  @Override
+  public void captureMessagingProcessMetrics(TransactionMeta transactionMeta, Error error) {
+    if (transactionMeta == null || transactionMeta.getEndTime() == null) {
+      return;
+    }
+    Map<String, String> tags = transactionMeta.getTags();
+    String destination = tags.get(MESSAGING_DESTINATION_NAME.getKey());
+    if (destination == null
+        || !ANYPOINT_MQ_NAMESPACE.equals(tags.get(SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE.getKey()))) {
+      return;
+    }
+    String errorType = errorType(error);
+    Context context = exemplarContext(transactionMeta);
+    messagingProcessDurationHistogram.record(seconds(transactionMeta),
+        messagingProcessDurationLimiter.limit(messagingAttributes(messagingProcessAttributes, destination,
+            destination, "process", errorType)),
+        context);
+    Long publishTimestamp = parseLong(
+        tags.get(SemanticAttributes.MESSAGING_ANYPOINTMQ_PUBLISH_TIMESTAMP.getKey()));
+    if (publishTimestamp != null) {
+      long lagMillis = Math.max(transactionMeta.getStartTime().toEpochMilli() - publishTimestamp, 0);
+      messagingLagHistogram.record(lagMillis / (double) TimeUnit.SECONDS.toMillis(1),
+          messagingLagLimiter.limit(messagingAttributes(messagingProcessAttributes, destination,
+              destination, "process", null)),
+          context);
+    }
+  }
+
+  /**
+   * Capture {@code messaging.publish.duration} for Anypoint MQ Publish, and
+   * {@code messaging.anypointmq.settlement.count} for Ack and Nack operations.
+   *
+   * @param component
+   *            {@link Component} that ended
+   * @param error
+   *            {@link Error} raised by the component, if any
+   * @param spanMeta
+   *            {@link SpanMeta} of the processor
+   */
+  @Override
+  public void captureMessagingClientMetrics(Component component, Error error, SpanMeta spanMeta) {
+    if (!ANYPOINT_MQ_NAMESPACE.equals(component.getIdentifier().getNamespace())
+        || spanMeta.getEndTime() == null) {
+      return;
+    }
+    String operation = component.getIdentifier().getName();
+    String errorType = error != null ? error.getErrorType().getIdentifier() : null;
+    String destination = spanMeta.getTags().get(MESSAGING_DESTINATION_NAME.getKey());
+    String location = component.getLocation().getLocation();
+    if ("publish".equals(operation)) {
+      messagingPublishDurationHistogram.record(seconds(spanMeta),
+          messagingPublishDurationLimiter.limit(messagingAttributes(messagingClientAttributes, location,
+              destination, operation, errorType)),
+          spanMeta.getContext());
+    } else if ("ack".equals(operation) || "nack".equals(operation)) {
+      messagingSettlementCounter.add(1,
+          messagingSettlementLimiter.limit(messagingAttributes(messagingClientAttributes, location,
+              destination, operation, errorType)),
+          spanMeta.getContext());
+    }
+  }
+
+  private Attributes messagingAttributes(MetricAttributesCache cache, String key, String destination,
+      String operation, String errorType) {
+    Attributes attributes = cache.get(key, destination, operation, errorType, null);
+    if (attributes == null) {
+      AttributesBuilder attributesBuilder = Attributes.builder()
+          .put(MESSAGING_SYSTEM, ANYPOINT_MQ_SYSTEM)
+          .put(MESSAGING_OPERATION, operation);
+      putIfPresent(attributesBuilder, MESSAGING_DESTINATION_NAME, destination);
+      putIfPresent(attributesBuilder, SemanticAttributes.ERROR_TYPE, errorType);
+      attributes = cache.put(key, destination, operation, errorType, null, attributesBuilder.build());
+    }
+    return attributes;
+  }
+
+  private static void putIfPresent(AttributesBuilder attributesBuilder, AttributeKey<String> key, String value) {
+    if (value != null && !value.isEmpty()) {
+      attributesBuilder.put(key, value);
+    }
+  }
+
+  private static void putHttpAttributes(AttributesBuilder attributesBuilder, String method, String statusCode,
+      String errorType, String scheme) {
+    if (method != null) {
+      attributesBuilder.put(HTTP_REQUEST_METHOD, method);
+    }
+    Long status = parseLong(statusCode);
+    if (status != null) {
+      attributesBuilder.put(HTTP_RESPONSE_STATUS_CODE, status);
+    }
+    if (errorType != null) {
+      attributesBuilder.put(SemanticAttributes.ERROR_TYPE, errorType);
+    }
+    if (scheme != null && !scheme.isEmpty()) {
+      attributesBuilder.put(URL_SCHEME, scheme);
+    }
+  }
+
+  private static String errorType(Error error) {
+    return error != null ? error.getErrorType().getIdentifier() : null;
+  }
+
+  private static String serverErrorStatus(String statusCode) {
+    Long status = parseLong(statusCode);
+    return status != null && status >= 500 ? statusCode : null;
+  }
+
+  private static Long parseLong(String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    try {
+      return Long.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Context of the transaction root span to record flow metrics with, so the
+   * SDK can link data points to the transaction trace as exemplars.
+   */
+  private Context exemplarContext(TransactionMeta transactionMeta) {
+    Span span = transactionMeta.getSpan();
+    if (span == null || !openTelemetryConnection.isExemplarsEnabled()) {
+      return Context.root();
+    }
+    return Context.root().with(span);
+  }
+
+  private static double seconds(TransactionMeta meta) {
+    return (meta.getEndTime().toEpochMilli() - meta.getStartTime().toEpochMilli())
+        / (double) TimeUnit.SECONDS.toMillis(1);
   }
 
   /**
@@ -134,25 +603,22 @@ public class DefaultMuleMetricsProcessor implements MuleMetricsProcessor {
    */
   @Override
   public <T> void captureCustomMetric(MetricEventNotification<T> metricNotification) {
-    if (Objects.requireNonNull(metricNotification.getMetricsInstrumentType()) == MetricsInstrumentType.COUNTER) {
-      CustomMetricInstrumentHolder<LongCounter> longCounterWrapper = openTelemetryConnection
-          .getMetricInstrument(metricNotification.getMetricName());
-      if (longCounterWrapper == null) {
-        // This should not happen since there is a check in the operation raising this
-        // event, but in case.
-        LOGGER.warn(
-            "{} metricNotification instrument is not configured on global configuration and will not be captured.",
-            metricNotification.getMetricName());
-        return;
-      }
-      Attributes attributes = Attributes.empty();
-      if (metricNotification.getAttributes() != null && !metricNotification.getAttributes().isEmpty()) {
-        AttributesBuilder attributesBuilder = Attributes.builder();
-        metricNotification.getAttributes().forEach(attr -> attributesBuilder
-            .put(longCounterWrapper.getAttributeKeys().get(attr.getKey()), attr.getValue()));
-        attributes = attributesBuilder.build();
-      }
-      longCounterWrapper.getInstrument().add((Long) metricNotification.getMetricValue(), attributes);
+    CustomMetricInstrumentHolder<?> instrumentHolder = openTelemetryConnection
+        .getMetricInstrument(metricNotification.getMetricName());
+    if (instrumentHolder == null) {
+      // This should not happen since there is a check in the operation raising this
+      // event, but in case.
+      LOGGER.warn(
+          "{} metricNotification instrument is not configured on global configuration and will not be captured.",
+          metricNotification.getMetricName());
+      return;
+    }
+    Attributes attributes = instrumentHolder.buildAttributes(metricNotification.getAttributes());
+    if (attributes == null) {
+      LOGGER.warn("{} metricNotification has attributes not configured on the instrument and will not be captured.",
+          metricNotification.getMetricName());
+      return;
     }
+    instrumentHolder.record((Long) metricNotification.getMetricValue(), attributes);
   }
 }
@@ -0,0 +1,108 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of immutable {@link Attributes} for recording metrics.
+ * <p>
+ * Entries are keyed by a processor location or a flow name. Since the same key
+ * may be recorded with a few different attribute values (eg. error type, or the
+ * source of the transaction invoking a flow), each key holds a small array of
+ * variants matched on up to four values. A lookup is a map get and a linear scan
+ * without any allocation. Once the key or variant limit is reached, new
+ * combinations aren't cached and callers build their {@link Attributes} as
+ * usual.
+ */
+class MetricAttributesCache {
+
+  static final int DEFAULT_MAX_KEYS = 1024;
+  static final int MAX_VARIANTS_PER_KEY = 16;
+
+  private static final Variant[] NO_VARIANTS = new Variant[0];
+
+  private final Map<String, Variant[]> cache = new ConcurrentHashMap<>();
+  private final int maxKeys;
+
+  MetricAttributesCache() {
+    this(DEFAULT_MAX_KEYS);
+  }
+
+  MetricAttributesCache(int maxKeys) {
+    this.maxKeys = maxKeys;
+  }
+
+  /**
+   * Find cached attributes.
+   *
+   * @return Attributes or null when this combination isn't cached
+   */
+  Attributes get(String key, String value0, String value1, String value2, String value3) {
+    Variant[] variants = cache.get(key);
+    if (variants == null) {
+      return null;
+    }
+    for (Variant variant : variants) {
+      if (variant.matches(value0, value1, value2, value3)) {
+        return variant.attributes;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Cache attributes built for a combination, if the cache limits allow.
+   *
+   * @return given attributes
+   */
+  Attributes put(String key, String value0, String value1, String value2, String value3,
+      Attributes attributes) {
+    if (cache.size() >= maxKeys && !cache.containsKey(key)) {
+      return attributes;
+    }
+    cache.compute(key, (k, variants) -> {
+      Variant[] current = variants == null ? NO_VARIANTS : variants;
+      if (current.length >= MAX_VARIANTS_PER_KEY) {
+        return current;
+      }
+      for (Variant variant : current) {
+        if (variant.matches(value0, value1, value2, value3)) {
+          return current;
+        }
+      }
+      Variant[] updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = new Variant(value0, value1, value2, value3, attributes);
+      return updated;
+    });
+    return attributes;
+  }
+
+  int size() {
+    return cache.size();
+  }
+
+  private static final class Variant {
+    private final String value0;
+    private final String value1;
+    private final String value2;
+    private final String value3;
+    private final Attributes attributes;
+
+    private Variant(String value0, String value1, String value2, String value3, Attributes attributes) {
+      this.value0 = value0;
+      this.value1 = value1;
+      this.value2 = value2;
+      this.value3 = value3;
+      this.attributes = attributes;
+    }
+
+    private boolean matches(String value0, String value1, String value2, String value3) {
+      return Objects.equals(this.value0, value0) && Objects.equals(this.value1, value1)
+          && Objects.equals(this.value2, value2) && Objects.equals(this.value3, value3);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.avioconsulting.mule.opentelemetry.internal.processor.metrics;
 
 import com.avioconsulting.mule.opentelemetry.internal.notifications.MetricEventNotification;
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
 import com.avioconsulting.mule.opentelemetry.internal.store.SpanMeta;
 import com.avioconsulting.mule.opentelemetry.internal.store.TransactionMeta;
 import org.mule.runtime.api.component.Component;
@@ -12,6 +13,19 @@ public interface MuleMetricsProcessor {
 
   void captureFlowMetrics(TransactionMeta transactionMeta, String flowName, Exception exception);
 
+  void captureHttpServerMetrics(TransactionMeta transactionMeta, TraceComponent endTraceComponent,
+      Error error);
+
+  void captureHttpClientMetrics(Component component, Error error, TraceComponent endTraceComponent,
+      SpanMeta spanMeta);
+
+  void captureDbClientMetrics(Component component, Error error, TraceComponent endTraceComponent,
+      SpanMeta spanMeta);
+
+  void captureMessagingProcessMetrics(TransactionMeta transactionMeta, Error error);
+
+  void captureMessagingClientMetrics(Component component, Error error, SpanMeta spanMeta);
+
   <T> void captureCustomMetric(MetricEventNotification<T> metric);
 
   MuleMetricsProcessor noop = new MuleMetricsProcessor() {
@@ -25,6 +39,34 @@ public interface MuleMetricsProcessor {
       // Do Nothing
     }
 
+    @Override
+    public void captureHttpServerMetrics(TransactionMeta transactionMeta, TraceComponent endTraceComponent,
+        Error error) {
+      // Do Nothing
+    }
+
+    @Override
+    public void captureHttpClientMetrics(Component component, Error error, TraceComponent endTraceComponent,
+        SpanMeta spanMeta) {
+      // Do Nothing
+    }
+
+    @Override
+    public void captureDbClientMetrics(Component component, Error error, TraceComponent endTraceComponent,
+        SpanMeta spanMeta) {
+      // Do Nothing
+    }
+
+    @Override
+    public void captureMessagingProcessMetrics(TransactionMeta transactionMeta, Error error) {
+      // Do Nothing
+    }
+
+    @Override
+    public void captureMessagingClientMetrics(Component component, Error error, SpanMeta spanMeta) {
+      // Do Nothing
+    }
+
     @Override
     public <T> void captureCustomMetric(MetricEventNotification<T> metric) {
 
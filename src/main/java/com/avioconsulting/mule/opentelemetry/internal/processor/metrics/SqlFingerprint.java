@@ -0,0 +1,111 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes a db statement into a fingerprint that is safe to use as a metric
+ * attribute. String and numeric literals, and named input parameters, are
+ * replaced with {@code ?}, lists of placeholders are folded into a single one,
+ * whitespace is collapsed and statement is lower-cased outside of quoted
+ * identifiers. Fingerprint length is capped at {@link #MAX_LENGTH}.
+ */
+final class SqlFingerprint {
+
+  static final int MAX_LENGTH = 256;
+  private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\?(?: ?, ?\\?)+\\)");
+
+  private SqlFingerprint() {
+  }
+
+  /**
+   * Build the fingerprint of a statement.
+   *
+   * @param statement
+   *            db statement to normalize
+   * @return String fingerprint or null if statement is null or blank
+   */
+  static String of(String statement) {
+    if (statement == null) {
+      return null;
+    }
+    StringBuilder fingerprint = new StringBuilder(Math.min(statement.length(), MAX_LENGTH * 2));
+    int length = statement.length();
+    int i = 0;
+    while (i < length && fingerprint.length() < MAX_LENGTH * 2) {
+      char c = statement.charAt(i);
+      if (Character.isWhitespace(c)) {
+        while (i < length && Character.isWhitespace(statement.charAt(i))) {
+          i++;
+        }
+        if (fingerprint.length() > 0) {
+          fingerprint.append(' ');
+        }
+      } else if (c == '\'') {
+        i = skipQuoted(statement, i, '\'');
+        fingerprint.append('?');
+      } else if (c == '"' || c == '`') {
+        int end = skipQuoted(statement, i, c);
+        fingerprint.append(statement, i, end);
+        i = end;
+      } else if (c == ':' && i + 1 < length && isIdentifierStart(statement.charAt(i + 1))
+          && !endsWith(fingerprint, ':')) {
+        i = skipIdentifier(statement, i + 1);
+        fingerprint.append('?');
+      } else if (Character.isDigit(c) && !endsWithIdentifier(fingerprint)) {
+        while (i < length && (Character.isLetterOrDigit(statement.charAt(i)) || statement.charAt(i) == '.')) {
+          i++;
+        }
+        fingerprint.append('?');
+      } else {
+        fingerprint.append(Character.toLowerCase(c));
+        i++;
+      }
+    }
+    String normalized = PLACEHOLDER_LIST.matcher(fingerprint.toString().trim()).replaceAll("(?)");
+    if (normalized.isEmpty()) {
+      return null;
+    }
+    return normalized.length() > MAX_LENGTH ? normalized.substring(0, MAX_LENGTH) : normalized;
+  }
+
+  private static int skipQuoted(String statement, int start, char quote) {
+    int i = start + 1;
+    while (i < statement.length()) {
+      if (statement.charAt(i) == quote) {
+        // Doubled quote is an escaped quote
+        if (i + 1 < statement.length() && statement.charAt(i + 1) == quote) {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipIdentifier(String statement, int start) {
+    int i = start;
+    while (i < statement.length()
+        && (Character.isLetterOrDigit(statement.charAt(i)) || statement.charAt(i) == '_')) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return Character.isLetter(c) || c == '_';
+  }
+
+  private static boolean endsWith(StringBuilder fingerprint, char c) {
+    return fingerprint.length() > 0 && fingerprint.charAt(fingerprint.length() - 1) == c;
+  }
+
+  private static boolean endsWithIdentifier(StringBuilder fingerprint) {
+    if (fingerprint.length() == 0) {
+      return false;
+    }
+    char last = fingerprint.charAt(fingerprint.length() - 1);
+    return Character.isLetterOrDigit(last) || last == '_' || last == '.';
+  }
+}
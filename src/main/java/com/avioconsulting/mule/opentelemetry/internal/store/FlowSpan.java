@@ -5,6 +5,7 @@ import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
 import com.avioconsulting.mule.opentelemetry.internal.util.PropertiesUtil;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.context.Context;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.*;
@@ -19,6 +20,11 @@ public class FlowSpan implements Serializable {
   private final Span span;
   private final String transactionId;
   private final Map<String, ProcessorSpan> childSpans = new ConcurrentHashMap<>();
+  private final Map<String, RepeatedProcessorSummary> repeatedProcessors = new ConcurrentHashMap<>();
+  private int maxRepeatedProcessorSpans;
+  private ProcessorEventLog processorEventLog;
+  private ProcessorSpanFactory processorSpanFactory = ProcessorSpanFactory.DEFAULT;
+  private Context context;
   private Map<String, String> tags = new HashMap<>();
   private String apikitConfigName;
 
@@ -40,6 +46,22 @@ public class FlowSpan implements Serializable {
     return apikitConfigName;
   }
 
+  /**
+   * Add a span for the processor identified at the given location {@code String}.
+   * The span is prepared with the {@link ProcessorSpanFactory} of this flow,
+   * only when it is started right away. See
+   * {@link #addProcessorSpan(String, TraceComponent, SpanBuilder)}.
+   *
+   * @param containerName
+   *            {@link String}
+   * @param traceComponent
+   *            {@link TraceComponent}
+   * @return SpanMeta or null when the execution is recorded in the event log
+   */
+  public SpanMeta addProcessorSpan(String containerName, TraceComponent traceComponent) {
+    return addProcessorSpan(containerName, traceComponent, null);
+  }
+
   /**
    * Add a span created from given {@code SpanBuilder} for the processor
    * identified at the given location {@code String}.
@@ -51,18 +73,50 @@ public class FlowSpan implements Serializable {
    * @param traceComponent
    *            {@link TraceComponent}
    * @param spanBuilder
-   *            {@link SpanBuilder}
-   * @return Span
+   *            {@link SpanBuilder}, or null to create one with the
+   *            {@link ProcessorSpanFactory} of this flow
+   * @return SpanMeta or null when the execution is recorded in the event log
    */
   public SpanMeta addProcessorSpan(String containerName, TraceComponent traceComponent, SpanBuilder spanBuilder) {
+    Context parentContext = traceComponent.getContext();
+    int parentEventLogIndex = ProcessorEventLog.ROOT;
     if (containerName != null) {
-      ProcessorSpan ps = new ProcessorSpan(getSpan(), traceComponent.getLocation(), transactionId,
-          traceComponent.getStartTime(), flowName).setTags(getTags());
-      ProcessorSpan parentSpan = childSpans.getOrDefault(containerName, ps);
-      spanBuilder.setParent(parentSpan.getContext());
+      ProcessorSpan parentSpan = childSpans.get(containerName);
+      if (parentSpan != null) {
+        parentContext = parentSpan.getContext();
+      } else if (processorEventLog != null
+          && (parentEventLogIndex = processorEventLog.openIndexOf(containerName)) != ProcessorEventLog.ROOT) {
+        // Context is the one of the parent entry
+        parentContext = null;
+      } else {
+        // Container without a span of its own, parent to the flow span
+        parentContext = getContext();
+      }
+    } else if (processorEventLog != null) {
+      // Without a flow-ref entry, context of the caller is on the component
+      parentEventLogIndex = processorEventLog.openFlowRefIndexOf(traceComponent.getName());
     }
     extractAPIKitConfigName(traceComponent);
     resetSpanNameIfNeeded(traceComponent);
+    if (processorEventLog != null) {
+      processorEventLog.append(traceComponent, spanBuilder, parentEventLogIndex,
+          parentContext == null ? getContext() : parentContext);
+      return null;
+    }
+    if (spanBuilder == null) {
+      spanBuilder = processorSpanFactory.createSpanBuilder(traceComponent);
+    }
+    if (containerName != null) {
+      spanBuilder.setParent(parentContext);
+    }
+    if (shouldDeferSpan(traceComponent.getLocation())) {
+      Span parentSpan = parentContext == null ? getSpan() : Span.fromContext(parentContext);
+      ProcessorSpan ps = new ProcessorSpan(Span.wrap(parentSpan.getSpanContext()), traceComponent.getLocation(),
+          transactionId, traceComponent.getStartTime(), flowName).setTags(traceComponent.getTags())
+              .setDeferredSpanBuilder(spanBuilder);
+      childSpans.put(traceComponent.getLocation(), ps);
+      return ps;
+    }
     Span span = spanBuilder.startSpan();
     ProcessorSpan ps = new ProcessorSpan(span, traceComponent.getLocation(), transactionId,
         traceComponent.getStartTime(), flowName).setTags(traceComponent.getTags());
@@ -70,6 +124,20 @@ public class FlowSpan implements Serializable {
     return ps;
   }
 
+  /**
+   * When repeated processor spans are limited, only first
+   * {@link #maxRepeatedProcessorSpans} executions of a location in this
+   * transaction start a span. Later executions are deferred and folded into a
+   * summary span when they end successfully.
+   */
+  private boolean shouldDeferSpan(String location) {
+    if (maxRepeatedProcessorSpans <= 0 || location == null) {
+      return false;
+    }
+    return repeatedProcessors.computeIfAbsent(location, RepeatedProcessorSummary::new)
+        .incrementExecutions() > maxRepeatedProcessorSpans;
+  }
+
   private void resetSpanNameIfNeeded(TraceComponent traceComponent) {
     if (!PropertiesUtil.isUseAPIKitSpanNames())
       return;
@@ -91,21 +159,116 @@ public class FlowSpan implements Serializable {
   }
 
   public SpanMeta endProcessorSpan(String location, Consumer<ProcessorSpan> spanUpdater, Instant endTime) {
-    if (childSpans.containsKey(location)) {
-      ProcessorSpan removed = childSpans.remove(location);
-      removed.setEndTime(endTime);
+    return endProcessorSpan(location, null, null, spanUpdater, endTime);
+  }
+
+  /**
+   * End the span of the processor at given location. When the execution is
+   * deferred or recorded in the event log, the end component and exception are
+   * kept for when its span is created.
+   *
+   * @param location
+   *            {@link String} of the processor
+   * @param endComponent
+   *            {@link TraceComponent} of the processor end, may be null
+   * @param exception
+   *            {@link Throwable} that failed the execution, may be null
+   * @param spanUpdater
+   *            {@link Consumer} to update a started span before ending, may be
+   *            null
+   * @param endTime
+   *            {@link Instant}
+   * @return SpanMeta or null if there is no span for the location
+   */
+  public SpanMeta endProcessorSpan(String location, TraceComponent endComponent, Throwable exception,
+      Consumer<ProcessorSpan> spanUpdater, Instant endTime) {
+    ProcessorSpan removed = childSpans.remove(location);
+    if (removed == null) {
+      // Kept in the event log until the transaction ends
+      return processorEventLog == null ? null
+          : processorEventLog.end(location, endComponent, exception, endTime);
+    }
+    removed.setEndTime(endTime);
+    if (removed.isDeferred()) {
+      removed.setDeferredEnd(endComponent, exception);
+      if (removed.isFailed()) {
+        removed.materialize(null, endTime, processorSpanFactory);
+      } else {
+        repeatedProcessors.get(location).fold(removed, removed.getDeferredSpanBuilder());
+        removed.setDeferredSpanBuilder(null);
+      }
+    } else {
       if (spanUpdater != null)
         spanUpdater.accept(removed);
       removed.getSpan().end(endTime);
-      return removed;
     }
-    return null;
+    return removed;
+  }
+
+  /**
+   * Ends summary spans of all processors whose executions were folded in this
+   * transaction. This must be called before the root span ends.
+   */
+  public void endRepeatedProcessorSummaries() {
+    repeatedProcessors.values().forEach(RepeatedProcessorSummary::end);
+  }
+
+  /**
+   * When processor executions are kept in an event log, create their spans if
+   * the transaction was slow or had a failure, otherwise drop them. This must be
+   * called before the root span ends.
+   *
+   * @param startTime
+   *            {@link Instant} of the transaction start
+   * @param endTime
+   *            {@link Instant} of the transaction end
+   * @return int number of processor spans created
+   */
+  public int endProcessorEventLog(Instant startTime, Instant endTime) {
+    if (processorEventLog == null) {
+      return 0;
+    }
+    return processorEventLog.materialize(startTime, endTime, processorSpanFactory);
   }
 
   public ProcessorSpan findSpan(String location) {
     return childSpans.get(location);
   }
 
+  /**
+   * @param location
+   *            {@link String} of the processor
+   * @return true if the processor at the location has a span or an execution in
+   *         the event log that hasn't ended
+   */
+  public boolean hasProcessorSpan(String location) {
+    return childSpans.containsKey(location)
+        || (processorEventLog != null && processorEventLog.openIndexOf(location) != ProcessorEventLog.ROOT);
+  }
+
+  /**
+   * Find the context of a processor span at given location. An execution
+   * recorded in the event log has the context of the span it will be a child
+   * of.
+   *
+   * @param location
+   *            {@link String} of the processor
+   * @return Context or null if there is no span for the location
+   */
+  public Context findContext(String location) {
+    ProcessorSpan processorSpan = childSpans.get(location);
+    if (processorSpan != null) {
+      return processorSpan.getContext();
+    }
+    return processorEventLog == null ? null : processorEventLog.openContextOf(location);
+  }
+
+  public Context getContext() {
+    if (context == null)
+      context = span.storeInContext(Context.current());
+    return context;
+  }
+
   public Map<String, String> getTags() {
     return tags;
   }
@@ -115,6 +278,36 @@ public class FlowSpan implements Serializable {
     return this;
   }
 
+  public int getMaxRepeatedProcessorSpans() {
+    return maxRepeatedProcessorSpans;
+  }
+
+  public FlowSpan setMaxRepeatedProcessorSpans(int maxRepeatedProcessorSpans) {
+    this.maxRepeatedProcessorSpans = maxRepeatedProcessorSpans;
+    return this;
+  }
+
+  /**
+   * Record processor executions in an event log instead of starting their spans.
+   * Spans are created when the transaction ends, only if it ran for at least the
+   * given milliseconds or a processor failed. A negative value disables the event
+   * log.
+   *
+   * @param processorSpansLatencyThreshold
+   *            long milliseconds
+   * @return FlowSpan
+   */
+  public FlowSpan setProcessorSpansLatencyThreshold(long processorSpansLatencyThreshold) {
+    this.processorEventLog = processorSpansLatencyThreshold < 0 ? null
+        : new ProcessorEventLog(flowName, processorSpansLatencyThreshold);
+    return this;
+  }
+
+  public FlowSpan setProcessorSpanFactory(ProcessorSpanFactory processorSpanFactory) {
+    this.processorSpanFactory = processorSpanFactory;
+    return this;
+  }
+
   public String getRootSpanName() {
     return rootSpanName;
   }
@@ -5,6 +5,7 @@ import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.context.Context;
 
 import java.time.Instant;
 import java.util.Map;
@@ -22,17 +23,69 @@ import org.slf4j.LoggerFactory;
  * memory until they end.
  */
 public class InMemoryTransactionStore implements TransactionStore {
-  private static TransactionStore service;
+  private static InMemoryTransactionStore service;
   private final ConcurrentHashMap<String, Transaction> transactionMap = new ConcurrentHashMap<>();
   private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryTransactionStore.class);
 
-  public static synchronized TransactionStore getInstance() {
+  private int maxRepeatedProcessorSpans;
+  private long processorSpansLatencyThreshold = -1;
+  private ProcessorSpanFactory processorSpanFactory = ProcessorSpanFactory.DEFAULT;
+
+  public static synchronized InMemoryTransactionStore getInstance() {
     if (service == null) {
       service = new InMemoryTransactionStore();
     }
     return service;
   }
 
+  /**
+   * Drop the instance and its in-flight transactions, so a restarted application
+   * doesn't end spans of the previous SDK.
+   */
+  public static synchronized void resetInstance() {
+    if (service != null) {
+      service.transactionMap.clear();
+      service = null;
+    }
+  }
+
+  /**
+   * Limit the number of spans created for repeated executions of the same
+   * processor location within a transaction, eg. inside a foreach. Further
+   * successful executions are folded into a summary span. Zero or less creates a
+   * span for every execution.
+   *
+   * @param maxRepeatedProcessorSpans
+   *            int
+   */
+  public void setMaxRepeatedProcessorSpans(int maxRepeatedProcessorSpans) {
+    this.maxRepeatedProcessorSpans = maxRepeatedProcessorSpans;
+  }
+
+  /**
+   * Record processor executions in a per transaction event log, and create
+   * processor spans only for transactions running at least the given milliseconds
+   * or having a failed processor. A negative value creates spans as processors
+   * execute.
+   *
+   * @param processorSpansLatencyThreshold
+   *            long milliseconds
+   */
+  public void setProcessorSpansLatencyThreshold(long processorSpansLatencyThreshold) {
+    this.processorSpansLatencyThreshold = processorSpansLatencyThreshold;
+  }
+
+  /**
+   * Factory to create processor spans that are not started while the processor
+   * executes, eg. the ones recorded in the event log.
+   *
+   * @param processorSpanFactory
+   *            {@link ProcessorSpanFactory}
+   */
+  public void setProcessorSpanFactory(ProcessorSpanFactory processorSpanFactory) {
+    this.processorSpanFactory = processorSpanFactory;
+  }
+
   @Override
   public void startTransaction(
       final TraceComponent traceComponent, final String rootFlowName, SpanBuilder rootFlowSpanBuilder) {
@@ -57,7 +110,10 @@ public class InMemoryTransactionStore implements TransactionStore {
           new Transaction(traceComponent.getTransactionId(), span.getSpanContext().getTraceId(), rootFlowName,
               new FlowSpan(rootFlowName, span, transactionId)
                   .setTags(traceComponent.getTags())
-                  .setRootSpanName(traceComponent.getSpanName()),
+                  .setRootSpanName(traceComponent.getSpanName())
+                  .setMaxRepeatedProcessorSpans(maxRepeatedProcessorSpans)
+                  .setProcessorSpanFactory(processorSpanFactory)
+                  .setProcessorSpansLatencyThreshold(processorSpansLatencyThreshold),
               traceComponent.getStartTime()));
     }
   }
@@ -88,11 +144,11 @@ public class InMemoryTransactionStore implements TransactionStore {
     Transaction transaction = getTransaction(transactionId);
     if (componentLocation == null)
       return getTransactionContext(transaction);
-    ProcessorSpan processorSpan = null;
+    Context processorContext = null;
     if (transaction != null
-        && ((processorSpan = transaction.getRootFlowSpan()
-            .findSpan(componentLocation.getLocation())) != null)) {
-      return TransactionContext.of(processorSpan.getSpan());
+        && ((processorContext = transaction.getRootFlowSpan()
+            .findContext(componentLocation.getLocation())) != null)) {
+      return TransactionContext.of(Span.fromContext(processorContext));
     } else {
       return getTransactionContext(transaction);
     }
@@ -107,7 +163,9 @@ public class InMemoryTransactionStore implements TransactionStore {
       String transactionId,
       String flowName,
       Consumer<Span> spanUpdater,
-      Instant endTime) {
+      Instant endTime,
+      TraceComponent endComponent,
+      Throwable exception) {
     LOGGER.trace("End transaction {} for flow '{}'", transactionId, flowName);
     Consumer<Span> endSpan = (span) -> {
       if (spanUpdater != null)
@@ -124,16 +182,20 @@ public class InMemoryTransactionStore implements TransactionStore {
     if (transaction != null) {
       if (transaction.getRootFlowName().equals(flowName)) {
         Transaction removed = transactionMap.remove(transactionId);
+        removed.getRootFlowSpan().endRepeatedProcessorSummaries();
+        removed.getRootFlowSpan().endProcessorEventLog(removed.getStartTime(), endTime);
         endSpan.accept(removed.getRootFlowSpan().getSpan());
         removed.setEndTime(endTime);
       } else {
         // This is a flow invoked by a flow-ref and not the main flow
         ProcessorSpan processorSpan = transaction.getRootFlowSpan().findSpan(flowName);
-        if (processorSpan != null) {
-          endSpan.accept(processorSpan.getSpan());
-          processorSpan.setEndTime(endTime);
+        if (processorSpan == null || processorSpan.isDeferred()) {
+          // Flow span is folded into a summary or kept in the event log
+          return transaction.getRootFlowSpan().endProcessorSpan(flowName, endComponent, exception, null,
+              endTime);
         }
-
+        endSpan.accept(processorSpan.getSpan());
+        processorSpan.setEndTime(endTime);
         return processorSpan;
       }
     }
@@ -153,18 +215,27 @@ public class InMemoryTransactionStore implements TransactionStore {
     SpanMeta span = transaction
         .getRootFlowSpan()
         .addProcessorSpan(containerName, traceComponent, spanBuilder);
-    LOGGER.trace(
-        "Adding Processor span to transaction {} for locator span '{}': OT SpanId {}, TraceId {}",
-        traceComponent.getTransactionId(),
-        traceComponent.getLocation(),
-        span.getSpanId(),
-        span.getTraceId());
+    if (span != null) {
+      LOGGER.trace(
+          "Adding Processor span to transaction {} for locator span '{}': OT SpanId {}, TraceId {}",
+          traceComponent.getTransactionId(),
+          traceComponent.getLocation(),
+          span.getSpanId(),
+          span.getTraceId());
+    }
+
+  }
 
+  @Override
+  public boolean hasProcessorSpan(String transactionId, String location) {
+    Transaction transaction = getTransaction(transactionId);
+    return transaction != null && transaction.getRootFlowSpan().hasProcessorSpan(location);
   }
 
   @Override
   public SpanMeta endProcessorSpan(
-      String transactionId, String location, Consumer<ProcessorSpan> spanUpdater, Instant endTime) {
+      String transactionId, String location, TraceComponent endComponent, Throwable exception,
+      Consumer<ProcessorSpan> spanUpdater, Instant endTime) {
     LOGGER.trace(
         "Ending Processor span of transaction {} for location '{}'",
         transactionId,
@@ -176,6 +247,6 @@ public class InMemoryTransactionStore implements TransactionStore {
     }
     return transaction
         .getRootFlowSpan()
-        .endProcessorSpan(location, spanUpdater, endTime);
+        .endProcessorSpan(location, endComponent, exception, spanUpdater, endTime);
   }
 }
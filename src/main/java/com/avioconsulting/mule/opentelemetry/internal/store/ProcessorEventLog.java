@@ -0,0 +1,333 @@
+package com.avioconsulting.mule.opentelemetry.internal.store;
+
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per transaction log of processor executions that have not started a span.
+ * Each execution is an entry in parallel arrays holding its start and end
+ * components, timestamps, error flag and the index of its parent entry.
+ * Recording an execution is a few array writes on start and on end, no
+ * {@link SpanBuilder} is created for it.
+ * <p>
+ * When the transaction ends, the log is either discarded or replayed in start
+ * order into real spans with the recorded start and end timestamps, see
+ * {@link #materialize(Instant, Instant, ProcessorSpanFactory)}.
+ */
+class ProcessorEventLog {
+
+  private static final int INITIAL_CAPACITY = 32;
+  private static final long OPEN = Long.MIN_VALUE;
+  private static final String FLOW_REF_NAME = "mule.app.processor.flowRef.name";
+  static final int ROOT = -1;
+
+  private final String rootFlowName;
+  private final long latencyThresholdNanos;
+  private String[] locations = new String[INITIAL_CAPACITY];
+  private TraceComponent[] startComponents = new TraceComponent[INITIAL_CAPACITY];
+  private SpanBuilder[] spanBuilders = new SpanBuilder[INITIAL_CAPACITY];
+  private int[] parentIndexes = new int[INITIAL_CAPACITY];
+  private Context[] contexts = new Context[INITIAL_CAPACITY];
+  private long[] startNanos = new long[INITIAL_CAPACITY];
+  private long[] endNanos = new long[INITIAL_CAPACITY];
+  private boolean[] failed = new boolean[INITIAL_CAPACITY];
+  private TraceComponent[] endComponents = new TraceComponent[INITIAL_CAPACITY];
+  private Throwable[] exceptions = new Throwable[INITIAL_CAPACITY];
+  // Flow-ref entries that already have their flow entry
+  private boolean[] invoked = new boolean[INITIAL_CAPACITY];
+  private int size;
+  // Entries not ended yet, in start order
+  private int[] openIndexes = new int[INITIAL_CAPACITY];
+  private int openCount;
+
+  ProcessorEventLog(String rootFlowName, long latencyThresholdMillis) {
+    this.rootFlowName = rootFlowName;
+    this.latencyThresholdNanos = Duration.ofMillis(latencyThresholdMillis).toNanos();
+  }
+
+  /**
+   * Record the start of an execution.
+   *
+   * @param traceComponent
+   *            {@link TraceComponent} of the processor start
+   * @param spanBuilder
+   *            {@link SpanBuilder} already prepared for the execution, or null
+   *            to create one only if the span is created
+   * @param parentIndex
+   *            int index of the parent entry or {@link #ROOT}
+   * @param parentContext
+   *            {@link Context} of the parent when the parent is {@link #ROOT}
+   * @return int index of the entry
+   */
+  synchronized int append(TraceComponent traceComponent, SpanBuilder spanBuilder, int parentIndex,
+      Context parentContext) {
+    if (size == locations.length) {
+      int capacity = size * 2;
+      locations = Arrays.copyOf(locations, capacity);
+      startComponents = Arrays.copyOf(startComponents, capacity);
+      spanBuilders = Arrays.copyOf(spanBuilders, capacity);
+      parentIndexes = Arrays.copyOf(parentIndexes, capacity);
+      contexts = Arrays.copyOf(contexts, capacity);
+      startNanos = Arrays.copyOf(startNanos, capacity);
+      endNanos = Arrays.copyOf(endNanos, capacity);
+      failed = Arrays.copyOf(failed, capacity);
+      endComponents = Arrays.copyOf(endComponents, capacity);
+      exceptions = Arrays.copyOf(exceptions, capacity);
+      invoked = Arrays.copyOf(invoked, capacity);
+    }
+    locations[size] = traceComponent.getLocation();
+    startComponents[size] = traceComponent;
+    spanBuilders[size] = spanBuilder;
+    parentIndexes[size] = parentIndex;
+    // Until started, an execution's context is the one of its parent
+    contexts[size] = parentIndex == ROOT ? parentContext : contexts[parentIndex];
+    startNanos[size] = toNanos(traceComponent.getStartTime());
+    endNanos[size] = OPEN;
+    failed[size] = false;
+    invoked[size] = false;
+    if (parentIndex != ROOT) {
+      invoked[parentIndex] = true;
+    }
+    if (openCount == openIndexes.length) {
+      openIndexes = Arrays.copyOf(openIndexes, openCount * 2);
+    }
+    openIndexes[openCount++] = size;
+    return size++;
+  }
+
+  /**
+   * Record the end of the latest open execution at given location.
+   *
+   * @param location
+   *            {@link String} of the processor
+   * @param endComponent
+   *            {@link TraceComponent} of the processor end, may be null
+   * @param exception
+   *            {@link Throwable} that failed the execution, may be null
+   * @param endTime
+   *            {@link Instant}
+   * @return SpanMeta of the execution or null when no execution is open at the
+   *         location
+   */
+  synchronized SpanMeta end(String location, TraceComponent endComponent, Throwable exception, Instant endTime) {
+    int open = openPosition(location);
+    if (open < 0) {
+      return null;
+    }
+    int index = openIndexes[open];
+    System.arraycopy(openIndexes, open + 1, openIndexes, open, openCount - open - 1);
+    openCount--;
+    endNanos[index] = toNanos(endTime);
+    endComponents[index] = endComponent;
+    exceptions[index] = exception;
+    failed[index] = exception != null
+        || (endComponent != null && StatusCode.ERROR.equals(endComponent.getStatusCode()));
+    TraceComponent startComponent = startComponents[index];
+    return new LoggedExecution(startComponent.getTransactionId(), rootFlowName, startComponent.getTags(),
+        startComponent.getStartTime(), endTime, contexts[index]);
+  }
+
+  /**
+   * Finds the flow-ref entry invoking the given flow. A flow invoked through
+   * flow-ref has no container of its own. Routes of scatter-gather, async or
+   * parallel-foreach interleave their entries, so the entry is matched by the
+   * flow name of the flow-ref, preferring the latest open one that has not
+   * invoked its flow yet.
+   *
+   * @param flowName
+   *            {@link String} name of the invoked flow
+   * @return int index of the entry or {@link #ROOT}
+   */
+  synchronized int openFlowRefIndexOf(String flowName) {
+    int match = ROOT;
+    for (int i = openCount - 1; i >= 0; i--) {
+      int index = openIndexes[i];
+      Map<String, String> tags = startComponents[index].getTags();
+      if (flowName != null && tags != null && flowName.equals(tags.get(FLOW_REF_NAME))) {
+        if (!invoked[index]) {
+          return index;
+        }
+        if (match == ROOT) {
+          match = index;
+        }
+      }
+    }
+    return match;
+  }
+
+  /**
+   * @param location
+   *            {@link String} of the processor
+   * @return int index of the latest open entry at the location or {@link #ROOT}
+   */
+  synchronized int openIndexOf(String location) {
+    int open = openPosition(location);
+    return open < 0 ? ROOT : openIndexes[open];
+  }
+
+  /**
+   * @param location
+   *            {@link String} of the processor
+   * @return Context of the latest open entry at the location, or null
+   */
+  synchronized Context openContextOf(String location) {
+    int open = openPosition(location);
+    return open < 0 ? null : contexts[openIndexes[open]];
+  }
+
+  private int openPosition(String location) {
+    for (int i = openCount - 1; i >= 0; i--) {
+      if (Objects.equals(locations[openIndexes[i]], location)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized boolean shouldMaterialize(Instant startTime, Instant endTime) {
+    if (startTime != null && endTime != null
+        && Duration.between(startTime, endTime).toNanos() >= latencyThresholdNanos) {
+      return true;
+    }
+    for (int i = 0; i < size; i++) {
+      if (failed[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Create spans for all logged executions when the transaction was slow or had
+   * a failed processor, otherwise drop them.
+   *
+   * @param startTime
+   *            {@link Instant} transaction start time
+   * @param endTime
+   *            {@link Instant} transaction end time, also used to end any
+   *            execution that did not end
+   * @param spanFactory
+   *            {@link ProcessorSpanFactory} to create the spans with
+   * @return int number of spans created
+   */
+  synchronized int materialize(Instant startTime, Instant endTime, ProcessorSpanFactory spanFactory) {
+    int created = 0;
+    if (shouldMaterialize(startTime, endTime)) {
+      for (int i = 0; i < size; i++) {
+        int parentIndex = parentIndexes[i];
+        Context parentContext = parentIndex == ROOT ? contexts[i] : contexts[parentIndex];
+        SpanBuilder spanBuilder = spanBuilders[i] != null ? spanBuilders[i]
+            : spanFactory.createSpanBuilder(startComponents[i]);
+        Span span = spanBuilder.setParent(parentContext)
+            .setStartTimestamp(startNanos[i], TimeUnit.NANOSECONDS)
+            .startSpan();
+        spanFactory.applyEnd(span, endComponents[i], exceptions[i]);
+        if (endNanos[i] != OPEN) {
+          span.end(endNanos[i], TimeUnit.NANOSECONDS);
+        } else if (endTime != null) {
+          span.end(endTime);
+        } else {
+          span.end();
+        }
+        // Parents come before their children, replace with the started span
+        contexts[i] = span.storeInContext(Context.root());
+        created++;
+      }
+    }
+    Arrays.fill(locations, 0, size, null);
+    Arrays.fill(startComponents, 0, size, null);
+    Arrays.fill(spanBuilders, 0, size, null);
+    Arrays.fill(contexts, 0, size, null);
+    Arrays.fill(endComponents, 0, size, null);
+    Arrays.fill(exceptions, 0, size, null);
+    size = 0;
+    openCount = 0;
+    return created;
+  }
+
+  private static long toNanos(Instant instant) {
+    return instant == null ? 0 : TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+  }
+
+  /**
+   * Ended execution as seen by metrics, with the context of the span it will be
+   * a child of.
+   */
+  private static final class LoggedExecution implements SpanMeta {
+    private final String transactionId;
+    private final String rootFlowName;
+    private final Map<String, String> tags;
+    private final Instant startTime;
+    private final Instant endTime;
+    private final Context context;
+
+    private LoggedExecution(String transactionId, String rootFlowName, Map<String, String> tags, Instant startTime,
+        Instant endTime, Context context) {
+      this.transactionId = transactionId;
+      this.rootFlowName = rootFlowName;
+      this.tags = tags;
+      this.startTime = startTime;
+      this.endTime = endTime;
+      this.context = context;
+    }
+
+    @Override
+    public String getTransactionId() {
+      return transactionId;
+    }
+
+    @Override
+    public String getRootFlowName() {
+      return rootFlowName;
+    }
+
+    @Override
+    public String getTraceId() {
+      return getSpan().getSpanContext().getTraceId();
+    }
+
+    @Override
+    public String getSpanId() {
+      return getSpan().getSpanContext().getSpanId();
+    }
+
+    @Override
+    public Context getContext() {
+      return context;
+    }
+
+    @Override
+    public Span getSpan() {
+      return Span.fromContext(context);
+    }
+
+    @Override
+    public Instant getStartTime() {
+      return startTime;
+    }
+
+    @Override
+    public Instant getEndTime() {
+      return endTime;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+      return tags;
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package com.avioconsulting.mule.opentelemetry.internal.store;
 
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.context.Context;
 
 import java.time.Instant;
@@ -9,7 +12,7 @@ import java.util.Map;
 
 public class ProcessorSpan implements SpanMeta {
 
-  private final Span span;
+  private Span span;
   private final String location;
   private final String transactionId;
   private final Instant startTime;
@@ -17,6 +20,9 @@ public class ProcessorSpan implements SpanMeta {
   private final String flowName;
   private Context context;
   private Map<String, String> tags = new HashMap<>();
+  private SpanBuilder deferredSpanBuilder;
+  private TraceComponent deferredEndComponent;
+  private Throwable deferredException;
 
   public ProcessorSpan(Span span, String location, String transactionId, Instant startTime, String flowName) {
     this.span = span;
@@ -85,4 +91,98 @@ public class ProcessorSpan implements SpanMeta {
     this.tags = tags;
     return this;
   }
+
+  /**
+   * Processor executions folded into a summary span do not start a span of
+   * their own. Such {@link ProcessorSpan} carries a non-recording span with the
+   * parent's context and the prepared {@link SpanBuilder}, in case the execution
+   * needs a real span after all, see {@link #startDeferredSpan()}.
+   *
+   * @param deferredSpanBuilder
+   *            {@link SpanBuilder} to start the span from
+   * @return ProcessorSpan
+   */
+  ProcessorSpan setDeferredSpanBuilder(SpanBuilder deferredSpanBuilder) {
+    this.deferredSpanBuilder = deferredSpanBuilder;
+    return this;
+  }
+
+  SpanBuilder getDeferredSpanBuilder() {
+    return deferredSpanBuilder;
+  }
+
+  public boolean isDeferred() {
+    return deferredSpanBuilder != null;
+  }
+
+  /**
+   * Keep the outcome of a deferred execution, to be applied if and when its span
+   * is started. See {@link #startDeferredSpan()}.
+   *
+   * @param endComponent
+   *            {@link TraceComponent} of the processor end with tags and status
+   * @param exception
+   *            {@link Throwable} that failed the execution, if any
+   * @return ProcessorSpan
+   */
+  public ProcessorSpan setDeferredEnd(TraceComponent endComponent, Throwable exception) {
+    this.deferredEndComponent = endComponent;
+    this.deferredException = exception;
+    return this;
+  }
+
+  /**
+   * @return true if this deferred execution ended with an error
+   */
+  public boolean isFailed() {
+    return deferredException != null || (deferredEndComponent != null
+        && StatusCode.ERROR.equals(deferredEndComponent.getStatusCode()));
+  }
+
+  /**
+   * Start the real span of a deferred execution, eg. when the execution failed
+   * and must be visible in the trace. Does nothing if this span isn't deferred.
+   *
+   * @return ProcessorSpan
+   */
+  public ProcessorSpan startDeferredSpan() {
+    startDeferredSpan(null);
+    return this;
+  }
+
+  private Span startDeferredSpan(Context parentContext) {
+    if (deferredSpanBuilder == null) {
+      return null;
+    }
+    if (parentContext != null) {
+      deferredSpanBuilder.setParent(parentContext);
+    }
+    span = deferredSpanBuilder.startSpan();
+    deferredSpanBuilder = null;
+    context = null;
+    return span;
+  }
+
+  /**
+   * Start and end the span of a deferred execution with its recorded timestamps
+   * and outcome.
+   *
+   * @param parentContext
+   *            {@link Context} to use as parent instead of the one set at
+   *            start, may be null
+   * @param fallbackEndTime
+   *            {@link Instant} to end the span at if this execution never ended
+   * @param spanFactory
+   *            {@link ProcessorSpanFactory} to set the recorded outcome with
+   * @return Span created or null if this execution wasn't deferred
+   */
+  Span materialize(Context parentContext, Instant fallbackEndTime, ProcessorSpanFactory spanFactory) {
+    Span started = startDeferredSpan(parentContext);
+    if (started == null) {
+      return null;
+    }
+    spanFactory.applyEnd(started, deferredEndComponent, deferredException);
+    started.end(endTime != null ? endTime : fallbackEndTime);
+    return started;
+  }
 }
@@ -0,0 +1,63 @@
+package com.avioconsulting.mule.opentelemetry.internal.store;
+
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.StatusCode;
+
+/**
+ * Creates processor spans from their {@link TraceComponent}s. Processor
+ * executions that do not start a span right away, such as the ones recorded in
+ * a {@link ProcessorEventLog}, only keep their start and end components and use
+ * this factory when their span is created.
+ */
+public interface ProcessorSpanFactory {
+
+  /**
+   * Factory that cannot build spans, for executions that always come with their
+   * {@link SpanBuilder}. Ends set the status, end tags and exception.
+   */
+  ProcessorSpanFactory DEFAULT = new ProcessorSpanFactory() {
+    @Override
+    public SpanBuilder createSpanBuilder(TraceComponent traceComponent) {
+      throw new IllegalStateException("No span factory to create span for " + traceComponent.getLocation());
+    }
+
+    @Override
+    public void applyEnd(Span span, TraceComponent endComponent, Throwable exception) {
+      if (endComponent != null) {
+        if (endComponent.getStatusCode() != null && !StatusCode.UNSET.equals(endComponent.getStatusCode())) {
+          span.setStatus(endComponent.getStatusCode(), endComponent.getErrorMessage());
+        }
+        if (endComponent.getTags() != null) {
+          endComponent.getTags().forEach(span::setAttribute);
+        }
+      }
+      if (exception != null) {
+        span.recordException(exception);
+      }
+    }
+  };
+
+  /**
+   * Prepare the span of a processor execution with its name, kind, start time
+   * and start tags. The parent is set by the caller.
+   *
+   * @param traceComponent
+   *            {@link TraceComponent} of the processor start
+   * @return SpanBuilder
+   */
+  SpanBuilder createSpanBuilder(TraceComponent traceComponent);
+
+  /**
+   * Set the outcome of a processor execution on its span before it ends.
+   *
+   * @param span
+   *            {@link Span} of the execution
+   * @param endComponent
+   *            {@link TraceComponent} of the processor end, may be null
+   * @param exception
+   *            {@link Throwable} that failed the execution, may be null
+   */
+  void applyEnd(Span span, TraceComponent endComponent, Throwable exception);
+}
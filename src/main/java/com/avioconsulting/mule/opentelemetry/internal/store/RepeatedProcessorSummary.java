@@ -0,0 +1,131 @@
+package com.avioconsulting.mule.opentelemetry.internal.store;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.*;
+
+/**
+ * Execution statistics of a processor location whose repeated executions
+ * within a transaction are folded into one summary span instead of a span per
+ * execution.
+ * <p>
+ * Durations for the p99 are kept in a fixed size reservoir, so the percentile
+ * is exact up to {@link #RESERVOIR_SIZE} executions and an estimate after that.
+ */
+class RepeatedProcessorSummary {
+
+  static final int RESERVOIR_SIZE = 1024;
+
+  private final String location;
+  private int executions;
+  private long foldedCount;
+  private long totalNanos;
+  private long minNanos = Long.MAX_VALUE;
+  private long maxNanos;
+  private long[] reservoir;
+  private Instant firstStartTime;
+  private Instant lastEndTime;
+  private SpanBuilder summarySpanBuilder;
+
+  RepeatedProcessorSummary(String location) {
+    this.location = location;
+  }
+
+  /**
+   * Count a new execution of this location.
+   *
+   * @return int number of executions including this one
+   */
+  synchronized int incrementExecutions() {
+    return ++executions;
+  }
+
+  /**
+   * Fold a successfully ended execution into this summary.
+   *
+   * @param processorSpan
+   *            {@link ProcessorSpan} of an execution that did not create a span
+   * @param spanBuilder
+   *            {@link SpanBuilder} prepared for the execution, reused to build
+   *            the summary span
+   */
+  synchronized void fold(ProcessorSpan processorSpan, SpanBuilder spanBuilder) {
+    if (summarySpanBuilder == null) {
+      summarySpanBuilder = spanBuilder;
+    }
+    long durationNanos = Duration.between(processorSpan.getStartTime(), processorSpan.getEndTime()).toNanos();
+    if (reservoir == null) {
+      // Most locations never fold, allocate on the first fold only
+      reservoir = new long[RESERVOIR_SIZE];
+    }
+    if (foldedCount < RESERVOIR_SIZE) {
+      reservoir[(int) foldedCount] = durationNanos;
+    } else {
+      long slot = ThreadLocalRandom.current().nextLong(foldedCount + 1);
+      if (slot < RESERVOIR_SIZE) {
+        reservoir[(int) slot] = durationNanos;
+      }
+    }
+    foldedCount++;
+    totalNanos += durationNanos;
+    minNanos = Math.min(minNanos, durationNanos);
+    maxNanos = Math.max(maxNanos, durationNanos);
+    if (firstStartTime == null || processorSpan.getStartTime().isBefore(firstStartTime)) {
+      firstStartTime = processorSpan.getStartTime();
+    }
+    if (lastEndTime == null || processorSpan.getEndTime().isAfter(lastEndTime)) {
+      lastEndTime = processorSpan.getEndTime();
+    }
+  }
+
+  /**
+   * Start and end the summary span, if any execution was folded.
+   *
+   * @return Span summary span or null when nothing was folded
+   */
+  synchronized Span end() {
+    if (summarySpanBuilder == null || foldedCount == 0) {
+      return null;
+    }
+    Span span = summarySpanBuilder
+        .setStartTimestamp(firstStartTime)
+        .setAttribute(MULE_APP_PROCESSOR_SUMMARY_COUNT, foldedCount)
+        .setAttribute(MULE_APP_PROCESSOR_SUMMARY_DURATION_TOTAL, toMillis(totalNanos))
+        .setAttribute(MULE_APP_PROCESSOR_SUMMARY_DURATION_MIN, toMillis(minNanos))
+        .setAttribute(MULE_APP_PROCESSOR_SUMMARY_DURATION_MAX, toMillis(maxNanos))
+        .setAttribute(MULE_APP_PROCESSOR_SUMMARY_DURATION_P99, toMillis(p99Nanos()))
+        .startSpan();
+    span.end(lastEndTime);
+    summarySpanBuilder = null;
+    return span;
+  }
+
+  long getFoldedCount() {
+    return foldedCount;
+  }
+
+  String getLocation() {
+    return location;
+  }
+
+  long p99Nanos() {
+    if (reservoir == null) {
+      return 0;
+    }
+    int size = (int) Math.min(foldedCount, RESERVOIR_SIZE);
+    long[] sorted = Arrays.copyOf(reservoir, size);
+    Arrays.sort(sorted);
+    int index = Math.max(0, (int) Math.ceil(size * 0.99) - 1);
+    return sorted[index];
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
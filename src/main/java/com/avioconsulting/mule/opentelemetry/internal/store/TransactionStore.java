@@ -140,8 +140,30 @@ public interface TransactionStore {
    * @param spanUpdater
    * @param endTime
    */
+  default TransactionMeta endTransaction(
+      String transactionId, String rootFlowName, Consumer<Span> spanUpdater, Instant endTime) {
+    return endTransaction(transactionId, rootFlowName, spanUpdater, endTime, null, null);
+  }
+
+  /**
+   * End a transaction at given end time. See
+   * {@link #endTransaction(String, String, Consumer)}. A flow invoked through
+   * flow-ref whose span is deferred keeps the end component and exception for
+   * when its span is created.
+   *
+   * @param transactionId
+   * @param rootFlowName
+   * @param spanUpdater
+   * @param endTime
+   * @param endComponent
+   *            {@link TraceComponent} of the flow end, may be null
+   * @param exception
+   *            {@link Throwable} that failed the flow, may be null
+   * @return TransactionMeta
+   */
   TransactionMeta endTransaction(
-      String transactionId, String rootFlowName, Consumer<Span> spanUpdater, Instant endTime);
+      String transactionId, String rootFlowName, Consumer<Span> spanUpdater, Instant endTime,
+      TraceComponent endComponent, Throwable exception);
 
   /**
    * Add a new processor span under an existing transaction.
@@ -154,6 +176,30 @@ public interface TransactionStore {
    */
   void addProcessorSpan(String containerName, TraceComponent traceComponent, SpanBuilder spanBuilder);
 
+  /**
+   * Add a new processor span under an existing transaction. The store prepares
+   * the span from the {@link TraceComponent}, and only if it starts the span
+   * while the processor executes.
+   *
+   * @param containerName
+   *            {@link String} such as Flow name that contains requested location
+   * @param traceComponent
+   */
+  default void addProcessorSpan(String containerName, TraceComponent traceComponent) {
+    addProcessorSpan(containerName, traceComponent, null);
+  }
+
+  /**
+   * Check if a processor span was added at the location and has not ended yet.
+   *
+   * @param transactionId
+   *            {@link String} of the transaction
+   * @param location
+   *            {@link String} of the processor
+   * @return true if the processor has a span to end
+   */
+  boolean hasProcessorSpan(String transactionId, String location);
+
   /**
    * End an existing span under an existing transaction.
    *
@@ -207,6 +253,29 @@ public interface TransactionStore {
    * @param endTime
    * @return SpanMeta
    */
+  default SpanMeta endProcessorSpan(
+      String transactionId, String location, Consumer<ProcessorSpan> spanUpdater, Instant endTime) {
+    return endProcessorSpan(transactionId, location, null, null, spanUpdater, endTime);
+  }
+
+  /**
+   * End an existing span at given time. A span that is not started yet keeps
+   * the end component and exception for when it is created, the
+   * {@link Consumer} only updates started spans. See
+   * {@link #endProcessorSpan(String, String, Consumer)}.
+   *
+   * @param transactionId
+   * @param location
+   * @param endComponent
+   *            {@link TraceComponent} of the processor end, may be null
+   * @param exception
+   *            {@link Throwable} that failed the processor, may be null
+   * @param spanUpdater
+   *            {@link Consumer} to allow updating Span before ending.
+   * @param endTime
+   * @return SpanMeta
+   */
   SpanMeta endProcessorSpan(
-      String transactionId, String location, Consumer<ProcessorSpan> spanUpdater, Instant endTime);
+      String transactionId, String location, TraceComponent endComponent, Throwable exception,
+      Consumer<ProcessorSpan> spanUpdater, Instant endTime);
 }
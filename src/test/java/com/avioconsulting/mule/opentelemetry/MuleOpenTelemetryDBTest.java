@@ -73,6 +73,24 @@ public class MuleOpenTelemetryDBTest extends AbstractMuleArtifactTraceTest {
         .anySatisfy(span -> assertDBSpan(span, docName, statement)));
   }
 
+  @Test
+  public void testAffectedRowsFromOperationResult() throws Exception {
+    sendRequest(UUID.randomUUID().toString(), "/test/db/insert", 200);
+    await().untilAsserted(() -> assertThat(DelegatedLoggingSpanTestExporter.spanQueue)
+        .anySatisfy(span -> {
+          assertThat(span.getSpanName()).isEqualTo("insert:Insert");
+          assertThat(span.getAttributes()).containsEntry("db.affected_rows", "1");
+        }));
+    DelegatedLoggingSpanTestExporter.spanQueue.clear();
+
+    sendRequest(UUID.randomUUID().toString(), "/test/db/select", 200);
+    await().untilAsserted(() -> assertThat(DelegatedLoggingSpanTestExporter.spanQueue)
+        .anySatisfy(span -> {
+          assertThat(span.getSpanName()).isEqualTo("select:Select");
+          assertThat(span.getAttributes()).doesNotContainKey("db.affected_rows");
+        }));
+  }
+
   private Object[] CRUD_Parameters() {
     return new Object[] {
         new Object[] { "delete", "Delete", "delete from testdb.users where userId = 500" },
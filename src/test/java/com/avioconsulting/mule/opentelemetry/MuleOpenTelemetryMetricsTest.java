@@ -47,6 +47,22 @@ public class MuleOpenTelemetryMetricsTest extends AbstractMuleArtifactTraceTest
         "online");
   }
 
+  @Test
+  public void verifyCustomHistogramMetricData() throws Exception {
+    sendRequest(CORRELATION_ID, "/test/metric/histogram", 200);
+    validateMetricExists("org.business.order.latency", "Order processing time", "ms", "HISTOGRAM");
+    validateMetricExists("org.business.order.size", "Order payload size", "By", "EXPONENTIAL_HISTOGRAM");
+  }
+
+  @Test
+  public void verifyCustomUpDownCounterAndGaugeMetricData() throws Exception {
+    sendRequest(CORRELATION_ID, "/test/metric/up-down-gauge", 200);
+    validateMetricExists("org.business.order.inflight", "Orders being processed", "1", "LONG_SUM");
+    validateMetricValue("org.business.order.inflight", 2L);
+    validateMetricExists("org.business.order.backlog", "Orders waiting in the queue", "1", "LONG_GAUGE");
+    validateMetricValue("org.business.order.backlog", 42L);
+  }
+
   @Test
   public void invalidCustomMetricAttribute() throws Exception {
     Throwable exception = catchThrowable(() -> runFlow("mule-opentelemetry-app-invalid-attribute"));
@@ -80,6 +96,11 @@ public class MuleOpenTelemetryMetricsTest extends AbstractMuleArtifactTraceTest
         "SELF_HTTP_Request_configuration");
     validateMetricExists("mule.app.processor.request.duration", "Duration of Processor execution", "ms",
         "HISTOGRAM");
+    validateMetricExists("http.server.request.duration", "Duration of HTTP server requests", "s", "HISTOGRAM");
+    validateMetricPointAttribute("http.server.request.duration", "http.route", "/test/propagation/source");
+    validateMetricExists("http.client.request.duration", "Duration of HTTP client requests", "s", "HISTOGRAM");
+    validateMetricPointAttribute("http.client.request.duration", "http.route", "/test/propagation/target");
+    validateMetricPointAttribute("http.client.request.duration", "http.request.method", "GET");
 
     // Verify a few standard entries exist
     validateStandardMetricExist("runtime.java.cpu_time");
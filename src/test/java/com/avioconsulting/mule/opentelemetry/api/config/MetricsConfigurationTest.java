@@ -0,0 +1,42 @@
+package com.avioconsulting.mule.opentelemetry.api.config;
+
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.ExemplarFilterType;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsTemporality;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsConfigurationTest {
+
+  @Test
+  public void getMetricsConfigMap() {
+    MetricsConfiguration metricsConfiguration = new MetricsConfiguration(10000, MetricsTemporality.DELTA);
+    assertThat(metricsConfiguration.getConfigMap())
+        .as("Metrics Configuration Map")
+        .containsEntry("otel.metric.export.interval", "10000")
+        .containsEntry("otel.exporter.otlp.metrics.temporality.preference", "delta");
+  }
+
+  @Test
+  public void defaultsToCumulative() {
+    assertThat(new MetricsConfiguration().getConfigMap())
+        .containsEntry("otel.metric.export.interval", "60000")
+        .containsEntry("otel.exporter.otlp.metrics.temporality.preference", "cumulative")
+        .containsEntry("otel.metrics.exemplar.filter", "trace_based");
+  }
+
+  @Test
+  public void getExemplarFilterConfig() {
+    assertThat(new MetricsConfiguration().setExemplarFilter(ExemplarFilterType.ALWAYS_OFF).getConfigMap())
+        .containsEntry("otel.metrics.exemplar.filter", "always_off");
+  }
+
+  @Test
+  public void testEquals() {
+    MetricsConfiguration mc1 = new MetricsConfiguration(1000, MetricsTemporality.DELTA);
+    MetricsConfiguration mc2 = new MetricsConfiguration(1000, MetricsTemporality.DELTA);
+    MetricsConfiguration mc3 = new MetricsConfiguration(1000, MetricsTemporality.LOWMEMORY);
+    assertThat(mc1).hasSameHashCodeAs(mc2).isEqualTo(mc2);
+    assertThat(mc1).doesNotHaveSameHashCodeAs(mc3).isNotEqualTo(mc3);
+  }
+}
@@ -34,4 +34,15 @@ public class OtlpExporterTest {
         .doesNotContainKey(OTEL_EXPORTER_OTLP_COMPRESSION);
   }
 
-}
\ No newline at end of file
+  @Test
+  public void verifyStreamingSpanSerializer() {
+    assertThat(new OtlpExporter("http://localhost", Protocol.HTTP_PROTOBUF, OtlpRequestCompression.NONE,
+        Collections.emptyList()).setStreamingSpanSerializer(true).getExporterProperties())
+        .containsEntry(OTEL_TRACES_EXPORTER_KEY, OTLP_STREAMING)
+        .containsEntry(OTEL_METRICS_EXPORTER_KEY, OTLP);
+    assertThat(new OtlpExporter("http://localhost", Protocol.GRPC, OtlpRequestCompression.NONE,
+        Collections.emptyList()).setStreamingSpanSerializer(true).getExporterProperties())
+        .containsEntry(OTEL_TRACES_EXPORTER_KEY, OTLP);
+  }
+
+}
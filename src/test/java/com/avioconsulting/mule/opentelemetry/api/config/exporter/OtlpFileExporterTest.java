@@ -0,0 +1,35 @@
+package com.avioconsulting.mule.opentelemetry.api.config.exporter;
+
+import org.junit.Test;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.LoggingExporter.OTEL_LOGS_EXPORTER_KEY;
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_METRICS_EXPORTER_KEY;
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_TRACES_EXPORTER_KEY;
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OtlpFileExporter.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OtlpFileExporterTest {
+
+  @Test
+  public void getExporterProperties() {
+    OtlpFileExporter exporter = new OtlpFileExporter();
+    assertThat(exporter.getExporterProperties())
+        .containsEntry(OTEL_TRACES_EXPORTER_KEY, OTLP_FILE)
+        .containsEntry(OTEL_METRICS_EXPORTER_KEY, OTLP_FILE)
+        .containsEntry(OTEL_LOGS_EXPORTER_KEY, "none")
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_MAX_SIZE_KEY, "10485760")
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_ROTATION_INTERVAL_KEY, "3600000ms")
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_MAX_FILES_KEY, "10")
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_COMPRESS_KEY, "false")
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_QUEUE_SIZE_KEY, "2048")
+        .doesNotContainKey(OTEL_EXPORTER_OTLP_FILE_DIRECTORY_KEY);
+  }
+
+  @Test
+  public void getExporterProperties_withDirectory() {
+    OtlpFileExporter exporter = new OtlpFileExporter().setDirectory("/tmp/otel").setCompressRotatedFiles(true);
+    assertThat(exporter.getExporterProperties())
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_DIRECTORY_KEY, "/tmp/otel")
+        .containsEntry(OTEL_EXPORTER_OTLP_FILE_COMPRESS_KEY, "true");
+  }
+}
@@ -1,13 +1,22 @@
 package com.avioconsulting.mule.opentelemetry.internal.config;
 
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricAttribute;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsInstrumentType;
 import com.avioconsulting.mule.opentelemetry.internal.AbstractInternalTest;
 import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.LongCounter;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class CustomMetricInstrumentHolderTest extends AbstractInternalTest {
 
@@ -20,4 +29,37 @@ public class CustomMetricInstrumentHolderTest extends AbstractInternalTest {
         .containsEntry("some.attr.1", AttributeKey.stringKey("some.attr.1"))
         .containsEntry("some.attr.2", AttributeKey.stringKey("some.attr.2"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void buildAttributesWithConfiguredKeys() {
+    CustomMetricInstrumentHolder<LongCounter> holder = new CustomMetricInstrumentHolder<LongCounter>()
+        .setMetricInstrument(new CustomMetricInstrumentDefinition().setMetricName("some.test.instrument")
+            .setAttributeKeys(Collections.singletonList("some.attr.1")));
+    Assertions.assertThat(holder.buildAttributes(null)).isEqualTo(Attributes.empty());
+    Assertions.assertThat(holder.buildAttributes(
+        Collections.singletonList(attribute("some.attr.1", "one"))))
+        .isEqualTo(Attributes.of(AttributeKey.stringKey("some.attr.1"), "one"));
+    Assertions.assertThat(holder.buildAttributes(
+        Collections.singletonList(attribute("some.attr.2", "two"))))
+        .isNull();
+  }
+
+  @Test
+  public void recordOnInstrumentType() {
+    DoubleHistogram histogram = mock(DoubleHistogram.class);
+    CustomMetricInstrumentHolder<DoubleHistogram> holder = new CustomMetricInstrumentHolder<DoubleHistogram>()
+        .setMetricInstrument(new CustomMetricInstrumentDefinition().setMetricName("some.test.instrument")
+            .setInstrumentType(MetricsInstrumentType.HISTOGRAM)
+            .setAttributeKeys(Collections.emptyList()))
+        .setInstrument(histogram);
+    holder.record(42, Attributes.empty());
+    verify(histogram).record(42.0, Attributes.empty());
+  }
+
+  private MetricAttribute attribute(String key, String value) {
+    MetricAttribute attribute = mock(MetricAttribute.class);
+    when(attribute.getKey()).thenReturn(key);
+    when(attribute.getValue()).thenReturn(value);
+    return attribute;
+  }
+}
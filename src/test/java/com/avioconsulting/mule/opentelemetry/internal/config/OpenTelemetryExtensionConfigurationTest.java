@@ -4,6 +4,8 @@ import com.avioconsulting.mule.opentelemetry.api.config.ExporterConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.TraceLevelConfiguration;
 import com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter;
 import com.avioconsulting.mule.opentelemetry.api.config.metrics.CustomMetricInstrumentDefinition;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.HistogramAggregation;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricsInstrumentType;
 import com.avioconsulting.mule.opentelemetry.internal.AbstractInternalTest;
 import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
 import com.avioconsulting.mule.opentelemetry.internal.notifications.listeners.MetricEventNotificationListener;
@@ -21,6 +23,7 @@ import org.mule.runtime.api.exception.MuleRuntimeException;
 import org.mule.runtime.api.notification.NotificationListenerRegistry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -66,6 +69,37 @@ public class OpenTelemetryExtensionConfigurationTest extends AbstractInternalTes
         .hasMessage("Instrument names cannot use reserved namespaces - otel.*");
   }
 
+  @Test
+  public void getMetricInstrumentDefinitionMap_UnorderedBucketBoundaries() {
+    List<CustomMetricInstrumentDefinition> instruments = new ArrayList<>();
+    instruments.add(new CustomMetricInstrumentDefinition().setMetricName("custom.latency")
+        .setInstrumentType(MetricsInstrumentType.HISTOGRAM)
+        .setBucketBoundaries(Arrays.asList(100.0, 50.0)));
+    OpenTelemetryExtensionConfiguration configuration = new OpenTelemetryExtensionConfiguration()
+        .setCustomMetricInstruments(instruments);
+    MuleRuntimeException muleRuntimeException = catchThrowableOfType(
+        () -> configuration.getMetricInstrumentDefinitionMap(), MuleRuntimeException.class);
+    assertThat(muleRuntimeException)
+        .isNotNull()
+        .hasMessage("Bucket boundaries of instrument 'custom.latency' must be in ascending order without duplicates");
+  }
+
+  @Test
+  public void getMetricInstrumentDefinitionMap_TooFewBase2Buckets() {
+    List<CustomMetricInstrumentDefinition> instruments = new ArrayList<>();
+    instruments.add(new CustomMetricInstrumentDefinition().setMetricName("custom.latency")
+        .setInstrumentType(MetricsInstrumentType.HISTOGRAM)
+        .setHistogramAggregation(HistogramAggregation.BASE2_EXPONENTIAL)
+        .setMaxBuckets(1));
+    OpenTelemetryExtensionConfiguration configuration = new OpenTelemetryExtensionConfiguration()
+        .setCustomMetricInstruments(instruments);
+    MuleRuntimeException muleRuntimeException = catchThrowableOfType(
+        () -> configuration.getMetricInstrumentDefinitionMap(), MuleRuntimeException.class);
+    assertThat(muleRuntimeException)
+        .isNotNull()
+        .hasMessage("Max buckets of instrument 'custom.latency' must be at least 2");
+  }
+
   @Test
   public void getMetricInstrumentDefinitionMap() {
     List<CustomMetricInstrumentDefinition> instruments = new ArrayList<>();
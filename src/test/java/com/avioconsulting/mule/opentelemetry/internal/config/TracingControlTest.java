@@ -0,0 +1,96 @@
+package com.avioconsulting.mule.opentelemetry.internal.config;
+
+import com.avioconsulting.mule.opentelemetry.api.config.MuleComponent;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.ReloadableSampler;
+import com.avioconsulting.mule.opentelemetry.internal.processor.MuleNotificationProcessor;
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceLevelDecisions;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.runtime.api.component.location.ConfigurationComponentLocator;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class TracingControlTest {
+
+  private MuleNotificationProcessor muleNotificationProcessor;
+  private ReloadableSampler sampler;
+  private TracingControl tracingControl;
+
+  @Before
+  public void setUp() {
+    muleNotificationProcessor = new MuleNotificationProcessor(mock(ConfigurationComponentLocator.class));
+    muleNotificationProcessor.setTraceLevelDecisions(
+        TraceLevelDecisions.of(false, Collections.singletonList(new MuleComponent("mule", "logger"))));
+    sampler = new ReloadableSampler(Sampler.alwaysOn());
+    tracingControl = new TracingControl(muleNotificationProcessor, sampler);
+  }
+
+  @After
+  public void tearDown() {
+    tracingControl.unregister();
+  }
+
+  @Test
+  public void registerAndInvokeThroughMBeanServer() throws Exception {
+    assertThat(tracingControl.register("test-service", "OpenTelemetry_Config")).isTrue();
+    ObjectName objectName = tracingControl.getObjectName();
+    assertThat(objectName.getKeyProperty("type")).isEqualTo("TracingControl");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    server.invoke(objectName, "update", new Object[] { true, "mule:*", 0.5 },
+        new String[] { boolean.class.getName(), String.class.getName(), double.class.getName() });
+    assertThat(server.getAttribute(objectName, "SpanAllProcessors")).isEqualTo(true);
+    assertThat(server.getAttribute(objectName, "IgnoredComponents")).isEqualTo("mule:*");
+    assertThat(sampler.getRatio()).isEqualTo(0.5);
+    tracingControl.unregister();
+    assertThat(server.isRegistered(objectName)).isFalse();
+  }
+
+  @Test
+  public void setters() {
+    tracingControl.setSpanAllProcessors(true);
+    tracingControl.setIgnoredComponents("os:*");
+    tracingControl.setSamplingRatio(0.25);
+    TraceLevelDecisions decisions = muleNotificationProcessor.getTraceLevelDecisions();
+    assertThat(decisions.isSpanAllProcessors()).isTrue();
+    assertThat(decisions.getIgnoredComponents()).containsExactly(new MuleComponent("os", "*"));
+    assertThat(tracingControl.getSamplingRatio()).isEqualTo(0.25);
+  }
+
+  @Test
+  public void update_invalidValueChangesNothing() {
+    TraceLevelDecisions decisions = muleNotificationProcessor.getTraceLevelDecisions();
+    assertThatThrownBy(() -> tracingControl.update(true, "mule:*", 2))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> tracingControl.update(true, "logger", 0.5))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(muleNotificationProcessor.getTraceLevelDecisions()).isSameAs(decisions);
+    assertThat(sampler.getRatio()).isEqualTo(ReloadableSampler.CONFIGURED);
+  }
+
+  @Test
+  public void reset() {
+    TraceLevelDecisions decisions = muleNotificationProcessor.getTraceLevelDecisions();
+    tracingControl.update(true, "", 0.1);
+    tracingControl.reset();
+    assertThat(muleNotificationProcessor.getTraceLevelDecisions()).isSameAs(decisions);
+    assertThat(sampler.getRatio()).isEqualTo(ReloadableSampler.CONFIGURED);
+  }
+
+  @Test
+  public void samplingRatioWithoutSampler() {
+    TracingControl withoutSampler = new TracingControl(muleNotificationProcessor, null);
+    assertThat(withoutSampler.getSamplingRatio()).isEqualTo(ReloadableSampler.CONFIGURED);
+    assertThatThrownBy(() -> withoutSampler.setSamplingRatio(0.5)).isInstanceOf(IllegalStateException.class);
+    withoutSampler.update(true, "", -1);
+    assertThat(muleNotificationProcessor.getTraceLevelDecisions().isSpanAllProcessors()).isTrue();
+  }
+}
@@ -7,14 +7,49 @@ import com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryEx
 import com.avioconsulting.mule.opentelemetry.internal.AbstractInternalTest;
 import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryConfigWrapper;
 import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryConfiguration;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.MuleSchedulerMetrics;
+import com.avioconsulting.mule.opentelemetry.internal.store.InMemoryTransactionStore;
 import org.junit.Test;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 public class OpenTelemetryConnectionTest extends AbstractInternalTest {
 
   @Test
   public void getInstance() {
+    OpenTelemetryConfigWrapper wrapper = createConfigWrapper();
+    OpenTelemetryResource resource = wrapper.getResource();
+    OpenTelemetryExporter exporter = wrapper.getExporter();
+    SpanProcessorConfiguration spc = wrapper.getSpanProcessorConfiguration();
+    OpenTelemetryConnection instance = OpenTelemetryConnection.getInstance(wrapper);
+    verify(resource).getConfigMap();
+    verify(exporter).getExporterProperties();
+    verify(spc).getConfigMap();
+  }
+
+  @Test
+  public void shutdownInstance() {
+    OpenTelemetryConnection instance = OpenTelemetryConnection.getInstance(createConfigWrapper());
+    InMemoryTransactionStore transactionStore = InMemoryTransactionStore.getInstance();
+    Scheduler scheduler = mock(Scheduler.class);
+    SchedulerService schedulerService = mock(SchedulerService.class);
+    when(schedulerService.cpuLightScheduler()).thenReturn(scheduler);
+    when(schedulerService.ioScheduler()).thenReturn(scheduler);
+    when(schedulerService.cpuIntensiveScheduler()).thenReturn(scheduler);
+    MuleSchedulerMetrics.installMetrics(instance, schedulerService);
+    assertThat(OpenTelemetryConnection.shutdownInstance(5000)).isTrue();
+    assertThat(OpenTelemetryConnection.getInstance()).isNull();
+    assertThat(InMemoryTransactionStore.getInstance()).isNotSameAs(transactionStore);
+    verify(scheduler, times(3)).stop();
+    assertThat(OpenTelemetryConnection.getInstance(createConfigWrapper())).isNotSameAs(instance);
+    assertThat(OpenTelemetryConnection.shutdownInstance(5000)).isTrue();
+    assertThat(OpenTelemetryConnection.shutdownInstance(5000)).isTrue();
+  }
+
+  private static OpenTelemetryConfigWrapper createConfigWrapper() {
     OpenTelemetryResource resource = mock(OpenTelemetryResource.class);
     ExporterConfiguration exporterConfig = mock(ExporterConfiguration.class);
     OpenTelemetryExporter exporter = mock(OpenTelemetryExporter.class);
@@ -24,10 +59,6 @@ public class OpenTelemetryConnectionTest extends AbstractInternalTest {
     when(configuration.getResource()).thenReturn(resource);
     when(configuration.getExporterConfiguration()).thenReturn(exporterConfig);
     when(configuration.getSpanProcessorConfiguration()).thenReturn(spc);
-    OpenTelemetryConfigWrapper wrapper = new OpenTelemetryConfigWrapper(configuration);
-    OpenTelemetryConnection instance = OpenTelemetryConnection.getInstance(wrapper);
-    verify(resource).getConfigMap();
-    verify(exporter).getExporterProperties();
-    verify(spc).getConfigMap();
+    return new OpenTelemetryConfigWrapper(configuration);
   }
 }
\ No newline at end of file
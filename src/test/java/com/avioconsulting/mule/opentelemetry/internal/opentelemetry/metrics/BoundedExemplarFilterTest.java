@@ -0,0 +1,68 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedExemplarFilterTest {
+
+  private static final Context SAMPLED = Context.root().with(Span.wrap(SpanContext.create(
+      "4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", TraceFlags.getSampled(), TraceState.getDefault())));
+
+  @Test
+  public void acceptsUpToLimitPerCycle() {
+    BoundedExemplarFilter filter = new BoundedExemplarFilter(BoundedExemplarFilter.filterFor("trace_based"), 2);
+    assertThat(filter.shouldSampleMeasurement(1L, Attributes.empty(), SAMPLED)).isTrue();
+    assertThat(filter.shouldSampleMeasurement(1.0, Attributes.empty(), SAMPLED)).isTrue();
+    assertThat(filter.shouldSampleMeasurement(1L, Attributes.empty(), SAMPLED)).isFalse();
+    assertThat(filter.getRejectedCount()).isEqualTo(1);
+
+    filter.startCycle();
+    filter.startCycle();
+    assertThat(filter.shouldSampleMeasurement(1L, Attributes.empty(), SAMPLED)).isTrue();
+  }
+
+  @Test
+  public void samplesOverCycleFromPreviousMeasurements() {
+    BoundedExemplarFilter filter = new BoundedExemplarFilter(BoundedExemplarFilter.filterFor("always_on"), 100);
+    for (int i = 0; i < 10_000; i++) {
+      filter.shouldSampleMeasurement(1L, Attributes.empty(), Context.root());
+    }
+    filter.startCycle();
+    assertThat(filter.getSampleRatio()).isEqualTo(0.01);
+
+    int acceptedInLastHalf = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (filter.shouldSampleMeasurement(1L, Attributes.empty(), Context.root()) && i >= 5_000) {
+        acceptedInLastHalf++;
+      }
+    }
+    assertThat(acceptedInLastHalf).as("Measurements late in the cycle are offered").isPositive();
+
+    filter.startCycle();
+    filter.startCycle();
+    assertThat(filter.getSampleRatio()).as("Quiet cycle offers every measurement").isEqualTo(1.0);
+  }
+
+  @Test
+  public void appliesConfiguredFilterFirst() {
+    BoundedExemplarFilter traceBased = new BoundedExemplarFilter(BoundedExemplarFilter.filterFor("TRACE_BASED"),
+        1);
+    assertThat(traceBased.shouldSampleMeasurement(1L, Attributes.empty(), Context.root()))
+        .as("Measurement without a sampled trace").isFalse();
+    assertThat(traceBased.shouldSampleMeasurement(1L, Attributes.empty(), SAMPLED))
+        .as("Rejected measurements do not count to the limit").isTrue();
+    assertThat(traceBased.getRejectedCount()).isZero();
+
+    BoundedExemplarFilter alwaysOff = new BoundedExemplarFilter(BoundedExemplarFilter.filterFor("always_off"), 1);
+    assertThat(alwaysOff.shouldSampleMeasurement(1L, Attributes.empty(), SAMPLED)).isFalse();
+    BoundedExemplarFilter alwaysOn = new BoundedExemplarFilter(BoundedExemplarFilter.filterFor("always_on"), 1);
+    assertThat(alwaysOn.shouldSampleMeasurement(1L, Attributes.empty(), Context.root())).isTrue();
+  }
+}
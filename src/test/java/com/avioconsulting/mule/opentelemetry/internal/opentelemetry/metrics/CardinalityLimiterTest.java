@@ -0,0 +1,66 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import org.junit.Test;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics.CardinalityLimiter.OVERFLOW_ATTRIBUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CardinalityLimiterTest {
+
+  private static final AttributeKey<String> ORDER_ID = AttributeKey.stringKey("org.business.order.id");
+
+  @Test
+  public void foldsNewAttributeSetsIntoOverflowOverLimit() {
+    CardinalityLimiter limiter = new CardinalityLimiter("org.business.order.count", 2, false);
+    assertThat(limiter.limit(order("1"))).isEqualTo(order("1"));
+    assertThat(limiter.limit(order("2"))).isEqualTo(order("2"));
+    assertThat(limiter.limit(order("3"))).isSameAs(OVERFLOW_ATTRIBUTES);
+    assertThat(limiter.limit(order("1"))).as("Seen attributes are recorded as is").isEqualTo(order("1"));
+    assertThat(limiter.getOverflowedCount()).isEqualTo(1);
+
+    limiter.startCycle();
+    assertThat(limiter.limit(order("4"))).as("Cumulative limiter is never reset").isSameAs(OVERFLOW_ATTRIBUTES);
+    assertThat(limiter.getOverflowedCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void resetsEachCycleForDeltaTemporality() {
+    CardinalityLimiter limiter = new CardinalityLimiter("org.business.order.count", 1, true);
+    assertThat(limiter.limit(order("1"))).isEqualTo(order("1"));
+    assertThat(limiter.limit(order("2"))).isSameAs(OVERFLOW_ATTRIBUTES);
+    limiter.startCycle();
+    assertThat(limiter.size()).isZero();
+    assertThat(limiter.limit(order("2"))).isEqualTo(order("2"));
+  }
+
+  @Test
+  public void noLimitWhenNotPositive() {
+    CardinalityLimiter limiter = new CardinalityLimiter("org.business.order.count", 0, false);
+    for (int i = 0; i < 100; i++) {
+      assertThat(limiter.limit(order(String.valueOf(i)))).isEqualTo(order(String.valueOf(i)));
+    }
+    assertThat(limiter.getOverflowedCount()).isZero();
+  }
+
+  @Test
+  public void resetsOnlyDeltaInstrumentTypes() {
+    CardinalityLimiters limiters = new CardinalityLimiters(1).setDeltaTemporality(true);
+    CardinalityLimiter counter = limiters.get("org.business.order.count", InstrumentType.COUNTER);
+    CardinalityLimiter upDownCounter = limiters.get("org.business.order.inflight",
+        InstrumentType.UP_DOWN_COUNTER);
+    assertThat(limiters.get("org.business.order.count", InstrumentType.COUNTER)).isSameAs(counter);
+    counter.limit(order("1"));
+    upDownCounter.limit(order("1"));
+    counter.startCycle();
+    upDownCounter.startCycle();
+    assertThat(counter.size()).isZero();
+    assertThat(upDownCounter.size()).isOne();
+  }
+
+  private Attributes order(String id) {
+    return Attributes.of(ORDER_ID, id);
+  }
+}
@@ -0,0 +1,168 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExporterMetricsTest {
+
+  private TestMetricReader reader;
+  private SdkMeterProvider meterProvider;
+  private ExporterMetrics exporterMetrics;
+
+  @Before
+  public void setUp() {
+    reader = new TestMetricReader();
+    meterProvider = ExporterMetrics.registerViews(SdkMeterProvider.builder()).registerMetricReader(reader)
+        .build();
+    exporterMetrics = new ExporterMetrics();
+  }
+
+  @After
+  public void tearDown() {
+    meterProvider.close();
+  }
+
+  @Test
+  public void recordsExportsOfSpanExporter() {
+    SpanExporter delegate = mock(SpanExporter.class);
+    when(delegate.export(anyCollection())).thenReturn(CompletableResultCode.ofSuccess(),
+        CompletableResultCode.ofFailure());
+    OpenTelemetry openTelemetry = mock(OpenTelemetry.class);
+    when(openTelemetry.getMeter(anyString())).thenAnswer(invocation -> meterProvider.get(invocation.getArgument(0)));
+    exporterMetrics.registerInstruments(openTelemetry);
+    SpanExporter exporter = exporterMetrics.meter(delegate);
+
+    assertThat(exporter.export(spans(3)).isSuccess()).isTrue();
+    assertThat(exporter.export(spans(5)).isSuccess()).isFalse();
+
+    Map<String, MetricData> metrics = collect();
+    Attributes attributes = Attributes.of(ExporterMetrics.SIGNAL, "traces", ExporterMetrics.EXPORTER,
+        delegate.getClass().getSimpleName());
+    HistogramPointData batchSize = metrics.get(ExporterMetrics.BATCH_SIZE).getHistogramData().getPoints()
+        .iterator().next();
+    assertThat(batchSize.getAttributes()).isEqualTo(attributes);
+    assertThat(batchSize.getCount()).isEqualTo(2);
+    assertThat(batchSize.getSum()).isEqualTo(8);
+    assertThat(metrics.get(ExporterMetrics.EXPORT_DURATION).getHistogramData().getPoints())
+        .extracting(point -> point.getAttributes().get(ExporterMetrics.SUCCESS))
+        .containsExactlyInAnyOrder(true, false);
+    LongPointData failures = metrics.get(ExporterMetrics.EXPORT_FAILURES).getLongSumData().getPoints().iterator()
+        .next();
+    assertThat(failures.getAttributes()).isEqualTo(attributes);
+    assertThat(failures.getValue()).isEqualTo(1);
+  }
+
+  @Test
+  public void skipsRecordingUntilInstrumentsAreRegistered() {
+    SpanExporter delegate = mock(SpanExporter.class);
+    when(delegate.export(anyCollection())).thenReturn(CompletableResultCode.ofSuccess());
+    assertThat(exporterMetrics.meter(delegate).export(spans(1)).isSuccess()).isTrue();
+    assertThat(collect()).doesNotContainKeys(ExporterMetrics.BATCH_SIZE, ExporterMetrics.EXPORT_DURATION);
+  }
+
+  @Test
+  public void renamesBatchSpanProcessorMetrics() {
+    SpanExporter delegate = mock(SpanExporter.class);
+    when(delegate.export(anyCollection())).thenReturn(CompletableResultCode.ofSuccess());
+    when(delegate.shutdown()).thenReturn(CompletableResultCode.ofSuccess());
+    SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .addSpanProcessor(BatchSpanProcessor.builder(delegate).setMeterProvider(meterProvider).build()).build();
+    tracerProvider.get("test").spanBuilder("test").startSpan().end();
+    tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+
+    Map<String, MetricData> metrics = collect();
+    assertThat(metrics).containsKeys(ExporterMetrics.QUEUE_SIZE, ExporterMetrics.SPANS_PROCESSED)
+        .doesNotContainKeys("queueSize", "processedSpans");
+    tracerProvider.close();
+  }
+
+  @Test
+  public void recordsModuleBatchSpanProcessorsPerExporter() {
+    SpanExporter delegate = mock(SpanExporter.class);
+    when(delegate.export(anyCollection())).thenReturn(CompletableResultCode.ofSuccess());
+    when(delegate.shutdown()).thenReturn(CompletableResultCode.ofSuccess());
+    SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .addSpanProcessor(BatchSpanProcessor.builder(delegate)
+            .setMeterProvider(exporterMetrics.meterProvider("first")).build())
+        .addSpanProcessor(BatchSpanProcessor.builder(delegate)
+            .setMeterProvider(exporterMetrics.meterProvider("second")).build())
+        .build();
+    OpenTelemetry openTelemetry = mock(OpenTelemetry.class);
+    when(openTelemetry.getMeter(anyString())).thenAnswer(invocation -> meterProvider.get(invocation.getArgument(0)));
+    exporterMetrics.registerInstruments(openTelemetry);
+    tracerProvider.get("test").spanBuilder("test").startSpan().end();
+    tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+
+    Map<String, MetricData> metrics = collect();
+    assertThat(metrics.get(ExporterMetrics.QUEUE_SIZE).getLongGaugeData().getPoints())
+        .extracting(point -> point.getAttributes().get(ExporterMetrics.EXPORTER))
+        .containsExactlyInAnyOrder("first", "second");
+    assertThat(metrics.get(ExporterMetrics.SPANS_PROCESSED).getLongSumData().getPoints())
+        .extracting(point -> point.getAttributes().get(ExporterMetrics.EXPORTER), LongPointData::getValue)
+        .containsExactlyInAnyOrder(tuple("first", 1L), tuple("second", 1L));
+    tracerProvider.close();
+  }
+
+  private Map<String, MetricData> collect() {
+    return reader.registration.collectAllMetrics().stream()
+        .collect(Collectors.toMap(MetricData::getName, Function.identity()));
+  }
+
+  private static Collection<SpanData> spans(int count) {
+    return Collections.nCopies(count, mock(SpanData.class));
+  }
+
+  private static class TestMetricReader implements MetricReader {
+    private CollectionRegistration registration;
+
+    @Override
+    public void register(CollectionRegistration registration) {
+      this.registration = registration;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+      return AggregationTemporality.CUMULATIVE;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class LongGaugeCellsTest {
+
+  private static final AttributeKey<String> QUEUE = AttributeKey.stringKey("org.business.queue");
+
+  @Test
+  public void observesLastValuePerAttributes() {
+    LongGaugeCells cells = new LongGaugeCells();
+    Attributes orders = Attributes.of(QUEUE, "orders");
+    Attributes shipments = Attributes.of(QUEUE, "shipments");
+    cells.set(10, orders);
+    cells.set(4, orders);
+    cells.set(7, shipments);
+
+    ObservableLongMeasurement measurement = mock(ObservableLongMeasurement.class);
+    cells.observe(measurement);
+    verify(measurement).record(4, orders);
+    verify(measurement).record(7, shipments);
+    verifyNoMoreInteractions(measurement);
+  }
+
+  @Test
+  public void removesCellsNotSetSinceLastCollection() {
+    LongGaugeCells cells = new LongGaugeCells();
+    Attributes orders = Attributes.of(QUEUE, "orders");
+    Attributes shipments = Attributes.of(QUEUE, "shipments");
+    cells.set(10, orders);
+    cells.set(7, shipments);
+    cells.observe(mock(ObservableLongMeasurement.class));
+
+    cells.set(12, orders);
+    ObservableLongMeasurement measurement = mock(ObservableLongMeasurement.class);
+    cells.observe(measurement);
+    verify(measurement).record(12, orders);
+    verifyNoMoreInteractions(measurement);
+    assertThat(cells.size()).isEqualTo(1);
+
+    cells.set(3, shipments);
+    measurement = mock(ObservableLongMeasurement.class);
+    cells.observe(measurement);
+    verify(measurement).record(3, shipments);
+    verifyNoMoreInteractions(measurement);
+  }
+}
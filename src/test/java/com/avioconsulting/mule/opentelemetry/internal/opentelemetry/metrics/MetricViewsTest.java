@@ -0,0 +1,195 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricView;
+import com.avioconsulting.mule.opentelemetry.api.config.metrics.MetricViewAggregation;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import org.junit.Test;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class MetricViewsTest {
+
+  private static final AttributeKey<String> FLOW = AttributeKey.stringKey("mule.app.flow.name");
+  private static final AttributeKey<String> CONFIG_REF = AttributeKey.stringKey("mule.app.processor.configRef");
+
+  @Test
+  public void dropsAttributeKeys() {
+    Collection<MetricData> metrics = record(new MetricView("mule.app.processor.request.duration")
+        .setDroppedAttributeKeys(Collections.singletonList(CONFIG_REF.getKey())));
+    assertThat(metrics).hasSize(1);
+    HistogramPointData point = metrics.iterator().next().getHistogramData().getPoints().iterator().next();
+    assertThat(point.getAttributes()).isEqualTo(Attributes.of(FLOW, "order-flow"));
+    assertThat(point.getCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void changesHistogramBuckets() {
+    Collection<MetricData> metrics = record(new MetricView("mule.app.processor.*")
+        .setAggregation(MetricViewAggregation.EXPLICIT_BUCKETS)
+        .setBucketBoundaries(Arrays.asList(10.0, 100.0)));
+    HistogramPointData point = metrics.iterator().next().getHistogramData().getPoints().iterator().next();
+    assertThat(point.getBoundaries()).containsExactly(10.0, 100.0);
+    assertThat(point.getCounts()).containsExactly(0L, 1L, 0L);
+  }
+
+  @Test
+  public void keepsCustomExplicitBucketsWhenDroppingAttributes() {
+    MetricView dropConfigRef = new MetricView("mule.app.processor.request.duration")
+        .setDroppedAttributeKeys(Collections.singletonList(CONFIG_REF.getKey()));
+    Collection<MetricData> metrics = record(Collections.singletonList(dropConfigRef), Collections.emptyMap(),
+        Arrays.asList(10.0, 100.0));
+    assertThat(metrics).hasSize(1);
+    HistogramPointData point = metrics.iterator().next().getHistogramData().getPoints().iterator().next();
+    assertThat(point.getAttributes()).isEqualTo(Attributes.of(FLOW, "order-flow"));
+    assertThat(point.getBoundaries()).containsExactly(10.0, 100.0);
+    assertThat(point.getCounts()).containsExactly(0L, 2L, 0L);
+  }
+
+  @Test
+  public void mergesCustomBase2BucketsIntoViewDroppingAttributes() {
+    MetricView dropConfigRef = new MetricView("mule.app.processor.request.duration")
+        .setDroppedAttributeKeys(Collections.singletonList(CONFIG_REF.getKey()));
+    Collection<MetricData> metrics = record(Collections.singletonList(dropConfigRef),
+        Collections.singletonMap("mule.app.processor.request.duration",
+            Aggregation.base2ExponentialBucketHistogram(4, 20)),
+        null);
+    assertThat(metrics).hasSize(1);
+    MetricData metric = metrics.iterator().next();
+    assertThat(metric.getType()).isEqualTo(MetricDataType.EXPONENTIAL_HISTOGRAM);
+    assertThat(metric.getExponentialHistogramData().getPoints()).extracting(PointData::getAttributes)
+        .containsExactly(Attributes.of(FLOW, "order-flow"));
+  }
+
+  @Test
+  public void registersCustomBucketsOnlyWithoutSelectingView() {
+    Collection<MetricData> wildcard = record(
+        Collections.singletonList(new MetricView("mule.app.processor.*")
+            .setDroppedAttributeKeys(Collections.singletonList(CONFIG_REF.getKey()))),
+        Collections.singletonMap("mule.app.processor.request.duration",
+            Aggregation.base2ExponentialBucketHistogram(4, 20)),
+        null);
+    assertThat(wildcard).hasSize(1);
+    assertThat(wildcard.iterator().next().getType()).isEqualTo(MetricDataType.HISTOGRAM);
+
+    Collection<MetricData> noView = record(Collections.emptyList(),
+        Collections.singletonMap("mule.app.processor.request.duration",
+            Aggregation.base2ExponentialBucketHistogram(4, 20)),
+        null);
+    assertThat(noView).hasSize(1);
+    assertThat(noView.iterator().next().getType()).isEqualTo(MetricDataType.EXPONENTIAL_HISTOGRAM);
+  }
+
+  @Test
+  public void selectsInstrumentsLikeSdk() {
+    assertThat(MetricViews.selects(new MetricView("mule.app.*"), "mule.app.flow.duration")).isTrue();
+    assertThat(MetricViews.selects(new MetricView("MULE.app.flow.duration"), "mule.app.flow.duration")).isTrue();
+    assertThat(MetricViews.selects(new MetricView("mule.app.flow.?uration"), "mule.app.flow.duration")).isTrue();
+    assertThat(MetricViews.selects(new MetricView("mule.app.flow"), "mule.app.flow.duration")).isFalse();
+    assertThat(MetricViews.selects(new MetricView("mule.app.flow.*"), "mule.app.processor.duration")).isFalse();
+  }
+
+  @Test
+  public void dropsInstrument() {
+    assertThat(record(new MetricView("mule.app.processor.request.duration")
+        .setAggregation(MetricViewAggregation.DROP))).isEmpty();
+  }
+
+  @Test
+  public void rejectsInvalidViews() {
+    assertThatThrownBy(() -> MetricViews.createView(new MetricView()))
+        .isInstanceOf(MuleRuntimeException.class);
+    assertThatThrownBy(() -> MetricViews.createView(new MetricView("test")
+        .setAggregation(MetricViewAggregation.EXPLICIT_BUCKETS)
+        .setBucketBoundaries(Arrays.asList(10.0, 1.0))))
+        .isInstanceOf(MuleRuntimeException.class);
+    assertThatThrownBy(() -> MetricViews.createView(new MetricView("test")
+        .setAggregation(MetricViewAggregation.BASE2_EXPONENTIAL)
+        .setMaxBuckets(1)))
+        .isInstanceOf(MuleRuntimeException.class)
+        .hasMessage("Max buckets of metric view 'test' must be at least 2");
+  }
+
+  @Test
+  public void appliesTemporalityPreference() {
+    MetricExporter exporter = mock(MetricExporter.class);
+    assertThat(TemporalityMetricExporter.selectorFor("CUMULATIVE")).isNull();
+    assertThat(new TemporalityMetricExporter(exporter, TemporalityMetricExporter.selectorFor("delta"))
+        .getAggregationTemporality(InstrumentType.COUNTER)).isEqualTo(AggregationTemporality.DELTA);
+    TemporalityMetricExporter lowMemory = new TemporalityMetricExporter(exporter,
+        TemporalityMetricExporter.selectorFor("lowmemory"));
+    assertThat(lowMemory.getAggregationTemporality(InstrumentType.HISTOGRAM))
+        .isEqualTo(AggregationTemporality.DELTA);
+    assertThat(lowMemory.getAggregationTemporality(InstrumentType.UP_DOWN_COUNTER))
+        .isEqualTo(AggregationTemporality.CUMULATIVE);
+  }
+
+  private Collection<MetricData> record(MetricView metricView) {
+    return record(Collections.singletonList(metricView), Collections.emptyMap(), null);
+  }
+
+  private Collection<MetricData> record(List<MetricView> metricViews, Map<String, Aggregation> histogramAggregations,
+      List<Double> bucketBoundariesAdvice) {
+    TestMetricReader reader = new TestMetricReader();
+    SdkMeterProvider meterProvider = MetricViews.register(SdkMeterProvider.builder(), metricViews,
+        histogramAggregations).registerMetricReader(reader).build();
+    DoubleHistogramBuilder histogramBuilder = meterProvider.get("test")
+        .histogramBuilder("mule.app.processor.request.duration");
+    if (bucketBoundariesAdvice != null) {
+      histogramBuilder.setExplicitBucketBoundariesAdvice(bucketBoundariesAdvice);
+    }
+    DoubleHistogram histogram = histogramBuilder.build();
+    histogram.record(50, Attributes.of(FLOW, "order-flow", CONFIG_REF, "HTTP_Config_1"));
+    histogram.record(60, Attributes.of(FLOW, "order-flow", CONFIG_REF, "HTTP_Config_2"));
+    Collection<MetricData> metrics = reader.registration.collectAllMetrics();
+    meterProvider.close();
+    return metrics;
+  }
+
+  private static class TestMetricReader implements MetricReader {
+    private CollectionRegistration registration;
+
+    @Override
+    public void register(CollectionRegistration registration) {
+      this.registration = registration;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+      return AggregationTemporality.CUMULATIVE;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.metrics;
+
+import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
+import org.junit.Test;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MuleSchedulerMetricsTest {
+
+  @Test
+  public void findsExecutorOfScheduler() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>());
+    try {
+      assertThat(MuleSchedulerMetrics.findExecutor(new TestScheduler(executor))).isSameAs(executor);
+      assertThat(MuleSchedulerMetrics.findExecutor(new Object())).isNull();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void probesTaskWaitTime() {
+    Scheduler scheduler = mock(Scheduler.class);
+    List<Runnable> submitted = new ArrayList<>();
+    doAnswer(invocation -> submitted.add(invocation.getArgument(0))).when(scheduler).execute(any(Runnable.class));
+    MuleSchedulerMetrics.Pool pool = new MuleSchedulerMetrics.Pool("CPU_LITE", scheduler);
+
+    assertThat(pool.probe()).as("No probe submitted before").isEqualTo(-1);
+    assertThat(pool.probe()).as("Waiting probe").isGreaterThanOrEqualTo(0);
+    verify(scheduler, times(1)).execute(any(Runnable.class));
+
+    submitted.get(0).run();
+    assertThat(pool.probe()).as("Started probe").isGreaterThanOrEqualTo(0);
+    verify(scheduler, times(2)).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void countsRejectedProbes() {
+    Scheduler scheduler = mock(Scheduler.class);
+    doThrow(new RejectedExecutionException()).when(scheduler).execute(any(Runnable.class));
+    MuleSchedulerMetrics.Pool pool = new MuleSchedulerMetrics.Pool("BLOCKING_IO", scheduler);
+    pool.probe();
+    assertThat(pool.probe()).isEqualTo(-1);
+    assertThat(pool.getRejectedCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void stopsSchedulersWhenUninstalled() {
+    Scheduler cpuLight = mock(Scheduler.class);
+    Scheduler io = mock(Scheduler.class);
+    Scheduler cpuIntensive = mock(Scheduler.class);
+    SchedulerService schedulerService = mock(SchedulerService.class);
+    when(schedulerService.cpuLightScheduler()).thenReturn(cpuLight);
+    when(schedulerService.ioScheduler()).thenReturn(io);
+    when(schedulerService.cpuIntensiveScheduler()).thenReturn(cpuIntensive);
+    OpenTelemetryConnection connection = mock(OpenTelemetryConnection.class);
+    try {
+      MuleSchedulerMetrics.installMetrics(connection, schedulerService);
+      MuleSchedulerMetrics.installMetrics(connection, schedulerService);
+      verify(connection, times(1)).registerMetricsObserver(any(Function.class));
+
+      MuleSchedulerMetrics.uninstallMetrics();
+      verify(cpuLight).stop();
+      verify(io).stop();
+      verify(cpuIntensive).stop();
+
+      MuleSchedulerMetrics.installMetrics(connection, schedulerService);
+      verify(connection, times(2)).registerMetricsObserver(any(Function.class));
+    } finally {
+      MuleSchedulerMetrics.uninstallMetrics();
+    }
+  }
+
+  private static class TestScheduler {
+    private final ExecutorService executor;
+
+    private TestScheduler(ExecutorService executor) {
+      this.executor = executor;
+    }
+  }
+}
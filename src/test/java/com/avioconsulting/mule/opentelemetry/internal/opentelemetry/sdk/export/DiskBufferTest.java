@@ -0,0 +1,75 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DiskBufferTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void readsRecordsInAppendOrderAcrossSegments() throws IOException {
+    DiskBuffer buffer = new DiskBuffer(temporaryFolder.getRoot().toPath(), 1024, 32);
+    for (int i = 0; i < 5; i++) {
+      assertThat(buffer.append(record("batch-" + i))).isTrue();
+    }
+    assertThat(temporaryFolder.getRoot().list()).as("Two records per segment").hasSize(3);
+    for (int i = 0; i < 5; i++) {
+      assertThat(read(buffer.peek())).isEqualTo("batch-" + i);
+      assertThat(read(buffer.peek())).as("Peek doesn't remove").isEqualTo("batch-" + i);
+      buffer.remove();
+    }
+    assertThat(buffer.peek()).isNull();
+    assertThat(buffer.isEmpty()).isTrue();
+    assertThat(temporaryFolder.getRoot().list()).hasSizeLessThanOrEqualTo(1);
+  }
+
+  @Test
+  public void dropsOldestSegmentsWhenFull() throws IOException {
+    // Each record is 8 bytes header + 7 bytes
+    DiskBuffer buffer = new DiskBuffer(temporaryFolder.getRoot().toPath(), 45, 15);
+    for (int i = 0; i < 5; i++) {
+      buffer.append(record("batch-" + i));
+    }
+    assertThat(buffer.getSize()).isLessThanOrEqualTo(45);
+    assertThat(buffer.getDroppedBytes()).isEqualTo(30);
+    assertThat(read(buffer.peek())).isEqualTo("batch-2");
+    assertThat(buffer.append(new byte[64])).as("Larger than the buffer").isFalse();
+  }
+
+  @Test
+  public void replaysSegmentsOfPreviousRun() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    DiskBuffer buffer = new DiskBuffer(directory, 1024, 15);
+    buffer.append(record("batch-0"));
+    buffer.append(record("batch-1"));
+    buffer.append(record("batch-2"));
+    buffer.peek();
+    buffer.remove();
+    buffer.close();
+
+    DiskBuffer reopened = new DiskBuffer(directory, 1024, 15);
+    assertThat(read(reopened.peek())).isEqualTo("batch-1");
+    reopened.remove();
+    reopened.append(record("batch-3"));
+    assertThat(read(reopened.peek())).isEqualTo("batch-2");
+    reopened.remove();
+    assertThat(read(reopened.peek())).isEqualTo("batch-3");
+  }
+
+  private static byte[] record(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String read(byte[] record) {
+    return record == null ? null : new String(record, StandardCharsets.UTF_8);
+  }
+}
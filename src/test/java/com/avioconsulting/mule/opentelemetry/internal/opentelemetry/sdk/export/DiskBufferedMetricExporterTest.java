@@ -0,0 +1,83 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.resources.Resource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DiskBufferedMetricExporterTest {
+
+  private static final Resource RESOURCE = Resource
+      .create(Attributes.of(AttributeKey.stringKey("service.name"), "order-api"));
+  private static final InstrumentationScopeInfo SCOPE = InstrumentationScopeInfo
+      .builder("mule-opentelemetry-module").setVersion("1.0.0").build();
+  private static final Attributes FLOW = Attributes.of(AttributeKey.stringKey("mule.app.flow.name"), "orders");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void replaysBufferedMetrics() throws IOException {
+    MetricExporter delegate = mock(MetricExporter.class);
+    List<MetricData> received = new ArrayList<>();
+    when(delegate.export(anyCollection())).thenReturn(CompletableResultCode.ofFailure());
+    DiskBufferedMetricExporter exporter = new DiskBufferedMetricExporter(delegate,
+        new DiskBuffer(temporaryFolder.getRoot().toPath(), 1024 * 1024, 4096));
+    List<MetricData> metrics = Arrays.asList(
+        ImmutableMetricData.createLongSum(RESOURCE, SCOPE, "mule.app.message.count", "Messages", "1",
+            ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE,
+                Collections.singletonList(ImmutableLongPointData.create(1, 2, FLOW, 42)))),
+        ImmutableMetricData.createDoubleGauge(RESOURCE, SCOPE, "process.cpu.utilization", "CPU", "1",
+            ImmutableGaugeData.create(
+                Collections.singletonList(ImmutableDoublePointData.create(1, 2, Attributes.empty(), 0.25)))),
+        ImmutableMetricData.createDoubleHistogram(RESOURCE, SCOPE, "mule.app.flow.duration", "Duration", "ms",
+            ImmutableHistogramData.create(AggregationTemporality.DELTA,
+                Collections.singletonList(ImmutableHistogramPointData.create(1, 2, FLOW, 30, true, 5, true, 25,
+                    Arrays.asList(10.0, 20.0), Arrays.asList(1L, 0L, 1L))))),
+        ImmutableMetricData.createExponentialHistogram(RESOURCE, SCOPE, "http.server.request.duration",
+            "Duration", "s",
+            ImmutableExponentialHistogramData.create(AggregationTemporality.CUMULATIVE,
+                Collections.singletonList(ImmutableExponentialHistogramPointData.create(2, 3.5, 1, true, 0.5,
+                    true, 3, ImmutableExponentialHistogramBuckets.create(2, -1, Arrays.asList(1L, 2L)),
+                    ImmutableExponentialHistogramBuckets.create(2, 0, Collections.emptyList()), 1, 2, FLOW,
+                    Collections.emptyList())))));
+    assertThat(exporter.export(metrics).isSuccess()).isTrue();
+
+    when(delegate.export(anyCollection())).thenAnswer(invocation -> {
+      received.addAll(invocation.getArgument(0));
+      return CompletableResultCode.ofSuccess();
+    });
+    when(delegate.flush()).thenReturn(CompletableResultCode.ofSuccess());
+    assertThat(exporter.flush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(received).isEqualTo(metrics);
+  }
+}
@@ -0,0 +1,243 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DiskBufferedSpanExporterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private StandInCollector collector;
+  private DiskBufferedSpanExporter exporter;
+
+  @Before
+  public void setUp() throws IOException {
+    collector = new StandInCollector();
+    exporter = new DiskBufferedSpanExporter(collector,
+        new DiskBuffer(temporaryFolder.getRoot().toPath(), 1024 * 1024, 4096), TimeUnit.HOURS.toMillis(1));
+  }
+
+  @Test
+  public void buffersWhileCollectorIsDownAndReplaysInOrder() {
+    collector.allowedRequests = 0;
+    assertThat(exporter.export(spans("span-1")).isSuccess()).isTrue();
+    assertThat(exporter.export(spans("span-2", "span-3")).isSuccess()).isTrue();
+    assertThat(collector.received).isEmpty();
+    assertThat(exporter.getBuffer().isEmpty()).isFalse();
+
+    collector.allowedRequests = Integer.MAX_VALUE;
+    assertThat(exporter.flush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    exporter.export(spans("span-4"));
+    assertThat(collector.received).containsExactly("span-1", "span-2", "span-3", "span-4");
+    assertThat(exporter.getBuffer().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void writesToDiskWithoutExportingWhileBackingOff() {
+    collector.allowedRequests = 0;
+    exporter.export(spans("span-1"));
+    collector.allowedRequests = Integer.MAX_VALUE;
+    exporter.export(spans("span-2"));
+    exporter.export(spans("span-3"));
+    // Only the first failed export reached the collector
+    assertThat(collector.requests).isEqualTo(1);
+    assertThat(collector.received).isEmpty();
+  }
+
+  @Test
+  public void replaysOnReplayThread() {
+    collector.allowedRequests = 0;
+    exporter.export(spans("span-1"));
+    collector.allowedRequests = Integer.MAX_VALUE;
+    exporter.flush().join(10, TimeUnit.SECONDS);
+    assertThat(collector.received).containsExactly("span-1");
+    assertThat(collector.threads).containsExactly(Thread.currentThread().getName(),
+        "otel-disk-buffer-replay-" + temporaryFolder.getRoot().getName());
+  }
+
+  @Test
+  public void stopsReplayBeforeClosingBuffer() throws Exception {
+    CountDownLatch replayStarted = new CountDownLatch(1);
+    StandInCollector blockingCollector = new StandInCollector() {
+      @Override
+      public CompletableResultCode export(Collection<SpanData> exported) {
+        if (!Thread.currentThread().getName().startsWith("otel-disk-buffer-replay-")) {
+          return CompletableResultCode.ofFailure();
+        }
+        replayStarted.countDown();
+        try {
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return CompletableResultCode.ofFailure();
+      }
+    };
+    DiskBufferedSpanExporter blockingExporter = new DiskBufferedSpanExporter(blockingCollector,
+        new DiskBuffer(temporaryFolder.newFolder().toPath(), 1024 * 1024, 4096), TimeUnit.HOURS.toMillis(1));
+    blockingExporter.export(spans("span-1"));
+    blockingExporter.export(spans("span-2"));
+    CompletableResultCode replay = blockingExporter.flush();
+    assertThat(replayStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(blockingExporter.shutdown().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(replay.join(10, TimeUnit.SECONDS).isSuccess()).isFalse();
+    assertThat(blockingCollector.received).isEmpty();
+  }
+
+  @Test
+  public void keepsNewBatchesBehindBufferUntilReplayed() {
+    collector.allowedRequests = 0;
+    exporter.export(spans("span-1"));
+    exporter.export(spans("span-2"));
+    // Collector recovers for one request only, replay stops at the next failure
+    collector.allowedRequests = 1;
+    assertThat(exporter.flush().join(10, TimeUnit.SECONDS).isSuccess()).isFalse();
+    exporter.export(spans("span-3"));
+    assertThat(collector.received).containsExactly("span-1");
+
+    collector.allowedRequests = Integer.MAX_VALUE;
+    assertThat(exporter.flush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(collector.received).containsExactly("span-1", "span-2", "span-3");
+  }
+
+  @Test
+  public void replaysSpanData() {
+    collector.allowedRequests = 0;
+    List<SpanData> original = createSpans();
+    exporter.export(original);
+    collector.allowedRequests = Integer.MAX_VALUE;
+    exporter.flush().join(10, TimeUnit.SECONDS);
+
+    assertThat(collector.spans).hasSize(2);
+    for (int i = 0; i < original.size(); i++) {
+      SpanData expected = original.get(i);
+      SpanData replayed = collector.spans.get(i);
+      assertThat(replayed.getSpanContext()).isEqualTo(expected.getSpanContext());
+      assertThat(replayed.getParentSpanContext()).isEqualTo(expected.getParentSpanContext());
+      assertThat(replayed.getName()).isEqualTo(expected.getName());
+      assertThat(replayed.getKind()).isEqualTo(expected.getKind());
+      assertThat(replayed.getStatus()).isEqualTo(expected.getStatus());
+      assertThat(replayed.getStartEpochNanos()).isEqualTo(expected.getStartEpochNanos());
+      assertThat(replayed.getEndEpochNanos()).isEqualTo(expected.getEndEpochNanos());
+      assertThat(replayed.getAttributes().asMap()).isEqualTo(expected.getAttributes().asMap());
+      assertThat(replayed.getEvents()).isEqualTo(expected.getEvents());
+      assertThat(replayed.getResource()).isEqualTo(expected.getResource());
+      assertThat(replayed.getInstrumentationScopeInfo()).isEqualTo(expected.getInstrumentationScopeInfo());
+    }
+  }
+
+  private List<SpanData> createSpans() {
+    List<SpanData> spans = new ArrayList<>();
+    SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .setResource(Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "order-api")))
+        .addSpanProcessor(SimpleSpanProcessor.create(new StandInCollector() {
+          @Override
+          public CompletableResultCode export(Collection<SpanData> exported) {
+            spans.addAll(exported);
+            return CompletableResultCode.ofSuccess();
+          }
+        }))
+        .build();
+    Tracer tracer = tracerProvider.get("mule-opentelemetry-module", "1.0.0");
+    Span root = tracer.spanBuilder("GET /orders").setSpanKind(SpanKind.SERVER)
+        .setAttribute("http.status_code", 500L)
+        .setAttribute(AttributeKey.stringArrayKey("mule.tags"), Arrays.asList("a", "b"))
+        .startSpan();
+    Span child = tracer.spanBuilder("logger:Logger").setParent(Context.current().with(root))
+        .setAttribute("mule.app.processor.configRef", "Logger")
+        .setAttribute("sampled", true)
+        .startSpan();
+    child.addEvent("retry", Attributes.of(AttributeKey.doubleKey("backoff"), 1.5));
+    child.end();
+    root.setStatus(StatusCode.ERROR, "Internal Server Error");
+    root.end();
+    tracerProvider.close();
+    return spans;
+  }
+
+  private static List<SpanData> spans(String... names) {
+    return Arrays.stream(names).map(name -> {
+      BufferedSpanData span = new BufferedSpanData();
+      span.name = name;
+      span.kind = SpanKind.INTERNAL;
+      span.spanContext = SpanContext.getInvalid();
+      span.parentSpanContext = SpanContext.getInvalid();
+      span.status = StatusData.unset();
+      span.attributes = Attributes.empty();
+      span.events = Collections.emptyList();
+      span.links = Collections.emptyList();
+      span.resource = Resource.empty();
+      span.instrumentationScopeInfo = InstrumentationScopeInfo.empty();
+      return (SpanData) span;
+    }).collect(Collectors.toList());
+  }
+
+  /**
+   * Stands in for an OTLP collector that can go down and come back.
+   */
+  private static class StandInCollector implements SpanExporter {
+    private volatile int allowedRequests = Integer.MAX_VALUE;
+    private volatile int requests;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> exported) {
+      requests++;
+      threads.add(Thread.currentThread().getName());
+      if (allowedRequests == 0) {
+        return CompletableResultCode.ofFailure();
+      }
+      if (allowedRequests != Integer.MAX_VALUE) {
+        allowedRequests--;
+      }
+      spans.addAll(exported);
+      received.addAll(exported.stream().map(SpanData::getName).collect(Collectors.toList()));
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+}
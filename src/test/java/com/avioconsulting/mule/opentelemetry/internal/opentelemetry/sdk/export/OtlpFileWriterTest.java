@@ -0,0 +1,113 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OtlpFileWriterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private OtlpFileWriter writer;
+
+  @After
+  public void tearDown() {
+    if (writer != null) {
+      writer.shutdown().join(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void flushWritesQueuedLines() throws IOException {
+    writer = new OtlpFileWriter("traces", settings(1024 * 1024, 0, 10, false));
+    assertThat(writer.write(line("first"))).isTrue();
+    assertThat(writer.write(line("second"))).isTrue();
+    assertThat(writer.flush().join(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(Files.readAllLines(writer.getActiveFile(), StandardCharsets.UTF_8)).containsExactly("first",
+        "second");
+  }
+
+  @Test
+  public void rotatesOnSizeAndKeepsLatestFiles() throws IOException {
+    writer = new OtlpFileWriter("traces", settings(20, 0, 2, false));
+    for (int i = 0; i < 5; i++) {
+      writer.write(line("line-" + i + "-0123456789"));
+      writer.flush().join(5, TimeUnit.SECONDS);
+    }
+    assertThat(Files.readAllLines(writer.getActiveFile(), StandardCharsets.UTF_8))
+        .containsExactly("line-4-0123456789");
+    List<Path> rotated = rotatedFiles(".jsonl");
+    assertThat(rotated).hasSize(2);
+    assertThat(Files.readAllLines(rotated.get(0), StandardCharsets.UTF_8)).containsExactly("line-2-0123456789");
+    assertThat(Files.readAllLines(rotated.get(1), StandardCharsets.UTF_8)).containsExactly("line-3-0123456789");
+  }
+
+  @Test
+  public void compressesRotatedFiles() throws IOException {
+    writer = new OtlpFileWriter("metrics", settings(10, 0, 10, true));
+    writer.write(line("first-line"));
+    writer.flush().join(5, TimeUnit.SECONDS);
+    writer.write(line("second-line"));
+    writer.flush().join(5, TimeUnit.SECONDS);
+    List<Path> rotated = rotatedFiles(".jsonl.gz");
+    assertThat(rotated).hasSize(1);
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(Files.newInputStream(rotated.get(0))), StandardCharsets.UTF_8))) {
+      assertThat(reader.readLine()).isEqualTo("first-line");
+    }
+    assertThat(rotatedFiles(".jsonl")).isEmpty();
+  }
+
+  @Test
+  public void rotatesOnInterval() throws Exception {
+    writer = new OtlpFileWriter("traces", settings(1024 * 1024, 100, 10, false));
+    writer.write(line("first"));
+    writer.flush().join(5, TimeUnit.SECONDS);
+    long deadline = System.currentTimeMillis() + 5000;
+    while (rotatedFiles(".jsonl").isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertThat(rotatedFiles(".jsonl")).hasSize(1);
+  }
+
+  @Test
+  public void dropsLinesAfterShutdown() {
+    writer = new OtlpFileWriter("traces", settings(1024 * 1024, 0, 10, false));
+    assertThat(writer.shutdown().join(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(writer.write(line("late"))).isFalse();
+    assertThat(writer.getDroppedCount()).isEqualTo(1);
+  }
+
+  private OtlpFileSettings settings(long maxFileSize, long rotationIntervalMillis, int maxRotatedFiles,
+      boolean compress) {
+    return new OtlpFileSettings(temporaryFolder.getRoot().toPath(), maxFileSize, rotationIntervalMillis,
+        maxRotatedFiles, compress, 16);
+  }
+
+  private List<Path> rotatedFiles(String extension) throws IOException {
+    try (Stream<Path> files = Files.list(temporaryFolder.getRoot().toPath())) {
+      return files.filter(path -> path.getFileName().toString().contains("-")
+          && path.getFileName().toString().endsWith(extension)).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static byte[] line(String value) {
+    return (value + "\n").getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,115 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OtlpJsonEncoderTest {
+
+  @Test
+  public void encodeSpans() {
+    List<SpanData> spans = new ArrayList<>();
+    SpanExporter capture = new SpanExporter() {
+      @Override
+      public CompletableResultCode export(Collection<SpanData> batch) {
+        spans.addAll(batch);
+        return CompletableResultCode.ofSuccess();
+      }
+
+      @Override
+      public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+      }
+
+      @Override
+      public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+      }
+    };
+    try (SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .setResource(Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "test-app")))
+        .addSpanProcessor(SimpleSpanProcessor.create(capture)).build()) {
+      Span span = tracerProvider.get("test-scope").spanBuilder("flow \"main\"").setSpanKind(SpanKind.SERVER)
+          .setAttribute("count", 42L).startSpan();
+      span.setStatus(StatusCode.ERROR, "failed");
+      span.end();
+    }
+
+    String json = encoded(OtlpJsonEncoder.encodeSpans(spans));
+    SpanData span = spans.get(0);
+    assertThat(json).startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":[")
+        .contains("{\"key\":\"service.name\",\"value\":{\"stringValue\":\"test-app\"}}")
+        .contains("\"scope\":{\"name\":\"test-scope\"}")
+        .contains("\"traceId\":\"" + span.getTraceId() + "\"")
+        .contains("\"spanId\":\"" + span.getSpanId() + "\"")
+        .contains("\"name\":\"flow \\\"main\\\"\"")
+        .contains("\"kind\":2")
+        .contains("\"startTimeUnixNano\":\"" + span.getStartEpochNanos() + "\"")
+        .contains("{\"key\":\"count\",\"value\":{\"intValue\":\"42\"}}")
+        .contains("\"status\":{\"message\":\"failed\",\"code\":2}")
+        .endsWith("}\n")
+        .doesNotContain("parentSpanId");
+    assertThat(json.indexOf('\n')).isEqualTo(json.length() - 1);
+  }
+
+  @Test
+  public void encodeMetrics() {
+    Resource resource = Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "test-app"));
+    InstrumentationScopeInfo scope = InstrumentationScopeInfo.create("test-scope");
+    Attributes flow = Attributes.of(AttributeKey.stringKey("flow"), "main");
+    List<MetricData> metrics = Arrays.asList(
+        ImmutableMetricData.createLongSum(resource, scope, "requests", "Requests", "1",
+            ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE,
+                Collections.singletonList(ImmutableLongPointData.create(1, 2, flow, 3)))),
+        ImmutableMetricData.createDoubleHistogram(resource, scope, "duration", "Duration", "ms",
+            ImmutableHistogramData.create(AggregationTemporality.DELTA,
+                Collections.singletonList(ImmutableHistogramPointData.create(1, 2, flow, 1.5, false, 0, false,
+                    0, Collections.singletonList(10.0), Arrays.asList(1L, 0L))))));
+
+    String json = encoded(OtlpJsonEncoder.encodeMetrics(metrics));
+    assertThat(json).startsWith("{\"resourceMetrics\":[{\"resource\":")
+        .contains("\"scope\":{\"name\":\"test-scope\"}")
+        .contains("\"name\":\"requests\",")
+        .contains("\"sum\":{\"dataPoints\":[{")
+        .contains("\"asInt\":\"3\"")
+        .contains("\"aggregationTemporality\":2")
+        .contains("\"isMonotonic\":true")
+        .contains("\"histogram\":{\"dataPoints\":[{")
+        .contains("\"sum\":1.5")
+        .contains("\"bucketCounts\":[\"1\",\"0\"]")
+        .contains("\"explicitBounds\":[10]")
+        .contains("\"aggregationTemporality\":1")
+        .contains("{\"key\":\"flow\",\"value\":{\"stringValue\":\"main\"}}");
+    assertThat(json.indexOf("\"resource\":")).isEqualTo(json.lastIndexOf("\"resource\":"));
+  }
+
+  private static String encoded(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,140 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OtlpProtoSpanEncoderTest {
+
+  private final List<SpanData> spans = new ArrayList<>();
+  private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+      .setResource(Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "test-app",
+          AttributeKey.longKey("worker"), 1L)))
+      .addSpanProcessor(SimpleSpanProcessor.create(new SpanExporter() {
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+          spans.addAll(batch);
+          return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+          return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+          return CompletableResultCode.ofSuccess();
+        }
+      })).build();
+  private final DirectBufferPool bufferPool = new DirectBufferPool(1);
+  private final OtlpProtoSpanEncoder encoder = new OtlpProtoSpanEncoder(bufferPool);
+
+  @After
+  public void tearDown() {
+    tracerProvider.close();
+  }
+
+  @Test
+  public void encodesSameBytesAsOtlpMarshaler() throws IOException {
+    SpanContext remoteParent = SpanContext.createFromRemoteParent("0af7651916cd43dd8448eb211c80319c",
+        "b7ad6b7169203331", TraceFlags.getSampled(),
+        TraceState.builder().put("vendor", "value").build());
+    Span flow = tracerProvider.get("mule", "1.0").spanBuilder("order-flow")
+        .setParent(Context.root().with(Span.wrap(remoteParent))).setSpanKind(SpanKind.SERVER)
+        .setAttribute("mule.correlationId", "c0rr-é中😀")
+        .setAttribute("http.status_code", 200L)
+        .setAttribute("negative", -5L)
+        .setAttribute("ratio", 0.25)
+        .setAttribute("sampled", true)
+        .setAttribute("empty", "")
+        .setAttribute(AttributeKey.stringArrayKey("tags"), Arrays.asList("a", "", "ü"))
+        .setAttribute(AttributeKey.longArrayKey("codes"), Arrays.asList(1L, 300L))
+        .setAttribute(AttributeKey.doubleArrayKey("weights"), Arrays.asList(1.5, 0.0))
+        .setAttribute(AttributeKey.booleanArrayKey("flags"), Arrays.asList(true, false))
+        .addLink(SpanContext.create("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7",
+            TraceFlags.getDefault(), TraceState.getDefault()), Attributes.of(AttributeKey.stringKey("link"), "x"))
+        .startSpan();
+    flow.addEvent("retry", Attributes.of(AttributeKey.longKey("attempt"), 2L));
+    flow.addEvent("", Attributes.empty(), 0, TimeUnit.NANOSECONDS);
+    tracerProvider.get("mule", "1.0").spanBuilder("").setParent(Context.root().with(flow))
+        .startSpan().end();
+    flow.setStatus(StatusCode.ERROR, "failed");
+    flow.end();
+    Span ok = tracerProvider.get("mule", "1.0").spanBuilder("ok").setSpanKind(SpanKind.CLIENT).startSpan();
+    ok.setStatus(StatusCode.OK);
+    ok.end();
+
+    assertThat(encoded(spans)).isEqualTo(marshaled(spans));
+    // Cached key, resource and scope encodings give the same bytes again
+    assertThat(encoded(spans)).isEqualTo(marshaled(spans));
+    assertThat(bufferPool.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void encodesSpansOfSeveralScopes() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      tracerProvider.get("scope-" + i).spanBuilder("span-" + i).setAttribute("index", (long) i)
+          .startSpan().end();
+    }
+    tracerProvider.get("scope-0").spanBuilder("span-3").startSpan().end();
+
+    // Stock marshaler groups scopes in hash order, so only the size compares
+    assertThat(encoded(spans)).hasSameSizeAs(marshaled(spans));
+    assertThat(encoded(spans.subList(0, 1))).isEqualTo(marshaled(spans.subList(0, 1)));
+  }
+
+  @Test
+  public void varintAndUtf8Sizes() {
+    assertThat(OtlpProtoSpanEncoder.varintSize(0)).isEqualTo(1);
+    assertThat(OtlpProtoSpanEncoder.varintSize(127)).isEqualTo(1);
+    assertThat(OtlpProtoSpanEncoder.varintSize(128)).isEqualTo(2);
+    assertThat(OtlpProtoSpanEncoder.varintSize(-1)).isEqualTo(10);
+    String value = "aé中😀\ud83d";
+    assertThat(OtlpProtoSpanEncoder.utf8Length(value))
+        .isEqualTo(value.getBytes(java.nio.charset.StandardCharsets.UTF_8).length);
+  }
+
+  private byte[] encoded(List<SpanData> batch) {
+    ByteBuffer buffer = encoder.encode(batch);
+    try {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    } finally {
+      bufferPool.release(buffer);
+    }
+  }
+
+  private static byte[] marshaled(List<SpanData> batch) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TraceRequestMarshaler.create(batch).writeBinaryTo(out);
+    return out.toByteArray();
+  }
+}
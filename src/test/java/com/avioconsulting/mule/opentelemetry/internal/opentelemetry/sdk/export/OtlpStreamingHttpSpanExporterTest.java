@@ -0,0 +1,141 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OtlpStreamingHttpSpanExporterTest {
+
+  private HttpServer collector;
+  private volatile int responseStatus = 200;
+  private volatile String contentType;
+  private volatile String authorization;
+  private volatile byte[] received;
+
+  @Before
+  public void setUp() throws IOException {
+    collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    collector.createContext("/v1/traces", exchange -> {
+      contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+      authorization = exchange.getRequestHeaders().getFirst("Authorization");
+      InputStream in = exchange.getRequestBody();
+      if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+        in = new GZIPInputStream(in);
+      }
+      received = readAll(in);
+      exchange.sendResponseHeaders(responseStatus, -1);
+      exchange.close();
+    });
+    collector.start();
+  }
+
+  @After
+  public void tearDown() {
+    collector.stop(0);
+  }
+
+  @Test
+  public void postsProtobufRequest() throws IOException {
+    List<SpanData> spans = spans();
+    OtlpStreamingHttpSpanExporter exporter = exporter(false);
+
+    assertThat(exporter.export(spans).join(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(contentType).isEqualTo("application/x-protobuf");
+    assertThat(authorization).isEqualTo("Bearer token");
+    assertThat(received).isEqualTo(marshaled(spans));
+  }
+
+  @Test
+  public void postsGzipRequest() throws IOException {
+    List<SpanData> spans = spans();
+
+    assertThat(exporter(true).export(spans).join(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(received).isEqualTo(marshaled(spans));
+  }
+
+  @Test
+  public void failsOnErrorStatusAndAfterShutdown() {
+    OtlpStreamingHttpSpanExporter exporter = exporter(false);
+    responseStatus = 503;
+    assertThat(exporter.export(spans()).join(5, TimeUnit.SECONDS).isSuccess()).isFalse();
+
+    responseStatus = 200;
+    exporter.shutdown();
+    assertThat(exporter.export(spans()).join(5, TimeUnit.SECONDS).isSuccess()).isFalse();
+  }
+
+  private OtlpStreamingHttpSpanExporter exporter(boolean gzip) {
+    try {
+      return new OtlpStreamingHttpSpanExporter(
+          new URL("http://localhost:" + collector.getAddress().getPort() + "/v1/traces"),
+          Collections.singletonMap("Authorization", "Bearer token"), gzip, Duration.ofSeconds(5));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static List<SpanData> spans() {
+    List<SpanData> spans = new ArrayList<>();
+    try (SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .addSpanProcessor(SimpleSpanProcessor.create(new SpanExporter() {
+          @Override
+          public CompletableResultCode export(Collection<SpanData> batch) {
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+          }
+
+          @Override
+          public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+          }
+
+          @Override
+          public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+          }
+        })).build()) {
+      for (int i = 0; i < 50; i++) {
+        tracerProvider.get("test").spanBuilder("span-" + i).setAttribute("index", (long) i).startSpan().end();
+      }
+    }
+    return spans;
+  }
+
+  private static byte[] marshaled(List<SpanData> spans) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TraceRequestMarshaler.create(spans).writeBinaryTo(out);
+    return out.toByteArray();
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,84 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferSpanExporterTest {
+
+  private final RingBufferSpanExporter exporter = new RingBufferSpanExporter(4);
+  private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+      .addSpanProcessor(SimpleSpanProcessor.create(exporter)).build();
+  private final Tracer tracer = tracerProvider.get("test");
+
+  @After
+  public void tearDown() {
+    tracerProvider.close();
+  }
+
+  @Test
+  public void capacityIsRoundedUpToPowerOfTwo() {
+    assertThat(new RingBufferSpanExporter(3).getCapacity()).isEqualTo(4);
+    assertThat(new RingBufferSpanExporter(0).getCapacity()).isEqualTo(1);
+    assertThat(new RingBufferSpanExporter(Integer.MAX_VALUE).getCapacity())
+        .isEqualTo(RingBufferSpanExporter.MAX_CAPACITY);
+  }
+
+  @Test
+  public void keepsMostRecentSpansNewestFirst() {
+    for (int i = 0; i < 6; i++) {
+      span("span-" + i, null, 1);
+    }
+    assertThat(exporter.query(null, null, 0, 10)).extracting(SpanRecord::getName)
+        .containsExactly("span-5", "span-4", "span-3", "span-2");
+    assertThat(exporter.query(null, null, 0, 2)).extracting(SpanRecord::getName)
+        .containsExactly("span-5", "span-4");
+  }
+
+  @Test
+  public void queryByTraceFlowAndDuration() {
+    Span flow = tracer.spanBuilder("flow").setAttribute(MULE_APP_FLOW_NAME, "order-flow")
+        .setStartTimestamp(1000, TimeUnit.MILLISECONDS).startSpan();
+    tracer.spanBuilder("processor").setParent(Context.root().with(flow))
+        .setStartTimestamp(1000, TimeUnit.MILLISECONDS).startSpan().end(1005, TimeUnit.MILLISECONDS);
+    flow.end(1500, TimeUnit.MILLISECONDS);
+    span("other", "other-flow", 800);
+
+    String traceId = flow.getSpanContext().getTraceId();
+    assertThat(exporter.query(traceId.toUpperCase(), null, 0, 10)).extracting(SpanRecord::getName)
+        .containsExactly("flow", "processor");
+    assertThat(exporter.query(null, "order-flow", 0, 10)).extracting(SpanRecord::getName)
+        .containsExactly("flow");
+    assertThat(exporter.query(null, null, TimeUnit.MILLISECONDS.toNanos(500), 10))
+        .extracting(SpanRecord::getName).containsExactly("other", "flow");
+
+    List<SpanRecord> processor = exporter.query(traceId, null, 0, 10);
+    assertThat(processor.get(1).getParentSpanId()).isEqualTo(flow.getSpanContext().getSpanId());
+    Map<String, Object> map = processor.get(0).toMap();
+    assertThat(map).containsEntry("traceId", traceId).containsEntry("name", "flow")
+        .containsEntry("kind", "INTERNAL").containsEntry("durationMillis", 500.0)
+        .containsEntry("startTime", "1970-01-01T00:00:01Z").containsEntry("parentSpanId", null);
+    assertThat((Map<String, Object>) map.get("attributes")).containsEntry("mule.app.flow.name", "order-flow");
+  }
+
+  private void span(String name, String flowName, long durationMillis) {
+    SpanBuilder builder = tracer.spanBuilder(name)
+        .setStartTimestamp(1000, TimeUnit.MILLISECONDS);
+    if (flowName != null) {
+      builder.setAttribute(MULE_APP_FLOW_NAME, flowName);
+    }
+    builder.startSpan().end(1000 + durationMillis, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,85 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.AdditionalExporter;
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.GenericExporter;
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.LoggingExporter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.avioconsulting.mule.opentelemetry.api.config.exporter.OpenTelemetryExporter.OTEL_TRACES_EXPORTER_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AdditionalSpanProcessorsTest {
+
+  @Test
+  public void createsBatchProcessorPerExporter() {
+    List<SpanExporter> created = new ArrayList<>();
+    Function<SpanExporter, SpanExporter> customizer = exporter -> {
+      created.add(exporter);
+      return exporter;
+    };
+    SpanProcessor processor = create(new AdditionalExporter(new LoggingExporter()), customizer);
+    assertThat(processor).isInstanceOf(BatchSpanProcessor.class);
+    assertThat(created).hasSize(1).first().isInstanceOf(LoggingSpanExporter.class);
+    processor.shutdown();
+  }
+
+  @Test
+  public void wrapsProcessorInSamplingRatio() {
+    SpanProcessor processor = create(new AdditionalExporter(new LoggingExporter()).setSamplingRatio(0.25),
+        Function.identity());
+    assertThat(processor).isInstanceOf(TraceIdRatioSpanProcessor.class);
+    processor.shutdown();
+  }
+
+  @Test
+  public void skipsExportersWithoutSpans() {
+    GenericExporter noTraces = new GenericExporter();
+    noTraces.setConfigProperties(Collections.singletonMap(OTEL_TRACES_EXPORTER_KEY, "none"));
+    assertThat(create(new AdditionalExporter(noTraces), Function.identity())).isNull();
+    assertThat(create(new AdditionalExporter(new LoggingExporter()).setSamplingRatio(0), Function.identity()))
+        .isNull();
+    assertThat(create(new AdditionalExporter(), Function.identity())).isNull();
+  }
+
+  @Test
+  public void passesOnlySpansOfTracesInRatio() {
+    SpanProcessor delegate = mock(SpanProcessor.class);
+    TraceIdRatioSpanProcessor processor = new TraceIdRatioSpanProcessor(delegate, new TraceIdRatio(0.5));
+    ReadableSpan inRatio = span("00000000000000000000000000000001");
+    ReadableSpan outOfRatio = span("00000000000000007fffffffffffffff");
+    processor.onEnd(inRatio);
+    processor.onEnd(outOfRatio);
+    verify(delegate).onEnd(inRatio);
+    verify(delegate, never()).onEnd(outOfRatio);
+  }
+
+  private static SpanProcessor create(AdditionalExporter additionalExporter,
+      Function<SpanExporter, SpanExporter> customizer) {
+    return AdditionalSpanProcessors.create(additionalExporter,
+        DefaultConfigProperties.createFromMap(Collections.singletonMap("otel.service.name", "test-app")),
+        AdditionalSpanProcessorsTest.class.getClassLoader(), customizer, exporter -> MeterProvider.noop());
+  }
+
+  private static ReadableSpan span(String traceId) {
+    ReadableSpan span = mock(ReadableSpan.class);
+    when(span.getSpanContext()).thenReturn(
+        SpanContext.create(traceId, "0000000000000001", TraceFlags.getSampled(), TraceState.getDefault()));
+    return span;
+  }
+}
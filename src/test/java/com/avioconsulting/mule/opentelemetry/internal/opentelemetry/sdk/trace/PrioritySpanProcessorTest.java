@@ -0,0 +1,110 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.SpanDropPolicy;
+import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrioritySpanProcessorTest {
+
+  private final List<SpanData> exported = new CopyOnWriteArrayList<>();
+  private SdkTracerProvider tracerProvider;
+  private PrioritySpanProcessor processor;
+  private Tracer tracer;
+
+  private void setUp(SpanDropPolicy dropPolicy) {
+    // Large batch and delay so nothing is exported until flushed
+    processor = new PrioritySpanProcessor(new SpanExporter() {
+      @Override
+      public CompletableResultCode export(Collection<SpanData> spans) {
+        exported.addAll(spans);
+        return CompletableResultCode.ofSuccess();
+      }
+
+      @Override
+      public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+      }
+
+      @Override
+      public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+      }
+    }, new SpanProcessorConfiguration(2, 100, 60_000, 1000)
+        .setPriorityLanesEnabled(true)
+        .setPriorityQueueSize(2)
+        .setDropPolicy(dropPolicy));
+    tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+    tracer = tracerProvider.get("test");
+  }
+
+  @After
+  public void tearDown() {
+    tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void errorSpansAreNotDroppedWithProcessorSpans() {
+    setUp(SpanDropPolicy.DROP_NEWEST);
+    Span root = tracer.spanBuilder("root").startSpan();
+    Context rootContext = Context.root().with(root);
+    for (int i = 0; i < 5; i++) {
+      tracer.spanBuilder("processor-" + i).setParent(rootContext).startSpan().end();
+    }
+    tracer.spanBuilder("failed").setParent(rootContext).startSpan().setStatus(StatusCode.ERROR).end();
+    root.end();
+
+    assertThat(processor.getBestEffortQueuedCount()).isEqualTo(2);
+    assertThat(processor.getBestEffortDroppedCount()).isEqualTo(3);
+    assertThat(processor.getPriorityQueuedCount()).isEqualTo(2);
+    assertThat(processor.getPriorityDroppedCount()).isZero();
+
+    processor.forceFlush().join(5, TimeUnit.SECONDS);
+    assertThat(names()).containsExactly("failed", "root", "processor-0", "processor-1");
+  }
+
+  @Test
+  public void dropOldest() {
+    setUp(SpanDropPolicy.DROP_OLDEST);
+    Context rootContext = Context.root().with(tracer.spanBuilder("root").startSpan());
+    for (int i = 0; i < 5; i++) {
+      tracer.spanBuilder("processor-" + i).setParent(rootContext).startSpan().end();
+    }
+    assertThat(processor.getBestEffortDroppedCount()).isEqualTo(3);
+    processor.forceFlush().join(5, TimeUnit.SECONDS);
+    assertThat(names()).containsExactly("processor-3", "processor-4");
+  }
+
+  @Test
+  public void dropNonErrorFirst() {
+    setUp(SpanDropPolicy.DROP_NON_ERROR_FIRST);
+    tracer.spanBuilder("root-0").startSpan().end();
+    tracer.spanBuilder("error-0").startSpan().setStatus(StatusCode.ERROR).end();
+    tracer.spanBuilder("error-1").startSpan().setStatus(StatusCode.ERROR).end();
+    tracer.spanBuilder("error-2").startSpan().setStatus(StatusCode.ERROR).end();
+
+    assertThat(processor.getPriorityDroppedCount()).isEqualTo(2);
+    processor.forceFlush().join(5, TimeUnit.SECONDS);
+    assertThat(names()).containsExactly("error-0", "error-1");
+  }
+
+  private List<String> names() {
+    return exported.stream().map(SpanData::getName).collect(Collectors.toList());
+  }
+}
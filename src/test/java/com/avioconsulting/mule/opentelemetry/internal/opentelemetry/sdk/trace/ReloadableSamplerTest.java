@@ -0,0 +1,55 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReloadableSamplerTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+  private final ReloadableSampler sampler = new ReloadableSampler(Sampler.alwaysOff());
+
+  @Test
+  public void usesConfiguredSamplerByDefault() {
+    assertThat(sampler.getRatio()).isEqualTo(ReloadableSampler.CONFIGURED);
+    assertThat(decide()).isEqualTo(SamplingDecision.DROP);
+  }
+
+  @Test
+  public void setRatio() {
+    sampler.setRatio(1.0);
+    assertThat(sampler.getRatio()).isEqualTo(1.0);
+    assertThat(decide()).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+    sampler.setRatio(0.0);
+    assertThat(decide()).isEqualTo(SamplingDecision.DROP);
+  }
+
+  @Test
+  public void negativeRatioRestoresConfiguredSampler() {
+    sampler.setRatio(1.0);
+    sampler.setRatio(-1);
+    assertThat(sampler.getRatio()).isEqualTo(ReloadableSampler.CONFIGURED);
+    assertThat(sampler.getActive()).isSameAs(Sampler.alwaysOff());
+  }
+
+  @Test
+  public void invalidRatio() {
+    assertThatThrownBy(() -> sampler.setRatio(1.5)).isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Sampling ratio must be between 0 and 1, found 1.5");
+    assertThat(sampler.getRatio()).isEqualTo(ReloadableSampler.CONFIGURED);
+  }
+
+  private SamplingDecision decide() {
+    return sampler.shouldSample(Context.root(), TRACE_ID, "span", SpanKind.SERVER, Attributes.empty(),
+        Collections.emptyList()).getDecision();
+  }
+}
@@ -0,0 +1,86 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRule;
+import com.avioconsulting.mule.opentelemetry.api.config.sampling.SamplingRuleMatch;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_NAME;
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_SOURCE_NAMESPACE;
+import static io.opentelemetry.semconv.SemanticAttributes.HTTP_ROUTE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleBasedSamplerTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+  private final RuleBasedSampler sampler = new RuleBasedSampler(Arrays.asList(
+      new SamplingRule(SamplingRuleMatch.FLOW_NAME, "health-check-flow").setRatio(0.0),
+      new SamplingRule(SamplingRuleMatch.HTTP_ROUTE, "/api/payments").setRatio(1.0),
+      new SamplingRule(SamplingRuleMatch.SOURCE_NAMESPACE, "scheduler").setRatio(0.0)),
+      Sampler.alwaysOn());
+
+  @Test
+  public void flowNameRuleTakesPrecedence() {
+    Attributes attributes = Attributes.of(MULE_APP_FLOW_NAME, "health-check-flow", HTTP_ROUTE, "/api/payments");
+    assertThat(decide(Context.root(), attributes)).isEqualTo(SamplingDecision.DROP);
+  }
+
+  @Test
+  public void httpRouteRule() {
+    Attributes attributes = Attributes.of(MULE_APP_FLOW_NAME, "payments-flow", HTTP_ROUTE, "/api/payments");
+    assertThat(decide(Context.root(), attributes)).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+  }
+
+  @Test
+  public void sourceNamespaceRule() {
+    Attributes attributes = Attributes.of(MULE_APP_FLOW_NAME, "poller-flow", MULE_APP_FLOW_SOURCE_NAMESPACE,
+        "scheduler");
+    assertThat(decide(Context.root(), attributes)).isEqualTo(SamplingDecision.DROP);
+  }
+
+  @Test
+  public void unmatchedRootUsesDelegate() {
+    RuleBasedSampler dropByDefault = new RuleBasedSampler(Collections.emptyList(), Sampler.alwaysOff());
+    assertThat(dropByDefault.shouldSample(Context.root(), TRACE_ID, "span", SpanKind.SERVER,
+        Attributes.of(MULE_APP_FLOW_NAME, "other-flow"), Collections.emptyList()).getDecision())
+            .isEqualTo(SamplingDecision.DROP);
+  }
+
+  @Test
+  public void localChildFollowsParent() {
+    Context notSampledParent = Context.root().with(Span.wrap(SpanContext.create(TRACE_ID, "00f067aa0ba902b7",
+        TraceFlags.getDefault(), TraceState.getDefault())));
+    Attributes attributes = Attributes.of(MULE_APP_FLOW_NAME, "payments-flow", HTTP_ROUTE, "/api/payments");
+    assertThat(decide(notSampledParent, attributes)).isEqualTo(SamplingDecision.DROP);
+  }
+
+  @Test
+  public void rateLimitingSamplerRefillsOverTime() {
+    AtomicLong clock = new AtomicLong(0);
+    RateLimitingSampler rateLimiter = new RateLimitingSampler(2, clock::get);
+    assertThat(rateLimiter.tryAcquire()).isTrue();
+    assertThat(rateLimiter.tryAcquire()).isTrue();
+    assertThat(rateLimiter.tryAcquire()).isFalse();
+    clock.addAndGet(500_000_000L);
+    assertThat(rateLimiter.tryAcquire()).isTrue();
+    assertThat(rateLimiter.tryAcquire()).isFalse();
+  }
+
+  private SamplingDecision decide(Context parent, Attributes attributes) {
+    return sampler.shouldSample(parent, TRACE_ID, "span", SpanKind.SERVER, attributes, Collections.emptyList())
+        .getDecision();
+  }
+}
@@ -0,0 +1,73 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.SpanAttributePlacement.Placement.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanAttributePlacementTest {
+
+  private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder().build();
+  private final SpanAttributePlacement placement = SpanAttributePlacement.of(
+      Arrays.asList("mule.correlationId", "http.listener.*", " "), Arrays.asList("mule.app.processor.configRef",
+          "http.listener.secret"));
+
+  @After
+  public void tearDown() {
+    tracerProvider.close();
+  }
+
+  @Test
+  public void noKeysPlacesOnAllSpans() {
+    assertThat(SpanAttributePlacement.of(null, Collections.emptyList()))
+        .isSameAs(SpanAttributePlacement.ALL_SPANS);
+    assertThat(SpanAttributePlacement.ALL_SPANS.isPlaced("mule.correlationId", false)).isTrue();
+  }
+
+  @Test
+  public void placementOfKeys() {
+    assertThat(placement.placementOf("mule.correlationId")).isEqualTo(ROOT_SPAN_ONLY);
+    assertThat(placement.placementOf("http.listener.path")).isEqualTo(ROOT_SPAN_ONLY);
+    assertThat(placement.placementOf("http.listener.secret")).as("Dropped wins").isEqualTo(DROPPED);
+    assertThat(placement.placementOf("mule.app.processor.configRef")).isEqualTo(DROPPED);
+    assertThat(placement.placementOf("mule.app.processor.name")).isEqualTo(ALL_SPANS);
+    assertThat(placement.placementOf("")).isEqualTo(ALL_SPANS);
+  }
+
+  @Test
+  public void setsPlacedAttributes() {
+    Map<String, String> tags = new HashMap<>();
+    tags.put("mule.correlationId", "tx-1");
+    tags.put("mule.app.processor.configRef", "HTTP_Config");
+    tags.put("mule.app.processor.name", "request");
+
+    SpanData root = spanData(placement, tags, true);
+    assertThat(root.getAttributes().asMap()).containsOnlyKeys(AttributeKey.stringKey("mule.correlationId"),
+        AttributeKey.stringKey("mule.app.processor.name"));
+    SpanData child = spanData(placement, tags, false);
+    assertThat(child.getAttributes().asMap()).containsOnlyKeys(AttributeKey.stringKey("mule.app.processor.name"));
+
+    Span span = tracerProvider.get("test").spanBuilder("span").startSpan();
+    placement.setAttributes(span, tags, false);
+    placement.setAttributes(span, null, false);
+    assertThat(((ReadableSpan) span).toSpanData().getAttributes().size()).isEqualTo(1);
+  }
+
+  private SpanData spanData(SpanAttributePlacement placement, Map<String, String> tags, boolean rootSpan) {
+    SpanBuilder builder = tracerProvider.get("test").spanBuilder("span");
+    placement.setAttributes(builder, tags, rootSpan);
+    return ((ReadableSpan) builder.startSpan()).toSpanData();
+  }
+}
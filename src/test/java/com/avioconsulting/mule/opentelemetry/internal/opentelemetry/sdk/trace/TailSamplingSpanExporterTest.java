@@ -0,0 +1,148 @@
+package com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace;
+
+import com.avioconsulting.mule.opentelemetry.api.config.TailSamplingConfiguration;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class TailSamplingSpanExporterTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+  private static final String ROOT_SPAN_ID = "00f067aa0ba902b7";
+
+  private SpanExporter delegate;
+  private List<SpanData> exported;
+
+  @Before
+  public void setUp() {
+    delegate = mock(SpanExporter.class);
+    exported = new ArrayList<>();
+    when(delegate.export(anyCollection())).thenAnswer(invocation -> {
+      exported.addAll(invocation.getArgument(0));
+      return CompletableResultCode.ofSuccess();
+    });
+  }
+
+  @Test
+  public void dropsFastSuccessfulTransaction() {
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 10));
+    exporter.export(Arrays.asList(childSpan(TRACE_ID), rootSpan(TRACE_ID, StatusData.unset(), 10)));
+    assertThat(exported).isEmpty();
+    assertThat(exporter.getPendingTraceCount()).isZero();
+  }
+
+  @Test
+  public void keepsErroredTransaction() {
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 10));
+    SpanData child = childSpan(TRACE_ID);
+    exporter.export(Arrays.asList(child));
+    assertThat(exported).isEmpty();
+    SpanData root = rootSpan(TRACE_ID, StatusData.error(), 10);
+    exporter.export(Arrays.asList(root));
+    assertThat(exported).containsExactly(child, root);
+  }
+
+  @Test
+  public void keepsSlowTransaction() {
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 10));
+    SpanData child = childSpan(TRACE_ID);
+    SpanData root = rootSpan(TRACE_ID, StatusData.unset(), 1500);
+    exporter.export(Arrays.asList(child, root));
+    assertThat(exported).containsExactly(child, root);
+  }
+
+  @Test
+  public void keepsBaselineTransaction() {
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 1.0, 10));
+    SpanData root = rootSpan(TRACE_ID, StatusData.unset(), 10);
+    exporter.export(Arrays.asList(root));
+    assertThat(exported).containsExactly(root);
+  }
+
+  @Test
+  public void lateSpansFollowRootDecision() {
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 10));
+    exporter.export(Arrays.asList(rootSpan(TRACE_ID, StatusData.unset(), 10)));
+    exporter.export(Arrays.asList(childSpan(TRACE_ID)));
+    assertThat(exported).isEmpty();
+    assertThat(exporter.getPendingTraceCount()).isZero();
+  }
+
+  @Test
+  public void evictsOldestPendingTraceWhenFull() {
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 1));
+    SpanData first = childSpan(TRACE_ID);
+    SpanData second = childSpan("5bf92f3577b34da6a3ce929d0e0e4736");
+    exporter.export(Arrays.asList(first, second));
+    assertThat(exported).containsExactly(first);
+    assertThat(exporter.getPendingTraceCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shutdownExportsPendingSpans() {
+    when(delegate.shutdown()).thenReturn(CompletableResultCode.ofSuccess());
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 10));
+    SpanData child = childSpan(TRACE_ID);
+    exporter.export(Arrays.asList(child));
+    exporter.shutdown();
+    assertThat(exported).containsExactly(child);
+    verify(delegate).shutdown();
+  }
+
+  @Test
+  public void shutdownWaitsForPendingExportWithoutBlocking() {
+    CompletableResultCode pendingExport = new CompletableResultCode();
+    when(delegate.export(anyCollection())).thenReturn(pendingExport);
+    when(delegate.shutdown()).thenReturn(CompletableResultCode.ofSuccess());
+    TailSamplingSpanExporter exporter = new TailSamplingSpanExporter(delegate,
+        new TailSamplingConfiguration(true, 1000, 0.0, 10));
+    exporter.export(Arrays.asList(childSpan(TRACE_ID)));
+    CompletableResultCode shutdown = exporter.shutdown();
+    assertThat(shutdown.isDone()).isFalse();
+    verify(delegate, never()).shutdown();
+
+    pendingExport.succeed();
+    assertThat(shutdown.isSuccess()).isTrue();
+    verify(delegate).shutdown();
+  }
+
+  private SpanData rootSpan(String traceId, StatusData status, long durationMillis) {
+    SpanData span = mock(SpanData.class);
+    when(span.getTraceId()).thenReturn(traceId);
+    when(span.getParentSpanContext()).thenReturn(SpanContext.getInvalid());
+    when(span.getStatus()).thenReturn(status);
+    when(span.getStartEpochNanos()).thenReturn(0L);
+    when(span.getEndEpochNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(durationMillis));
+    return span;
+  }
+
+  private SpanData childSpan(String traceId) {
+    SpanData span = mock(SpanData.class);
+    when(span.getTraceId()).thenReturn(traceId);
+    when(span.getParentSpanContext())
+        .thenReturn(SpanContext.create(traceId, ROOT_SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault()));
+    return span;
+  }
+}
@@ -0,0 +1,35 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnypointMQProcessorComponentTest {
+
+  @Test
+  public void publishTimestampFromMessageProperties() {
+    assertThat(AnypointMQProcessorComponent
+        .getPublishTimestamp(Collections.singletonMap("publishTimestamp", "1700000000000")))
+        .isEqualTo(1700000000000L);
+    assertThat(AnypointMQProcessorComponent
+        .getPublishTimestamp(Collections.singletonMap("publishTimestamp", "2023-11-14T22:13:20Z")))
+        .isEqualTo(1700000000000L);
+    assertThat(AnypointMQProcessorComponent
+        .getPublishTimestamp(Collections.singletonMap("created", "Tue, 14 Nov 2023 22:13:20 GMT")))
+        .isEqualTo(1700000000000L);
+  }
+
+  @Test
+  public void publishTimestampPrefersValidProperty() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("publishTimestamp", "not a timestamp");
+    properties.put("created", "1700000000000");
+    assertThat(AnypointMQProcessorComponent.getPublishTimestamp(properties)).isEqualTo(1700000000000L);
+    assertThat(AnypointMQProcessorComponent.getPublishTimestamp(Collections.emptyMap())).isNull();
+    assertThat(AnypointMQProcessorComponent.getPublishTimestamp(null)).isNull();
+  }
+}
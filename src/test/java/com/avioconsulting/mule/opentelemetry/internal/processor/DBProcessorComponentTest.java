@@ -9,7 +9,11 @@ import org.mule.runtime.api.component.ComponentIdentifier;
 import org.mule.runtime.api.component.location.ComponentLocation;
 import org.mule.runtime.api.component.location.ConfigurationComponentLocator;
 import org.mule.runtime.api.component.location.Location;
+import org.mule.runtime.api.event.Event;
+import org.mule.runtime.api.event.EventContext;
+import org.mule.runtime.api.notification.MessageProcessorNotification;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -100,4 +104,100 @@ public class DBProcessorComponentTest extends AbstractProcessorComponentTest {
         .containsEntry("db.statement", "select * from test")
         .containsEntry("db.operation", "select");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testAffectedRowsFromOperationResult() {
+    assertThat(DBProcessorComponent.getAffectedRows(3)).isEqualTo(3L);
+    assertThat(DBProcessorComponent.getAffectedRows(new int[] { 1, 2, -2 })).isEqualTo(3L);
+    assertThat(DBProcessorComponent.getAffectedRows(new StatementResult(5))).isEqualTo(5L);
+    assertThat(DBProcessorComponent.getAffectedRows("a payload")).isNull();
+    assertThat(DBProcessorComponent.getAffectedRows(null)).isNull();
+  }
+
+  @Test
+  public void testAffectedRowsFromCapturedOperationResultOnly() {
+    Event event = event("testCorrelationId", "testEventId");
+    ComponentLocation componentLocation = getComponentLocation("db", "update");
+    Component component = getComponent(componentLocation, Collections.emptyMap(), "db", "update");
+    DBProcessorComponent dbProcessorComponent = new DBProcessorComponent();
+
+    // Input of the operation isn't its result
+    assertThat(dbProcessorComponent.getEndTraceComponent(notification(event, componentLocation, component))
+        .getTags()).doesNotContainKey("db.affected_rows");
+
+    dbProcessorComponent.captureOperationResult("testCorrelationId", "testEventId", "test/processors/0", 2);
+    assertThat(dbProcessorComponent.getEndTraceComponent(notification(event, componentLocation, component))
+        .getTags()).containsEntry("db.affected_rows", "2");
+    assertThat(dbProcessorComponent.getEndTraceComponent(notification(event, componentLocation, component))
+        .getTags()).as("Result is used once").doesNotContainKey("db.affected_rows");
+  }
+
+  @Test
+  public void testAffectedRowsOfConcurrentExecutionsInTransaction() {
+    ComponentLocation componentLocation = getComponentLocation("db", "update");
+    Component component = getComponent(componentLocation, Collections.emptyMap(), "db", "update");
+    DBProcessorComponent dbProcessorComponent = new DBProcessorComponent();
+    dbProcessorComponent.captureOperationResult("testCorrelationId", "route-1", "test/processors/0", 1);
+    dbProcessorComponent.captureOperationResult("testCorrelationId", "route-2", "test/processors/0", 2);
+
+    assertThat(dbProcessorComponent.getEndTraceComponent(
+        notification(event("testCorrelationId", "route-2"), componentLocation, component)).getTags())
+            .containsEntry("db.affected_rows", "2");
+    assertThat(dbProcessorComponent.getEndTraceComponent(
+        notification(event("testCorrelationId", "route-1"), componentLocation, component)).getTags())
+            .containsEntry("db.affected_rows", "1");
+  }
+
+  @Test
+  public void testEvictsOldestUnconsumedResults() {
+    ComponentLocation componentLocation = getComponentLocation("db", "update");
+    Component component = getComponent(componentLocation, Collections.emptyMap(), "db", "update");
+    DBProcessorComponent dbProcessorComponent = new DBProcessorComponent();
+    for (int i = 0; i <= DBProcessorComponent.MAX_PENDING_RESULTS; i++) {
+      dbProcessorComponent.captureOperationResult("abandoned-" + i, "testEventId", "test/processors/0", 1);
+    }
+    assertThat(dbProcessorComponent.getPendingResultsCount()).isEqualTo(DBProcessorComponent.MAX_PENDING_RESULTS);
+
+    dbProcessorComponent.captureOperationResult("testCorrelationId", "testEventId", "test/processors/0", 3);
+    assertThat(dbProcessorComponent.getEndTraceComponent(
+        notification(event("testCorrelationId", "testEventId"), componentLocation, component)).getTags())
+            .as("Capture continues after the limit").containsEntry("db.affected_rows", "3");
+  }
+
+  @Test
+  public void testHasAffectedRows() {
+    assertThat(DBProcessorComponent.hasAffectedRows(getMockedIdentifier("db", "insert"))).isTrue();
+    assertThat(DBProcessorComponent.hasAffectedRows(getMockedIdentifier("db", "bulk-update"))).isTrue();
+    assertThat(DBProcessorComponent.hasAffectedRows(getMockedIdentifier("db", "select"))).isFalse();
+    assertThat(DBProcessorComponent.hasAffectedRows(getMockedIdentifier("db", "stored-procedure"))).isFalse();
+    assertThat(DBProcessorComponent.hasAffectedRows(getMockedIdentifier("mule", "insert"))).isFalse();
+  }
+
+  private static Event event(String correlationId, String eventId) {
+    Event event = mock(Event.class);
+    EventContext eventContext = mock(EventContext.class);
+    when(eventContext.getId()).thenReturn(eventId);
+    when(event.getContext()).thenReturn(eventContext);
+    when(event.getCorrelationId()).thenReturn(correlationId);
+    when(event.getError()).thenReturn(Optional.empty());
+    return event;
+  }
+
+  private static MessageProcessorNotification notification(Event event, ComponentLocation componentLocation,
+      Component component) {
+    return MessageProcessorNotification.createFrom(event, componentLocation, component, (Exception) null,
+        MessageProcessorNotification.MESSAGE_PROCESSOR_POST_INVOKE);
+  }
+
+  public static class StatementResult {
+    private final int affectedRows;
+
+    public StatementResult(int affectedRows) {
+      this.affectedRows = affectedRows;
+    }
+
+    public int getAffectedRows() {
+      return affectedRows;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.avioconsulting.mule.opentelemetry.internal.processor;
 import com.avioconsulting.mule.opentelemetry.api.config.MuleComponent;
 import com.avioconsulting.mule.opentelemetry.api.config.TraceLevelConfiguration;
 import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
+import com.avioconsulting.mule.opentelemetry.internal.store.TransactionStore;
 import org.junit.Test;
 import org.mule.runtime.api.component.Component;
 import org.mule.runtime.api.component.location.ComponentLocation;
@@ -15,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 public class MuleNotificationProcessorTest extends AbstractProcessorComponentTest {
@@ -117,4 +120,29 @@ public class MuleNotificationProcessorTest extends AbstractProcessorComponentTes
     verifyNoMoreInteractions(connection);
   }
 
+  @Test
+  public void handleProcessorEndEvent_endsSpanStartedBeforeTraceLevelChange() {
+    Event event = mock(Event.class);
+    when(event.getCorrelationId()).thenReturn("testCorrelationId");
+    Message message = getMessage(null);
+    when(event.getMessage()).thenReturn(message);
+    ComponentLocation componentLocation = getComponentLocation("mule", "logger");
+    Component component = getComponent(componentLocation, Collections.emptyMap(), "mule", "logger");
+    MessageProcessorNotification notification = MessageProcessorNotification.createFrom(event, componentLocation,
+        component, null, MessageProcessorNotification.MESSAGE_PROCESSOR_POST_INVOKE);
+    OpenTelemetryConnection connection = mock(OpenTelemetryConnection.class);
+    when(connection.isTurnOffMetrics()).thenReturn(true);
+    TransactionStore transactionStore = mock(TransactionStore.class);
+    when(transactionStore.transactionIdFor(event)).thenReturn("testCorrelationId");
+    when(transactionStore.hasProcessorSpan("testCorrelationId", "test/processors/0")).thenReturn(true);
+    when(connection.getTransactionStore()).thenReturn(transactionStore);
+    MuleNotificationProcessor notificationProcessor = new MuleNotificationProcessor(configurationComponentLocator);
+    notificationProcessor.init(connection, new TraceLevelConfiguration(true, Collections.emptyList()));
+
+    notificationProcessor.setTraceLevelDecisions(TraceLevelDecisions.of(false, Collections.emptyList()));
+    notificationProcessor.handleProcessorEndEvent(notification);
+
+    verify(connection).endProcessorSpan(any(TraceComponent.class), isNull());
+  }
+
 }
\ No newline at end of file
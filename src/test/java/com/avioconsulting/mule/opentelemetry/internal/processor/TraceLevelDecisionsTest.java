@@ -0,0 +1,60 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor;
+
+import com.avioconsulting.mule.opentelemetry.api.config.MuleComponent;
+import org.junit.Test;
+import org.mule.runtime.api.component.ComponentIdentifier;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TraceLevelDecisionsTest {
+
+  @Test
+  public void isIgnored() {
+    TraceLevelDecisions decisions = TraceLevelDecisions.of(true,
+        Arrays.asList(new MuleComponent("mule", "logger"), new MuleComponent("OS", "*")));
+    assertThat(decisions.isIgnored(identifier("mule", "logger"))).isTrue();
+    assertThat(decisions.isIgnored(identifier("mule", "Logger"))).isTrue();
+    assertThat(decisions.isIgnored(identifier("mule", "set-payload"))).isFalse();
+    assertThat(decisions.isIgnored(identifier("os", "store"))).isTrue();
+    assertThat(decisions.isIgnored(identifier("http", "request"))).isFalse();
+  }
+
+  @Test
+  public void withChangesKeepsOriginal() {
+    TraceLevelDecisions decisions = TraceLevelDecisions.of(false, null);
+    TraceLevelDecisions changed = decisions.withSpanAllProcessors(true)
+        .withIgnoredComponents(TraceLevelDecisions.parseComponents("mule:logger"));
+    assertThat(decisions.isSpanAllProcessors()).isFalse();
+    assertThat(decisions.getIgnoredComponents()).isEmpty();
+    assertThat(changed.isSpanAllProcessors()).isTrue();
+    assertThat(changed.isIgnored(identifier("mule", "logger"))).isTrue();
+  }
+
+  @Test
+  public void parseAndFormatComponents() {
+    assertThat(TraceLevelDecisions.parseComponents(" mule:logger, os:* ,"))
+        .containsExactly(new MuleComponent("mule", "logger"), new MuleComponent("os", "*"));
+    assertThat(TraceLevelDecisions.parseComponents("")).isEmpty();
+    assertThat(TraceLevelDecisions.of(true, TraceLevelDecisions.parseComponents("mule:logger,os:*"))
+        .formatIgnoredComponents()).isEqualTo("mule:logger,os:*");
+  }
+
+  @Test
+  public void parseComponents_invalid() {
+    assertThatThrownBy(() -> TraceLevelDecisions.parseComponents("mule:logger,logger"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Component 'logger' must be in namespace:name format, name can be *");
+  }
+
+  private static ComponentIdentifier identifier(String namespace, String name) {
+    ComponentIdentifier identifier = mock(ComponentIdentifier.class);
+    when(identifier.getNamespace()).thenReturn(namespace);
+    when(identifier.getName()).thenReturn(name);
+    return identifier;
+  }
+}
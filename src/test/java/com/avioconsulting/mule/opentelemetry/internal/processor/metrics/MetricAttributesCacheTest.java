@@ -0,0 +1,44 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import org.junit.Test;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.ERROR_TYPE;
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_FLOW_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricAttributesCacheTest {
+
+  @Test
+  public void cachesVariantsPerKey() {
+    MetricAttributesCache cache = new MetricAttributesCache();
+    Attributes success = Attributes.of(MULE_APP_FLOW_NAME, "flow");
+    Attributes failure = Attributes.of(MULE_APP_FLOW_NAME, "flow", ERROR_TYPE, "java.lang.Exception");
+    assertThat(cache.get("flow", null, "http", null, null)).isNull();
+    cache.put("flow", null, "http", null, null, success);
+    cache.put("flow", "java.lang.Exception", "http", null, null, failure);
+
+    assertThat(cache.get("flow", null, "http", null, null)).isSameAs(success);
+    assertThat(cache.get("flow", "java.lang.Exception", "http", null, null)).isSameAs(failure);
+    assertThat(cache.get("flow", null, "scheduler", null, null)).isNull();
+  }
+
+  @Test
+  public void boundedByKeysAndVariants() {
+    MetricAttributesCache cache = new MetricAttributesCache(2);
+    cache.put("flow-1", null, null, null, null, Attributes.empty());
+    cache.put("flow-2", null, null, null, null, Attributes.empty());
+    Attributes attributes = Attributes.of(MULE_APP_FLOW_NAME, "flow-3");
+    assertThat(cache.put("flow-3", null, null, null, null, attributes)).isSameAs(attributes);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("flow-3", null, null, null, null)).isNull();
+
+    for (int i = 0; i < MetricAttributesCache.MAX_VARIANTS_PER_KEY + 1; i++) {
+      cache.put("flow-1", "error-" + i, null, null, null, Attributes.empty());
+    }
+    assertThat(cache.get("flow-1", "error-" + (MetricAttributesCache.MAX_VARIANTS_PER_KEY - 2), null, null, null))
+        .isNotNull();
+    assertThat(cache.get("flow-1", "error-" + MetricAttributesCache.MAX_VARIANTS_PER_KEY, null, null, null))
+        .isNull();
+  }
+}
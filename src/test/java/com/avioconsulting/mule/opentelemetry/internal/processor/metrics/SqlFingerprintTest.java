@@ -0,0 +1,41 @@
+package com.avioconsulting.mule.opentelemetry.internal.processor.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlFingerprintTest {
+
+  @Test
+  public void replacesLiteralsAndParameters() {
+    assertThat(SqlFingerprint.of("SELECT *\n  FROM testdb.users\tWHERE userId = 500 AND name = 'O''Neil'"))
+        .isEqualTo("select * from testdb.users where userid = ? and name = ?");
+    assertThat(SqlFingerprint.of("UPDATE users set username = :name where userId = :id"))
+        .isEqualTo("update users set username = ? where userid = ?");
+  }
+
+  @Test
+  public void foldsPlaceholderLists() {
+    assertThat(SqlFingerprint.of("delete from users where userId in (1, 2,3)"))
+        .isEqualTo("delete from users where userid in (?)");
+    assertThat(SqlFingerprint.of("INSERT INTO users (userId, username) values (500, 'User5')"))
+        .isEqualTo("insert into users (userid, username) values (?)");
+  }
+
+  @Test
+  public void keepsIdentifiersAndCasts() {
+    assertThat(SqlFingerprint.of("select \"Col1\", t2.col from table2 t2 where t2.id = 1::int"))
+        .isEqualTo("select \"Col1\", t2.col from table2 t2 where t2.id = ?::int");
+  }
+
+  @Test
+  public void capsLength() {
+    StringBuilder statement = new StringBuilder("select ");
+    for (int i = 0; i < 200; i++) {
+      statement.append("column").append(i).append(", ");
+    }
+    assertThat(SqlFingerprint.of(statement.append("x from t").toString())).hasSize(SqlFingerprint.MAX_LENGTH);
+    assertThat(SqlFingerprint.of(null)).isNull();
+    assertThat(SqlFingerprint.of("  ")).isNull();
+  }
+}
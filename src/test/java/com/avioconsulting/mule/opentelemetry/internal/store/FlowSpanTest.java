@@ -0,0 +1,320 @@
+package com.avioconsulting.mule.opentelemetry.internal.store;
+
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.trace.SpanAttributePlacement;
+import com.avioconsulting.mule.opentelemetry.internal.processor.TraceComponent;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_PROCESSOR_SUMMARY_COUNT;
+import static com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes.MULE_APP_PROCESSOR_SUMMARY_DURATION_MAX;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlowSpanTest {
+
+  private static final String LOCATION = "test-flow/processors/0/processors/0";
+  private final List<SpanData> exported = new ArrayList<>();
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+
+  @Before
+  public void setUp() {
+    tracerProvider = SdkTracerProvider.builder()
+        .addSpanProcessor(SimpleSpanProcessor.create(new SpanExporter() {
+          @Override
+          public CompletableResultCode export(Collection<SpanData> spans) {
+            exported.addAll(spans);
+            return CompletableResultCode.ofSuccess();
+          }
+
+          @Override
+          public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+          }
+
+          @Override
+          public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+          }
+        }))
+        .build();
+    tracer = tracerProvider.get("test");
+  }
+
+  @After
+  public void tearDown() {
+    tracerProvider.close();
+  }
+
+  @Test
+  public void createsSpanForEveryExecutionByDefault() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1");
+    for (int i = 0; i < 5; i++) {
+      execute(flowSpan, i, false);
+    }
+    flowSpan.endRepeatedProcessorSummaries();
+    assertThat(exported).hasSize(5);
+  }
+
+  @Test
+  public void foldsRepeatedExecutionsIntoSummary() {
+    Span root = tracer.spanBuilder("test-flow").startSpan();
+    FlowSpan flowSpan = new FlowSpan("test-flow", root, "tx-1").setMaxRepeatedProcessorSpans(2);
+    for (int i = 0; i < 5; i++) {
+      execute(flowSpan, i, i == 3);
+    }
+    assertThat(exported).as("First two and the failed execution").hasSize(3);
+
+    flowSpan.endRepeatedProcessorSummaries();
+    List<SpanData> summaries = exported.stream()
+        .filter(span -> span.getAttributes().get(MULE_APP_PROCESSOR_SUMMARY_COUNT) != null)
+        .collect(Collectors.toList());
+    assertThat(summaries).hasSize(1);
+    SpanData summary = summaries.get(0);
+    assertThat(summary.getAttributes().get(MULE_APP_PROCESSOR_SUMMARY_COUNT)).isEqualTo(2L);
+    assertThat(summary.getAttributes().get(MULE_APP_PROCESSOR_SUMMARY_DURATION_MAX)).isEqualTo(4.0);
+    assertThat(summary.getParentSpanId()).isEqualTo(root.getSpanContext().getSpanId());
+    assertThat(summary.getStartEpochNanos()).isEqualTo(2_000_000_000L);
+  }
+
+  @Test
+  public void dropsLoggedProcessorsOfFastTransaction() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1")
+        .setProcessorSpansLatencyThreshold(10_000);
+    for (int i = 0; i < 3; i++) {
+      execute(flowSpan, i, false);
+    }
+    assertThat(exported).isEmpty();
+    assertThat(flowSpan.endProcessorEventLog(Instant.ofEpochMilli(0), Instant.ofEpochMilli(3000))).isZero();
+    assertThat(exported).isEmpty();
+  }
+
+  @Test
+  public void materializesLoggedProcessorsOfSlowTransaction() {
+    Span root = tracer.spanBuilder("test-flow").startSpan();
+    FlowSpan flowSpan = new FlowSpan("test-flow", root, "tx-1").setProcessorSpansLatencyThreshold(1000);
+    Instant start = Instant.ofEpochMilli(0);
+    String scope = "test-flow/processors/0";
+    String child = "test-flow/processors/0/processors/0";
+    flowSpan.addProcessorSpan("test-flow", component("until-successful", scope, start),
+        tracer.spanBuilder("until-successful").setStartTimestamp(start));
+    flowSpan.addProcessorSpan(scope, component("set-payload", child, start.plusMillis(10)),
+        tracer.spanBuilder("set-payload").setStartTimestamp(start.plusMillis(10)));
+    flowSpan.endProcessorSpan(child, null, start.plusMillis(20));
+    flowSpan.endProcessorSpan(scope, null, start.plusMillis(1500));
+    assertThat(exported).isEmpty();
+
+    assertThat(flowSpan.endProcessorEventLog(start, start.plusMillis(1500))).isEqualTo(2);
+    SpanData scopeSpan = exported.stream().filter(span -> span.getName().equals("until-successful")).findFirst()
+        .get();
+    SpanData childSpan = exported.stream().filter(span -> span.getName().equals("set-payload")).findFirst().get();
+    assertThat(scopeSpan.getParentSpanId()).isEqualTo(root.getSpanContext().getSpanId());
+    assertThat(childSpan.getParentSpanId()).isEqualTo(scopeSpan.getSpanId());
+    assertThat(childSpan.getStartEpochNanos()).isEqualTo(10_000_000L);
+    assertThat(childSpan.getEndEpochNanos()).isEqualTo(20_000_000L);
+  }
+
+  @Test
+  public void materializesLoggedProcessorsOfFailedTransaction() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1")
+        .setProcessorSpansLatencyThreshold(10_000);
+    execute(flowSpan, 0, false);
+    execute(flowSpan, 1, true);
+    assertThat(flowSpan.endProcessorEventLog(Instant.ofEpochMilli(0), Instant.ofEpochMilli(2000)))
+        .isEqualTo(2);
+    assertThat(exported).extracting(span -> span.getStatus().getStatusCode())
+        .containsExactly(StatusCode.UNSET, StatusCode.ERROR);
+  }
+
+  @Test
+  public void createsLoggedSpansOnlyWhenMaterialized() {
+    List<String> created = new ArrayList<>();
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1")
+        .setProcessorSpansLatencyThreshold(10_000)
+        .setProcessorSpanFactory(new ProcessorSpanFactory() {
+          @Override
+          public SpanBuilder createSpanBuilder(TraceComponent traceComponent) {
+            created.add(traceComponent.getLocation());
+            return tracer.spanBuilder(traceComponent.getName())
+                .setStartTimestamp(traceComponent.getStartTime());
+          }
+
+          @Override
+          public void applyEnd(Span span, TraceComponent endComponent, Throwable exception) {
+            ProcessorSpanFactory.DEFAULT.applyEnd(span, endComponent, exception);
+          }
+        });
+    Instant start = Instant.ofEpochMilli(0);
+    flowSpan.addProcessorSpan("test-flow", flowRef("test-flow/processors/0", "sub-flow", start));
+    flowSpan.addProcessorSpan(null, component("sub-flow", "sub-flow", start.plusMillis(1)));
+    flowSpan.addProcessorSpan("sub-flow", component("set-payload", "sub-flow/processors/0", start.plusMillis(2)));
+    SpanMeta ended = flowSpan.endProcessorSpan("sub-flow/processors/0",
+        component("set-payload", "sub-flow/processors/0", start), null, null, start.plusMillis(3));
+    flowSpan.endProcessorSpan("sub-flow",
+        component("sub-flow", "sub-flow", start).withStatsCode(StatusCode.ERROR),
+        new RuntimeException("failed"), null, start.plusMillis(4));
+    flowSpan.endProcessorSpan("test-flow/processors/0", null, null, null, start.plusMillis(5));
+    assertThat(created).isEmpty();
+    assertThat(ended.getStartTime()).isEqualTo(start.plusMillis(2));
+    assertThat(ended.getEndTime()).isEqualTo(start.plusMillis(3));
+
+    assertThat(flowSpan.endProcessorEventLog(start, start.plusMillis(10))).isEqualTo(3);
+    assertThat(created).hasSize(3);
+    SpanData flowRef = exported.stream().filter(span -> span.getName().equals("flow-ref-sub-flow")).findFirst()
+        .get();
+    SpanData subFlow = exported.stream().filter(span -> span.getName().equals("sub-flow")).findFirst().get();
+    SpanData setPayload = exported.stream().filter(span -> span.getName().equals("set-payload")).findFirst().get();
+    assertThat(subFlow.getParentSpanId()).isEqualTo(flowRef.getSpanId());
+    assertThat(setPayload.getParentSpanId()).isEqualTo(subFlow.getSpanId());
+    assertThat(subFlow.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+    assertThat(subFlow.getEvents()).extracting(EventData::getName).containsExactly("exception");
+    assertThat(subFlow.getEndEpochNanos()).isEqualTo(4_000_000L);
+  }
+
+  @Test
+  public void parentsLoggedFlowsToTheirInterleavedFlowRefs() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1")
+        .setProcessorSpansLatencyThreshold(0)
+        .setProcessorSpanFactory(new ProcessorSpanFactory() {
+          @Override
+          public SpanBuilder createSpanBuilder(TraceComponent traceComponent) {
+            return tracer.spanBuilder(traceComponent.getName());
+          }
+
+          @Override
+          public void applyEnd(Span span, TraceComponent endComponent, Throwable exception) {
+          }
+        });
+    Instant start = Instant.ofEpochMilli(0);
+    // Scatter-gather routes start both flow-refs before either flow starts
+    flowSpan.addProcessorSpan("test-flow", flowRef("test-flow/processors/0/route/0/processors/0", "flow-a", start));
+    flowSpan.addProcessorSpan("test-flow", flowRef("test-flow/processors/0/route/1/processors/0", "flow-b", start));
+    flowSpan.addProcessorSpan(null, component("flow-a", "flow-a", start.plusMillis(1)));
+    flowSpan.addProcessorSpan(null, component("flow-b", "flow-b", start.plusMillis(1)));
+    flowSpan.addProcessorSpan("flow-a", component("logger-a", "flow-a/processors/0", start.plusMillis(2)));
+    flowSpan.addProcessorSpan("flow-b", component("logger-b", "flow-b/processors/0", start.plusMillis(2)));
+    for (String location : new String[] { "flow-a/processors/0", "flow-b/processors/0", "flow-a", "flow-b",
+        "test-flow/processors/0/route/0/processors/0", "test-flow/processors/0/route/1/processors/0" }) {
+      flowSpan.endProcessorSpan(location, null, null, null, start.plusMillis(3));
+    }
+
+    assertThat(flowSpan.endProcessorEventLog(start, start.plusMillis(10))).isEqualTo(6);
+    assertThat(parentName("flow-a")).isEqualTo("flow-ref-flow-a");
+    assertThat(parentName("flow-b")).isEqualTo("flow-ref-flow-b");
+    assertThat(parentName("logger-a")).isEqualTo("flow-a");
+    assertThat(parentName("logger-b")).isEqualTo("flow-b");
+  }
+
+  @Test
+  public void hasProcessorSpanUntilEnded() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1");
+    FlowSpan loggedFlowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-2")
+        .setProcessorSpansLatencyThreshold(10_000);
+    for (FlowSpan span : new FlowSpan[] { flowSpan, loggedFlowSpan }) {
+      Instant start = Instant.ofEpochMilli(0);
+      span.addProcessorSpan("test-flow", component("set-payload", LOCATION, start),
+          tracer.spanBuilder("set-payload").setStartTimestamp(start));
+      assertThat(span.hasProcessorSpan(LOCATION)).isTrue();
+      span.endProcessorSpan(LOCATION, null, start.plusMillis(1));
+      assertThat(span.hasProcessorSpan(LOCATION)).isFalse();
+    }
+  }
+
+  @Test
+  public void materializesFailedDeferredFlow() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1")
+        .setMaxRepeatedProcessorSpans(1);
+    for (int i = 0; i < 2; i++) {
+      Instant start = Instant.ofEpochMilli(i * 1000L);
+      flowSpan.addProcessorSpan(null, component("sub-flow", "sub-flow", start),
+          tracer.spanBuilder("sub-flow").setStartTimestamp(start));
+      flowSpan.endProcessorSpan("sub-flow",
+          component("sub-flow", "sub-flow", start).withStatsCode(i == 1 ? StatusCode.ERROR : StatusCode.UNSET),
+          i == 1 ? new RuntimeException("failed") : null, null, start.plusMillis(5));
+    }
+    flowSpan.endRepeatedProcessorSummaries();
+
+    assertThat(exported).hasSize(2);
+    assertThat(exported.get(1).getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+    assertThat(exported.get(1).getEvents()).extracting(EventData::getName).containsExactly("exception");
+  }
+
+  @Test
+  public void appliesAttributePlacementToDeferredEndTags() {
+    FlowSpan flowSpan = new FlowSpan("test-flow", tracer.spanBuilder("test-flow").startSpan(), "tx-1")
+        .setMaxRepeatedProcessorSpans(1);
+    execute(flowSpan, 0, false);
+    Instant start = Instant.ofEpochMilli(1000);
+    flowSpan.addProcessorSpan("test-flow", component("set-payload", LOCATION, start),
+        tracer.spanBuilder("set-payload").setStartTimestamp(start));
+    TraceComponent end = component("set-payload", LOCATION, start).withStatsCode(StatusCode.ERROR);
+    end.getTags().put("mule.correlationId", "tx-1");
+    end.getTags().put("error.type", "MULE:ANY");
+    SpanAttributePlacement placement = SpanAttributePlacement.of(Collections.singletonList("mule.correlationId"),
+        null);
+    flowSpan.setProcessorSpanFactory(new ProcessorSpanFactory() {
+      @Override
+      public SpanBuilder createSpanBuilder(TraceComponent traceComponent) {
+        return tracer.spanBuilder(traceComponent.getName());
+      }
+
+      @Override
+      public void applyEnd(Span span, TraceComponent endComponent, Throwable exception) {
+        placement.setAttributes(span, endComponent.getTags(), false);
+      }
+    });
+    flowSpan.endProcessorSpan(LOCATION, end, null, null, start.plusMillis(5));
+
+    assertThat(exported).hasSize(2);
+    assertThat(exported.get(1).getAttributes().get(AttributeKey.stringKey("error.type"))).isEqualTo("MULE:ANY");
+    assertThat(exported.get(1).getAttributes().get(AttributeKey.stringKey("mule.correlationId"))).isNull();
+  }
+
+  private TraceComponent component(String name, String location, Instant start) {
+    return TraceComponent.named(name)
+        .withLocation(location)
+        .withTransactionId("tx-1")
+        .withTags(new HashMap<>())
+        .withStartTime(start);
+  }
+
+  private TraceComponent flowRef(String location, String flowName, Instant start) {
+    TraceComponent flowRef = component("flow-ref-" + flowName, location, start);
+    flowRef.getTags().put("mule.app.processor.flowRef.name", flowName);
+    return flowRef;
+  }
+
+  private String parentName(String name) {
+    SpanData span = exported.stream().filter(s -> s.getName().equals(name)).findFirst().get();
+    return exported.stream().filter(s -> s.getSpanId().equals(span.getParentSpanId())).findFirst()
+        .map(SpanData::getName).orElse(null);
+  }
+
+  private void execute(FlowSpan flowSpan, int iteration, boolean fail) {
+    Instant start = Instant.ofEpochMilli(iteration * 1000L);
+    flowSpan.addProcessorSpan("test-flow", component("set-payload", LOCATION, start),
+        tracer.spanBuilder("set-payload").setStartTimestamp(start));
+    flowSpan.endProcessorSpan(LOCATION,
+        fail ? component("set-payload", LOCATION, start).withStatsCode(StatusCode.ERROR) : null,
+        fail ? new RuntimeException("failed") : null, null, start.plusMillis(iteration));
+  }
+}
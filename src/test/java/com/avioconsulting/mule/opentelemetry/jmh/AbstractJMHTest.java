@@ -12,12 +12,16 @@ import org.mule.runtime.api.metadata.DataType;
 import org.mule.runtime.api.metadata.TypedValue;
 import org.mule.runtime.api.security.Authentication;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.Profiler;
 import org.openjdk.jmh.runner.Runner;
-import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.TimeValue;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -30,7 +34,7 @@ public abstract class AbstractJMHTest {
   @Test
   public void runBenchmarks() throws Exception {
     Assume.assumeTrue(System.getProperty("runJMH", "false").equals("true"));
-    Options options = new OptionsBuilder()
+    ChainedOptionsBuilder options = new OptionsBuilder()
         .include(getClass().getSimpleName().concat(".*"))
         .mode(Mode.Throughput)
         .warmupTime(TimeValue.seconds(1))
@@ -39,10 +43,20 @@ public abstract class AbstractJMHTest {
         .measurementIterations(getIterations())
         .forks(1)
         .shouldFailOnError(true)
-        .shouldDoGC(true)
-        .build();
+        .shouldDoGC(true);
+    getProfilers().forEach(options::addProfiler);
 
-    new Runner(options).run();
+    new Runner(options.build()).run();
+  }
+
+  /**
+   * Profilers to run with the benchmarks, eg. {@link GCProfiler} to measure
+   * allocation rate.
+   *
+   * @return List of profiler classes
+   */
+  public List<Class<? extends Profiler>> getProfilers() {
+    return Collections.emptyList();
   }
 
   public int getWarmupIterations() {
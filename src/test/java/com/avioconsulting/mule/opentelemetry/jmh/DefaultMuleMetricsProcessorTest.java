@@ -0,0 +1,79 @@
+package com.avioconsulting.mule.opentelemetry.jmh;
+
+import com.avioconsulting.mule.opentelemetry.api.config.ExporterConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.OpenTelemetryResource;
+import com.avioconsulting.mule.opentelemetry.api.config.SpanProcessorConfiguration;
+import com.avioconsulting.mule.opentelemetry.api.config.exporter.LoggingExporter;
+import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryConfigWrapper;
+import com.avioconsulting.mule.opentelemetry.internal.config.OpenTelemetryExtensionConfiguration;
+import com.avioconsulting.mule.opentelemetry.internal.connection.OpenTelemetryConnection;
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.SemanticAttributes;
+import com.avioconsulting.mule.opentelemetry.internal.processor.metrics.DefaultMuleMetricsProcessor;
+import com.avioconsulting.mule.opentelemetry.internal.store.ProcessorSpan;
+import io.opentelemetry.api.trace.Span;
+import org.mule.runtime.api.component.Component;
+import org.mule.runtime.api.component.ComponentIdentifier;
+import org.mule.runtime.api.message.Error;
+import org.mule.runtime.api.message.ErrorType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.Profiler;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DefaultMuleMetricsProcessorTest extends AbstractJMHTest {
+
+  public static final String LOCATION = "test-1-flow/processors/0";
+  DefaultMuleMetricsProcessor metricsProcessor;
+  Component component;
+  Error error;
+  ProcessorSpan processorSpan;
+
+  @Setup
+  public void setup() {
+    OpenTelemetryConfigWrapper wrapper = new OpenTelemetryConfigWrapper(new OpenTelemetryExtensionConfiguration()
+        .setResource(new OpenTelemetryResource())
+        .setExporterConfiguration(new ExporterConfiguration().setExporter(new LoggingExporter()))
+        .setSpanProcessorConfiguration(new SpanProcessorConfiguration()));
+    OpenTelemetryConnection connection = OpenTelemetryConnection.getInstance(wrapper);
+    metricsProcessor = new DefaultMuleMetricsProcessor(connection, Collections.singletonList(LOCATION));
+
+    ComponentIdentifier identifier = ComponentIdentifier.buildFromStringRepresentation("http:request");
+    component = mock(Component.class, withSettings().stubOnly());
+    when(component.getIdentifier()).thenReturn(identifier);
+    ErrorType errorType = mock(ErrorType.class, withSettings().stubOnly());
+    when(errorType.getIdentifier()).thenReturn("CONNECTIVITY");
+    error = mock(Error.class, withSettings().stubOnly());
+    when(error.getErrorType()).thenReturn(errorType);
+
+    Instant startTime = Instant.now();
+    processorSpan = new ProcessorSpan(Span.getInvalid(), LOCATION, "test-1", startTime, "test-1-flow");
+    processorSpan.setEndTime(startTime.plusMillis(5));
+    processorSpan.getTags().put(SemanticAttributes.MULE_APP_PROCESSOR_CONFIG_REF.getKey(), "HTTP_Request_config");
+  }
+
+  @Override
+  public List<Class<? extends Profiler>> getProfilers() {
+    return Collections.singletonList(GCProfiler.class);
+  }
+
+  @Benchmark
+  public void captureProcessorMetrics() {
+    metricsProcessor.captureProcessorMetrics(component, null, LOCATION, processorSpan);
+  }
+
+  @Benchmark
+  public void captureProcessorMetricsWithError() {
+    metricsProcessor.captureProcessorMetrics(component, error, LOCATION, processorSpan);
+  }
+}
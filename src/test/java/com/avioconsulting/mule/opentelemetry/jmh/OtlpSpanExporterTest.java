@@ -0,0 +1,138 @@
+package com.avioconsulting.mule.opentelemetry.jmh;
+
+import com.avioconsulting.mule.opentelemetry.internal.opentelemetry.sdk.export.OtlpStreamingHttpSpanExporter;
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.Profiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares exporting a batch of Mule like spans with the stock OTLP HTTP
+ * exporter and the module's streaming exporter, both posting to a local
+ * collector stand-in that only drains the request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class OtlpSpanExporterTest extends AbstractJMHTest {
+
+  private static final int BATCH_SIZE = 512;
+
+  private HttpServer collector;
+  private SpanExporter otlpExporter;
+  private SpanExporter streamingExporter;
+  private List<SpanData> batch;
+
+  @Setup
+  public void setup() throws IOException {
+    collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    collector.createContext("/v1/traces", exchange -> {
+      byte[] buffer = new byte[8192];
+      try (InputStream in = exchange.getRequestBody()) {
+        while (in.read(buffer) != -1) {
+          // discard
+        }
+      }
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    collector.start();
+    String endpoint = "http://localhost:" + collector.getAddress().getPort() + "/v1/traces";
+    otlpExporter = OtlpHttpSpanExporter.builder().setEndpoint(endpoint).build();
+    streamingExporter = new OtlpStreamingHttpSpanExporter.Provider().createExporter(DefaultConfigProperties
+        .createFromMap(Collections.singletonMap("otel.exporter.otlp.traces.endpoint", endpoint)));
+    batch = spans();
+  }
+
+  @TearDown
+  public void tearDown() {
+    otlpExporter.shutdown().join(10, TimeUnit.SECONDS);
+    streamingExporter.shutdown().join(10, TimeUnit.SECONDS);
+    collector.stop(0);
+  }
+
+  @Override
+  public List<Class<? extends Profiler>> getProfilers() {
+    return Collections.singletonList(GCProfiler.class);
+  }
+
+  @Benchmark
+  public boolean otlpHttpSpanExporter() {
+    return otlpExporter.export(batch).join(10, TimeUnit.SECONDS).isSuccess();
+  }
+
+  @Benchmark
+  public boolean otlpStreamingHttpSpanExporter() {
+    return streamingExporter.export(batch).join(10, TimeUnit.SECONDS).isSuccess();
+  }
+
+  /**
+   * Flow spans with processor spans, carrying the repeated tags processor spans
+   * copy from their flow.
+   */
+  private static List<SpanData> spans() {
+    List<SpanData> spans = new ArrayList<>(BATCH_SIZE);
+    try (SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .setResource(Resource.getDefault().merge(Resource.create(Attributes.builder()
+            .put("service.name", "order-api").put("mule.app.domain", "default")
+            .put("mule.env", "production").build())))
+        .addSpanProcessor(SimpleSpanProcessor.create(new SpanExporter() {
+          @Override
+          public CompletableResultCode export(Collection<SpanData> exported) {
+            spans.addAll(exported);
+            return CompletableResultCode.ofSuccess();
+          }
+
+          @Override
+          public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+          }
+
+          @Override
+          public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+          }
+        })).build()) {
+      Tracer tracer = tracerProvider.get("mule-opentelemetry-module", "2.0.0");
+      while (spans.size() < BATCH_SIZE) {
+        Span flow = tracer.spanBuilder("GET /api/orders").setSpanKind(SpanKind.SERVER)
+            .setAttribute("mule.app.flow.name", "get:\\orders:order-api-config")
+            .setAttribute("mule.correlationId", "6b2c1f3e-5d7a-11ee-8c99-0242ac120002")
+            .setAttribute("http.method", "GET").setAttribute("http.status_code", 200L).startSpan();
+        for (int i = 0; i < 7; i++) {
+          tracer.spanBuilder("mule:logger").setParent(Context.root().with(flow))
+              .setAttribute("mule.app.flow.name", "get:\\orders:order-api-config")
+              .setAttribute("mule.app.processor.name", "logger")
+              .setAttribute("mule.app.processor.namespace", "mule")
+              .setAttribute("mule.app.processor.docName", "Log request " + i)
+              .setAttribute("mule.correlationId", "6b2c1f3e-5d7a-11ee-8c99-0242ac120002")
+              .startSpan().end();
+        }
+        flow.end();
+      }
+    }
+    return spans;
+  }
+}